@@ -41,6 +41,7 @@ import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
 import com.oracle.graal.asm.amd64.AMD64Assembler.SSEOp;
 import com.oracle.graal.compiler.common.LIRKind;
 import com.oracle.graal.compiler.common.calc.Condition;
+import com.oracle.graal.compiler.common.calc.VectorOperation;
 import com.oracle.graal.compiler.common.spi.ForeignCallLinkage;
 import com.oracle.graal.compiler.common.spi.LIRKindTool;
 import com.oracle.graal.compiler.common.util.Util;
@@ -70,6 +71,7 @@ import com.oracle.graal.lir.amd64.AMD64Move.CompareAndSwapOp;
 import com.oracle.graal.lir.amd64.AMD64Move.MembarOp;
 import com.oracle.graal.lir.amd64.AMD64Move.StackLeaOp;
 import com.oracle.graal.lir.amd64.AMD64PauseOp;
+import com.oracle.graal.lir.amd64.AMD64VectorizedArrayOps;
 import com.oracle.graal.lir.gen.LIRGenerationResult;
 import com.oracle.graal.lir.gen.LIRGenerator;
 import com.oracle.graal.phases.util.Providers;
@@ -412,6 +414,21 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
         return result;
     }
 
+    @Override
+    public void emitVectorizedArrayOp(VectorOperation op, JavaKind kind, Value dst, Value x, Value y, Value value, Value start, Value end) {
+        AllocatableValue xValue = x == null ? null : asAllocatable(x);
+        AllocatableValue yValue = y == null ? null : asAllocatable(y);
+        AllocatableValue fillValue = value == null ? null : asAllocatable(value);
+        append(new AMD64VectorizedArrayOps.ElementwiseOp(this, op, kind, asAllocatable(dst), xValue, yValue, fillValue, asAllocatable(start), asAllocatable(end)));
+    }
+
+    @Override
+    public Variable emitVectorizedReduction(VectorOperation op, JavaKind kind, Value array, Value initial, Value start, Value end) {
+        Variable result = newVariable(LIRKind.combine(initial));
+        append(new AMD64VectorizedArrayOps.ReductionOp(this, op, kind, result, asAllocatable(array), asAllocatable(initial), asAllocatable(start), asAllocatable(end)));
+        return result;
+    }
+
     @Override
     public void emitReturn(JavaKind kind, Value input) {
         AllocatableValue operand = Value.ILLEGAL;
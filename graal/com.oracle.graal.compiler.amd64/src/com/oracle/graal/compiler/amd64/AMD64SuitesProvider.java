@@ -22,11 +22,20 @@
  */
 package com.oracle.graal.compiler.amd64;
 
+import static com.oracle.graal.compiler.common.GraalOptions.OptLoopTransform;
+
+import java.util.ListIterator;
+
 import com.oracle.graal.java.DefaultSuitesProvider;
 import com.oracle.graal.lir.amd64.phases.StackMoveOptimizationPhase;
 import com.oracle.graal.lir.phases.LIRSuites;
+import com.oracle.graal.loop.phases.LoopVectorizationPhase;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.common.RemoveValueProxyPhase;
 import com.oracle.graal.phases.tiers.CompilerConfiguration;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.Suites;
 
 public class AMD64SuitesProvider extends DefaultSuitesProvider {
 
@@ -35,8 +44,22 @@ public class AMD64SuitesProvider extends DefaultSuitesProvider {
     }
 
     @Override
-    public LIRSuites createLIRSuites() {
-        LIRSuites lirSuites = super.createLIRSuites();
+    public Suites createSuites(CompilerConfiguration configuration) {
+        Suites suites = super.createSuites(configuration);
+        if (OptLoopTransform.getValue() && LoopVectorizationPhase.Options.VectorizeLoops.getValue()) {
+            ListIterator<BasePhase<? super HighTierContext>> position = suites.getHighTier().findPhase(RemoveValueProxyPhase.class);
+            if (position != null) {
+                /* The vectorization needs the loop exits and proxies. */
+                position.previous();
+                position.add(new LoopVectorizationPhase());
+            }
+        }
+        return suites;
+    }
+
+    @Override
+    public LIRSuites createLIRSuites(CompilerConfiguration configuration) {
+        LIRSuites lirSuites = super.createLIRSuites(configuration);
         if (StackMoveOptimizationPhase.Options.LIROptStackMoveOptimizer.getValue()) {
             /* Note: this phase must be inserted <b>after</b> RedundantMoveElimination */
             lirSuites.getPostAllocationOptimizationStage().appendPhase(new StackMoveOptimizationPhase());
@@ -48,6 +48,12 @@ public final class GraalOptions {
     @Option(help = "Maximum desired size of the compiler graph in nodes.", type = OptionType.User)
     public static final OptionValue<Integer> MaximumDesiredSize = new OptionValue<>(20000);
 
+    @Option(help = "Time in milliseconds after which a compilation skips optional optimization phases (0 means no limit).", type = OptionType.Expert)
+    public static final OptionValue<Integer> CompilationTimeBudget = new OptionValue<>(0);
+
+    @Option(help = "Graph size in nodes above which a compilation skips optional optimization phases (0 means no limit).", type = OptionType.Expert)
+    public static final OptionValue<Integer> CompilationNodeBudget = new OptionValue<>(0);
+
     @Option(help = "Minimum probability for methods to be inlined for megamorphic type profiles.", type = OptionType.Expert)
     public static final OptionValue<Double> MegamorphicInliningMinMethodProbability = new OptionValue<>(0.33D);
 
@@ -76,12 +82,21 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Integer> EscapeAnalysisIterations = new OptionValue<>(2);
 
+    @Option(help = "Reuse the results of loops that did not change since the previous escape analysis iteration.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> IncrementalEscapeAnalysis = new OptionValue<>(false);
+
+    @Option(help = "Re-analyze the loops skipped by IncrementalEscapeAnalysis and fail if the results differ.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> VerifyIncrementalEscapeAnalysis = new OptionValue<>(false);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<String> EscapeAnalyzeOnly = new OptionValue<>(null);
 
     @Option(help = "", type = OptionType.Expert)
     public static final OptionValue<Integer> MaximumEscapeAnalysisArrayLength = new OptionValue<>(32);
 
+    @Option(help = "Maximum length of arrays that are virtualized with a sparse representation of their elements.", type = OptionType.Expert)
+    public static final OptionValue<Integer> MaximumEscapeAnalysisSparseArrayLength = new OptionValue<>(1024);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> PEAInliningHints = new OptionValue<>(false);
 
@@ -106,6 +121,9 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> LoopUnswitch = new OptionValue<>(true);
 
+    @Option(help = "Hoist null and bounds checks out of counted loops.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> LoopPredication = new OptionValue<>(false);
+
     @Option(help = "", type = OptionType.Expert)
     public static final OptionValue<Float> MinimumPeelProbability = new OptionValue<>(0.35f);
 
@@ -215,6 +233,12 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptCanonicalizer = new OptionValue<>(true);
 
+    @Option(help = "Only canonicalize nodes touched since the previous canonicalization in the high and mid tier.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> IncrementalCanonicalization = new OptionValue<>(false);
+
+    @Option(help = "Check incremental canonicalization in the high and mid tier against a full canonicalization.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> VerifyIncrementalCanonicalization = new OptionValue<>(false);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptDeoptimizationGrouping = new OptionValue<>(true);
 
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.common.calc;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * An operation that is applied to each element of a range of primitive arrays and can therefore be
+ * executed with packed SIMD instructions.
+ */
+public enum VectorOperation {
+    /** {@code dst[i] = src[i]}. */
+    COPY,
+    /** {@code dst[i] = value}. */
+    FILL,
+    /** {@code dst[i] = x[i] + y[i]} or {@code acc += x[i]}. */
+    ADD,
+    /** {@code dst[i] = x[i] - y[i]}. */
+    SUB,
+    /** {@code dst[i] = x[i] * y[i]}. */
+    MUL,
+    /** {@code dst[i] = x[i] & y[i]} or {@code acc &= x[i]}. */
+    AND,
+    /** {@code dst[i] = x[i] | y[i]} or {@code acc |= x[i]}. */
+    OR,
+    /** {@code dst[i] = x[i] ^ y[i]} or {@code acc ^= x[i]}. */
+    XOR;
+
+    /**
+     * Determines if this operation combines two array elements into one.
+     */
+    public boolean isBinary() {
+        return this != COPY && this != FILL;
+    }
+
+    /**
+     * Determines if this operation is supported as an element-wise operation on arrays of the given
+     * kind. Integer multiplication is not supported since SSE has no packed 64-bit multiply and the
+     * packed 32-bit multiply requires SSE4.1.
+     */
+    public boolean supports(JavaKind kind) {
+        switch (kind) {
+            case Int:
+            case Long:
+                return this != MUL;
+            case Float:
+            case Double:
+                return this == COPY || this == FILL || this == ADD || this == SUB || this == MUL;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Determines if this operation can be used to reduce an array of the given kind into a single
+     * value. Only operations that are associative for the kind are supported, since the vectorized
+     * reduction combines the elements in a different order than the original loop. This excludes
+     * floating point arithmetic.
+     */
+    public boolean supportsReduction(JavaKind kind) {
+        return (kind == JavaKind.Int || kind == JavaKind.Long) && (this == ADD || this == AND || this == OR || this == XOR);
+    }
+}
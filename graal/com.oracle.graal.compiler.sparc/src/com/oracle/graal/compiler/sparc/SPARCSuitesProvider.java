@@ -39,8 +39,8 @@ public class SPARCSuitesProvider extends DefaultSuitesProvider {
     }
 
     @Override
-    public Suites createSuites() {
-        Suites s = super.createSuites();
+    public Suites createSuites(CompilerConfiguration configuration) {
+        Suites s = super.createSuites(configuration);
         ListIterator<BasePhase<? super LowTierContext>> l = s.getLowTier().findPhase(ExpandLogicPhase.class);
         while (PhaseSuite.findNextPhase(l, ExpandLogicPhase.class)) {
             // Search for last occurrence of ExpandLogicPhase
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import static com.oracle.graal.debug.GraalDebugConfig.Options.DumpPath;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.PrintBinaryGraphs;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.PrintGraphAsync;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.PrintGraphAsyncBufferSize;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.PrintGraphFileRotationCount;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.PrintGraphFileRotationSize;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.PrintIdealGraph;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.PrintIdealGraphFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.printer.AsyncWritableByteChannel;
+import com.oracle.graal.printer.BinaryGraphPrinter;
+import com.oracle.graal.printer.GraphPrinterDumpHandler;
+
+/**
+ * Tests the rotation of binary graph files and dropping graphs when the
+ * {@linkplain AsyncWritableByteChannel background writer} falls behind.
+ */
+public class BinaryGraphDumpTest extends GraalCompilerTest {
+
+    public static int snippet(int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] > 0) {
+                sum += a[i];
+            } else {
+                sum -= a[i];
+            }
+        }
+        return sum;
+    }
+
+    private static List<Path> listGraphFiles(Path dir) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.bgv")) {
+            for (Path path : stream) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
+    private void testRotation(int rotationCount) throws IOException {
+        StructuredGraph graph = parseEager("snippet", AllowAssumptions.YES);
+        Path dir = Files.createTempDirectory("BinaryGraphDumpTest");
+        try {
+            Set<Path> created = new HashSet<>();
+            try (OverrideScope s = OptionValue.override(PrintIdealGraph, true, PrintIdealGraphFile, true, PrintBinaryGraphs, true, PrintGraphAsync, false, DumpPath, dir.toString(),
+                            PrintGraphFileRotationSize, 1, PrintGraphFileRotationCount, rotationCount)) {
+                GraphPrinterDumpHandler handler = new GraphPrinterDumpHandler();
+                try {
+                    for (int i = 0; i < 100; i++) {
+                        handler.dump(graph, "dump " + i);
+                        List<Path> files = listGraphFiles(dir);
+                        Assert.assertTrue(files + " after dump " + i, files.size() <= rotationCount);
+                        created.addAll(files);
+                    }
+                } finally {
+                    handler.close();
+                }
+            }
+            // otherwise the files were never rotated
+            Assert.assertTrue(created.toString(), created.size() > rotationCount);
+        } finally {
+            for (Path path : listGraphFiles(dir)) {
+                Files.delete(path);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void testRotationKeepsOneFile() throws IOException {
+        testRotation(1);
+    }
+
+    @Test
+    public void testRotationKeepsThreeFiles() throws IOException {
+        testRotation(3);
+    }
+
+    /**
+     * A channel whose writes block until {@link #release} is counted down.
+     */
+    private static final class BlockingChannel implements WritableByteChannel {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            int length = src.remaining();
+            byte[] data = new byte[length];
+            src.get(data);
+            bytes.write(data, 0, length);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return closed.getCount() != 0;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+
+    /**
+     * Checks that the graphs printed while the writer is backlogged are dropped completely: the
+     * output must be identical to printing only the graphs that were not dropped.
+     */
+    @Test
+    public void testBacklogDropsWholeGraphs() throws IOException, InterruptedException {
+        StructuredGraph graph = parseEager("snippet", AllowAssumptions.YES);
+        BlockingChannel blocking = new BlockingChannel();
+        int printed = 0;
+        try (OverrideScope s = OptionValue.override(PrintGraphAsyncBufferSize, 1)) {
+            AsyncWritableByteChannel async = new AsyncWritableByteChannel(blocking);
+            BinaryGraphPrinter printer = new BinaryGraphPrinter(async);
+            try {
+                printer.beginGroup("group", "group", null, -1, Collections.emptyMap());
+                while (!async.isBacklogged()) {
+                    Assert.assertTrue("writer never fell behind", printed < 1000);
+                    printer.print(graph, "graph " + printed, Collections.emptyMap());
+                    printed++;
+                }
+                for (int i = 0; i < 10; i++) {
+                    printer.print(graph, "dropped " + i, Collections.emptyMap());
+                }
+                printer.endGroup();
+            } finally {
+                blocking.release.countDown();
+            }
+            printer.close();
+        }
+        Assert.assertTrue("channel was not closed", blocking.closed.await(10, TimeUnit.SECONDS));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        BinaryGraphPrinter reference = new BinaryGraphPrinter(Channels.newChannel(expected));
+        reference.beginGroup("group", "group", null, -1, Collections.emptyMap());
+        for (int i = 0; i < printed; i++) {
+            reference.print(graph, "graph " + i, Collections.emptyMap());
+        }
+        reference.endGroup();
+        reference.close();
+        Assert.assertArrayEquals(expected.toByteArray(), blocking.bytes.toByteArray());
+    }
+}
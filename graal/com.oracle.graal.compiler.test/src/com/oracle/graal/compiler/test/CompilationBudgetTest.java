@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.CompilationBudget;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.java.NewArrayNode;
+import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+import com.oracle.graal.virtual.phases.ea.PartialEscapePhase;
+
+/**
+ * Tests that optional phases are skipped once the {@link CompilationBudget} of a graph is
+ * exhausted.
+ */
+public class CompilationBudgetTest extends GraalCompilerTest {
+
+    public static int arraySnippet(int a) {
+        int[] array = new int[]{a};
+        return array[0];
+    }
+
+    private StructuredGraph applyPartialEscape(CompilationBudget budget) {
+        StructuredGraph graph = parseEager("arraySnippet", AllowAssumptions.YES);
+        graph.setCompilationBudget(budget);
+        PhaseSuite<PhaseContext> suite = new PhaseSuite<>();
+        suite.appendPhase(new PartialEscapePhase(false, new CanonicalizerPhase()));
+        suite.apply(graph, new PhaseContext(getProviders()));
+        return graph;
+    }
+
+    @Test
+    public void testWithinBudget() {
+        CompilationBudget budget = new CompilationBudget(0, 100000);
+        StructuredGraph graph = applyPartialEscape(budget);
+        Assert.assertFalse(budget.isDegraded());
+        Assert.assertTrue(graph.getNodes().filter(NewArrayNode.class).isEmpty());
+    }
+
+    @Test
+    public void testNodeBudgetExhausted() {
+        CompilationBudget budget = new CompilationBudget(0, 1);
+        StructuredGraph graph = applyPartialEscape(budget);
+        Assert.assertTrue(budget.isDegraded());
+        Assert.assertEquals(1, budget.getSkippedPhases());
+        Assert.assertFalse(graph.getNodes().filter(NewArrayNode.class).isEmpty());
+    }
+}
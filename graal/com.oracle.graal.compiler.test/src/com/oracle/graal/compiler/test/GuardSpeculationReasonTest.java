@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.api.directives.GraalDirectives;
+import com.oracle.graal.nodes.DeoptimizeNode;
+import com.oracle.graal.nodes.GuardSpeculationReason;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+
+import jdk.vm.ci.meta.DeoptimizationReason;
+
+/**
+ * Checks that the speculation reasons of guards identify the same guard in different compilations
+ * of the same code, and only that guard.
+ */
+public class GuardSpeculationReasonTest extends GraalCompilerTest {
+
+    static int sink;
+
+    public static int snippet(int a, int b) {
+        if (a < 0) {
+            GraalDirectives.deoptimizeAndInvalidate();
+        }
+        sink = a;
+        if (b < 0) {
+            GraalDirectives.deoptimizeAndInvalidate();
+        }
+        return a + b;
+    }
+
+    @Test
+    public void testStableAcrossCompilations() {
+        List<GuardSpeculationReason> first = createReasons(parseEager("snippet", AllowAssumptions.YES));
+        List<GuardSpeculationReason> second = createReasons(parseEager("snippet", AllowAssumptions.YES));
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(first.size(), second.size());
+        for (GuardSpeculationReason reason : first) {
+            Assert.assertTrue(second.contains(reason));
+            Assert.assertEquals(getResolvedJavaMethod("snippet"), reason.getPosition().getMethod());
+        }
+        Assert.assertNotEquals(first.get(0), first.get(1));
+    }
+
+    @Test
+    public void testDeoptimizationReason() {
+        StructuredGraph graph = parseEager("snippet", AllowAssumptions.YES);
+        DeoptimizeNode deopt = graph.getNodes(DeoptimizeNode.TYPE).first();
+        GuardSpeculationReason reason = GuardSpeculationReason.create(deopt, DeoptimizationReason.NullCheckException);
+        GuardSpeculationReason other = GuardSpeculationReason.create(deopt, DeoptimizationReason.BoundsCheckException);
+        Assert.assertEquals(reason.getPosition(), other.getPosition());
+        Assert.assertNotEquals(reason, other);
+    }
+
+    private static List<GuardSpeculationReason> createReasons(StructuredGraph graph) {
+        List<GuardSpeculationReason> reasons = new ArrayList<>();
+        for (DeoptimizeNode deopt : graph.getNodes(DeoptimizeNode.TYPE)) {
+            GuardSpeculationReason reason = GuardSpeculationReason.create(deopt, deopt.reason());
+            Assert.assertNotNull(reason);
+            reasons.add(reason);
+        }
+        return reasons;
+    }
+}
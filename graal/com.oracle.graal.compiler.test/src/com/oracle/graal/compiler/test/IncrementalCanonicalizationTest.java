@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import static com.oracle.graal.compiler.common.GraalOptions.IncrementalCanonicalization;
+import static com.oracle.graal.compiler.common.GraalOptions.VerifyIncrementalCanonicalization;
+
+import org.junit.Test;
+
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.common.IncrementalCanonicalizationSuite;
+
+/**
+ * Compiles methods with {@linkplain IncrementalCanonicalizationSuite incremental canonicalization}
+ * in the high and mid tier and checks that a full canonicalization after each incremental one does
+ * not find anything left to do.
+ */
+public class IncrementalCanonicalizationTest extends GraalCompilerTest {
+
+    static class Point {
+        int x;
+        int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        int sum() {
+            return x + y;
+        }
+    }
+
+    public static int arithmeticSnippet(int a) {
+        int b = a * 1 + 0;
+        int c = (b << 2) >> 2;
+        return (c - c) + b;
+    }
+
+    public static int inlineSnippet(int a, int b) {
+        Point p = new Point(a, b);
+        if (p.x == a) {
+            return p.sum();
+        }
+        return 0;
+    }
+
+    public static int loopSnippet(int[] array) {
+        int sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            Point p = new Point(array[i], i);
+            sum += p.sum() * 2 / 2;
+        }
+        return sum;
+    }
+
+    public static String stringSnippet(Object o) {
+        if (o instanceof String) {
+            String s = (String) o;
+            return s.length() > 2 ? s.substring(1) : s;
+        }
+        return String.valueOf(o);
+    }
+
+    @SuppressWarnings("try")
+    private void testIncremental(String name, Object... args) {
+        try (OverrideScope s = OptionValue.override(IncrementalCanonicalization, true, VerifyIncrementalCanonicalization, true)) {
+            test(name, args);
+        }
+    }
+
+    @Test
+    public void testArithmetic() {
+        testIncremental("arithmeticSnippet", 42);
+    }
+
+    @Test
+    public void testInline() {
+        testIncremental("inlineSnippet", 3, 4);
+    }
+
+    @Test
+    public void testLoop() {
+        testIncremental("loopSnippet", new int[]{1, 2, 3, 4});
+    }
+
+    @Test
+    public void testString() {
+        testIncremental("stringSnippet", "hello");
+        testIncremental("stringSnippet", 42);
+    }
+}
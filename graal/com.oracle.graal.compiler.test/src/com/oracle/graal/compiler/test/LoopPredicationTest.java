@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.loop.phases.LoopPredicationPhase;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.LogicConstantNode;
+import com.oracle.graal.nodes.LogicNegationNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ParameterNode;
+import com.oracle.graal.nodes.PiNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.IsNullNode;
+import com.oracle.graal.nodes.calc.SignExtendNode;
+import com.oracle.graal.nodes.calc.SubNode;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.nodes.memory.Access;
+import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.Phase;
+import com.oracle.graal.phases.common.LoopSafepointInsertionPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.Suites;
+
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Checks that the bounds checks hoisted by {@link LoopPredicationPhase} only fail for inputs for
+ * which the loop accesses the array out of bounds. The conditions of the hoisted guards are
+ * evaluated on the graph for a set of inputs right after the phase ran.
+ */
+public class LoopPredicationTest extends GraalCompilerTest {
+
+    private static final int LENGTH = 10;
+
+    private static final int[][] RANGES = {{0, LENGTH}, {3, 7}, {5, 5}, {7, 3}, {LENGTH + 2, LENGTH + 1}, {0, LENGTH + 1}, {-1, LENGTH}, {-5, -3}, {LENGTH, LENGTH + 1},
+                    {Integer.MIN_VALUE, 0}, {0, Integer.MAX_VALUE}};
+
+    /**
+     * For each hoisted bounds check, whether it passes for each of the {@link #RANGES}.
+     */
+    private final List<boolean[]> hoistedGuardPasses = new ArrayList<>();
+
+    @Override
+    protected Suites createSuites() {
+        Suites suites = super.createSuites();
+        ListIterator<BasePhase<? super MidTierContext>> position = suites.getMidTier().findPhase(LoopSafepointInsertionPhase.class);
+        position.previous();
+        position.add(new LoopPredicationPhase());
+        position.add(new Phase("EvaluateHoistedGuards") {
+            @Override
+            protected void run(StructuredGraph graph) {
+                evaluateHoistedGuards(graph);
+            }
+        });
+        return suites;
+    }
+
+    public static int sumRange(int[] a, int from, int to) {
+        int sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    private static boolean accessesInBounds(int from, int to) {
+        return from >= to || (from >= 0 && to <= LENGTH);
+    }
+
+    @Test
+    public void testHoistedGuardCondition() {
+        ResolvedJavaMethod method = getResolvedJavaMethod("sumRange");
+        compile(method, parseEager(method, AllowAssumptions.YES));
+        Assert.assertEquals("hoisted bounds checks", 1, hoistedGuardPasses.size());
+        boolean[] passes = hoistedGuardPasses.get(0);
+        for (int i = 0; i < RANGES.length; i++) {
+            int from = RANGES[i][0];
+            int to = RANGES[i][1];
+            Assert.assertEquals("guard for [" + from + ", " + to + ")", accessesInBounds(from, to), passes[i]);
+        }
+    }
+
+    @Test
+    public void testExecution() {
+        ResolvedJavaMethod method = getResolvedJavaMethod("sumRange");
+        for (int[] range : RANGES) {
+            int[] a = new int[LENGTH];
+            for (int i = 0; i < LENGTH; i++) {
+                a[i] = i * 31 - 7;
+            }
+            Result expect = executeExpected(method, null, a, range[0], range[1]);
+            if (accessesInBounds(range[0], range[1])) {
+                testAgainstExpected(method, expect, EnumSet.of(DeoptimizationReason.BoundsCheckException), null, a, range[0], range[1]);
+            } else {
+                testAgainstExpected(method, expect, null, a, range[0], range[1]);
+            }
+        }
+    }
+
+    private void evaluateHoistedGuards(StructuredGraph graph) {
+        if (graph.method() == null || !graph.method().getName().equals("sumRange")) {
+            return;
+        }
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+        for (GuardNode guard : graph.getNodes().filter(GuardNode.class)) {
+            if (guard.getReason() == DeoptimizationReason.BoundsCheckException && cfg.blockFor(guard.getAnchor().asNode()).getLoop() == null) {
+                boolean[] passes = new boolean[RANGES.length];
+                for (int i = 0; i < RANGES.length; i++) {
+                    Object[] args = {new int[LENGTH], RANGES[i][0], RANGES[i][1]};
+                    passes[i] = holds(guard.getCondition(), args) != guard.isNegated();
+                }
+                hoistedGuardPasses.add(passes);
+            }
+        }
+    }
+
+    private static boolean holds(LogicNode node, Object[] args) {
+        if (node instanceof LogicConstantNode) {
+            return ((LogicConstantNode) node).getValue();
+        } else if (node instanceof LogicNegationNode) {
+            return !holds(((LogicNegationNode) node).getValue(), args);
+        } else if (node instanceof ShortCircuitOrNode) {
+            ShortCircuitOrNode or = (ShortCircuitOrNode) node;
+            return holds(or.getX(), args) != or.isXNegated() || holds(or.getY(), args) != or.isYNegated();
+        } else if (node instanceof IntegerLessThanNode) {
+            IntegerLessThanNode lessThan = (IntegerLessThanNode) node;
+            return value(lessThan.getX(), args) < value(lessThan.getY(), args);
+        } else if (node instanceof IntegerBelowNode) {
+            IntegerBelowNode below = (IntegerBelowNode) node;
+            long x = value(below.getX(), args);
+            long y = value(below.getY(), args);
+            return below.getX().getStackKind().getBitCount() == 32 ? Integer.compareUnsigned((int) x, (int) y) < 0 : Long.compareUnsigned(x, y) < 0;
+        } else if (node instanceof IsNullNode) {
+            return object(((IsNullNode) node).getValue(), args) == null;
+        }
+        throw new AssertionError("cannot evaluate " + node);
+    }
+
+    private static long value(ValueNode node, Object[] args) {
+        if (node.isConstant()) {
+            return node.asJavaConstant().asLong();
+        } else if (node instanceof ParameterNode) {
+            return ((Integer) args[((ParameterNode) node).index()]).longValue();
+        } else if (node instanceof SignExtendNode) {
+            return value(((SignExtendNode) node).getValue(), args);
+        } else if (node instanceof AddNode) {
+            return value(((AddNode) node).getX(), args) + value(((AddNode) node).getY(), args);
+        } else if (node instanceof SubNode) {
+            return value(((SubNode) node).getX(), args) - value(((SubNode) node).getY(), args);
+        } else if (node instanceof ArrayLengthNode) {
+            return Array.getLength(object(((ArrayLengthNode) node).array(), args));
+        } else if (node instanceof Access && NamedLocationIdentity.ARRAY_LENGTH_LOCATION.equals(((Access) node).getLocationIdentity())) {
+            return Array.getLength(object(((OffsetAddressNode) ((Access) node).getAddress()).getBase(), args));
+        }
+        throw new AssertionError("cannot evaluate " + node);
+    }
+
+    private static Object object(ValueNode node, Object[] args) {
+        if (node instanceof PiNode) {
+            return object(((PiNode) node).getOriginalNode(), args);
+        } else if (node instanceof ParameterNode) {
+            return args[((ParameterNode) node).index()];
+        }
+        throw new AssertionError("cannot evaluate " + node);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import java.util.ListIterator;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.loop.phases.LoopVectorizationPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.extended.VectorizedArrayLoopNode;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.common.RemoveValueProxyPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.Suites;
+
+import jdk.vm.ci.amd64.AMD64;
+
+/**
+ * Checks which loops {@link LoopVectorizationPhase} replaces by a {@link VectorizedArrayLoopNode}
+ * and that the vectorized code computes the same results, including when its bounds guard fails.
+ */
+public class LoopVectorizationTest extends GraalCompilerTest {
+
+    private int vectorizedLoops = -1;
+
+    @Before
+    public void checkArchitecture() {
+        Assume.assumeTrue(getTarget().arch instanceof AMD64);
+    }
+
+    @Override
+    protected Suites createSuites() {
+        Suites suites = super.createSuites();
+        if (suites.getHighTier().findPhase(LoopVectorizationPhase.class) == null) {
+            ListIterator<BasePhase<? super HighTierContext>> position = suites.getHighTier().findPhase(RemoveValueProxyPhase.class);
+            position.previous();
+            position.add(new LoopVectorizationPhase());
+        }
+        return suites;
+    }
+
+    @Override
+    protected boolean checkHighTierGraph(StructuredGraph graph) {
+        vectorizedLoops = graph.getNodes().filter(VectorizedArrayLoopNode.class).count();
+        return true;
+    }
+
+    private void testVectorized(int expectedLoops, String name, Object... args) {
+        test(name, args);
+        Assert.assertEquals("vectorized loops in " + name, expectedLoops, vectorizedLoops);
+    }
+
+    private static final int N = 37;
+
+    private static int[] ints(int seed) {
+        int[] a = new int[N];
+        for (int i = 0; i < N; i++) {
+            a[i] = i * seed - 7;
+        }
+        return a;
+    }
+
+    private static double[] doubles(double seed) {
+        double[] a = new double[N];
+        for (int i = 0; i < N; i++) {
+            a[i] = i * seed - 0.7;
+        }
+        return a;
+    }
+
+    public static int[] intAdd(int[] a, int[] b, int[] c) {
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    public static long[] longFill(long[] a, long value) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] = value;
+        }
+        return a;
+    }
+
+    public static int[] intCopy(int[] a, int[] b) {
+        for (int i = 0; i < b.length; i++) {
+            b[i] = a[i];
+        }
+        return b;
+    }
+
+    public static double[] doubleMul(double[] a, double[] b, double[] c) {
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    public static int intSum(int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static double doubleSum(double[] a) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int[] intMul(int[] a, int[] b, int[] c) {
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    public static int[] intFillStride(int[] a, int value) {
+        for (int i = 0; i < a.length; i += 2) {
+            a[i] = value;
+        }
+        return a;
+    }
+
+    public static int[] intAddOutOfBounds(int[] a, int[] b, int n) {
+        int[] c = new int[n + 1];
+        for (int i = 0; i < n + 1; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Test
+    public void testVectorizedKernels() {
+        testVectorized(1, "intAdd", ints(3), ints(5), new int[N]);
+        testVectorized(1, "longFill", new long[N], 0x1234_5678_9AL);
+        testVectorized(1, "intCopy", ints(11), new int[N]);
+        testVectorized(1, "doubleMul", doubles(1.1), doubles(-3.3), new double[N]);
+        testVectorized(1, "intSum", ints(0x12345));
+    }
+
+    @Test
+    public void testNotVectorized() {
+        testVectorized(0, "doubleSum", doubles(1.1));
+        testVectorized(0, "intMul", ints(3), ints(5), new int[N]);
+        testVectorized(0, "intFillStride", new int[N], 42);
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        testVectorized(1, "intAddOutOfBounds", ints(3), ints(5), N);
+    }
+}
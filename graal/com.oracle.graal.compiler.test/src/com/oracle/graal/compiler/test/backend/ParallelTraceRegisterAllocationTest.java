@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.backend;
+
+import static com.oracle.graal.compiler.common.GraalOptions.TraceRA;
+import static com.oracle.graal.lir.alloc.trace.TraceRegisterAllocationPhase.Options.TraceRAParallel;
+import static com.oracle.graal.lir.alloc.trace.TraceRegisterAllocationPhase.Options.TraceRAParallelism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Checks that {@linkplain com.oracle.graal.lir.alloc.trace.TraceRegisterAllocationPhase trace
+ * register allocation} with parallel lifetime analysis produces the same code as sequential
+ * allocation.
+ */
+public class ParallelTraceRegisterAllocationTest extends GraalCompilerTest {
+
+    public static int manyTracesSnippet(int[] a, int n) {
+        int s0 = 0;
+        int s1 = 1;
+        int s2 = 2;
+        for (int i = 0; i < a.length; i++) {
+            int v = a[i];
+            if (v < n) {
+                s0 += v * s1;
+            } else if (v == n) {
+                s1 ^= s2 + i;
+            } else {
+                s2 = Integer.rotateLeft(s2, v);
+            }
+            switch (v & 7) {
+                case 0:
+                    s0 = s0 * 31 + s2;
+                    break;
+                case 1:
+                    s1 = String.valueOf(s0).hashCode();
+                    break;
+                case 3:
+                    s2 -= s1 >>> 3;
+                    break;
+                case 6:
+                    s0 += Integer.bitCount(s1 | s2);
+                    break;
+                default:
+                    s1 += i;
+            }
+        }
+        return s0 + s1 + s2;
+    }
+
+    public static Object mapSnippet(Map<Object, Object> map, Object key, Object value) {
+        Object old = map.get(key);
+        if (old == null) {
+            map.put(key, value);
+            return value;
+        }
+        return old;
+    }
+
+    /**
+     * Keeps many values live across trace boundaries. The values are in registers when the
+     * rarely taken traces are allocated, so their inter-trace hints name registers for which these
+     * traces have no fixed interval of their own. Only the division uses fixed registers.
+     */
+    public static long liveAcrossTracesSnippet(long a, long b, int n) {
+        long x0 = a + b;
+        long x1 = a * b;
+        long x2 = a ^ b;
+        long x3 = a - b;
+        long x4 = a | b;
+        long x5 = a & b;
+        long x6 = a << 3;
+        long x7 = b >> 5;
+        for (int i = 0; i < n; i++) {
+            if (x0 == i) {
+                x1 += x2 * x3;
+                x4 = x5 / (x6 | 1);
+            } else if (x7 == i) {
+                x2 ^= x4 + x5;
+            } else {
+                x0 += x1 + x2 + x3 + x4 + x5 + x6 + x7;
+            }
+            if (x3 == n) {
+                x5 = x6 - x7;
+                x6 = x0 + i;
+            } else if (x6 == n) {
+                x7 = x1 ^ x3;
+            }
+        }
+        return x0 + x1 + x2 + x3 + x4 + x5 + x6 + x7;
+    }
+
+    @SuppressWarnings("try")
+    private CompilationResult compileWithTraceRA(ResolvedJavaMethod method, boolean parallel) {
+        try (OverrideScope s = OptionValue.override(TraceRA, true, TraceRAParallel, parallel, TraceRAParallelism, 4)) {
+            return compile(method, null);
+        }
+    }
+
+    private void testDeterminism(ResolvedJavaMethod method) {
+        CompilationResult sequential = compileWithTraceRA(method, false);
+        for (int i = 0; i < 5; i++) {
+            CompilationResult parallel = compileWithTraceRA(method, true);
+            Assert.assertEquals(sequential.getTargetCodeSize(), parallel.getTargetCodeSize());
+            Assert.assertArrayEquals(Arrays.copyOf(sequential.getTargetCode(), sequential.getTargetCodeSize()), Arrays.copyOf(parallel.getTargetCode(), parallel.getTargetCodeSize()));
+            Assert.assertEquals(sequential.getTotalFrameSize(), parallel.getTotalFrameSize());
+        }
+    }
+
+    @Test
+    public void testManyTraces() {
+        testDeterminism(getResolvedJavaMethod("manyTracesSnippet"));
+    }
+
+    @Test
+    public void testMap() {
+        testDeterminism(getResolvedJavaMethod("mapSnippet"));
+    }
+
+    @Test
+    public void testHashMapPutVal() {
+        testDeterminism(getResolvedJavaMethod(HashMap.class, "putVal"));
+    }
+
+    @Test
+    public void testLiveAcrossTraces() {
+        testDeterminism(getResolvedJavaMethod("liveAcrossTracesSnippet"));
+    }
+
+    @Test
+    public void testConcurrentHashMapPutVal() {
+        testDeterminism(getResolvedJavaMethod(ConcurrentHashMap.class, "putVal"));
+    }
+
+    @Test
+    public void testStringIndexOf() {
+        testDeterminism(getResolvedJavaMethod(String.class, "indexOf", String.class, int.class));
+    }
+
+    @Test
+    public void testIntegerToString() {
+        testDeterminism(getResolvedJavaMethod(Integer.class, "toString", int.class, int.class));
+    }
+
+    @Test
+    public void testArrayListRemove() {
+        testDeterminism(getResolvedJavaMethod(ArrayList.class, "remove", Object.class));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testExecution() {
+        try (OverrideScope s = OptionValue.override(TraceRA, true, TraceRAParallel, true)) {
+            test("manyTracesSnippet", new int[]{1, 5, 8, 0, 3, 14, 7, 22, 6}, 6);
+            test("liveAcrossTracesSnippet", 3L, 7L, 100);
+        }
+    }
+}
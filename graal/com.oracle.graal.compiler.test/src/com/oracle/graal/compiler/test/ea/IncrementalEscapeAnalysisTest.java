@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.ea;
+
+import static com.oracle.graal.compiler.common.GraalOptions.EscapeAnalysisIterations;
+import static com.oracle.graal.compiler.common.GraalOptions.IncrementalEscapeAnalysis;
+import static com.oracle.graal.compiler.common.GraalOptions.VerifyIncrementalEscapeAnalysis;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugConfig;
+import com.oracle.graal.debug.DebugConfigScope;
+import com.oracle.graal.debug.internal.DebugValue;
+import com.oracle.graal.debug.internal.DebugValueMap;
+import com.oracle.graal.debug.internal.StripedDebugValues;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+
+/**
+ * Checks that reusing the results of unchanged loops in later iterations of partial escape
+ * analysis produces the same graph as a full analysis in every iteration, both with
+ * {@linkplain com.oracle.graal.compiler.common.GraalOptions#VerifyIncrementalEscapeAnalysis
+ * verification} and with the results actually reused.
+ */
+public class IncrementalEscapeAnalysisTest extends EATestBase {
+
+    public static volatile int sideEffect;
+
+    public static int independentLoopsSnippet(int[] data) {
+        TestClassInt a = new TestClassInt(1, 2);
+        int sum = 0;
+        for (int i = 0; i < data.length; i++) {
+            sum += data[i];
+        }
+        TestClassInt b = new TestClassInt(a.x + sum, a.y);
+        for (int i = 0; i < data.length; i++) {
+            for (int j = 0; j < i; j++) {
+                sum ^= data[j] * i;
+            }
+        }
+        if (sum > 100) {
+            sideEffect = b.y;
+        }
+        return b.x + sum;
+    }
+
+    public static int virtualInLoopSnippet(int[] data) {
+        TestClassInt box = new TestClassInt(0);
+        for (int i = 0; i < data.length; i++) {
+            box.x += data[i];
+        }
+        int product = 1;
+        for (int i = 0; i < data.length; i++) {
+            product *= data[i] | 1;
+        }
+        TestClassInt result = new TestClassInt(box.x, product);
+        return result.x + result.y;
+    }
+
+    public static Object materializedInLoopSnippet(int[] data) {
+        TestClassObject holder = new TestClassObject(new TestClassInt(3));
+        int count = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] < 0) {
+                return holder;
+            }
+            count++;
+        }
+        for (int i = 0; i < count; i++) {
+            sideEffect = data[i];
+        }
+        return ((TestClassInt) holder.x).x + count;
+    }
+
+    @Test
+    public void testIndependentLoops() {
+        testIncremental("independentLoopsSnippet", new int[]{1, 2, 3, 4, 50});
+    }
+
+    @Test
+    public void testVirtualInLoop() {
+        testIncremental("virtualInLoopSnippet", new int[]{1, 2, 3, 4, 5});
+    }
+
+    @Test
+    public void testMaterializedInLoop() {
+        testIncremental("materializedInLoopSnippet", new int[]{1, 2, -3});
+        testIncremental("materializedInLoopSnippet", new int[]{1, 2, 3});
+    }
+
+    /**
+     * Checks that without verification the results of the loops of
+     * {@link #independentLoopsSnippet} are actually reused and that the graph is the same as with a
+     * full analysis in every iteration.
+     */
+    @Test
+    @SuppressWarnings("try")
+    public void testLoopsSkipped() {
+        Assume.assumeTrue("debug counters are not available", Debug.isEnabled());
+        DebugConfig debugConfig = Debug.fixedConfig(0, 0, true, false, false, false, false, null, null, System.out);
+        try (DebugConfigScope dcs = new DebugConfigScope(debugConfig); Debug.Scope s = Debug.scope("IncrementalEscapeAnalysisTest")) {
+            long skipped = getLoopsSkipped();
+            testIncremental("independentLoopsSnippet", new int[]{1, 2, 3, 4, 50});
+            Assert.assertTrue("no loop was skipped", getLoopsSkipped() > skipped);
+        }
+    }
+
+    private static long getLoopsSkipped() {
+        int index = ((DebugValue) Debug.counter("EffectsLoopsSkipped")).getIndex();
+        if (StripedDebugValues.ENABLED) {
+            return StripedDebugValues.get(index);
+        }
+        long sum = 0;
+        for (DebugValueMap map : DebugValueMap.getTopLevelMaps()) {
+            sum += sumValues(map, index);
+        }
+        return sum;
+    }
+
+    private static long sumValues(DebugValueMap map, int index) {
+        long sum = map.getCurrentValue(index);
+        for (DebugValueMap child : map.getChildren()) {
+            sum += sumValues(child, index);
+        }
+        return sum;
+    }
+
+    @SuppressWarnings("try")
+    private void testIncremental(String snippet, int[] data) {
+        StructuredGraph expected;
+        try (OverrideScope s = OptionValue.override(EscapeAnalysisIterations, 4, IncrementalEscapeAnalysis, false)) {
+            prepareGraph(snippet, true);
+            expected = graph;
+        }
+        try (OverrideScope s = OptionValue.override(EscapeAnalysisIterations, 4, IncrementalEscapeAnalysis, true, VerifyIncrementalEscapeAnalysis, true)) {
+            prepareGraph(snippet, true);
+            Assert.assertEquals(expected.getNodeCount(), graph.getNodeCount());
+            test(snippet, data);
+        }
+        // without verification, the results of skipped loops are really reused
+        try (OverrideScope s = OptionValue.override(EscapeAnalysisIterations, 4, IncrementalEscapeAnalysis, true, VerifyIncrementalEscapeAnalysis, false)) {
+            prepareGraph(snippet, true);
+            assertEquals(expected, graph);
+            test(snippet, data);
+        }
+    }
+}
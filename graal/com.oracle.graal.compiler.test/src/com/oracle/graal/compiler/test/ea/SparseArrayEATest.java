@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.ea;
+
+import static com.oracle.graal.compiler.common.GraalOptions.MaximumEscapeAnalysisSparseArrayLength;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.api.directives.GraalDirectives;
+import com.oracle.graal.nodes.java.NewArrayNode;
+import com.oracle.graal.nodes.virtual.CommitAllocationNode;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+
+import jdk.vm.ci.meta.JavaConstant;
+
+/**
+ * Tests the virtualization of arrays that are longer than {@code MaximumEscapeAnalysisArrayLength}
+ * and are therefore represented sparsely.
+ */
+public class SparseArrayEATest extends EATestBase {
+
+    public static int constantIndexesSnippet() {
+        int[] buffer = new int[200];
+        buffer[3] = 7;
+        buffer[150] = 11;
+        buffer[3] += buffer[150];
+        buffer[150] = 0;
+        return buffer[3] + buffer[150] + buffer[199];
+    }
+
+    @Test
+    public void testConstantIndexes() {
+        testEscapeAnalysis("constantIndexesSnippet", JavaConstant.forInt(18), false);
+    }
+
+    public static Object objectEntriesSnippet() {
+        Object[] buffer = new Object[100];
+        buffer[42] = new TestClassInt(5);
+        buffer[99] = buffer[42];
+        return buffer[99] == buffer[42] ? buffer[0] : buffer[99];
+    }
+
+    @Test
+    public void testObjectEntries() {
+        testEscapeAnalysis("objectEntriesSnippet", JavaConstant.NULL_POINTER, false);
+    }
+
+    public static int mergeSnippet(boolean flag) {
+        long[] buffer = new long[64];
+        if (flag) {
+            buffer[10] = 5;
+        } else {
+            buffer[20] = 6;
+            buffer[10] = 5;
+        }
+        return (int) (buffer[10] + buffer[20]);
+    }
+
+    @Test
+    public void testMerge() {
+        testEscapeAnalysis("mergeSnippet", null, true);
+        test("mergeSnippet", true);
+        test("mergeSnippet", false);
+    }
+
+    public static int loopMergeSnippet(int n) {
+        int[] buffer = new int[1000];
+        buffer[999] = 3;
+        for (int i = 0; i < n; i++) {
+            buffer[500] += i;
+            buffer[7] = i;
+        }
+        return buffer[500] + buffer[7] + buffer[999];
+    }
+
+    @Test
+    public void testLoopMerge() {
+        testEscapeAnalysis("loopMergeSnippet", null, true);
+        test("loopMergeSnippet", 0);
+        test("loopMergeSnippet", 10);
+    }
+
+    public static int objectMergeSnippet(boolean flag) {
+        Object[] buffer = new Object[500];
+        if (flag) {
+            buffer[400] = new TestClassInt(1);
+        } else {
+            buffer[100] = buffer;
+            buffer[400] = new TestClassInt(2);
+        }
+        return ((TestClassInt) buffer[400]).x + (buffer[100] == null ? 0 : 10);
+    }
+
+    @Test
+    public void testObjectMerge() {
+        testEscapeAnalysis("objectMergeSnippet", null, true);
+        test("objectMergeSnippet", true);
+        test("objectMergeSnippet", false);
+    }
+
+    public static int[] escapingSnippet(int value) {
+        int[] buffer = new int[128];
+        buffer[1] = value;
+        buffer[127] = value * 2;
+        if (value > 10) {
+            return buffer;
+        }
+        return null;
+    }
+
+    @Test
+    public void testEscaping() {
+        prepareGraph("escapingSnippet", false);
+        Assert.assertEquals(0, graph.getNodes().filter(NewArrayNode.class).count());
+        Assert.assertEquals(1, graph.getNodes().filter(CommitAllocationNode.class).count());
+        test("escapingSnippet", 5);
+        test("escapingSnippet", 50);
+    }
+
+    public static int deoptimizeSnippet(int value) {
+        char[] buffer = new char[256];
+        buffer[17] = (char) value;
+        if (value == 66) {
+            GraalDirectives.deoptimize();
+        }
+        return buffer[17] + buffer[18];
+    }
+
+    @Test
+    public void testDeoptimize() {
+        test("deoptimizeSnippet", 65);
+        test("deoptimizeSnippet", 66);
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testTooLong() {
+        try (OverrideScope s = OptionValue.override(MaximumEscapeAnalysisSparseArrayLength, 100)) {
+            prepareGraph("constantIndexesSnippet", false);
+            Assert.assertEquals(1, graph.getNodes().filter(NewArrayNode.class).count());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.inlining;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.inlining.InliningDecisionLog;
+import com.oracle.graal.phases.common.inlining.InliningDecisionLog.Entry;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
+import com.oracle.graal.phases.common.inlining.policy.InliningPolicy.Decision;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+public class InliningDecisionLogTest extends GraalCompilerTest {
+
+    private InliningDecisionLog previous;
+
+    @Before
+    public void saveLog() {
+        previous = InliningDecisionLog.getInstalled();
+    }
+
+    @After
+    public void restoreLog() {
+        InliningDecisionLog.install(previous);
+    }
+
+    public static int callee(int a) {
+        return a + 1;
+    }
+
+    public static int callerSnippet(int a) {
+        return callee(a) * 2;
+    }
+
+    private Map<String, Entry> record() {
+        InliningDecisionLog log = new InliningDecisionLog(Collections.emptyMap(), true);
+        InliningDecisionLog.install(log);
+        StructuredGraph graph = inline("callerSnippet");
+        Assert.assertEquals(0, invokeCount(graph));
+        Map<String, Entry> decisions = log.getRecorded().get(InliningDecisionLog.rootKey(graph));
+        Assert.assertNotNull(decisions);
+        Assert.assertEquals(decisions.toString(), 1, decisions.size());
+        return decisions;
+    }
+
+    @Test
+    public void testRecord() throws IOException {
+        Map<String, Entry> decisions = record();
+        String callsite = decisions.keySet().iterator().next();
+        Entry entry = decisions.get(callsite);
+        Assert.assertTrue(callsite, callsite.startsWith(InliningDecisionLog.rootKey(parseEager("callerSnippet", AllowAssumptions.YES)) + "@"));
+        Assert.assertTrue(entry.decision.shouldInline());
+        Assert.assertTrue(entry.targets, entry.targets.contains(".callee(I)I"));
+
+        StringWriter out = new StringWriter();
+        InliningDecisionLog.getInstalled().write(out);
+        Map<String, Map<String, Entry>> read = InliningDecisionLog.read(new StringReader(out.toString()));
+        Assert.assertEquals(1, read.size());
+        Entry readEntry = read.values().iterator().next().get(callsite);
+        Assert.assertNotNull(readEntry);
+        Assert.assertEquals(entry.targets, readEntry.targets);
+        Assert.assertEquals(entry.probability, readEntry.probability, 0.0);
+        Assert.assertEquals(entry.decision.shouldInline(), readEntry.decision.shouldInline());
+        Assert.assertEquals(entry.decision.getReason(), readEntry.decision.getReason());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformed() throws IOException {
+        InliningDecisionLog.read(new StringReader("root\tA.a()V\n\tA.a()V@1\tB.b()V\tnot a number\tinline\ttrivial\n"));
+    }
+
+    @Test
+    public void testReplay() {
+        Entry entry = replay(true);
+        StructuredGraph graph = inline("callerSnippet");
+        Assert.assertEquals(entry.toString(), 1, invokeCount(graph));
+    }
+
+    @Test
+    public void testDivergedProfile() {
+        replay(false);
+        StructuredGraph graph = inline("callerSnippet");
+        Assert.assertEquals(0, invokeCount(graph));
+    }
+
+    /**
+     * Installs a log that replays a negative decision for the single callsite of
+     * {@link #callerSnippet}.
+     *
+     * @param agree specifies if the recorded profile should agree with the current one
+     */
+    private Entry replay(boolean agree) {
+        Map<String, Entry> recorded = record();
+        String callsite = recorded.keySet().iterator().next();
+        Entry original = recorded.get(callsite);
+        Entry entry = new Entry(agree ? original.targets : "Other.callee(I)I", original.probability, Decision.NO.withReason("test"));
+        String root = InliningDecisionLog.rootKey(parseEager("callerSnippet", AllowAssumptions.YES));
+        InliningDecisionLog.install(new InliningDecisionLog(Collections.singletonMap(root, Collections.singletonMap(callsite, entry)), false));
+        return entry;
+    }
+
+    private static int invokeCount(StructuredGraph graph) {
+        int count = 0;
+        for (Invoke invoke : graph.getInvokes()) {
+            assert invoke.asNode().isAlive();
+            count++;
+        }
+        return count;
+    }
+
+    @SuppressWarnings("try")
+    private StructuredGraph inline(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        try (Scope s = Debug.scope("InliningDecisionLogTest", graph)) {
+            HighTierContext context = new HighTierContext(getProviders(), getDefaultGraphBuilderSuite(), OptimisticOptimizations.ALL);
+            CanonicalizerPhase canonicalizer = new CanonicalizerPhase();
+            new InliningPhase(canonicalizer).apply(graph, context);
+            canonicalizer.apply(graph, context);
+            return graph;
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.inlining;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.inlining.InliningGraphCache;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+public class InliningGraphCacheTest extends GraalCompilerTest {
+
+    private InliningGraphCache graphCache;
+    private InliningGraphCache previous;
+    private PhaseSuite<HighTierContext> graphBuilderSuite;
+    private CanonicalizerPhase canonicalizer;
+
+    @Before
+    public void installCache() {
+        previous = InliningGraphCache.getInstalled();
+        graphCache = new InliningGraphCache(getTarget().arch, 100);
+        InliningGraphCache.install(graphCache);
+        graphBuilderSuite = getDefaultGraphBuilderSuite();
+        canonicalizer = new CanonicalizerPhase();
+    }
+
+    @After
+    public void uninstallCache() {
+        InliningGraphCache.install(previous);
+    }
+
+    public static int callee(int a, int b) {
+        int sum = 0;
+        for (int i = a; i < b; i++) {
+            sum += i * a;
+        }
+        return sum > 0 ? sum : -sum;
+    }
+
+    public static int callerSnippet(int a, int b) {
+        return callee(a, b) + 1;
+    }
+
+    public static int otherCallerSnippet(int a) {
+        return callee(a, 42) * 2;
+    }
+
+    @Test
+    public void testReuse() {
+        StructuredGraph first = inline("callerSnippet", OptimisticOptimizations.ALL);
+        Assert.assertEquals(1, graphCache.size());
+        StructuredGraph second = inline("callerSnippet", OptimisticOptimizations.ALL);
+        Assert.assertEquals(1, graphCache.size());
+        assertEquals(first, second);
+        Assert.assertTrue(second.getInlinedMethods().contains(getResolvedJavaMethod("callee")));
+
+        inline("otherCallerSnippet", OptimisticOptimizations.ALL);
+        Assert.assertEquals(1, graphCache.size());
+        test("callerSnippet", 3, 7);
+        test("otherCallerSnippet", 50);
+    }
+
+    @Test
+    public void testConfiguration() {
+        inline("callerSnippet", OptimisticOptimizations.ALL);
+        Assert.assertEquals(1, graphCache.size());
+        inline("callerSnippet", OptimisticOptimizations.NONE);
+        Assert.assertEquals(2, graphCache.size());
+        graphBuilderSuite = getDefaultGraphBuilderSuite();
+        inline("callerSnippet", OptimisticOptimizations.ALL);
+        Assert.assertEquals(3, graphCache.size());
+    }
+
+    @Test
+    public void testInvalidate() {
+        inline("callerSnippet", OptimisticOptimizations.ALL);
+        Assert.assertEquals(1, graphCache.size());
+        graphCache.invalidate(Collections.singletonList(getResolvedJavaMethod("callerSnippet")));
+        Assert.assertEquals(1, graphCache.size());
+        graphCache.invalidate(Collections.singletonList(getResolvedJavaMethod("callee")));
+        Assert.assertEquals(0, graphCache.size());
+    }
+
+    @SuppressWarnings("try")
+    private StructuredGraph inline(String snippet, OptimisticOptimizations optimisticOpts) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        try (Scope s = Debug.scope("InliningGraphCacheTest", graph)) {
+            HighTierContext context = new HighTierContext(getProviders(), graphBuilderSuite, optimisticOpts);
+            new InliningPhase(canonicalizer).apply(graph, context);
+            canonicalizer.apply(graph, context);
+            Assert.assertFalse(graph.getInvokes().iterator().hasNext());
+            return graph;
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+}
@@ -26,14 +26,17 @@ import com.oracle.graal.compiler.CompilerThreadFactory.DebugConfigAccess;
 import com.oracle.graal.debug.DebugConfig;
 import com.oracle.graal.debug.DebugDumpHandler;
 import com.oracle.graal.debug.GraalDebugConfig;
+import com.oracle.graal.debug.internal.DebugScope;
 
 /**
  * A compiler thread is a daemon thread that runs at {@link Thread#MAX_PRIORITY} and executes in the
- * context of a thread-local {@linkplain GraalDebugConfig debug configuration}.
+ * context of a thread-local {@linkplain GraalDebugConfig debug configuration}. The debug scope state
+ * of a compiler thread is held in a field instead of a {@link ThreadLocal}.
  */
-public class CompilerThread extends Thread {
+public class CompilerThread extends Thread implements DebugScope.StateCarrier {
 
     private final DebugConfigAccess debugConfigAccess;
+    private final DebugScope.ThreadState debugScopeState = new DebugScope.ThreadState();
 
     public CompilerThread(Runnable r, String namePrefix, DebugConfigAccess debugConfigAccess) {
         super(r);
@@ -43,6 +46,11 @@ public class CompilerThread extends Thread {
         this.debugConfigAccess = debugConfigAccess;
     }
 
+    @Override
+    public DebugScope.ThreadState getDebugScopeState() {
+        return debugScopeState;
+    }
+
     @Override
     public void run() {
         DebugConfig debugConfig = debugConfigAccess.getDebugConfig();
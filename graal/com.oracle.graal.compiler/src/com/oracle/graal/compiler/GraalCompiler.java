@@ -34,6 +34,7 @@ import com.oracle.graal.compiler.common.alloc.ComputeBlockOrder;
 import com.oracle.graal.compiler.common.alloc.RegisterAllocationConfig;
 import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
 import com.oracle.graal.compiler.target.Backend;
+import com.oracle.graal.debug.CompilationEventLog;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.DebugCloseable;
@@ -53,6 +54,7 @@ import com.oracle.graal.lir.phases.AllocationPhase.AllocationContext;
 import com.oracle.graal.lir.phases.LIRSuites;
 import com.oracle.graal.lir.phases.PostAllocationOptimizationPhase.PostAllocationOptimizationContext;
 import com.oracle.graal.lir.phases.PreAllocationOptimizationPhase.PreAllocationOptimizationContext;
+import com.oracle.graal.nodes.CompilationBudget;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.ScheduleResult;
 import com.oracle.graal.nodes.cfg.Block;
@@ -91,6 +93,7 @@ public class GraalCompiler {
     private static final DebugTimer BackEnd = Debug.timer("BackEnd");
     private static final DebugTimer EmitLIR = Debug.timer("EmitLIR");
     private static final DebugTimer EmitCode = Debug.timer("EmitCode");
+    private static final DebugCounter DegradedCompilations = Debug.counter("DegradedCompilations");
     private static final LIRGenerationPhase LIR_GENERATION_PHASE = new LIRGenerationPhase();
 
     /**
@@ -171,11 +174,26 @@ public class GraalCompiler {
     public static <T extends CompilationResult> T compile(Request<T> r) {
         try (Scope s = MethodMetricsRootScopeInfo.createRootScopeIfAbsent(r.installedCodeOwner)) {
             assert !r.graph.isFrozen();
+            CompilationEventLog.Compilation logged = null;
+            if (CompilationEventLog.ENABLED) {
+                logged = CompilationEventLog.beginCompilation(r.graph.method() == null ? r.graph.toString() : r.graph.method().format("%H.%n(%p)"));
+            }
             try (Scope s0 = Debug.scope("GraalCompiler", r.graph, r.providers.getCodeCache()); DebugCloseable a = CompilerTimer.start()) {
                 emitFrontEnd(r.providers, r.backend, r.graph, r.graphBuilderSuite, r.optimisticOpts, r.profilingInfo, r.suites);
                 emitBackEnd(r.graph, null, r.installedCodeOwner, r.backend, r.compilationResult, r.factory, null, r.lirSuites);
             } catch (Throwable e) {
+                if (logged != null) {
+                    logged.setFailure(e);
+                }
                 throw Debug.handle(e);
+            } finally {
+                if (logged != null) {
+                    CompilationBudget budget = r.graph.getCompilationBudget();
+                    if (budget != null && budget.isDegraded()) {
+                        logged.setSkippedPhases(budget.getSkippedPhases());
+                    }
+                    CompilationEventLog.endCompilation(logged);
+                }
             }
             return r.compilationResult;
         }
@@ -188,6 +206,9 @@ public class GraalCompiler {
     public static void emitFrontEnd(Providers providers, TargetProvider target, StructuredGraph graph, PhaseSuite<HighTierContext> graphBuilderSuite, OptimisticOptimizations optimisticOpts,
                     ProfilingInfo profilingInfo, Suites suites) {
         try (Scope s = Debug.scope("FrontEnd"); DebugCloseable a = FrontEnd.start()) {
+            if (graph.getCompilationBudget() == null) {
+                graph.setCompilationBudget(CompilationBudget.create());
+            }
             HighTierContext highTierContext = new HighTierContext(providers, graphBuilderSuite, optimisticOpts);
             if (graph.start().next() == null) {
                 graphBuilderSuite.apply(graph, highTierContext);
@@ -209,6 +230,14 @@ public class GraalCompiler {
             LowTierContext lowTierContext = new LowTierContext(providers, target);
             suites.getLowTier().apply(graph, lowTierContext);
 
+            CompilationBudget budget = graph.getCompilationBudget();
+            if (budget != null && budget.isDegraded()) {
+                DegradedCompilations.increment();
+                if (Debug.isEnabled() && graph.method() != null) {
+                    Debug.counter("DegradedCompilations_%s", graph.method().format("%H.%n(%p)")).increment();
+                }
+            }
+
             Debug.dump(Debug.BASIC_LOG_LEVEL, graph.getLastSchedule(), "Final HIR schedule");
         } catch (Throwable e) {
             throw Debug.handle(e);
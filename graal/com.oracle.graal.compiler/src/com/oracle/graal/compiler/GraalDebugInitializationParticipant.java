@@ -56,6 +56,9 @@ public class GraalDebugInitializationParticipant implements DebugInitializationP
         if ("".equals(GraalDebugConfig.Options.TrackMemUse.getValue())) {
             params.enableUnscopedMemUseTrackers = true;
         }
+        if (GraalDebugConfig.Options.StripedDebugValues.getValue()) {
+            params.enableStripedValues = true;
+        }
         // unscoped counters/timers/mem use trackers/method metrics should respect method filter
         // semantics
         if (!params.enable && (params.enableUnscopedMemUseTrackers || params.enableUnscopedMethodMetrics || params.enableUnscopedCounters || params.enableUnscopedTimers) &&
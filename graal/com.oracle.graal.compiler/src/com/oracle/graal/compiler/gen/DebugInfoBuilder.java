@@ -43,6 +43,7 @@ import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.nodes.virtual.EscapeObjectState;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 import com.oracle.graal.virtual.nodes.MaterializedObjectState;
+import com.oracle.graal.virtual.nodes.SparseVirtualObjectState;
 import com.oracle.graal.virtual.nodes.VirtualObjectState;
 
 import jdk.vm.ci.code.BytecodeFrame;
@@ -103,18 +104,18 @@ public class DebugInfoBuilder {
                 JavaValue[] values = new JavaValue[vobjNode.entryCount()];
                 JavaKind[] slotKinds = new JavaKind[vobjNode.entryCount()];
                 if (values.length > 0) {
-                    VirtualObjectState currentField = (VirtualObjectState) objectStates.get(vobjNode);
+                    EscapeObjectState currentField = objectStates.get(vobjNode);
                     assert currentField != null;
                     int pos = 0;
                     for (int i = 0; i < vobjNode.entryCount(); i++) {
-                        if (!currentField.values().get(i).isConstant() || currentField.values().get(i).asJavaConstant().getJavaKind() != JavaKind.Illegal) {
-                            ValueNode value = currentField.values().get(i);
+                        ValueNode value = entryAt(currentField, i);
+                        if (!value.isConstant() || value.asJavaConstant().getJavaKind() != JavaKind.Illegal) {
                             values[pos] = toJavaValue(value);
                             slotKinds[pos] = toSlotKind(value);
                             pos++;
                         } else {
-                            assert currentField.values().get(i - 1).getStackKind() == JavaKind.Double || currentField.values().get(i - 1).getStackKind() == JavaKind.Long : vobjNode + " " + i + " " +
-                                            currentField.values().get(i - 1);
+                            assert entryAt(currentField, i - 1).getStackKind() == JavaKind.Double || entryAt(currentField, i - 1).getStackKind() == JavaKind.Long : vobjNode + " " + i + " " +
+                                            entryAt(currentField, i - 1);
                         }
                     }
                     if (pos != vobjNode.entryCount()) {
@@ -134,6 +135,17 @@ public class DebugInfoBuilder {
         return newLIRFrameState(exceptionEdge, frame, virtualObjectsArray);
     }
 
+    /**
+     * Gets the value of entry {@code index} of {@code state}. A {@link SparseVirtualObjectState}
+     * is expanded here because {@link VirtualObject} has no compact form for default entries.
+     */
+    private static ValueNode entryAt(EscapeObjectState state, int index) {
+        if (state instanceof SparseVirtualObjectState) {
+            return ((SparseVirtualObjectState) state).valueAt(index);
+        }
+        return ((VirtualObjectState) state).values().get(index);
+    }
+
     private boolean checkValues(ResolvedJavaType type, JavaValue[] values, JavaKind[] slotKinds) {
         assert (values == null) == (slotKinds == null);
         if (values != null) {
@@ -269,7 +281,7 @@ public class DebugInfoBuilder {
                 if (state instanceof MaterializedObjectState) {
                     return toJavaValue(((MaterializedObjectState) state).materializedValue());
                 } else {
-                    assert obj.entryCount() == 0 || state instanceof VirtualObjectState;
+                    assert obj.entryCount() == 0 || state instanceof VirtualObjectState || state instanceof SparseVirtualObjectState;
                     VirtualObject vobject = virtualObjects.get(obj);
                     if (vobject == null) {
                         vobject = VirtualObject.get(obj.type(), virtualObjects.size());
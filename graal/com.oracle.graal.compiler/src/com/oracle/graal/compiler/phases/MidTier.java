@@ -24,25 +24,28 @@ package com.oracle.graal.compiler.phases;
 
 import static com.oracle.graal.compiler.common.GraalOptions.ConditionalElimination;
 import static com.oracle.graal.compiler.common.GraalOptions.ImmutableCode;
+import static com.oracle.graal.compiler.common.GraalOptions.LoopPredication;
 import static com.oracle.graal.compiler.common.GraalOptions.OptCanonicalizer;
 import static com.oracle.graal.compiler.common.GraalOptions.OptDeoptimizationGrouping;
 import static com.oracle.graal.compiler.common.GraalOptions.OptEliminatePartiallyRedundantGuards;
 import static com.oracle.graal.compiler.common.GraalOptions.OptFloatingReads;
+import static com.oracle.graal.compiler.common.GraalOptions.OptLoopTransform;
 import static com.oracle.graal.compiler.common.GraalOptions.OptPushThroughPi;
 import static com.oracle.graal.compiler.common.GraalOptions.OptReadElimination;
 import static com.oracle.graal.compiler.common.GraalOptions.ReassociateInvariants;
 import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
 import static com.oracle.graal.compiler.common.GraalOptions.VerifyHeapAtReturn;
 
+import com.oracle.graal.loop.phases.LoopPredicationPhase;
 import com.oracle.graal.loop.phases.LoopSafepointEliminationPhase;
 import com.oracle.graal.loop.phases.ReassociateInvariantPhase;
 import com.oracle.graal.nodes.spi.LoweringTool;
-import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.DeoptimizationGroupingPhase;
 import com.oracle.graal.phases.common.FloatingReadPhase;
 import com.oracle.graal.phases.common.FrameStateAssignmentPhase;
 import com.oracle.graal.phases.common.GuardLoweringPhase;
+import com.oracle.graal.phases.common.IncrementalCanonicalizationSuite;
 import com.oracle.graal.phases.common.IncrementalCanonicalizerPhase;
 import com.oracle.graal.phases.common.IterativeConditionalEliminationPhase;
 import com.oracle.graal.phases.common.LockEliminationPhase;
@@ -57,7 +60,7 @@ import com.oracle.graal.phases.common.instrumentation.MidTierReconcileInstrument
 import com.oracle.graal.phases.tiers.MidTierContext;
 import com.oracle.graal.virtual.phases.ea.EarlyReadEliminationPhase;
 
-public class MidTier extends PhaseSuite<MidTierContext> {
+public class MidTier extends IncrementalCanonicalizationSuite<MidTierContext> {
 
     public MidTier() {
         CanonicalizerPhase canonicalizer = new CanonicalizerPhase();
@@ -104,6 +107,10 @@ public class MidTier extends PhaseSuite<MidTierContext> {
             appendPhase(canonicalizer);
         }
 
+        if (OptLoopTransform.getValue() && LoopPredication.getValue()) {
+            appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopPredicationPhase()));
+        }
+
         appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopSafepointEliminationPhase()));
 
         appendPhase(new LoopSafepointInsertionPhase());
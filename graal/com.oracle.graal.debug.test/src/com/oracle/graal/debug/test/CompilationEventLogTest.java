@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oracle.graal.debug.CompilationEventLog;
+import com.oracle.graal.debug.CompilationEventLogReader;
+import com.oracle.graal.debug.CompilationEventLogReader.CompilationRecord;
+import com.oracle.graal.debug.CompilationEventLogReader.PhaseRecord;
+
+import jdk.vm.ci.code.BailoutException;
+
+public class CompilationEventLogTest {
+
+    private static CompilationEventLog.Compilation compile(String method, int phases) {
+        CompilationEventLog.Compilation compilation = new CompilationEventLog.Compilation(method);
+        compilation.beginPhase("HighTier", 10);
+        for (int i = 0; i < phases; i++) {
+            compilation.beginPhase("Phase" + (i % 3), 10 + i);
+            compilation.endPhase(11 + i);
+        }
+        compilation.endPhase(20);
+        compilation.beginPhase("LinearScan", -1);
+        compilation.endPhase(-1);
+        return compilation;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path file = Files.createTempFile("compilation", ".gcel");
+        try {
+            // a tiny chunk size forces the log to map many regions of the file
+            CompilationEventLog log = new CompilationEventLog(file, 128);
+            for (int i = 0; i < 50; i++) {
+                CompilationEventLog.Compilation compilation = compile("Foo.bar" + (i % 7) + "()", i);
+                if (i == 3) {
+                    compilation.setFailure(new BailoutException("too complex"));
+                } else if (i == 4) {
+                    compilation.setFailure(new IllegalStateException("broken"));
+                } else if (i == 5) {
+                    compilation.setSkippedPhases(2);
+                }
+                compilation.end();
+                log.append(compilation);
+            }
+            log.close();
+
+            List<CompilationRecord> records = CompilationEventLogReader.read(file);
+            assertEquals(50, records.size());
+            for (int i = 0; i < records.size(); i++) {
+                CompilationRecord record = records.get(i);
+                assertEquals("Foo.bar" + (i % 7) + "()", record.method);
+                assertEquals(Thread.currentThread().getName(), record.thread);
+                assertEquals(i + 2, record.phases.size());
+                assertEquals(i == 3, record.isBailout());
+                assertEquals(i == 4, record.isFailure());
+                assertEquals(i == 5, record.isDegraded());
+
+                PhaseRecord highTier = record.phases.get(0);
+                assertEquals("HighTier", highTier.name);
+                assertEquals(0, highTier.depth);
+                assertEquals(10, highTier.nodesBefore);
+                assertEquals(20, highTier.nodesAfter);
+                assertTrue(highTier.selfNanos <= highTier.timeNanos);
+                assertTrue(highTier.timeNanos <= record.timeNanos);
+                for (int p = 0; p < i; p++) {
+                    PhaseRecord phase = record.phases.get(p + 1);
+                    assertEquals("Phase" + (p % 3), phase.name);
+                    assertEquals(1, phase.depth);
+                    assertEquals(10 + p, phase.nodesBefore);
+                    assertEquals(11 + p, phase.nodesAfter);
+                    assertEquals(phase.timeNanos, phase.selfNanos);
+                }
+                PhaseRecord lir = record.phases.get(i + 1);
+                assertEquals("LinearScan", lir.name);
+                assertEquals(-1, lir.nodesBefore);
+            }
+            assertEquals("too complex", records.get(3).reason);
+
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            CompilationEventLogReader.printReport(records, new PrintStream(report), 5);
+            String text = report.toString();
+            assertTrue(text, text.contains("Compilations: 50 (bailouts: 1, failures: 1, degraded: 1)"));
+            assertTrue(text, text.contains("HighTier"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testEmptyLog() throws IOException {
+        Path file = Files.createTempFile("compilation", ".gcel");
+        try {
+            CompilationEventLog log = new CompilationEventLog(file, 1024);
+            log.append(new CompilationEventLog.Compilation("Foo.baz()"));
+            log.close();
+            List<CompilationRecord> records = CompilationEventLogReader.read(file);
+            assertEquals(1, records.size());
+            assertFalse(records.get(0).isDegraded());
+            assertTrue(records.get(0).phases.isEmpty());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugConfig;
+import com.oracle.graal.debug.DebugConfigScope;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.debug.Management;
+import com.oracle.graal.debug.internal.StripedDebugValues;
+
+@SuppressWarnings("try")
+public class StripedDebugValuesTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS = 10000;
+    private static final int ROUNDS = 5;
+
+    private static void runOnThreads(Runnable task) throws InterruptedException {
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(task, "StripedDebugValuesTest-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Adds to the stripes directly, so this also runs when
+     * {@link StripedDebugValues#ENABLED striped values} are not enabled. The index is beyond the
+     * initial stripe length so that the stripes grow while values are added. Each round starts new
+     * threads, which folds the stripes of the threads of the previous round.
+     */
+    @Test
+    public void testStripesSum() throws InterruptedException {
+        int index = 4000;
+        long[] before = new long[index + 1];
+        StripedDebugValues.snapshot(before);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            runOnThreads(() -> {
+                for (int i = 0; i < INCREMENTS; i++) {
+                    StripedDebugValues.add(index, 1);
+                    StripedDebugValues.add(index - 1, 2);
+                }
+            });
+
+            // the values of the terminated threads still count
+            long[] after = new long[index + 1];
+            StripedDebugValues.snapshot(after);
+            assertEquals(round * THREADS * INCREMENTS, after[index] - before[index]);
+            assertEquals(2L * round * THREADS * INCREMENTS, after[index - 1] - before[index - 1]);
+            assertEquals(after[index], StripedDebugValues.get(index));
+        }
+    }
+
+    @Test
+    public void testSnapshotWhileCounting() throws InterruptedException {
+        int index = 4001;
+        long[] values = new long[index + 1];
+        StripedDebugValues.snapshot(values);
+        long start = values[index];
+
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            long[] snapshot = new long[index + 1];
+            long previous = start;
+            while (!Thread.currentThread().isInterrupted()) {
+                StripedDebugValues.snapshot(snapshot);
+                // each stripe only grows, so neither can the sum
+                if (snapshot[index] < previous || snapshot[index] > start + ROUNDS * THREADS * INCREMENTS) {
+                    failure.compareAndSet(null, "snapshot " + snapshot[index] + " after " + previous);
+                }
+                previous = snapshot[index];
+            }
+        });
+        reader.start();
+        try {
+            // new threads fold the stripes of terminated threads while the reader takes snapshots
+            for (int round = 0; round < ROUNDS; round++) {
+                runOnThreads(() -> {
+                    for (int i = 0; i < INCREMENTS; i++) {
+                        StripedDebugValues.add(index, 1);
+                    }
+                });
+            }
+        } finally {
+            reader.interrupt();
+            reader.join();
+        }
+        assertNull(failure.get(), failure.get());
+        StripedDebugValues.snapshot(values);
+        assertEquals(start + ROUNDS * THREADS * INCREMENTS, values[index]);
+    }
+
+    /**
+     * Checks {@link Management#snapshotDebugValues} for a counter incremented on several threads.
+     * This needs the {@code StripedDebugValues} option to be set when the VM starts.
+     */
+    @Test
+    public void testCounter() throws InterruptedException {
+        Assume.assumeTrue("striped debug values are not enabled", StripedDebugValues.ENABLED);
+        String name = "StripedDebugValuesTestCounter";
+        DebugConfig debugConfig = Debug.fixedConfig(0, 0, true, false, false, false, false, null, null, System.out);
+        runOnThreads(() -> {
+            try (DebugConfigScope dcs = new DebugConfigScope(debugConfig); Debug.Scope s = Debug.scope("StripedDebugValuesTest")) {
+                DebugCounter counter = Debug.counter(name);
+                for (int i = 0; i < INCREMENTS; i++) {
+                    counter.increment();
+                }
+            }
+        });
+
+        int index = Arrays.asList(Management.getDebugValueNames()).indexOf(name);
+        assertTrue(index >= 0);
+        long[] values = new long[index + 1];
+        assertTrue(Management.snapshotDebugValues(values));
+        assertEquals(THREADS * INCREMENTS, values[index]);
+    }
+}
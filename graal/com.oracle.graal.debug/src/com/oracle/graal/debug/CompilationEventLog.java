@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionValue;
+
+import jdk.vm.ci.code.BailoutException;
+
+/**
+ * An append-only binary log of compilation events that is written through a memory mapped file.
+ * For each compilation, the log contains the wall time, the allocated bytes and the outcome of the
+ * compilation as well as the wall time, allocated bytes and node counts of each phase applied
+ * during the compilation. Recording these events does not require the {@link Debug} facility to be
+ * enabled. The log can be turned into a report with {@link CompilationEventLogReader}.
+ * <p>
+ * Events of a compilation are recorded in a {@link Compilation} object that is private to the
+ * compiling thread. They are only appended to the log, under a lock, once the compilation is done.
+ * The format of the log is:
+ *
+ * <pre>
+ * log       = "GCEL" major:u1 minor:u1 record*
+ * record    = string | compilation
+ * string    = 1:u1 id:s4 length:s4 utf8:u1[length]
+ * compilation = 2:u1 method:s4 thread:s4 startMillis:s8 timeNanos:s8 allocatedBytes:s8
+ *             result:u1 reason:s4 skippedPhases:s4 phaseCount:s4 phase[phaseCount]
+ * phase     = name:s4 depth:u1 timeNanos:s8 selfNanos:s8 allocatedBytes:s8 nodesBefore:s4 nodesAfter:s4
+ * </pre>
+ *
+ * where all multi-byte values are big endian, strings are referenced by the id of a preceding
+ * string record (-1 denotes no string), phases are listed in the order in which they were started
+ * and node counts are -1 for phases that do not operate on a graph. The records end at the end of
+ * the file or at the first zero byte.
+ */
+public final class CompilationEventLog {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "File to which a binary log of per-phase compilation events is written (see CompilationEventLog).")//
+        public static final OptionValue<String> CompilationEventLogFile = new OptionValue<>(null);
+
+        @Option(help = "Size in megabytes of the regions of the compilation event log file that are mapped into memory at once.")//
+        public static final OptionValue<Integer> CompilationEventLogChunkSize = new OptionValue<>(8);
+        // @formatter:on
+    }
+
+    /**
+     * Determines whether compilation events are recorded.
+     */
+    public static final boolean ENABLED = Options.CompilationEventLogFile.getValue() != null;
+
+    private static final ThreadLocal<Compilation> current = ENABLED ? new ThreadLocal<>() : null;
+
+    private static final CompilationEventLog instance = ENABLED ? createGlobalLog() : null;
+
+    static final byte[] MAGIC_BYTES = {'G', 'C', 'E', 'L'};
+    static final int CURRENT_MAJOR_VERSION = 1;
+    static final int CURRENT_MINOR_VERSION = 0;
+
+    static final int END = 0x00;
+    static final int STRING = 0x01;
+    static final int COMPILATION = 0x02;
+
+    private static final int COMPILATION_SIZE = 46;
+    private static final int PHASE_SIZE = 37;
+
+    static final int RESULT_SUCCESS = 0;
+    static final int RESULT_BAILOUT = 1;
+    static final int RESULT_FAILURE = 2;
+
+    /**
+     * The events of a single compilation.
+     */
+    public static final class Compilation {
+
+        private final Compilation outer;
+        private final String method;
+        private final String thread;
+        private final long startMillis;
+        private final long startNanos;
+        private final long startAllocated;
+
+        private long timeNanos;
+        private long allocatedBytes;
+        private int result = RESULT_SUCCESS;
+        private String reason;
+        private int skippedPhases = -1;
+
+        private int phaseCount;
+        private String[] phaseNames = new String[64];
+        private long[] phaseStart = new long[64];
+        private long[] phaseTime = new long[64];
+        private long[] phaseChildTime = new long[64];
+        private long[] phaseAllocated = new long[64];
+        private int[] phaseNodesBefore = new int[64];
+        private int[] phaseNodesAfter = new int[64];
+        private byte[] phaseDepth = new byte[64];
+
+        private int[] openPhases = new int[16];
+        private int openPhaseCount;
+
+        public Compilation(String method) {
+            this(null, method);
+        }
+
+        private Compilation(Compilation outer, String method) {
+            this.outer = outer;
+            this.method = method;
+            this.thread = Thread.currentThread().getName();
+            this.startMillis = System.currentTimeMillis();
+            this.startNanos = System.nanoTime();
+            this.startAllocated = Management.getCurrentThreadAllocatedBytes();
+        }
+
+        /**
+         * Records the start of a phase.
+         *
+         * @param nodes the number of nodes in the graph before the phase or -1
+         */
+        public void beginPhase(CharSequence name, int nodes) {
+            int index = phaseCount++;
+            if (index == phaseNames.length) {
+                int length = index * 2;
+                phaseNames = Arrays.copyOf(phaseNames, length);
+                phaseStart = Arrays.copyOf(phaseStart, length);
+                phaseTime = Arrays.copyOf(phaseTime, length);
+                phaseChildTime = Arrays.copyOf(phaseChildTime, length);
+                phaseAllocated = Arrays.copyOf(phaseAllocated, length);
+                phaseNodesBefore = Arrays.copyOf(phaseNodesBefore, length);
+                phaseNodesAfter = Arrays.copyOf(phaseNodesAfter, length);
+                phaseDepth = Arrays.copyOf(phaseDepth, length);
+            }
+            if (openPhaseCount == openPhases.length) {
+                openPhases = Arrays.copyOf(openPhases, openPhaseCount * 2);
+            }
+            phaseNames[index] = name.toString();
+            phaseDepth[index] = (byte) Math.min(openPhaseCount, Byte.MAX_VALUE);
+            phaseNodesBefore[index] = nodes;
+            phaseNodesAfter[index] = -1;
+            phaseAllocated[index] = Management.getCurrentThreadAllocatedBytes();
+            openPhases[openPhaseCount++] = index;
+            phaseStart[index] = System.nanoTime();
+        }
+
+        /**
+         * Records the end of the most recently started phase that has not ended yet.
+         *
+         * @param nodes the number of nodes in the graph after the phase or -1
+         */
+        public void endPhase(int nodes) {
+            long now = System.nanoTime();
+            int index = openPhases[--openPhaseCount];
+            long time = now - phaseStart[index];
+            phaseTime[index] = time;
+            phaseAllocated[index] = Management.getCurrentThreadAllocatedBytes() - phaseAllocated[index];
+            phaseNodesAfter[index] = nodes;
+            if (openPhaseCount > 0) {
+                phaseChildTime[openPhases[openPhaseCount - 1]] += time;
+            }
+        }
+
+        /**
+         * Records that the compilation was degraded by skipping {@code skipped} optional phases.
+         */
+        public void setSkippedPhases(int skipped) {
+            this.skippedPhases = skipped;
+        }
+
+        /**
+         * Records that the compilation ended with {@code t}.
+         */
+        public void setFailure(Throwable t) {
+            result = t instanceof BailoutException ? RESULT_BAILOUT : RESULT_FAILURE;
+            reason = t.getMessage() == null ? t.getClass().getName() : t.getMessage();
+        }
+
+        /**
+         * Records the end of the compilation. Phases that are still open are ended as well.
+         */
+        public void end() {
+            while (openPhaseCount > 0) {
+                endPhase(-1);
+            }
+            timeNanos = System.nanoTime() - startNanos;
+            allocatedBytes = Management.getCurrentThreadAllocatedBytes() - startAllocated;
+        }
+    }
+
+    /**
+     * Starts recording the events of a compilation of {@code method} on the current thread.
+     * Compilations may nest, e.g., for stubs that are compiled on demand.
+     */
+    public static Compilation beginCompilation(String method) {
+        Compilation compilation = new Compilation(current.get(), method);
+        current.set(compilation);
+        return compilation;
+    }
+
+    /**
+     * Ends the recording of {@code compilation} on the current thread and appends its events to
+     * the log.
+     */
+    public static void endCompilation(Compilation compilation) {
+        assert current.get() == compilation;
+        current.set(compilation.outer);
+        compilation.end();
+        instance.append(compilation);
+    }
+
+    /**
+     * Records the start of a phase in the compilation of the current thread, if any.
+     *
+     * @param nodes the number of nodes in the graph before the phase or -1
+     * @return {@code true} if there is a compilation on the current thread and
+     *         {@link #endPhase(int)} must be called
+     */
+    public static boolean beginPhase(CharSequence name, int nodes) {
+        Compilation compilation = current.get();
+        if (compilation == null) {
+            return false;
+        }
+        compilation.beginPhase(name, nodes);
+        return true;
+    }
+
+    public static void endPhase(int nodes) {
+        current.get().endPhase(nodes);
+    }
+
+    private static CompilationEventLog createGlobalLog() {
+        CompilationEventLog log = new CompilationEventLog(Paths.get(Options.CompilationEventLogFile.getValue()), Options.CompilationEventLogChunkSize.getValue() * 1024 * 1024);
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "CompilationEventLogShutdown"));
+        return log;
+    }
+
+    private final Path path;
+    private final int chunkSize;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private ByteBuffer record = ByteBuffer.allocate(4096);
+    private boolean failed;
+
+    /**
+     * Creates a log that is written to {@code path} once the first compilation is appended.
+     */
+    public CompilationEventLog(Path path, int chunkSize) {
+        this.path = path;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Appends the events of {@code compilation} to this log.
+     */
+    public synchronized void append(Compilation compilation) {
+        if (failed) {
+            return;
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                record.clear();
+                record.put(MAGIC_BYTES).put((byte) CURRENT_MAJOR_VERSION).put((byte) CURRENT_MINOR_VERSION);
+                flushRecord();
+            }
+            int methodId = stringId(compilation.method);
+            int threadId = stringId(compilation.thread);
+            int reasonId = stringId(compilation.reason);
+            int[] nameIds = new int[compilation.phaseCount];
+            for (int i = 0; i < nameIds.length; i++) {
+                nameIds[i] = stringId(compilation.phaseNames[i]);
+            }
+
+            record.clear();
+            ensureRecordCapacity(COMPILATION_SIZE + PHASE_SIZE * nameIds.length);
+            record.put((byte) COMPILATION);
+            record.putInt(methodId).putInt(threadId);
+            record.putLong(compilation.startMillis).putLong(compilation.timeNanos).putLong(compilation.allocatedBytes);
+            record.put((byte) compilation.result).putInt(reasonId).putInt(compilation.skippedPhases);
+            record.putInt(nameIds.length);
+            for (int i = 0; i < nameIds.length; i++) {
+                record.putInt(nameIds[i]).put(compilation.phaseDepth[i]);
+                record.putLong(compilation.phaseTime[i]).putLong(compilation.phaseTime[i] - compilation.phaseChildTime[i]).putLong(compilation.phaseAllocated[i]);
+                record.putInt(compilation.phaseNodesBefore[i]).putInt(compilation.phaseNodesAfter[i]);
+            }
+            flushRecord();
+        } catch (IOException e) {
+            TTY.println("Failed to write compilation event log %s: %s", path, e);
+            failed = true;
+        }
+    }
+
+    private int stringId(String s) throws IOException {
+        if (s == null) {
+            return -1;
+        }
+        Integer id = strings.get(s);
+        if (id == null) {
+            id = strings.size();
+            strings.put(s, id);
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            record.clear();
+            ensureRecordCapacity(9 + bytes.length);
+            record.put((byte) STRING).putInt(id).putInt(bytes.length).put(bytes);
+            flushRecord();
+        }
+        return id;
+    }
+
+    private void ensureRecordCapacity(int size) {
+        if (record.capacity() < size) {
+            record = ByteBuffer.allocate(Math.max(size, record.capacity() * 2));
+        }
+    }
+
+    /**
+     * Copies the bytes in {@link #record} to the mapped file, mapping the next region of the file
+     * if needed.
+     */
+    private void flushRecord() throws IOException {
+        record.flip();
+        if (chunk == null || chunk.remaining() <= record.remaining()) {
+            long position = chunk == null ? 0 : chunkStart + chunk.position();
+            chunkStart = position;
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(chunkSize, record.remaining() + 1));
+        }
+        chunk.put(record);
+    }
+
+    /**
+     * Truncates the log file to the bytes written so far and closes it.
+     */
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                long end = chunk == null ? 0 : chunkStart + chunk.position();
+                if (chunk != null) {
+                    chunk.force();
+                }
+                chunk = null;
+                channel.truncate(end);
+                channel.close();
+            } catch (IOException e) {
+                // the log remains readable since the rest of the mapped region is zero filled
+            }
+            channel = null;
+            failed = true;
+        }
+    }
+}
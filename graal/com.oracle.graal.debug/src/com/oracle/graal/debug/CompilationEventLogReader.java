@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug;
+
+import static com.oracle.graal.debug.CompilationEventLog.COMPILATION;
+import static com.oracle.graal.debug.CompilationEventLog.CURRENT_MAJOR_VERSION;
+import static com.oracle.graal.debug.CompilationEventLog.END;
+import static com.oracle.graal.debug.CompilationEventLog.MAGIC_BYTES;
+import static com.oracle.graal.debug.CompilationEventLog.RESULT_BAILOUT;
+import static com.oracle.graal.debug.CompilationEventLog.RESULT_FAILURE;
+import static com.oracle.graal.debug.CompilationEventLog.STRING;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a {@link CompilationEventLog} and summarizes it. Usage:
+ *
+ * <pre>
+ * java com.oracle.graal.debug.CompilationEventLogReader &lt;log file&gt; [&lt;number of methods to list&gt;]
+ * </pre>
+ */
+public class CompilationEventLogReader {
+
+    public static final class PhaseRecord {
+        public final String name;
+        public final int depth;
+        public final long timeNanos;
+        public final long selfNanos;
+        public final long allocatedBytes;
+        public final int nodesBefore;
+        public final int nodesAfter;
+
+        PhaseRecord(String name, int depth, long timeNanos, long selfNanos, long allocatedBytes, int nodesBefore, int nodesAfter) {
+            this.name = name;
+            this.depth = depth;
+            this.timeNanos = timeNanos;
+            this.selfNanos = selfNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.nodesBefore = nodesBefore;
+            this.nodesAfter = nodesAfter;
+        }
+    }
+
+    public static final class CompilationRecord {
+        public final String method;
+        public final String thread;
+        public final long startMillis;
+        public final long timeNanos;
+        public final long allocatedBytes;
+        public final int result;
+        public final String reason;
+        public final int skippedPhases;
+        public final List<PhaseRecord> phases;
+
+        CompilationRecord(String method, String thread, long startMillis, long timeNanos, long allocatedBytes, int result, String reason, int skippedPhases, List<PhaseRecord> phases) {
+            this.method = method;
+            this.thread = thread;
+            this.startMillis = startMillis;
+            this.timeNanos = timeNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.result = result;
+            this.reason = reason;
+            this.skippedPhases = skippedPhases;
+            this.phases = phases;
+        }
+
+        public boolean isBailout() {
+            return result == RESULT_BAILOUT;
+        }
+
+        public boolean isFailure() {
+            return result == RESULT_FAILURE;
+        }
+
+        public boolean isDegraded() {
+            return skippedPhases > 0;
+        }
+    }
+
+    /**
+     * Reads all compilation records from the log in {@code path}.
+     */
+    public static List<CompilationRecord> read(Path path) throws IOException {
+        List<CompilationRecord> result = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            byte[] magic = new byte[MAGIC_BYTES.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC_BYTES)) {
+                throw new IOException(path + " is not a compilation event log");
+            }
+            int major = in.readUnsignedByte();
+            in.readUnsignedByte();
+            if (major != CURRENT_MAJOR_VERSION) {
+                throw new IOException("Unsupported compilation event log version " + major);
+            }
+            List<String> strings = new ArrayList<>();
+            int tag;
+            while ((tag = in.read()) != -1 && tag != END) {
+                if (tag == STRING) {
+                    int id = in.readInt();
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    assert id == strings.size();
+                    strings.add(new String(bytes, StandardCharsets.UTF_8));
+                } else if (tag == COMPILATION) {
+                    String method = string(strings, in.readInt());
+                    String thread = string(strings, in.readInt());
+                    long startMillis = in.readLong();
+                    long timeNanos = in.readLong();
+                    long allocatedBytes = in.readLong();
+                    int res = in.readUnsignedByte();
+                    String reason = string(strings, in.readInt());
+                    int skippedPhases = in.readInt();
+                    int phaseCount = in.readInt();
+                    List<PhaseRecord> phases = new ArrayList<>(phaseCount);
+                    for (int i = 0; i < phaseCount; i++) {
+                        String name = string(strings, in.readInt());
+                        int depth = in.readUnsignedByte();
+                        phases.add(new PhaseRecord(name, depth, in.readLong(), in.readLong(), in.readLong(), in.readInt(), in.readInt()));
+                    }
+                    result.add(new CompilationRecord(method, thread, startMillis, timeNanos, allocatedBytes, res, reason, skippedPhases, phases));
+                } else {
+                    throw new IOException("Unknown record type " + tag + " in " + path);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String string(List<String> strings, int id) {
+        return id == -1 ? null : strings.get(id);
+    }
+
+    private static final class PhaseSummary {
+        final String name;
+        long count;
+        long timeNanos;
+        long selfNanos;
+        long allocatedBytes;
+        long nodesBefore;
+        long nodesAfter;
+
+        PhaseSummary(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Prints the totals of all compilations, the time spent in each phase and the
+     * {@code topMethods} compilations that took the longest.
+     */
+    public static void printReport(List<CompilationRecord> compilations, PrintStream out, int topMethods) {
+        long time = 0;
+        long allocated = 0;
+        int bailouts = 0;
+        int failures = 0;
+        int degraded = 0;
+        Map<String, PhaseSummary> phases = new LinkedHashMap<>();
+        for (CompilationRecord c : compilations) {
+            time += c.timeNanos;
+            allocated += c.allocatedBytes;
+            bailouts += c.isBailout() ? 1 : 0;
+            failures += c.isFailure() ? 1 : 0;
+            degraded += c.isDegraded() ? 1 : 0;
+            for (PhaseRecord p : c.phases) {
+                PhaseSummary summary = phases.computeIfAbsent(p.name, PhaseSummary::new);
+                summary.count++;
+                summary.timeNanos += p.timeNanos;
+                summary.selfNanos += p.selfNanos;
+                summary.allocatedBytes += p.allocatedBytes;
+                if (p.nodesBefore >= 0) {
+                    summary.nodesBefore += p.nodesBefore;
+                    summary.nodesAfter += p.nodesAfter;
+                }
+            }
+        }
+        out.printf("Compilations: %d (bailouts: %d, failures: %d, degraded: %d)%n", compilations.size(), bailouts, failures, degraded);
+        out.printf("Compilation time: %d ms, allocated: %d MB%n", time / 1000000, allocated / (1024 * 1024));
+
+        List<PhaseSummary> sortedPhases = new ArrayList<>(phases.values());
+        Collections.sort(sortedPhases, (p1, p2) -> Long.compare(p2.selfNanos, p1.selfNanos));
+        out.println();
+        out.printf("%-40s %10s %12s %12s %8s %12s %14s%n", "Phase", "Count", "Self (ms)", "Total (ms)", "Self %", "Alloc (MB)", "Nodes in/out");
+        for (PhaseSummary p : sortedPhases) {
+            out.printf("%-40s %10d %12d %12d %7.1f%% %12d %14s%n", p.name, p.count, p.selfNanos / 1000000, p.timeNanos / 1000000, time == 0 ? 0D : p.selfNanos * 100D / time,
+                            p.allocatedBytes / (1024 * 1024), p.nodesBefore == 0 ? "-" : p.nodesBefore / p.count + "/" + p.nodesAfter / p.count);
+        }
+
+        List<CompilationRecord> sortedCompilations = new ArrayList<>(compilations);
+        Collections.sort(sortedCompilations, (c1, c2) -> Long.compare(c2.timeNanos, c1.timeNanos));
+        out.println();
+        out.printf("%-80s %10s %12s %s%n", "Method", "Time (ms)", "Alloc (MB)", "Result");
+        for (CompilationRecord c : sortedCompilations.subList(0, Math.min(topMethods, sortedCompilations.size()))) {
+            String result = c.isBailout() ? "bailout: " + c.reason : c.isFailure() ? "failure: " + c.reason : c.isDegraded() ? "degraded: " + c.skippedPhases + " phases skipped" : "ok";
+            out.printf("%-80s %10d %12d %s%n", c.method, c.timeNanos / 1000000, c.allocatedBytes / (1024 * 1024), result);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: " + CompilationEventLogReader.class.getName() + " <log file> [<number of methods to list>]");
+            System.exit(1);
+        }
+        int topMethods = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        printReport(read(Paths.get(args[0])), System.out, topMethods);
+    }
+}
@@ -45,6 +45,7 @@ import com.oracle.graal.debug.internal.DebugHistogramImpl;
 import com.oracle.graal.debug.internal.DebugScope;
 import com.oracle.graal.debug.internal.MemUseTrackerImpl;
 import com.oracle.graal.debug.internal.CounterImpl;
+import com.oracle.graal.debug.internal.StripedDebugValues;
 import com.oracle.graal.debug.internal.TimerImpl;
 import com.oracle.graal.debug.internal.method.MethodMetricsImpl;
 import com.oracle.graal.serviceprovider.GraalServices;
@@ -86,6 +87,7 @@ public class Debug {
         public boolean interceptCount;
         public boolean interceptTime;
         public boolean interceptMem;
+        public boolean enableStripedValues;
     }
 
     @SuppressWarnings("all")
@@ -1541,6 +1543,14 @@ public class Debug {
         return enabledCounters != null;
     }
 
+    /**
+     * Determines if the values of counters, timers and memory use trackers are aggregated in
+     * {@linkplain StripedDebugValues per-thread stripes} instead of per-scope value maps.
+     */
+    public static boolean areStripedValuesEnabled() {
+        return params.enableStripedValues;
+    }
+
     public static boolean isMethodFilteringEnabled() {
         return params.enableMethodFilter;
     }
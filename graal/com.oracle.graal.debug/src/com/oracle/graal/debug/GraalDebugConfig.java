@@ -66,6 +66,9 @@ public class GraalDebugConfig implements DebugConfig {
         @Option(help = "Pattern for scope(s) in which timing is enabled (see DebugFilter and Debug.timer). " +
                        "An empty value enables all timers unconditionally.", type = OptionType.Debug)
         public static final OptionValue<String> Time = new OptionValue<>(null);
+        @Option(help = "Aggregate the values of counters, timers and memory use trackers in lock-free per-thread stripes " +
+                       "that can be read at any time (see Management.snapshotDebugValues) instead of per debug scope.", type = OptionType.Debug)
+        public static final OptionValue<Boolean> StripedDebugValues = new OptionValue<>(false);
         @Option(help = "Pattern for scope(s) in which logging is enabled (see DebugFilter and Debug.log)", type = OptionType.Debug)
         public static final OptionValue<String> Log = new OptionValue<>(null);
         @Option(help = "Pattern for filtering debug scope output based on method context (see MethodFilter)", type = OptionType.Debug)
@@ -108,6 +111,15 @@ public class GraalDebugConfig implements DebugConfig {
         public static final OptionValue<Boolean> PrintIdealGraphFile = new OptionValue<>(false);
         @Option(help = "The directory into which to dump the Ideal graph files.")
         public static final OptionValue<String> DumpPath = new OptionValue<>("");
+        @Option(help = "Write binary graph dumps to the file or network on a background thread. " +
+                       "Dumps are dropped instead of stalling the compiler thread when the writer falls behind.", type = OptionType.Debug)
+        public static final OptionValue<Boolean> PrintGraphAsync = new OptionValue<>(false);
+        @Option(help = "Number of kilobytes of graph dumps that may wait for the background writer before further dumps are dropped.", type = OptionType.Debug)
+        public static final OptionValue<Integer> PrintGraphAsyncBufferSize = new OptionValue<>(16 * 1024);
+        @Option(help = "Start a new binary graph file once the current one has grown beyond this many kilobytes (0 = never).", type = OptionType.Debug)
+        public static final OptionValue<Integer> PrintGraphFileRotationSize = new OptionValue<>(0);
+        @Option(help = "Number of binary graph files per compiler thread that are kept when rotating files (0 = keep all).", type = OptionType.Debug)
+        public static final OptionValue<Integer> PrintGraphFileRotationCount = new OptionValue<>(0);
         @Option(help = "", type = OptionType.Debug)
         public static final OptionValue<String> PrintIdealGraphAddress = new OptionValue<>("127.0.0.1");
         @Option(help = "", type = OptionType.Debug)
@@ -28,8 +28,14 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
 
+import java.util.List;
+
 import javax.management.ObjectName;
 
+import com.oracle.graal.debug.internal.DebugValue;
+import com.oracle.graal.debug.internal.KeyRegistry;
+import com.oracle.graal.debug.internal.StripedDebugValues;
+
 public class Management {
 
     private static final com.sun.management.ThreadMXBean threadMXBean = Management.initThreadMXBean();
@@ -56,6 +62,35 @@ public class Management {
         return threadMXBean;
     }
 
+    /**
+     * Gets the names of all debug values created so far. The value named by element {@code i} of
+     * the result is the value stored at index {@code i} by {@link #snapshotDebugValues(long[])}.
+     */
+    public static String[] getDebugValueNames() {
+        List<DebugValue> debugValues = KeyRegistry.getDebugValues();
+        String[] names = new String[debugValues.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = debugValues.get(i).getName();
+        }
+        return names;
+    }
+
+    /**
+     * Reads the current global values of counters, timers and memory use trackers into
+     * {@code values} without allocating and without blocking the threads updating them. Values
+     * created after {@code values} was allocated are not read.
+     *
+     * @return {@code false} if the values are not available because
+     *         {@link GraalDebugConfig.Options#StripedDebugValues} is disabled
+     */
+    public static boolean snapshotDebugValues(long[] values) {
+        if (!StripedDebugValues.ENABLED) {
+            return false;
+        }
+        StripedDebugValues.snapshot(values);
+        return true;
+    }
+
     private static class UnimplementedBean implements ThreadMXBean, com.sun.management.ThreadMXBean {
 
         @Override
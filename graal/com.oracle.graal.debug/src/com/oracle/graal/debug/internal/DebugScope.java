@@ -96,10 +96,44 @@ public final class DebugScope implements Debug.Scope {
 
     }
 
-    private static final ThreadLocal<DebugScope> instanceTL = new ThreadLocal<>();
-    private static final ThreadLocal<DebugScope> lastClosedTL = new ThreadLocal<>();
-    private static final ThreadLocal<DebugConfig> configTL = new ThreadLocal<>();
-    private static final ThreadLocal<Throwable> lastExceptionThrownTL = new ThreadLocal<>();
+    /**
+     * The debug scope state of a thread.
+     */
+    public static final class ThreadState {
+        private DebugScope instance;
+        private DebugScope lastClosed;
+        private DebugConfig config;
+        private Throwable lastExceptionThrown;
+        private StripedDebugValues.Stripe stripe;
+    }
+
+    /**
+     * A thread that keeps its {@link ThreadState} in a field. This avoids the thread local lookups
+     * otherwise needed for entering and exiting scopes and for checking if a debug feature is
+     * enabled in the current scope.
+     */
+    public interface StateCarrier {
+
+        /**
+         * Gets the debug scope state of this thread. This must always return the same object.
+         */
+        ThreadState getDebugScopeState();
+    }
+
+    private static final ThreadLocal<ThreadState> stateTL = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState();
+        }
+    };
+
+    private static ThreadState state() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof StateCarrier) {
+            return ((StateCarrier) thread).getDebugScopeState();
+        }
+        return stateTL.get();
+    }
 
     private final DebugScope parent;
     private final DebugConfig parentConfig;
@@ -137,10 +171,11 @@ public final class DebugScope implements Debug.Scope {
     }
 
     public static DebugScope getInstance() {
-        DebugScope result = instanceTL.get();
+        ThreadState state = state();
+        DebugScope result = state.instance;
         if (result == null) {
             DebugScope topLevelDebugScope = new DebugScope(Thread.currentThread());
-            instanceTL.set(topLevelDebugScope);
+            state.instance = topLevelDebugScope;
             return topLevelDebugScope;
         } else {
             return result;
@@ -148,7 +183,17 @@ public final class DebugScope implements Debug.Scope {
     }
 
     public static DebugConfig getConfig() {
-        return configTL.get();
+        return state().config;
+    }
+
+    static StripedDebugValues.Stripe getStripe() {
+        ThreadState state = state();
+        StripedDebugValues.Stripe stripe = state.stripe;
+        if (stripe == null) {
+            stripe = StripedDebugValues.createStripe();
+            state.stripe = stripe;
+        }
+        return stripe;
     }
 
     static final Object[] EMPTY_CONTEXT = new Object[0];
@@ -194,9 +239,10 @@ public final class DebugScope implements Debug.Scope {
 
     @Override
     public void close() {
-        instanceTL.set(parent);
-        configTL.set(parentConfig);
-        lastClosedTL.set(this);
+        ThreadState state = state();
+        state.instance = parent;
+        state.config = parentConfig;
+        state.lastClosed = this;
     }
 
     public boolean isDumpEnabled(int dumpLevel) {
@@ -347,40 +393,42 @@ public final class DebugScope implements Debug.Scope {
      * @return the new scope which will be exited when its {@link #close()} method is called
      */
     public DebugScope scope(CharSequence name, DebugConfig sandboxConfig, Object... newContextObjects) {
+        ThreadState state = state();
         DebugScope newScope = null;
         if (sandboxConfig != null) {
             newScope = new DebugScope(name.toString(), this, uniqueScopeId.incrementAndGet(), null, true, newContextObjects);
-            configTL.set(sandboxConfig);
+            state.config = sandboxConfig;
         } else {
             newScope = this.createChild(name.toString(), this.extraInfo, newContextObjects);
         }
-        instanceTL.set(newScope);
+        state.instance = newScope;
         newScope.updateFlags();
         return newScope;
     }
 
     public DebugScope enhanceWithExtraInfo(CharSequence name, ExtraInfo newInfo, boolean newId, Object... newContext) {
         DebugScope newScope = createChild(name.toString(), newInfo, newId ? uniqueScopeId.incrementAndGet() : this.scopeId, newContext);
-        instanceTL.set(newScope);
+        state().instance = newScope;
         newScope.updateFlags();
         return newScope;
     }
 
     public RuntimeException handle(Throwable e) {
-        DebugScope lastClosed = lastClosedTL.get();
+        ThreadState state = state();
+        DebugScope lastClosed = state.lastClosed;
         assert lastClosed.parent == this : "Debug.handle() used with no matching Debug.scope(...) or Debug.sandbox(...)";
-        if (e != lastExceptionThrownTL.get()) {
+        if (e != state.lastExceptionThrown) {
             RuntimeException newException = null;
-            instanceTL.set(lastClosed);
+            state.instance = lastClosed;
             try (DebugScope s = lastClosed) {
                 newException = s.interceptException(e);
             }
-            assert instanceTL.get() == this;
-            assert lastClosed == lastClosedTL.get();
+            assert state.instance == this;
+            assert lastClosed == state.lastClosed;
             if (newException == null) {
-                lastExceptionThrownTL.set(e);
+                state.lastExceptionThrown = e;
             } else {
-                lastExceptionThrownTL.set(newException);
+                state.lastExceptionThrown = newException;
                 throw newException;
             }
         }
@@ -508,7 +556,7 @@ public final class DebugScope implements Debug.Scope {
     }
 
     public void setConfig(DebugConfig newConfig) {
-        configTL.set(newConfig);
+        state().config = newConfig;
         updateFlags();
     }
 
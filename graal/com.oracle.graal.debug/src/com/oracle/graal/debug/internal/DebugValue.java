@@ -38,8 +38,15 @@ public abstract class DebugValue implements Comparable<DebugValue> {
         this.conditional = conditional;
     }
 
+    /**
+     * Gets the value in the current scope or, if {@linkplain StripedDebugValues striped values} are
+     * enabled, the value added by the current thread.
+     */
     public long getCurrentValue() {
         ensureInitialized();
+        if (StripedDebugValues.ENABLED) {
+            return DebugScope.getStripe().get(index);
+        }
         return DebugScope.getInstance().getCurrentValue(index);
     }
 
@@ -63,7 +70,11 @@ public abstract class DebugValue implements Comparable<DebugValue> {
     }
 
     protected void addToCurrentValue(long value) {
-        setCurrentValue(getCurrentValue() + value);
+        if (StripedDebugValues.ENABLED) {
+            StripedDebugValues.add(getIndex(), value);
+        } else {
+            setCurrentValue(getCurrentValue() + value);
+        }
     }
 
     /**
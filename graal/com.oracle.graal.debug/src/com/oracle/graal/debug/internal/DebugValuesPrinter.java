@@ -65,6 +65,11 @@ public class DebugValuesPrinter {
         TTY.println();
         TTY.println("<DebugValues>");
         List<DebugValueMap> topLevelMaps = DebugValueMap.getTopLevelMaps();
+        if (StripedDebugValues.ENABLED) {
+            // striped values are not attributed to scopes or threads
+            topLevelMaps = new ArrayList<>(topLevelMaps);
+            topLevelMaps.add(StripedDebugValues.toValueMap("StripedValues"));
+        }
         List<DebugValue> debugValues = KeyRegistry.getDebugValues();
         if (debugValues.size() > 0) {
             try {
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Management;
+
+/**
+ * Global storage for the values of counters, timers and memory use trackers that is used instead
+ * of the per-scope {@link DebugValueMap}s if {@link Debug#areStripedValuesEnabled()} is true.
+ * <p>
+ * Each thread adds to its own stripe of values without synchronization. The global value of a
+ * {@link DebugValue} is the sum of its value in all stripes and can be read at any time, e.g., via
+ * {@link Management#snapshotDebugValues(long[])}, without stopping the threads updating the values.
+ * A snapshot is not atomic across values but each individual value is exact at some point in time
+ * during the snapshot. When a new stripe is created, the stripes of terminated threads are folded
+ * into a base array so that no values are lost and the number of stripes stays proportional to the
+ * number of live threads.
+ */
+public final class StripedDebugValues {
+
+    public static final boolean ENABLED = Debug.areStripedValuesEnabled();
+
+    private static final int INITIAL_STRIPE_LENGTH = 256;
+
+    /**
+     * The values added by a single thread. Only the owning thread writes the values, other threads
+     * only read them.
+     */
+    static final class Stripe {
+
+        private final Thread owner;
+        private volatile AtomicLongArray values = new AtomicLongArray(INITIAL_STRIPE_LENGTH);
+
+        Stripe(Thread owner) {
+            this.owner = owner;
+        }
+
+        void add(int index, long delta) {
+            AtomicLongArray v = values;
+            if (index >= v.length()) {
+                v = grow(v, index);
+            }
+            v.lazySet(index, v.get(index) + delta);
+        }
+
+        private AtomicLongArray grow(AtomicLongArray v, int index) {
+            AtomicLongArray newValues = new AtomicLongArray(Math.max(v.length() * 2, index + 1));
+            for (int i = 0; i < v.length(); i++) {
+                newValues.lazySet(i, v.get(i));
+            }
+            values = newValues;
+            return newValues;
+        }
+
+        long get(int index) {
+            AtomicLongArray v = values;
+            return index < v.length() ? v.get(index) : 0L;
+        }
+
+        /**
+         * Adds the values of this stripe to {@code base}, which is grown if necessary.
+         */
+        long[] addTo(long[] base) {
+            AtomicLongArray v = values;
+            long[] result = v.length() > base.length ? Arrays.copyOf(base, v.length()) : base;
+            for (int i = 0; i < v.length(); i++) {
+                result[i] += v.get(i);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The stripes of the live threads together with the sum of the values of all terminated
+     * threads. Both are replaced at once so that a reader sees the values of each thread exactly
+     * once.
+     */
+    private static final class Stripes {
+        final Stripe[] live;
+        final long[] base;
+
+        Stripes(Stripe[] live, long[] base) {
+            this.live = live;
+            this.base = base;
+        }
+    }
+
+    private static volatile Stripes stripes = new Stripes(new Stripe[0], new long[0]);
+
+    private StripedDebugValues() {
+    }
+
+    /**
+     * Creates and registers the stripe of the current thread and folds the stripes of terminated
+     * threads into the base values.
+     */
+    static synchronized Stripe createStripe() {
+        Stripes current = stripes;
+        Stripe[] live = new Stripe[current.live.length + 1];
+        int liveCount = 0;
+        long[] base = null;
+        for (Stripe stripe : current.live) {
+            // a terminated thread does not write anymore and its writes are visible
+            if (stripe.owner.isAlive()) {
+                live[liveCount++] = stripe;
+            } else {
+                base = stripe.addTo(base == null ? current.base.clone() : base);
+            }
+        }
+        Stripe stripe = new Stripe(Thread.currentThread());
+        live[liveCount++] = stripe;
+        stripes = new Stripes(Arrays.copyOf(live, liveCount), base == null ? current.base : base);
+        return stripe;
+    }
+
+    /**
+     * Adds {@code delta} to the value with {@linkplain DebugValue#getIndex() index} {@code index}
+     * in the stripe of the current thread.
+     */
+    public static void add(int index, long delta) {
+        DebugScope.getStripe().add(index, delta);
+    }
+
+    /**
+     * Gets the sum of the value with index {@code index} over all stripes.
+     */
+    public static long get(int index) {
+        Stripes current = stripes;
+        long sum = index < current.base.length ? current.base[index] : 0L;
+        for (Stripe stripe : current.live) {
+            sum += stripe.get(index);
+        }
+        return sum;
+    }
+
+    /**
+     * Stores the sum over all stripes of the value with index {@code i} in {@code result[i]} for
+     * all {@code i < result.length}. This does not allocate.
+     */
+    public static void snapshot(long[] result) {
+        Stripes current = stripes;
+        Arrays.fill(result, 0L);
+        System.arraycopy(current.base, 0, result, 0, Math.min(result.length, current.base.length));
+        for (Stripe stripe : current.live) {
+            AtomicLongArray v = stripe.values;
+            int length = Math.min(result.length, v.length());
+            for (int i = 0; i < length; i++) {
+                result[i] += v.get(i);
+            }
+        }
+    }
+
+    /**
+     * Creates a value map holding the current global values.
+     */
+    static DebugValueMap toValueMap(String name) {
+        List<DebugValue> debugValues = KeyRegistry.getDebugValues();
+        long[] values = new long[debugValues.size()];
+        snapshot(values);
+        DebugValueMap map = new DebugValueMap(name);
+        for (int i = 0; i < values.length; i++) {
+            map.setCurrentValue(i, values[i]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.api.test.Graal;
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+
+/**
+ * Tests the node storage of {@link Graph} for graphs that span many storage chunks.
+ */
+public class GraphNodeStorageTest {
+
+    @NodeInfo
+    static final class TestNode extends Node {
+        public static final NodeClass<TestNode> TYPE = NodeClass.create(TestNode.class);
+
+        protected TestNode() {
+            super(TYPE);
+        }
+    }
+
+    private static final int NODE_COUNT = 5000;
+
+    private Graph graph;
+    private List<TestNode> nodes;
+
+    @Before
+    public void before() {
+        // Need to initialize HotSpotGraalRuntime before any Node class is initialized.
+        Graal.getRuntime();
+
+        graph = new Graph();
+        nodes = new ArrayList<>();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            nodes.add(graph.add(new TestNode()));
+        }
+    }
+
+    private void assertIteration(List<TestNode> expected) {
+        int i = 0;
+        for (Node node : graph.getNodes()) {
+            assertSame(expected.get(i++), node);
+        }
+        assertEquals(expected.size(), i);
+        assertEquals(expected.size(), graph.getNodeCount());
+    }
+
+    /**
+     * Deletes a range of nodes that spans several complete chunks as well as single nodes.
+     */
+    private List<TestNode> deleteSome() {
+        List<TestNode> live = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            TestNode node = nodes.get(i);
+            if ((i >= 700 && i < 3500) || i % 7 == 0) {
+                node.safeDelete();
+            } else {
+                live.add(node);
+            }
+        }
+        return live;
+    }
+
+    @Test
+    public void testIterationWithDeletedNodes() {
+        List<TestNode> live = deleteSome();
+        assertIteration(live);
+        for (TestNode node : nodes) {
+            if (node.isDeleted()) {
+                continue;
+            }
+            assertSame(node, graph.getNode(node.getId()));
+        }
+        assertNull(graph.getNode(2048));
+    }
+
+    @Test
+    public void testCompression() {
+        List<TestNode> live = deleteSome();
+        assertTrue(graph.maybeCompress());
+        assertIteration(live);
+        for (int i = 0; i < live.size(); i++) {
+            assertEquals(i, live.get(i).getId());
+            assertSame(live.get(i), graph.getNode(i));
+        }
+
+        // the graph can grow again after compression
+        for (int i = 0; i < NODE_COUNT; i++) {
+            live.add(graph.add(new TestNode()));
+        }
+        assertIteration(live);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.api.test.Graal;
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.NodeDoubleMap;
+import com.oracle.graal.graph.NodeIntMap;
+import com.oracle.graal.graph.NodeLongMap;
+import com.oracle.graal.nodeinfo.NodeInfo;
+
+public class PrimitiveNodeMapTest {
+
+    @NodeInfo
+    static final class TestNode extends Node {
+        public static final NodeClass<TestNode> TYPE = NodeClass.create(TestNode.class);
+
+        protected TestNode() {
+            super(TYPE);
+        }
+    }
+
+    private Graph graph;
+    private TestNode[] nodes = new TestNode[100];
+
+    @Before
+    public void before() {
+        // Need to initialize HotSpotGraalRuntime before any Node class is initialized.
+        Graal.getRuntime();
+
+        graph = new Graph();
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graph.add(new TestNode());
+        }
+    }
+
+    @Test
+    public void testIntMap() {
+        NodeIntMap map = graph.createNodeIntMap();
+        for (int i = 0; i < nodes.length; i += 2) {
+            map.set(nodes[i], i + 1);
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals((i & 1) == 0 ? i + 1 : 0, map.get(nodes[i]));
+        }
+        NodeIntMap copy = new NodeIntMap(map);
+        map.clear();
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals(0, map.get(nodes[i]));
+            assertEquals((i & 1) == 0 ? i + 1 : 0, copy.get(nodes[i]));
+        }
+    }
+
+    @Test
+    public void testLongMap() {
+        NodeLongMap map = new NodeLongMap(graph, -1L);
+        for (int i = 0; i < nodes.length; i += 2) {
+            map.set(nodes[i], Long.MAX_VALUE - i);
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals((i & 1) == 0 ? Long.MAX_VALUE - i : -1L, map.get(nodes[i]));
+        }
+    }
+
+    @Test
+    public void testDoubleMap() {
+        NodeDoubleMap map = new NodeDoubleMap(graph, Double.NaN);
+        for (int i = 0; i < nodes.length; i += 2) {
+            map.set(nodes[i], i / 2D);
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            if ((i & 1) == 0) {
+                assertEquals(i / 2D, map.get(nodes[i]), 0D);
+            } else {
+                assertTrue(Double.isNaN(map.get(nodes[i])));
+            }
+        }
+        assertTrue(map.toString().startsWith("{" + nodes[0] + "=0.0, " + nodes[2] + "=1.0"));
+    }
+
+    @Test
+    public void testGrowFillsDefaultValue() {
+        NodeIntMap intMap = new NodeIntMap(graph, -1);
+        NodeDoubleMap doubleMap = new NodeDoubleMap(graph, Double.NaN);
+        TestNode[] newNodes = new TestNode[200];
+        for (int i = 0; i < newNodes.length; i++) {
+            newNodes[i] = graph.add(new TestNode());
+        }
+        intMap.setAndGrow(newNodes[0], 42);
+        assertEquals(42, intMap.get(newNodes[0]));
+        for (int i = 1; i < newNodes.length; i++) {
+            assertEquals(-1, intMap.getAndGrow(newNodes[i]));
+            assertTrue(Double.isNaN(doubleMap.getAndGrow(newNodes[i])));
+        }
+        assertTrue(intMap.size() >= graph.getNodeCount());
+    }
+}
@@ -61,9 +61,26 @@ public class Graph {
     public final String name;
 
     /**
-     * The set of nodes in the graph, ordered by {@linkplain #register(Node) registration} time.
+     * Node ids are split into a chunk index (the upper bits) and an index within the chunk (the
+     * lower {@value #NODE_CHUNK_BITS} bits).
      */
-    Node[] nodes;
+    static final int NODE_CHUNK_BITS = 10;
+    static final int NODE_CHUNK_SIZE = 1 << NODE_CHUNK_BITS;
+    static final int NODE_CHUNK_MASK = NODE_CHUNK_SIZE - 1;
+
+    /**
+     * The set of nodes in the graph, ordered by {@linkplain #register(Node) registration} time and
+     * indexed by {@linkplain Node#id() node id}. The nodes are stored in chunks of
+     * {@link #NODE_CHUNK_SIZE} entries so that the existing nodes never have to be copied when the
+     * graph grows. Only the first chunk grows (by doubling its size) so that small graphs stay
+     * small. Chunks in which all nodes are deleted are released, i.e., set to {@code null}.
+     */
+    Node[][] nodeChunks;
+
+    /**
+     * The number of live nodes in each chunk of {@link #nodeChunks}.
+     */
+    private int[] nodeChunkLiveCounts;
 
     /**
      * Source information to associate with newly created nodes.
@@ -76,10 +93,17 @@ public class Graph {
     boolean seenNodeSourcePosition;
 
     /**
-     * The number of valid entries in {@link #nodes}.
+     * The number of node ids handed out so far, i.e., the number of valid entries in
+     * {@link #nodeChunks}.
      */
     int nodesSize;
 
+    /**
+     * The lowest id of a node deleted since the last compression. All entries below this id are
+     * live nodes and do not need to be moved by the next compression.
+     */
+    private int firstDeletedId = Integer.MAX_VALUE;
+
     /**
      * Records the modification count for nodes. This is only used in assertions.
      */
@@ -248,7 +272,8 @@ public class Graph {
      * @param name the name of the graph, used for debugging purposes
      */
     public Graph(String name) {
-        nodes = new Node[INITIAL_NODES_SIZE];
+        nodeChunks = new Node[][]{new Node[INITIAL_NODES_SIZE]};
+        nodeChunkLiveCounts = new int[1];
         iterableNodesFirst = new ArrayList<>(NodeClass.allocatedNodeIterabledIds());
         iterableNodesLast = new ArrayList<>(NodeClass.allocatedNodeIterabledIds());
         this.name = name;
@@ -795,26 +820,34 @@ public class Graph {
             return false;
         }
         GraphCompressions.increment();
-        int nextId = 0;
-        for (int i = 0; nextId < liveNodeCount; i++) {
-            Node n = nodes[i];
+        int nextId = Math.min(firstDeletedId, nodesSize);
+        for (int i = nextId; nextId < liveNodeCount; i++) {
+            Node[] chunk = nodeChunks[i >>> NODE_CHUNK_BITS];
+            if (chunk == null) {
+                // skip the whole released chunk
+                i |= NODE_CHUNK_MASK;
+                continue;
+            }
+            Node n = chunk[i & NODE_CHUNK_MASK];
             if (n != null) {
                 assert n.id == i;
                 if (i != nextId) {
                     assert n.id > nextId;
                     n.id = nextId;
-                    nodes[nextId] = n;
-                    nodes[i] = null;
+                    setNodeAt(nextId, n);
+                    chunk[i & NODE_CHUNK_MASK] = null;
                 }
                 nextId++;
             }
         }
+        releaseChunksAbove(nextId);
         if (isModificationCountsEnabled()) {
             // This will cause any current iteration to fail with an assertion
             Arrays.fill(nodeModCounts, 0);
             Arrays.fill(nodeUsageModCounts, 0);
         }
         nodesSize = nextId;
+        firstDeletedId = Integer.MAX_VALUE;
         compressions++;
         nodesDeletedBeforeLastCompression += nodesDeletedSinceLastCompression;
         nodesDeletedSinceLastCompression = 0;
@@ -921,6 +954,18 @@ public class Graph {
         return new NodeMap<>(this);
     }
 
+    public NodeIntMap createNodeIntMap() {
+        return new NodeIntMap(this);
+    }
+
+    public NodeLongMap createNodeLongMap() {
+        return new NodeLongMap(this);
+    }
+
+    public NodeDoubleMap createNodeDoubleMap() {
+        return new NodeDoubleMap(this);
+    }
+
     public NodeFlood createNodeFlood() {
         return new NodeFlood(this);
     }
@@ -933,16 +978,54 @@ public class Graph {
         return new NodeWorkList.IterativeNodeWorkList(this, fill, iterationLimitPerNode);
     }
 
+    /**
+     * Stores {@code node} at index {@code id} in {@link #nodeChunks}, allocating the chunk if
+     * necessary.
+     */
+    private void setNodeAt(int id, Node node) {
+        int chunkIndex = id >>> NODE_CHUNK_BITS;
+        if (chunkIndex >= nodeChunks.length) {
+            int newLength = Math.max(chunkIndex + 1, nodeChunks.length * 2);
+            nodeChunks = Arrays.copyOf(nodeChunks, newLength);
+            nodeChunkLiveCounts = Arrays.copyOf(nodeChunkLiveCounts, newLength);
+        }
+        Node[] chunk = nodeChunks[chunkIndex];
+        int indexInChunk = id & NODE_CHUNK_MASK;
+        if (chunk == null) {
+            chunk = new Node[NODE_CHUNK_SIZE];
+            nodeChunks[chunkIndex] = chunk;
+        } else if (indexInChunk >= chunk.length) {
+            assert chunkIndex == 0;
+            chunk = Arrays.copyOf(chunk, Math.min(NODE_CHUNK_SIZE, Math.max(chunk.length * 2, indexInChunk + 1)));
+            nodeChunks[chunkIndex] = chunk;
+        }
+        chunk[indexInChunk] = node;
+        nodeChunkLiveCounts[chunkIndex]++;
+    }
+
+    /**
+     * Releases all chunks that only contain ids greater than or equal to {@code size} and
+     * recomputes the live counts of the remaining chunks after a compression.
+     */
+    private void releaseChunksAbove(int size) {
+        int usedChunks = (size + NODE_CHUNK_MASK) >>> NODE_CHUNK_BITS;
+        for (int i = 0; i < nodeChunks.length; i++) {
+            if (i < usedChunks) {
+                nodeChunkLiveCounts[i] = Math.min(NODE_CHUNK_SIZE, size - (i << NODE_CHUNK_BITS));
+            } else if (i > 0) {
+                nodeChunks[i] = null;
+                nodeChunkLiveCounts[i] = 0;
+            } else {
+                nodeChunkLiveCounts[i] = 0;
+            }
+        }
+    }
+
     void register(Node node) {
         assert !isFrozen();
         assert node.id() == Node.INITIAL_ID;
-        if (nodes.length == nodesSize) {
-            Node[] newNodes = new Node[(nodesSize * 2) + 1];
-            System.arraycopy(nodes, 0, newNodes, 0, nodesSize);
-            nodes = newNodes;
-        }
         int id = nodesSize;
-        nodes[id] = node;
+        setNodeAt(id, node);
         if (currentNodeSourcePosition != null) {
             node.setNodeSourcePosition(currentNodeSourcePosition);
         } else if (!seenNodeSourcePosition && node.getNodeSourcePosition() != null) {
@@ -977,9 +1060,13 @@ public class Graph {
     private void recomputeIterableNodeLists() {
         iterableNodesFirst.clear();
         iterableNodesLast.clear();
-        for (Node node : nodes) {
-            if (node != null && node.isAlive()) {
-                updateNodeCaches(node);
+        for (Node[] chunk : nodeChunks) {
+            if (chunk != null) {
+                for (Node node : chunk) {
+                    if (node != null && node.isAlive()) {
+                        updateNodeCaches(node);
+                    }
+                }
             }
         }
     }
@@ -1004,7 +1091,16 @@ public class Graph {
     void unregister(Node node) {
         assert !isFrozen();
         assert !node.isDeleted() : "cannot delete a node twice! node=" + node;
-        nodes[node.id] = null;
+        int id = node.id;
+        int chunkIndex = id >>> NODE_CHUNK_BITS;
+        nodeChunks[chunkIndex][id & NODE_CHUNK_MASK] = null;
+        if (--nodeChunkLiveCounts[chunkIndex] == 0 && (chunkIndex + 1) << NODE_CHUNK_BITS <= nodesSize) {
+            // the chunk is full and all its nodes are deleted
+            nodeChunks[chunkIndex] = null;
+        }
+        if (id < firstDeletedId) {
+            firstDeletedId = id;
+        }
         nodesDeletedSinceLastCompression++;
 
         // nodes aren't removed from the type cache here - they will be removed during iteration
@@ -1030,7 +1126,11 @@ public class Graph {
     }
 
     public Node getNode(int id) {
-        return nodes[id];
+        if (id >= nodesSize) {
+            return null;
+        }
+        Node[] chunk = nodeChunks[id >>> NODE_CHUNK_BITS];
+        return chunk == null ? null : chunk[id & NODE_CHUNK_MASK];
     }
 
     /**
@@ -44,9 +44,8 @@ class GraphNodeIterator implements Iterator<Node> {
 
     private void forward() {
         if (index < graph.nodesSize) {
-            do {
-                index++;
-            } while (index < graph.nodesSize && graph.nodes[index] == null);
+            index++;
+            checkForDeletedNode();
         }
     }
 
@@ -57,15 +56,23 @@ class GraphNodeIterator implements Iterator<Node> {
     }
 
     private void checkForDeletedNode() {
-        while (index < graph.nodesSize && graph.nodes[index] == null) {
-            index++;
+        while (index < graph.nodesSize) {
+            Node[] chunk = graph.nodeChunks[index >>> Graph.NODE_CHUNK_BITS];
+            if (chunk == null) {
+                // all nodes of a released chunk are deleted
+                index = (index | Graph.NODE_CHUNK_MASK) + 1;
+            } else if (chunk[index & Graph.NODE_CHUNK_MASK] == null) {
+                index++;
+            } else {
+                return;
+            }
         }
     }
 
     @Override
     public Node next() {
         try {
-            return graph.nodes[index];
+            return graph.getNode(index);
         } finally {
             forward();
         }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+import java.util.Arrays;
+
+/**
+ * A map from nodes to {@code int} values that is indexed by node id, like {@link NodeMap}, but
+ * stores its values without boxing. Nodes without a value map to the {@linkplain #getDefaultValue()
+ * default value} of the map.
+ */
+public final class NodeIntMap extends NodeIdAccessor {
+
+    private static final int MIN_REALLOC_SIZE = 16;
+
+    private final int defaultValue;
+    private int[] values;
+
+    public NodeIntMap(Graph graph) {
+        this(graph, 0);
+    }
+
+    public NodeIntMap(Graph graph, int defaultValue) {
+        super(graph);
+        this.defaultValue = defaultValue;
+        this.values = new int[graph.nodeIdCount()];
+        if (defaultValue != 0) {
+            Arrays.fill(values, defaultValue);
+        }
+    }
+
+    public NodeIntMap(NodeIntMap copyFrom) {
+        super(copyFrom.graph);
+        this.defaultValue = copyFrom.defaultValue;
+        this.values = Arrays.copyOf(copyFrom.values, copyFrom.values.length);
+    }
+
+    public int getDefaultValue() {
+        return defaultValue;
+    }
+
+    public int get(Node node) {
+        assert check(node);
+        return values[getNodeId(node)];
+    }
+
+    public int getAndGrow(Node node) {
+        checkAndGrow(node);
+        return values[getNodeId(node)];
+    }
+
+    public void set(Node node, int value) {
+        assert check(node);
+        values[getNodeId(node)] = value;
+    }
+
+    public void setAndGrow(Node node, int value) {
+        checkAndGrow(node);
+        values[getNodeId(node)] = value;
+    }
+
+    private void checkAndGrow(Node node) {
+        if (isNew(node)) {
+            int oldLength = values.length;
+            this.values = Arrays.copyOf(values, Math.max(MIN_REALLOC_SIZE, graph.nodeIdCount() * 3 / 2));
+            if (defaultValue != 0) {
+                Arrays.fill(values, oldLength, values.length, defaultValue);
+            }
+        }
+        assert check(node);
+    }
+
+    public Graph graph() {
+        return graph;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isNew(Node node) {
+        return getNodeId(node) >= size();
+    }
+
+    private boolean check(Node node) {
+        assert node.graph() == graph : String.format("%s is not part of the graph", node);
+        assert !isNew(node) : "this node was added to the graph after creating the node map : " + node;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(values, defaultValue);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        for (int i = 0; i < values.length; i++) {
+            Node key = graph.getNode(i);
+            if (key != null && values[i] != defaultValue) {
+                if (sb.length() > 1) {
+                    sb.append(',').append(' ');
+                }
+                sb.append(key).append('=').append(values[i]);
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
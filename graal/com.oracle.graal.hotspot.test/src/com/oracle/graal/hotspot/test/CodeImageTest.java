@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.hotspot.AheadOfTimeCompiler;
+import com.oracle.graal.hotspot.HotSpotGraalCompiler;
+import com.oracle.graal.hotspot.aot.CodeImage;
+import com.oracle.graal.hotspot.aot.CodeImage.CompiledMethod;
+import com.oracle.graal.hotspot.aot.CodeImage.MethodReference;
+import com.oracle.graal.hotspot.aot.CodeImage.Relocation;
+import com.oracle.graal.hotspot.aot.CodeImage.Relocation.Kind;
+import com.oracle.graal.hotspot.aot.CodeImage.Relocation.Section;
+import com.oracle.graal.hotspot.aot.CodeImageVerifier;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+
+/**
+ * Tests writing, reading and verifying {@link CodeImage}s produced by {@link AheadOfTimeCompiler}.
+ */
+public class CodeImageTest extends GraalCompilerTest {
+
+    public static int sum(int[] array) {
+        int sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    public static String concat(Object a, String b) {
+        return String.valueOf(a) + b + "!";
+    }
+
+    public static Object allocate(int length) {
+        return new Object[length];
+    }
+
+    private final HotSpotGraalCompiler compiler = (HotSpotGraalCompiler) HotSpotJVMCIRuntime.runtime().getCompiler();
+
+    private CodeImage compileImage() {
+        AheadOfTimeCompiler aot = new AheadOfTimeCompiler(compiler, null, null, false);
+        for (String name : new String[]{"sum", "concat", "allocate"}) {
+            Assert.assertTrue(name, aot.compile(getResolvedJavaMethod(name)));
+        }
+        return aot.getImage();
+    }
+
+    private List<String> verify(CodeImage image) {
+        return new CodeImageVerifier(compiler.getGraalRuntime(), getClass().getClassLoader()).verify(image);
+    }
+
+    private static byte[] toBytes(CodeImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        image.write(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        CodeImage image = compileImage();
+        CodeImage copy = CodeImage.read(new ByteArrayInputStream(toBytes(image)));
+        Assert.assertEquals(image.getProperties(), copy.getProperties());
+        Assert.assertEquals(image.getMethods().size(), copy.getMethods().size());
+        for (int i = 0; i < image.getMethods().size(); i++) {
+            CompiledMethod expected = image.getMethods().get(i);
+            CompiledMethod actual = copy.getMethods().get(i);
+            Assert.assertEquals(expected.method, actual.method);
+            Assert.assertEquals(expected.inlinedMethods, actual.inlinedMethods);
+            Assert.assertEquals(expected.totalFrameSize, actual.totalFrameSize);
+            Assert.assertArrayEquals(expected.code, actual.code);
+            Assert.assertEquals(expected.dataAlignment, actual.dataAlignment);
+            Assert.assertArrayEquals(expected.data, actual.data);
+            Assert.assertEquals(expected.relocations, actual.relocations);
+            Assert.assertArrayEquals(expected.exceptionHandlers, actual.exceptionHandlers);
+            Assert.assertArrayEquals(expected.infopoints, actual.infopoints);
+            Assert.assertArrayEquals(expected.infopointReasons, actual.infopointReasons);
+        }
+        Assert.assertEquals(0, verify(copy).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptedImage() throws IOException {
+        byte[] bytes = toBytes(compileImage());
+        bytes[bytes.length / 2] ^= 0x10;
+        CodeImage.read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void testChangedProperty() {
+        CodeImage image = compileImage();
+        Map<String, String> properties = new HashMap<>(image.getProperties());
+        properties.put("java.vm.version", "0.0-unknown");
+        CodeImage changed = new CodeImage(properties);
+        for (CompiledMethod method : image.getMethods()) {
+            changed.add(method);
+        }
+        Assert.assertNotEquals(0, verify(changed).size());
+    }
+
+    @Test
+    public void testChangedBytecode() {
+        CodeImage image = compileImage();
+        CodeImage changed = new CodeImage(image.getProperties());
+        CompiledMethod m = image.getMethods().get(0);
+        MethodReference stale = new MethodReference(m.method.holder, m.method.name, m.method.descriptor, m.method.bytecodeHash + 1);
+        changed.add(new CompiledMethod(stale, m.inlinedMethods, m.totalFrameSize, m.code, m.dataAlignment, m.data, m.relocations, m.exceptionHandlers, m.infopoints, m.infopointReasons));
+        List<String> problems = verify(changed);
+        Assert.assertEquals(problems.toString(), 1, problems.size());
+    }
+
+    @Test
+    public void testTruncatedRelocation() {
+        CodeImage image = compileImage();
+        CodeImage changed = new CodeImage(image.getProperties());
+        int truncated = 0;
+        for (CompiledMethod m : image.getMethods()) {
+            List<Relocation> relocations = new ArrayList<>();
+            for (Relocation r : m.relocations) {
+                if (r.section == Section.CODE && r.kind != Kind.MARK) {
+                    // the relocation starts within the code but its operand runs past the end
+                    r = new Relocation(r.section, m.code.length - 2, r.kind, r.symbol, r.value, r.compressed);
+                    truncated++;
+                }
+                relocations.add(r);
+            }
+            changed.add(new CompiledMethod(m.method, m.inlinedMethods, m.totalFrameSize, m.code, m.dataAlignment, m.data, relocations, m.exceptionHandlers, m.infopoints, m.infopointReasons));
+        }
+        Assert.assertNotEquals(0, truncated);
+        List<String> problems = verify(changed);
+        Assert.assertEquals(problems.toString(), truncated, problems.size());
+    }
+}
@@ -23,6 +23,8 @@
 package com.oracle.graal.hotspot.test;
 
 import static com.oracle.graal.compiler.GraalCompilerOptions.ExitVMOnException;
+import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldThreads;
+import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldWorkStealing;
 
 import org.junit.Test;
 
@@ -30,6 +32,8 @@ import com.oracle.graal.compiler.test.GraalCompilerTest;
 import com.oracle.graal.hotspot.CompileTheWorld;
 import com.oracle.graal.hotspot.CompileTheWorld.Config;
 import com.oracle.graal.hotspot.HotSpotGraalCompiler;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
 
 import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
 import jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider;
@@ -48,4 +52,16 @@ public class CompileTheWorldTest extends GraalCompilerTest {
         new CompileTheWorld(runtime, (HotSpotGraalCompiler) runtime.getCompiler(), CompileTheWorld.SUN_BOOT_CLASS_PATH, new Config("Inline=false"), 1, 5, null, null, true).compile();
         assert ExitVMOnException.getValue() == originalSetting;
     }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testJDKWorkStealing() throws Throwable {
+        boolean originalSetting = ExitVMOnException.getValue();
+        HotSpotJVMCIRuntimeProvider runtime = HotSpotJVMCIRuntime.runtime();
+        System.setProperty(CompileTheWorld.LIMITMODS_PROPERTY_NAME, "java.base");
+        try (OverrideScope s = OptionValue.override(CompileTheWorldWorkStealing, true, CompileTheWorldThreads, 2)) {
+            new CompileTheWorld(runtime, (HotSpotGraalCompiler) runtime.getCompiler(), CompileTheWorld.SUN_BOOT_CLASS_PATH, new Config("Inline=false"), 1, 5, null, null, true).compile();
+        }
+        assert ExitVMOnException.getValue() == originalSetting;
+    }
 }
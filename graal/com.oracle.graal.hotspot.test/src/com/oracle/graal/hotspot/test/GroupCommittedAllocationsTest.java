@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.HUB_WRITE_LOCATION;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.TLAB_TOP_LOCATION;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions;
+import com.oracle.graal.nodes.EndNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.LoopExitNode;
+import com.oracle.graal.nodes.SafepointNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.nodes.memory.WriteNode;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests {@link HotspotSnippetsOptions#GroupCommittedAllocations}. The {@code AllocateGroupNode}
+ * only exists while the members of a group are lowered, so the low tier graph is checked for the
+ * single TLAB top update it is replaced with.
+ */
+public class GroupCommittedAllocationsTest extends HotSpotGraalCompilerTest {
+
+    private static final int VALUES_LENGTH = 400;
+    private static final int MEMBERS = 3;
+
+    static class Holder {
+        int id;
+        int[] values;
+        Object[] links;
+    }
+
+    static Holder sink;
+
+    /**
+     * All three objects escape at the store to {@link #sink}, so they are materialized by a single
+     * commit: an instance, a primitive array large enough to exhaust the TLAB quickly and an
+     * object array referring to the other two.
+     */
+    public static Holder publish(int id) {
+        Holder holder = new Holder();
+        int[] values = new int[VALUES_LENGTH];
+        Object[] links = new Object[2];
+        values[0] = id;
+        values[VALUES_LENGTH - 1] = -id;
+        links[0] = holder;
+        links[1] = values;
+        holder.id = id;
+        holder.values = values;
+        holder.links = links;
+        sink = holder;
+        return holder;
+    }
+
+    private List<WriteNode> tlabTopWrites;
+
+    @Before
+    public void checkTLAB() {
+        Assume.assumeTrue(runtime().getVMConfig().useTLAB);
+    }
+
+    @Override
+    protected boolean checkLowTierGraph(StructuredGraph graph) {
+        tlabTopWrites = graph.getNodes().filter(WriteNode.class).filter(w -> ((WriteNode) w).getLocationIdentity().equals(TLAB_TOP_LOCATION)).snapshot();
+        if (tlabTopWrites.size() == 1) {
+            checkFastPath(graph, tlabTopWrites.get(0));
+        }
+        return true;
+    }
+
+    /**
+     * Follows the fast path from the TLAB top update to the end of the method and checks that it
+     * writes the header of every member without passing a safepoint.
+     */
+    private void checkFastPath(StructuredGraph graph, WriteNode tlabTopWrite) {
+        NodeBitMap visited = graph.createNodeBitMap();
+        Deque<FixedNode> worklist = new ArrayDeque<>();
+        worklist.push(tlabTopWrite);
+        int hubWrites = 0;
+        while (!worklist.isEmpty()) {
+            FixedNode node = worklist.pop();
+            if (visited.isMarked(node)) {
+                continue;
+            }
+            visited.mark(node);
+            Assert.assertFalse("safepoint on the fast path: " + node, node instanceof SafepointNode || node instanceof Invoke);
+            if (node instanceof ForeignCallNode) {
+                ForeignCallNode call = (ForeignCallNode) node;
+                Assert.assertFalse("safepoint on the fast path: " + node, getProviders().getForeignCalls().isGuaranteedSafepoint(call.getDescriptor()));
+            } else if (node instanceof WriteNode && ((WriteNode) node).getLocationIdentity().equals(HUB_WRITE_LOCATION)) {
+                hubWrites++;
+            }
+
+            if (node instanceof IfNode) {
+                IfNode ifNode = (IfNode) node;
+                if (ifNode.trueSuccessor() instanceof LoopExitNode || ifNode.falseSuccessor() instanceof LoopExitNode) {
+                    worklist.push(ifNode.trueSuccessor());
+                    worklist.push(ifNode.falseSuccessor());
+                } else if (ifNode.probability(ifNode.trueSuccessor()) >= 0.5) {
+                    worklist.push(ifNode.trueSuccessor());
+                } else {
+                    worklist.push(ifNode.falseSuccessor());
+                }
+            } else if (node instanceof EndNode) {
+                worklist.push(((EndNode) node).merge());
+            } else if (!(node instanceof LoopEndNode)) {
+                for (Node successor : node.successors()) {
+                    worklist.push((FixedNode) successor);
+                }
+            }
+        }
+        Assert.assertEquals("header writes on the fast path", MEMBERS, hubWrites);
+    }
+
+    @SuppressWarnings("try")
+    private InstalledCode compilePublish(boolean group) {
+        ResolvedJavaMethod method = getResolvedJavaMethod("publish");
+        try (OverrideScope s = OptionValue.override(HotspotSnippetsOptions.GroupCommittedAllocations, group, GraalOptions.MaximumEscapeAnalysisArrayLength, VALUES_LENGTH)) {
+            return getCode(method, parseEager(method, StructuredGraph.AllowAssumptions.YES));
+        }
+    }
+
+    @Test
+    public void testSingleBump() {
+        compilePublish(true);
+        Assert.assertEquals("TLAB top updates", 1, tlabTopWrites.size());
+    }
+
+    @Test
+    public void testWithoutGroup() {
+        compilePublish(false);
+        Assert.assertEquals("TLAB top updates", MEMBERS, tlabTopWrites.size());
+    }
+
+    /**
+     * Each call reserves more than 1.6K of TLAB memory, so the reservation regularly fails at the
+     * end of a TLAB and all members take their slow path stubs.
+     */
+    @Test
+    public void testTLABExhaustion() throws InvalidInstalledCodeException {
+        InstalledCode code = compilePublish(true);
+        for (int id = 0; id < 100_000; id++) {
+            Holder holder = (Holder) code.executeVarargs(id);
+            Assert.assertSame(sink, holder);
+            Assert.assertEquals(id, holder.id);
+            Assert.assertEquals(VALUES_LENGTH, holder.values.length);
+            Assert.assertEquals(id, holder.values[0]);
+            Assert.assertEquals(0, holder.values[1]);
+            Assert.assertEquals(-id, holder.values[VALUES_LENGTH - 1]);
+            Assert.assertEquals(2, holder.links.length);
+            Assert.assertSame(holder, holder.links[0]);
+            Assert.assertSame(holder.values, holder.links[1]);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot;
+
+import static com.oracle.graal.hotspot.AheadOfTimeCompilerOptions.AOTClasspath;
+import static com.oracle.graal.hotspot.AheadOfTimeCompilerOptions.AOTConfig;
+import static com.oracle.graal.hotspot.AheadOfTimeCompilerOptions.AOTMethodFilter;
+import static com.oracle.graal.hotspot.AheadOfTimeCompilerOptions.AOTMethodList;
+import static com.oracle.graal.hotspot.AheadOfTimeCompilerOptions.AOTOutput;
+import static com.oracle.graal.hotspot.AheadOfTimeCompilerOptions.AOTVerbose;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.compiler.common.util.Util;
+import com.oracle.graal.debug.MethodFilter;
+import com.oracle.graal.debug.TTY;
+import com.oracle.graal.hotspot.CompileTheWorld.ClassPathEntry;
+import com.oracle.graal.hotspot.CompileTheWorld.Config;
+import com.oracle.graal.hotspot.CompileTheWorld.DirClassPathEntry;
+import com.oracle.graal.hotspot.CompileTheWorld.ImageClassPathEntry;
+import com.oracle.graal.hotspot.CompileTheWorld.JarClassPathEntry;
+import com.oracle.graal.hotspot.aot.CodeImage;
+import com.oracle.graal.hotspot.aot.CodeImageBuilder;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.runtime.JVMCICompiler;
+import jdk.vm.ci.services.Services;
+
+/**
+ * Compiles methods ahead of time into a {@link CodeImage}. The code is compiled as
+ * {@linkplain com.oracle.graal.compiler.common.GraalOptions#ImmutableCode immutable},
+ * {@linkplain com.oracle.graal.compiler.common.GraalOptions#GeneratePIC position independent}
+ * code without {@linkplain com.oracle.graal.compiler.common.GraalOptions#OptAssumptions
+ * assumptions} so that it does not depend on the VM instance it was compiled in. Methods are
+ * selected by walking a class path in the same way as {@link CompileTheWorld} and can be narrowed
+ * down with method filters.
+ *
+ * The resulting image is meant to be checked with a
+ * {@link com.oracle.graal.hotspot.aot.CodeImageVerifier} before any code from it is used.
+ */
+public final class AheadOfTimeCompiler {
+
+    /**
+     * The options that make compiled code independent of the VM instance. They are applied after
+     * the user supplied {@linkplain AheadOfTimeCompilerOptions#AOTConfig configuration} and thus
+     * cannot be overridden by it.
+     */
+    private static final String PIC_CONFIG = "ImmutableCode=true GeneratePIC=true OptAssumptions=false";
+
+    private final HotSpotGraalCompiler compiler;
+    private final MetaAccessProvider metaAccess;
+    private final Config config;
+    private final MethodFilter[] methodFilters;
+    private final boolean verbose;
+    private final CodeImageBuilder builder;
+    private final CodeImage image;
+    private int failedMethods;
+
+    /**
+     * @param methodFilters comma separated {@linkplain MethodFilter method filters} selecting the
+     *            methods to compile or {@code null} to compile all methods
+     * @param config option value overrides to use during compilation or {@code null}
+     */
+    public AheadOfTimeCompiler(HotSpotGraalCompiler compiler, String methodFilters, String config, boolean verbose) {
+        this.compiler = compiler;
+        HotSpotGraalRuntimeProvider runtime = compiler.getGraalRuntime();
+        this.metaAccess = runtime.getHostProviders().getMetaAccess();
+        this.config = new Config(config == null ? PIC_CONFIG : config + " " + PIC_CONFIG);
+        this.methodFilters = methodFilters == null || methodFilters.isEmpty() ? null : MethodFilter.parse(methodFilters);
+        this.verbose = verbose;
+        this.builder = new CodeImageBuilder(runtime.getHostProviders().getSnippetReflection());
+        this.image = new CodeImage(CodeImageBuilder.vmProperties(runtime));
+    }
+
+    /**
+     * Creates an ahead of time compiler configured by {@link AheadOfTimeCompilerOptions}.
+     */
+    public AheadOfTimeCompiler(HotSpotGraalCompiler compiler) throws IOException {
+        this(compiler, joinMethodFilters(AOTMethodFilter.getValue(), AOTMethodList.getValue()), AOTConfig.getValue(), AOTVerbose.getValue());
+    }
+
+    /**
+     * Combines {@code methodFilter} with the filters in the file {@code methodList}, one per line.
+     * Empty lines and lines starting with {@code #} in the file are ignored.
+     */
+    static String joinMethodFilters(String methodFilter, String methodList) throws IOException {
+        List<String> filters = new ArrayList<>();
+        if (methodFilter != null) {
+            filters.add(methodFilter);
+        }
+        if (methodList != null) {
+            for (String line : Files.readAllLines(Paths.get(methodList), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    filters.add(line);
+                }
+            }
+        }
+        return filters.isEmpty() ? null : String.join(",", filters);
+    }
+
+    public CodeImage getImage() {
+        return image;
+    }
+
+    /**
+     * Gets the number of methods whose compilation failed or whose code could not be added to the
+     * image.
+     */
+    public int getFailedMethods() {
+        return failedMethods;
+    }
+
+    /**
+     * Compiles all methods selected by the method filters in the classes of {@code classPath}.
+     */
+    public void compileClassPath(String classPath) throws IOException {
+        for (String entry : classPath.split(File.pathSeparator)) {
+            ClassPathEntry cpe;
+            if (entry.endsWith(".zip") || entry.endsWith(".jar")) {
+                cpe = new JarClassPathEntry(entry);
+            } else if (CompileTheWorld.isJImage(entry)) {
+                assert !Util.Java8OrEarlier;
+                cpe = new ImageClassPathEntry(entry);
+            } else if (new File(entry).isDirectory()) {
+                cpe = new DirClassPathEntry(entry);
+            } else {
+                println("AheadOfTimeCompiler : Skipped classes in " + entry);
+                continue;
+            }
+            try {
+                ClassLoader loader = cpe.createClassLoader();
+                for (String className : cpe.getClassNames()) {
+                    if (methodFilters != null && !MethodFilter.matchesClassName(methodFilters, className)) {
+                        continue;
+                    }
+                    try {
+                        // Classes are not initialized as the compiled code must not depend on it
+                        compileClass(Class.forName(className, false, loader));
+                    } catch (Throwable t) {
+                        println("AheadOfTimeCompiler : Skipping " + className + " " + t);
+                    }
+                }
+            } finally {
+                cpe.close();
+            }
+        }
+    }
+
+    private void compileClass(Class<?> javaClass) {
+        for (Constructor<?> constructor : javaClass.getDeclaredConstructors()) {
+            compileIfSelected(metaAccess.lookupJavaMethod(constructor));
+        }
+        for (Method method : javaClass.getDeclaredMethods()) {
+            compileIfSelected(metaAccess.lookupJavaMethod(method));
+        }
+        ResolvedJavaType type = metaAccess.lookupJavaType(javaClass);
+        ResolvedJavaMethod clinit = type.getClassInitializer();
+        if (clinit != null) {
+            compileIfSelected(clinit);
+        }
+    }
+
+    private void compileIfSelected(ResolvedJavaMethod method) {
+        if (methodFilters != null && !MethodFilter.matches(methodFilters, method)) {
+            return;
+        }
+        if (canBeCompiled(method)) {
+            compile(method);
+        }
+    }
+
+    /**
+     * Determines if a method should be compiled (Cf. {@link CompileTheWorld}).
+     */
+    private static boolean canBeCompiled(ResolvedJavaMethod method) {
+        if (Modifier.isAbstract(method.getModifiers()) || Modifier.isNative(method.getModifiers())) {
+            return false;
+        }
+        // Allow use of -XX:CompileCommand=dontinline to exclude problematic methods
+        if (!method.canBeInlined()) {
+            return false;
+        }
+        for (Annotation annotation : method.getAnnotations()) {
+            if (annotation.annotationType().getName().equals("com.oracle.graal.replacements.Snippet")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compiles {@code method} and adds its code to the image.
+     *
+     * @return {@code true} if the code was added to the image
+     */
+    @SuppressWarnings("try")
+    public boolean compile(ResolvedJavaMethod method) {
+        try (OverrideScope s = config.apply()) {
+            CompilationResult result = compiler.compile(method, JVMCICompiler.INVOCATION_ENTRY_BCI, false);
+            CodeImage.CompiledMethod compiledMethod = builder.build(method, result);
+            image.add(compiledMethod);
+            println("AheadOfTimeCompiler : " + compiledMethod);
+            return true;
+        } catch (Throwable t) {
+            // Catch everything and print a message
+            failedMethods++;
+            println("AheadOfTimeCompiler : Error compiling method: " + method.format("%H.%n(%p):%r") + ": " + t);
+            if (verbose) {
+                t.printStackTrace(TTY.out);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Writes the image to the file {@code path}.
+     */
+    public void write(String path) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path))) {
+            image.write(out);
+        }
+    }
+
+    private void println(String s) {
+        CompileTheWorld.println(verbose, s);
+    }
+
+    public static void main(String[] args) throws Throwable {
+        Services.exportJVMCITo(AheadOfTimeCompiler.class);
+        HotSpotGraalCompiler compiler = (HotSpotGraalCompiler) HotSpotJVMCIRuntime.runtime().getCompiler();
+        String classPath = args.length > 0 ? String.join(File.pathSeparator, args) : AOTClasspath.getValue();
+        if (classPath == null) {
+            TTY.println("AheadOfTimeCompiler : No class path given. Use -Dgraal.AOTClasspath or pass class path entries as arguments.");
+            System.exit(1);
+        }
+        AheadOfTimeCompiler aot = new AheadOfTimeCompiler(compiler);
+        aot.compileClassPath(classPath);
+        aot.write(AOTOutput.getValue());
+        TTY.println("AheadOfTimeCompiler : Wrote %d methods to %s, %d methods failed", aot.image.getMethods().size(), AOTOutput.getValue(), aot.failedMethods);
+        System.exit(aot.failedMethods == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot;
+
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+
+/**
+ * Options related to {@link AheadOfTimeCompiler}.
+ *
+ * Note: This must be a top level class to work around for
+ * <a href="https://bugs.eclipse.org/bugs/show_bug.cgi?id=477597">Eclipse bug 477597</a>.
+ */
+public class AheadOfTimeCompilerOptions {
+    // @formatter:off
+    @Option(help = "Class path denoting methods to compile ahead of time", type = OptionType.User)
+    public static final OptionValue<String> AOTClasspath = new OptionValue<>(null);
+    @Option(help = "Only compile methods matching this filter ahead of time", type = OptionType.User)
+    public static final OptionValue<String> AOTMethodFilter = new OptionValue<>(null);
+    @Option(help = "File containing one method filter per line. Only methods matching one of the filters " +
+                   "in the file or AOTMethodFilter are compiled ahead of time", type = OptionType.User)
+    public static final OptionValue<String> AOTMethodList = new OptionValue<>(null);
+    @Option(help = "File to which the code image produced by ahead of time compilation is written", type = OptionType.User)
+    public static final OptionValue<String> AOTOutput = new OptionValue<>("graal.aot");
+    @Option(help = "Verbose ahead of time compilation", type = OptionType.User)
+    public static final OptionValue<Boolean> AOTVerbose = new OptionValue<>(false);
+    @Option(help = "Option value overrides to use during ahead of time compilation. The format for each " +
+                   "option is the same as on the command line just without the '-Dgraal.' prefix. The " +
+                   "options required for position independent code cannot be overridden.", type = OptionType.User)
+    public static final OptionValue<String> AOTConfig = new OptionValue<>(null);
+    // @formatter:on
+}
@@ -31,6 +31,8 @@ import static com.oracle.graal.compiler.GraalCompilerOptions.PrintFilter;
 import static com.oracle.graal.compiler.GraalCompilerOptions.PrintStackTraceOnException;
 import static com.oracle.graal.compiler.phases.HighTier.Options.Inline;
 
+import java.util.Arrays;
+
 import com.oracle.graal.code.CompilationResult;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
@@ -43,6 +45,7 @@ import com.oracle.graal.debug.TTY;
 import com.oracle.graal.debug.TimeSource;
 import com.oracle.graal.options.OptionValue;
 import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.common.inlining.InliningGraphCache;
 
 import jdk.vm.ci.code.BailoutException;
 import jdk.vm.ci.code.CodeCacheProvider;
@@ -339,6 +342,15 @@ public class CompilationTask {
             HotSpotCompiledCode compiledCode = HotSpotCompiledCodeBuilder.createCompiledCode(request.getMethod(), request, compResult);
             installedCode = (HotSpotInstalledCode) codeCache.installCode(request.getMethod(), compiledCode, null, request.getMethod().getSpeculationLog(), installAsDefault);
         } catch (Throwable e) {
+            InliningGraphCache graphCache = InliningGraphCache.getInstalled();
+            if (graphCache != null && compResult.getMethods() != null) {
+                /*
+                 * Installation fails if dependencies of the code were invalidated in the meantime
+                 * (e.g., by class loading or redefinition). Do not reuse callee graphs that may
+                 * have been parsed under the old state.
+                 */
+                graphCache.invalidate(Arrays.asList(compResult.getMethods()));
+            }
             throw Debug.handle(e);
         }
     }
@@ -30,13 +30,18 @@ import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldCla
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldConfig;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldExcludeMethodFilter;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldMethodFilter;
+import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldReport;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldStartAt;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldStopAt;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldVerbose;
+import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldWorkStealing;
 
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
@@ -61,10 +66,15 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -74,10 +84,13 @@ import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 
 import com.oracle.graal.bytecode.Bytecodes;
+import com.oracle.graal.compiler.CompilerThread;
 import com.oracle.graal.compiler.CompilerThreadFactory;
 import com.oracle.graal.compiler.CompilerThreadFactory.DebugConfigAccess;
 import com.oracle.graal.compiler.common.util.Util;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugConfig;
+import com.oracle.graal.debug.DebugDumpHandler;
 import com.oracle.graal.debug.DebugEnvironment;
 import com.oracle.graal.debug.GraalDebugConfig;
 import com.oracle.graal.debug.MethodFilter;
@@ -197,6 +210,28 @@ public final class CompileTheWorld {
     private AtomicLong compileTime = new AtomicLong();
     private AtomicLong memoryUsed = new AtomicLong();
 
+    /**
+     * Compilation statistics of each thread that compiled methods.
+     */
+    private final Queue<ThreadStatistics> threadStatistics = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ThreadStatistics> currentThreadStatistics = ThreadLocal.withInitial(() -> {
+        ThreadStatistics stats = new ThreadStatistics(Thread.currentThread().getName());
+        threadStatistics.add(stats);
+        return stats;
+    });
+
+    /**
+     * Stream to which a line is written for each compiled method if
+     * {@link CompileTheWorldOptions#CompileTheWorldReport} is set.
+     */
+    private PrintStream report;
+
+    /**
+     * The methods to compile in {@linkplain CompileTheWorldOptions#CompileTheWorldWorkStealing
+     * work-stealing} mode. They are collected while loading classes and compiled afterwards.
+     */
+    private List<MethodToCompile> methodsToCompile;
+
     private boolean verbose;
     private final Config config;
 
@@ -512,7 +547,7 @@ public final class CompileTheWorld {
         final String[] entries = classPath.split(File.pathSeparator);
         long start = System.currentTimeMillis();
 
-        CompilerThreadFactory factory = new CompilerThreadFactory("CompileTheWorld", new DebugConfigAccess() {
+        DebugConfigAccess debugConfigAccess = new DebugConfigAccess() {
             @Override
             public GraalDebugConfig getDebugConfig() {
                 if (Debug.isEnabled() && DebugScope.getConfig() == null) {
@@ -520,7 +555,8 @@ public final class CompileTheWorld {
                 }
                 return null;
             }
-        });
+        };
+        CompilerThreadFactory factory = new CompilerThreadFactory("CompileTheWorld", debugConfigAccess);
 
         try {
             // compile dummy method to get compiler initialized outside of the
@@ -540,8 +576,9 @@ public final class CompileTheWorld {
          * Always use a thread pool, even for single threaded mode since it simplifies the use of
          * DebugValueThreadFilter to filter on the thread names.
          */
+        boolean workStealing = CompileTheWorldWorkStealing.getValue();
         int threadCount = 1;
-        if (CompileTheWorldOptions.CompileTheWorldMultiThreaded.getValue()) {
+        if (CompileTheWorldOptions.CompileTheWorldMultiThreaded.getValue() || workStealing) {
             threadCount = CompileTheWorldOptions.CompileTheWorldThreads.getValue();
             if (threadCount == 0) {
                 threadCount = Runtime.getRuntime().availableProcessors();
@@ -549,7 +586,17 @@ public final class CompileTheWorld {
         } else {
             running = true;
         }
-        threadPool = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), factory);
+        if (workStealing) {
+            methodsToCompile = new ArrayList<>();
+        } else {
+            threadPool = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), factory);
+        }
+
+        String reportFile = CompileTheWorldReport.getValue();
+        if (reportFile != null) {
+            report = new PrintStream(new BufferedOutputStream(new FileOutputStream(reportFile)));
+            report.println("class_index,method,bytecodes,thread,time_ns,allocated_bytes,result");
+        }
 
         try (OverrideScope s = config.apply()) {
             for (int i = 0; i < entries.length; i++) {
@@ -658,30 +705,190 @@ public final class CompileTheWorld {
             }
         }
 
-        if (!running) {
-            startThreads();
-        }
-        int wakeups = 0;
-        while (threadPool.getCompletedTaskCount() != threadPool.getTaskCount()) {
-            if (wakeups % 15 == 0) {
-                TTY.println("CompileTheWorld : Waiting for " + (threadPool.getTaskCount() - threadPool.getCompletedTaskCount()) + " compiles");
+        if (workStealing) {
+            compileWithWorkStealing(threadCount, debugConfigAccess);
+        } else {
+            if (!running) {
+                startThreads();
             }
-            try {
-                threadPool.awaitTermination(1, TimeUnit.SECONDS);
-                wakeups++;
-            } catch (InterruptedException e) {
+            int wakeups = 0;
+            while (threadPool.getCompletedTaskCount() != threadPool.getTaskCount()) {
+                if (wakeups % 15 == 0) {
+                    TTY.println("CompileTheWorld : Waiting for " + (threadPool.getTaskCount() - threadPool.getCompletedTaskCount()) + " compiles");
+                }
+                try {
+                    threadPool.awaitTermination(1, TimeUnit.SECONDS);
+                    wakeups++;
+                } catch (InterruptedException e) {
+                }
             }
+            threadPool = null;
+        }
+
+        if (report != null) {
+            report.close();
+            report = null;
         }
-        threadPool = null;
 
         long elapsedTime = System.currentTimeMillis() - start;
+        long compileTimeMillis = TimeUnit.NANOSECONDS.toMillis(compileTime.get());
 
         println();
-        if (CompileTheWorldOptions.CompileTheWorldMultiThreaded.getValue()) {
+        if (threadCount > 1) {
             TTY.println("CompileTheWorld : Done (%d classes, %d methods, %d ms elapsed, %d ms compile time, %d bytes of memory used)", classFileCounter, compiledMethodsCounter.get(), elapsedTime,
-                            compileTime.get(), memoryUsed.get());
+                            compileTimeMillis, memoryUsed.get());
+            for (ThreadStatistics stats : threadStatistics) {
+                TTY.println("CompileTheWorld : %s", stats);
+            }
         } else {
-            TTY.println("CompileTheWorld : Done (%d classes, %d methods, %d ms, %d bytes of memory used)", classFileCounter, compiledMethodsCounter.get(), compileTime.get(), memoryUsed.get());
+            TTY.println("CompileTheWorld : Done (%d classes, %d methods, %d ms, %d bytes of memory used)", classFileCounter, compiledMethodsCounter.get(), compileTimeMillis, memoryUsed.get());
+        }
+    }
+
+    /**
+     * A method collected for compilation in work-stealing mode.
+     */
+    static final class MethodToCompile {
+        final HotSpotResolvedJavaMethod method;
+        final int classFileIndex;
+        final int codeSize;
+
+        MethodToCompile(HotSpotResolvedJavaMethod method, int classFileIndex) {
+            this.method = method;
+            this.classFileIndex = classFileIndex;
+            this.codeSize = method.getCodeSize();
+        }
+    }
+
+    /**
+     * Compiles {@link #methodsToCompile} in a fork/join pool. The methods are sorted by decreasing
+     * bytecode size and recursively split into two ranges of about the same total bytecode size.
+     * Idle threads thus steal the largest remaining chunks of work first, and a class with many or
+     * huge methods is spread over all threads instead of keeping a single thread busy.
+     */
+    private void compileWithWorkStealing(int threadCount, DebugConfigAccess debugConfigAccess) {
+        MethodToCompile[] methods = methodsToCompile.toArray(new MethodToCompile[methodsToCompile.size()]);
+        methodsToCompile = null;
+        if (methods.length == 0) {
+            return;
+        }
+        Arrays.sort(methods, (m1, m2) -> Integer.compare(m2.codeSize, m1.codeSize));
+        long[] bytecodeOffsets = new long[methods.length + 1];
+        for (int i = 0; i < methods.length; i++) {
+            bytecodeOffsets[i + 1] = bytecodeOffsets[i] + methods[i].codeSize;
+        }
+        TTY.println("CompileTheWorld : Compiling %d methods (%d bytes of bytecode) using %d threads", methods.length, bytecodeOffsets[methods.length], threadCount);
+        ForkJoinPool pool = new ForkJoinPool(threadCount, p -> new CompileTheWorldWorkerThread(p, debugConfigAccess), null, false);
+        try {
+            pool.invoke(new CompileRange(methods, bytecodeOffsets, 0, methods.length));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Compiles the methods in {@code [from, to)}, splitting the range while it contains more than
+     * one method.
+     */
+    @SuppressWarnings("serial")
+    private final class CompileRange extends RecursiveAction {
+        private final MethodToCompile[] methods;
+        private final long[] bytecodeOffsets;
+        private final int from;
+        private final int to;
+
+        CompileRange(MethodToCompile[] methods, long[] bytecodeOffsets, int from, int to) {
+            this.methods = methods;
+            this.bytecodeOffsets = bytecodeOffsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        @SuppressWarnings("try")
+        protected void compute() {
+            if (to - from == 1) {
+                MethodToCompile m = methods[from];
+                try (OverrideScope s = config.apply()) {
+                    compileMethod(m.method, m.classFileIndex);
+                }
+                return;
+            }
+            long middle = (bytecodeOffsets[from] + bytecodeOffsets[to]) / 2;
+            int split = Arrays.binarySearch(bytecodeOffsets, from + 1, to, middle);
+            if (split < 0) {
+                split = -split - 1;
+            }
+            split = Math.max(from + 1, Math.min(split, to - 1));
+            invokeAll(new CompileRange(methods, bytecodeOffsets, from, split), new CompileRange(methods, bytecodeOffsets, split, to));
+        }
+    }
+
+    /**
+     * A fork/join worker thread that, like a {@link CompilerThread}, runs at
+     * {@link Thread#MAX_PRIORITY} in the context of a thread-local debug configuration.
+     */
+    static final class CompileTheWorldWorkerThread extends ForkJoinWorkerThread implements DebugScope.StateCarrier {
+
+        private final DebugConfigAccess debugConfigAccess;
+        private final DebugScope.ThreadState debugScopeState = new DebugScope.ThreadState();
+        private DebugConfig debugConfig;
+
+        CompileTheWorldWorkerThread(ForkJoinPool pool, DebugConfigAccess debugConfigAccess) {
+            super(pool);
+            this.setName("CompileTheWorld-" + this.getId());
+            this.setPriority(Thread.MAX_PRIORITY);
+            this.debugConfigAccess = debugConfigAccess;
+        }
+
+        @Override
+        public DebugScope.ThreadState getDebugScopeState() {
+            return debugScopeState;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            debugConfig = debugConfigAccess.getDebugConfig();
+            setContextClassLoader(getClass().getClassLoader());
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            if (debugConfig != null) {
+                for (DebugDumpHandler dumpHandler : debugConfig.dumpHandlers()) {
+                    try {
+                        dumpHandler.close();
+                    } catch (Throwable t) {
+                    }
+                }
+            }
+            super.onTermination(exception);
+        }
+    }
+
+    /**
+     * Compilation statistics of a single thread. Only the owning thread updates them; they are
+     * read once all compilations are done.
+     */
+    static final class ThreadStatistics {
+        final String threadName;
+        long methods;
+        long bytecodes;
+        long compileTime;
+        long memoryUsed;
+
+        ThreadStatistics(String threadName) {
+            this.threadName = threadName;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = compileTime / 1e9;
+            double methodsPerSecond = seconds == 0 ? 0 : methods / seconds;
+            double bytesPerSecond = seconds == 0 ? 0 : bytecodes / seconds;
+            return String.format("%s: %d methods, %d bytes of bytecode, %d ms compile time, %.1f methods/s, %.1f bytes/s, %d bytes of memory used", threadName, methods, bytecodes,
+                            TimeUnit.NANOSECONDS.toMillis(compileTime), methodsPerSecond, bytesPerSecond, memoryUsed);
         }
     }
 
@@ -708,6 +915,10 @@ public final class CompileTheWorld {
         if (excludeMethodFilters != null && MethodFilter.matches(excludeMethodFilters, method)) {
             return;
         }
+        if (methodsToCompile != null) {
+            methodsToCompile.add(new MethodToCompile(method, classFileCounter));
+            return;
+        }
         Future<?> task = threadPool.submit(new Runnable() {
             @Override
             public void run() {
@@ -726,9 +937,9 @@ public final class CompileTheWorld {
      * Compiles a method and gathers some statistics.
      */
     private void compileMethod(HotSpotResolvedJavaMethod method, int counter) {
+        long start = System.nanoTime();
+        long allocatedAtStart = MemUseTrackerImpl.getCurrentThreadAllocatedBytes();
         try {
-            long start = System.currentTimeMillis();
-            long allocatedAtStart = MemUseTrackerImpl.getCurrentThreadAllocatedBytes();
             int entryBCI = JVMCICompiler.INVOCATION_ENTRY_BCI;
             HotSpotCompilationRequest request = new HotSpotCompilationRequest(method, entryBCI, 0L);
             // For more stable CTW execution, disable use of profiling information
@@ -743,13 +954,34 @@ public final class CompileTheWorld {
                 installedCode.invalidate();
             }
 
-            memoryUsed.getAndAdd(MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - allocatedAtStart);
-            compileTime.getAndAdd(System.currentTimeMillis() - start);
+            long allocated = MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+            long time = System.nanoTime() - start;
+            memoryUsed.getAndAdd(allocated);
+            compileTime.getAndAdd(time);
             compiledMethodsCounter.incrementAndGet();
+            recordCompilation(method, counter, time, allocated, installedCode != null ? "installed" : "failed");
         } catch (Throwable t) {
             // Catch everything and print a message
             println("CompileTheWorld (%d) : Error compiling method: %s", counter, method.format("%H.%n(%p):%r"));
             printStackTrace(t);
+            recordCompilation(method, counter, System.nanoTime() - start, MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - allocatedAtStart, "error");
+        }
+    }
+
+    /**
+     * Adds a compilation to the statistics of the current thread and to the
+     * {@linkplain CompileTheWorldOptions#CompileTheWorldReport report}.
+     */
+    private void recordCompilation(HotSpotResolvedJavaMethod method, int counter, long time, long allocated, String result) {
+        ThreadStatistics stats = currentThreadStatistics.get();
+        stats.methods++;
+        stats.bytecodes += method.getCodeSize();
+        stats.compileTime += time;
+        stats.memoryUsed += allocated;
+        PrintStream out = report;
+        if (out != null) {
+            // PrintStream.println is synchronized so lines of concurrent compilations do not mix
+            out.println(String.format("%d,\"%s\",%d,%s,%d,%d,%s", counter, method.format("%H.%n(%p):%r"), method.getCodeSize(), stats.threadName, time, allocated, result));
         }
     }
 
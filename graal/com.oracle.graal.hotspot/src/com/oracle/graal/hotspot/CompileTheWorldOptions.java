@@ -57,6 +57,11 @@ public class CompileTheWorldOptions {
     public static final OptionValue<Boolean> CompileTheWorldMultiThreaded = new OptionValue<>(false);
     @Option(help = "Number of threads to use for multithreaded CTW.  Defaults to Runtime.getRuntime().availableProcessors()", type = OptionType.Debug)
     public static final OptionValue<Integer> CompileTheWorldThreads = new OptionValue<>(0);
+    @Option(help = "Compile methods in a work-stealing fork/join pool once all classes are loaded, splitting the work " +
+                   "by bytecode size instead of compiling methods in class order. Uses CompileTheWorldThreads threads.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> CompileTheWorldWorkStealing = new OptionValue<>(false);
+    @Option(help = "File to which the compile time and allocated bytes of each compiled method are written as CSV", type = OptionType.Debug)
+    public static final OptionValue<String> CompileTheWorldReport = new OptionValue<>(null);
     // @formatter:on
 
     /**
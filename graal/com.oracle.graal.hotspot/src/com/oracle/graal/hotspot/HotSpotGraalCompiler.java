@@ -26,6 +26,9 @@ import static com.oracle.graal.compiler.common.GraalOptions.OptAssumptions;
 import static com.oracle.graal.nodes.StructuredGraph.NO_PROFILING_INFO;
 import static com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext.CompilationContext.ROOT_COMPILATION;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.oracle.graal.api.runtime.GraalJVMCICompiler;
 import com.oracle.graal.code.CompilationResult;
 import com.oracle.graal.compiler.GraalCompiler;
@@ -50,6 +53,7 @@ import com.oracle.graal.nodes.spi.Replacements;
 import com.oracle.graal.phases.OptimisticOptimizations;
 import com.oracle.graal.phases.OptimisticOptimizations.Optimization;
 import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.common.inlining.InliningGraphCache;
 import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.phases.tiers.Suites;
 
@@ -70,6 +74,14 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler {
     private final HotSpotJVMCIRuntimeProvider jvmciRuntime;
     private final HotSpotGraalRuntimeProvider graalRuntime;
 
+    /**
+     * The graph builder suites derived from the default suite by {@link #configGraphBuilderSuite}.
+     * Callee graphs are only shared through the {@link InliningGraphCache} between compilations
+     * that use the same graph builder suite, so derived suites are reused while the cache is
+     * installed.
+     */
+    private final Map<Integer, PhaseSuite<HighTierContext>> configuredGraphBuilderSuites = new ConcurrentHashMap<>();
+
     HotSpotGraalCompiler(HotSpotJVMCIRuntimeProvider jvmciRuntime, HotSpotGraalRuntimeProvider graalRuntime) {
         this.jvmciRuntime = jvmciRuntime;
         this.graalRuntime = graalRuntime;
@@ -132,7 +144,14 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler {
         CompilationResult result = new CompilationResult();
         result.setEntryBCI(entryBCI);
         boolean shouldDebugNonSafepoints = providers.getCodeCache().shouldDebugNonSafepoints();
-        PhaseSuite<HighTierContext> graphBuilderSuite = configGraphBuilderSuite(providers.getSuites().getDefaultGraphBuilderSuite(), shouldDebugNonSafepoints, isOSR);
+        PhaseSuite<HighTierContext> defaultGraphBuilderSuite = providers.getSuites().getDefaultGraphBuilderSuite();
+        PhaseSuite<HighTierContext> graphBuilderSuite;
+        if (InliningGraphCache.getInstalled() != null) {
+            int key = (shouldDebugNonSafepoints ? 1 : 0) | (isOSR ? 2 : 0);
+            graphBuilderSuite = configuredGraphBuilderSuites.computeIfAbsent(key, k -> configGraphBuilderSuite(defaultGraphBuilderSuite, shouldDebugNonSafepoints, isOSR));
+        } else {
+            graphBuilderSuite = configGraphBuilderSuite(defaultGraphBuilderSuite, shouldDebugNonSafepoints, isOSR);
+        }
         GraalCompiler.compileGraph(graph, method, providers, backend, graphBuilderSuite, optimisticOpts, profilingInfo, suites, lirSuites, result, CompilationResultBuilderFactory.Default);
 
         if (!isOSR && useProfilingInfo) {
@@ -32,6 +32,12 @@ import static jdk.vm.ci.common.InitTimer.timer;
 import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntime.runtime;
 import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider.getArrayIndexScale;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -52,6 +58,9 @@ import com.oracle.graal.graph.NodeCollectionsProvider;
 import com.oracle.graal.hotspot.debug.BenchmarkCounters;
 import com.oracle.graal.hotspot.meta.HotSpotProviders;
 import com.oracle.graal.nodes.spi.StampProvider;
+import com.oracle.graal.phases.common.inlining.InliningDecisionLog;
+import com.oracle.graal.phases.common.inlining.InliningGraphCache;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
 import com.oracle.graal.phases.tiers.CompilerConfiguration;
 import com.oracle.graal.replacements.SnippetCounter;
 import com.oracle.graal.runtime.RuntimeProvider;
@@ -198,11 +207,33 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider {
 
         BenchmarkCounters.initialize(jvmciRuntime);
 
+        if (InliningPhase.Options.InlineGraphCache.getValue()) {
+            InliningGraphCache.install(new InliningGraphCache(hostBackend.getTarget().arch, InliningPhase.Options.InlineGraphCacheCapacity.getValue()));
+        }
+        installInliningDecisionLog();
+
         assert checkArrayIndexScaleInvariants();
 
         runtimeStartTime = System.nanoTime();
     }
 
+    private static void installInliningDecisionLog() {
+        String replayFile = InliningPhase.Options.InlineDecisionReplayFile.getValue();
+        boolean recording = InliningPhase.Options.InlineDecisionRecordFile.getValue() != null;
+        if (replayFile == null && !recording) {
+            return;
+        }
+        Map<String, Map<String, InliningDecisionLog.Entry>> replayed = Collections.emptyMap();
+        if (replayFile != null) {
+            try (Reader in = Files.newBufferedReader(Paths.get(replayFile), StandardCharsets.UTF_8)) {
+                replayed = InliningDecisionLog.read(in);
+            } catch (IOException e) {
+                throw new GraalError(e).addContext("InlineDecisionReplayFile", replayFile);
+            }
+        }
+        InliningDecisionLog.install(new InliningDecisionLog(replayed, recording));
+    }
+
     private HotSpotBackend registerBackend(HotSpotBackend backend) {
         Class<? extends Architecture> arch = backend.getTarget().arch.getClass();
         HotSpotBackend oldValue = backends.put(arch, backend);
@@ -278,6 +309,16 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider {
 
         SnippetCounter.printGroups(TTY.out().out());
         BenchmarkCounters.shutdown(runtime(), runtimeStartTime);
+
+        String recordFile = InliningPhase.Options.InlineDecisionRecordFile.getValue();
+        InliningDecisionLog decisionLog = InliningDecisionLog.getInstalled();
+        if (recordFile != null && decisionLog != null) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(recordFile), StandardCharsets.UTF_8)) {
+                decisionLog.write(out);
+            } catch (IOException e) {
+                TTY.println("Error writing inlining decisions to %s: %s", recordFile, e);
+            }
+        }
     }
 
     void clearMeters() {
@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.aot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * A relocatable image of methods compiled ahead of time. The image describes itself: it records
+ * the properties of the VM it was compiled for, and every compiled method records the bytecode of
+ * the methods it was compiled from, so that a loader can {@linkplain CodeImageVerifier verify}
+ * that the code still matches the running VM and classes. Code and data sections never contain
+ * absolute addresses; every place that needs to be patched when the code is installed is described
+ * by a symbolic {@link Relocation}.
+ *
+ * The serialized form is written with {@link DataOutputStream}:
+ *
+ * <pre>
+ * image       = MAGIC:int VERSION:int propertyCount:int property* methodCount:int method* checksum:long
+ * property    = key:UTF value:UTF
+ * method      = methodRef inlinedCount:int methodRef* totalFrameSize:int
+ *               codeSize:int code:byte[codeSize] dataAlignment:int dataSize:int data:byte[dataSize]
+ *               relocationCount:int relocation* handlerCount:int (pcOffset:int handlerPos:int)*
+ *               infopointCount:int (pcOffset:int reason:UTF)*
+ * methodRef   = holder:UTF name:UTF descriptor:UTF bytecodeHash:int
+ * relocation  = section:byte offset:int kind:byte symbol:UTF value:int compressed:boolean
+ * </pre>
+ *
+ * The checksum is the {@link CRC32} of all bytes preceding it.
+ */
+public final class CodeImage {
+
+    public static final int MAGIC = 0x47414F54; // "GAOT"
+    public static final int VERSION = 1;
+
+    private final Map<String, String> properties;
+    private final List<CompiledMethod> methods = new ArrayList<>();
+
+    public CodeImage(Map<String, String> properties) {
+        this.properties = new LinkedHashMap<>(properties);
+    }
+
+    /**
+     * Gets the properties of the VM this image was compiled for.
+     */
+    public Map<String, String> getProperties() {
+        return Collections.unmodifiableMap(properties);
+    }
+
+    public List<CompiledMethod> getMethods() {
+        return Collections.unmodifiableList(methods);
+    }
+
+    public void add(CompiledMethod method) {
+        methods.add(method);
+    }
+
+    /**
+     * Identifies a method by its holder, name and descriptor, together with a hash of its bytecode
+     * at the time it was compiled.
+     */
+    public static final class MethodReference {
+
+        public final String holder;
+        public final String name;
+        public final String descriptor;
+        public final int bytecodeHash;
+
+        public MethodReference(String holder, String name, String descriptor, int bytecodeHash) {
+            this.holder = holder;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.bytecodeHash = bytecodeHash;
+        }
+
+        public static MethodReference create(ResolvedJavaMethod method) {
+            return new MethodReference(method.getDeclaringClass().getName(), method.getName(), method.getSignature().toMethodDescriptor(), bytecodeHash(method));
+        }
+
+        /**
+         * Parses a {@linkplain #getSymbol() symbol}. The bytecode hash of the result is 0.
+         *
+         * @return {@code null} if {@code symbol} is malformed
+         */
+        public static MethodReference parseSymbol(String symbol) {
+            int nameStart = symbol.indexOf(";.") + 2;
+            int descriptorStart = symbol.indexOf('(', nameStart);
+            if (nameStart < 2 || descriptorStart < 0) {
+                return null;
+            }
+            return new MethodReference(symbol.substring(0, nameStart - 1), symbol.substring(nameStart, descriptorStart), symbol.substring(descriptorStart), 0);
+        }
+
+        /**
+         * Gets the symbol that denotes this method in {@linkplain Relocation relocations}.
+         */
+        public String getSymbol() {
+            return holder + "." + name + descriptor;
+        }
+
+        /**
+         * Computes the hash of the bytecode of {@code method} that is recorded in the image.
+         */
+        public static int bytecodeHash(ResolvedJavaMethod method) {
+            byte[] code = method.getCode();
+            if (code == null) {
+                return 0;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(code);
+            return (int) crc.getValue();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof MethodReference) {
+                MethodReference that = (MethodReference) obj;
+                return holder.equals(that.holder) && name.equals(that.name) && descriptor.equals(that.descriptor) && bytecodeHash == that.bytecodeHash;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return holder.hashCode() ^ name.hashCode() ^ descriptor.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return getSymbol();
+        }
+    }
+
+    /**
+     * A place in the code or data section of a {@link CompiledMethod} that must be patched when
+     * the method is installed.
+     */
+    public static final class Relocation {
+
+        public enum Section {
+            CODE,
+            DATA
+        }
+
+        public enum Kind {
+            /**
+             * A direct call to the Java method denoted by {@link #symbol}.
+             */
+            DIRECT_CALL,
+            /**
+             * An indirect call to the Java method denoted by {@link #symbol}.
+             */
+            INDIRECT_CALL,
+            /**
+             * A call to the foreign call named {@link #symbol}.
+             */
+            FOREIGN_CALL,
+            /**
+             * A reference to offset {@link #value} in the data section of the same method.
+             */
+            DATA_SECTION_ADDRESS,
+            /**
+             * A reference to the metaspace klass of the type named {@link #symbol}.
+             */
+            KLASS,
+            /**
+             * A reference to the metaspace method denoted by {@link #symbol}.
+             */
+            METHOD,
+            /**
+             * A reference to the interned string {@link #symbol}.
+             */
+            STRING,
+            /**
+             * A HotSpot code mark with id {@link #value}.
+             */
+            MARK
+        }
+
+        public final Section section;
+        public final int offset;
+        public final Kind kind;
+        public final String symbol;
+        public final int value;
+        public final boolean compressed;
+
+        public Relocation(Section section, int offset, Kind kind, String symbol, int value, boolean compressed) {
+            this.section = section;
+            this.offset = offset;
+            this.kind = kind;
+            this.symbol = symbol;
+            this.value = value;
+            this.compressed = compressed;
+        }
+
+        /**
+         * Gets the minimum number of bytes starting at {@link #offset} that are overwritten when
+         * this relocation is patched. A relocation in the code section denotes an instruction whose
+         * patched operand is at least a 32 bit displacement or immediate while one in the data
+         * section denotes a (possibly compressed) pointer. A {@link Kind#MARK} patches nothing but
+         * must still denote a position within the code.
+         *
+         * @param wordSize the size of an uncompressed pointer in bytes
+         */
+        public int patchedSize(int wordSize) {
+            if (kind == Kind.MARK) {
+                return 1;
+            } else if (section == Section.DATA) {
+                return compressed ? 4 : wordSize;
+            }
+            return 4;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Relocation) {
+                Relocation that = (Relocation) obj;
+                return section == that.section && offset == that.offset && kind == that.kind && symbol.equals(that.symbol) && value == that.value && compressed == that.compressed;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return offset * 31 + kind.ordinal();
+        }
+
+        @Override
+        public String toString() {
+            return section + "+" + offset + ": " + kind + (symbol.isEmpty() ? "" : " " + symbol) + (value != 0 ? " " + value : "") + (compressed ? " (compressed)" : "");
+        }
+    }
+
+    /**
+     * The code of one method compiled ahead of time.
+     */
+    public static final class CompiledMethod {
+
+        public final MethodReference method;
+        public final List<MethodReference> inlinedMethods;
+        public final int totalFrameSize;
+        public final byte[] code;
+        public final int dataAlignment;
+        public final byte[] data;
+        public final List<Relocation> relocations;
+
+        /**
+         * Pairs of code offsets and the offsets of their exception handlers.
+         */
+        public final int[] exceptionHandlers;
+
+        /**
+         * The code offsets of the infopoints of the code, in the same order as
+         * {@link #infopointReasons}.
+         */
+        public final int[] infopoints;
+        public final String[] infopointReasons;
+
+        public CompiledMethod(MethodReference method, List<MethodReference> inlinedMethods, int totalFrameSize, byte[] code, int dataAlignment, byte[] data, List<Relocation> relocations,
+                        int[] exceptionHandlers, int[] infopoints, String[] infopointReasons) {
+            assert exceptionHandlers.length % 2 == 0;
+            assert infopoints.length == infopointReasons.length;
+            this.method = method;
+            this.inlinedMethods = inlinedMethods;
+            this.totalFrameSize = totalFrameSize;
+            this.code = code;
+            this.dataAlignment = dataAlignment;
+            this.data = data;
+            this.relocations = relocations;
+            this.exceptionHandlers = exceptionHandlers;
+            this.infopoints = infopoints;
+            this.infopointReasons = infopointReasons;
+        }
+
+        @Override
+        public String toString() {
+            return method + " [" + code.length + " bytes code, " + data.length + " bytes data, " + relocations.size() + " relocations]";
+        }
+    }
+
+    /**
+     * Writes this image to {@code out}. The stream is not closed.
+     */
+    public void write(OutputStream out) throws IOException {
+        CheckedOutputStream checked = new CheckedOutputStream(out, new CRC32());
+        DataOutputStream dos = new DataOutputStream(checked);
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeInt(properties.size());
+        for (Map.Entry<String, String> e : properties.entrySet()) {
+            dos.writeUTF(e.getKey());
+            dos.writeUTF(e.getValue());
+        }
+        dos.writeInt(methods.size());
+        for (CompiledMethod m : methods) {
+            writeMethodReference(dos, m.method);
+            dos.writeInt(m.inlinedMethods.size());
+            for (MethodReference inlined : m.inlinedMethods) {
+                writeMethodReference(dos, inlined);
+            }
+            dos.writeInt(m.totalFrameSize);
+            dos.writeInt(m.code.length);
+            dos.write(m.code);
+            dos.writeInt(m.dataAlignment);
+            dos.writeInt(m.data.length);
+            dos.write(m.data);
+            dos.writeInt(m.relocations.size());
+            for (Relocation r : m.relocations) {
+                dos.writeByte(r.section.ordinal());
+                dos.writeInt(r.offset);
+                dos.writeByte(r.kind.ordinal());
+                dos.writeUTF(r.symbol);
+                dos.writeInt(r.value);
+                dos.writeBoolean(r.compressed);
+            }
+            dos.writeInt(m.exceptionHandlers.length / 2);
+            for (int handler : m.exceptionHandlers) {
+                dos.writeInt(handler);
+            }
+            dos.writeInt(m.infopoints.length);
+            for (int i = 0; i < m.infopoints.length; i++) {
+                dos.writeInt(m.infopoints[i]);
+                dos.writeUTF(m.infopointReasons[i]);
+            }
+        }
+        dos.flush();
+        dos.writeLong(checked.getChecksum().getValue());
+        dos.flush();
+    }
+
+    private static void writeMethodReference(DataOutputStream dos, MethodReference method) throws IOException {
+        dos.writeUTF(method.holder);
+        dos.writeUTF(method.name);
+        dos.writeUTF(method.descriptor);
+        dos.writeInt(method.bytecodeHash);
+    }
+
+    /**
+     * Reads an image written by {@link #write(OutputStream)}. This only checks the structure and
+     * the checksum of the image; use a {@link CodeImageVerifier} to check that the image can be
+     * loaded into the current VM.
+     *
+     * @throws IOException if the stream does not contain a well-formed image of the current
+     *             {@link #VERSION}
+     */
+    public static CodeImage read(InputStream in) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(in, new CRC32());
+        DataInputStream dis = new DataInputStream(checked);
+        if (dis.readInt() != MAGIC) {
+            throw new IOException("not a code image");
+        }
+        int version = dis.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported code image version " + version + ", expected " + VERSION);
+        }
+        Map<String, String> properties = new LinkedHashMap<>();
+        int propertyCount = readCount(dis);
+        for (int i = 0; i < propertyCount; i++) {
+            properties.put(dis.readUTF(), dis.readUTF());
+        }
+        CodeImage image = new CodeImage(properties);
+        int methodCount = readCount(dis);
+        for (int i = 0; i < methodCount; i++) {
+            MethodReference method = readMethodReference(dis);
+            int inlinedCount = readCount(dis);
+            List<MethodReference> inlinedMethods = new ArrayList<>(inlinedCount);
+            for (int j = 0; j < inlinedCount; j++) {
+                inlinedMethods.add(readMethodReference(dis));
+            }
+            int totalFrameSize = dis.readInt();
+            byte[] code = new byte[readCount(dis)];
+            dis.readFully(code);
+            int dataAlignment = dis.readInt();
+            byte[] data = new byte[readCount(dis)];
+            dis.readFully(data);
+            int relocationCount = readCount(dis);
+            List<Relocation> relocations = new ArrayList<>(relocationCount);
+            for (int j = 0; j < relocationCount; j++) {
+                Relocation.Section section = readEnum(dis, Relocation.Section.values());
+                int offset = dis.readInt();
+                Relocation.Kind kind = readEnum(dis, Relocation.Kind.values());
+                relocations.add(new Relocation(section, offset, kind, dis.readUTF(), dis.readInt(), dis.readBoolean()));
+            }
+            int[] exceptionHandlers = new int[readCount(dis) * 2];
+            for (int j = 0; j < exceptionHandlers.length; j++) {
+                exceptionHandlers[j] = dis.readInt();
+            }
+            int infopointCount = readCount(dis);
+            int[] infopoints = new int[infopointCount];
+            String[] infopointReasons = new String[infopointCount];
+            for (int j = 0; j < infopointCount; j++) {
+                infopoints[j] = dis.readInt();
+                infopointReasons[j] = dis.readUTF();
+            }
+            image.add(new CompiledMethod(method, inlinedMethods, totalFrameSize, code, dataAlignment, data, relocations, exceptionHandlers, infopoints, infopointReasons));
+        }
+        long expected = checked.getChecksum().getValue();
+        if (dis.readLong() != expected) {
+            throw new IOException("code image checksum mismatch");
+        }
+        return image;
+    }
+
+    private static MethodReference readMethodReference(DataInputStream dis) throws IOException {
+        return new MethodReference(dis.readUTF(), dis.readUTF(), dis.readUTF(), dis.readInt());
+    }
+
+    private static int readCount(DataInputStream dis) throws IOException {
+        int count = dis.readInt();
+        if (count < 0) {
+            throw new IOException("corrupt code image: negative count " + count);
+        }
+        return count;
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream dis, E[] values) throws IOException {
+        int ordinal = dis.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IOException("corrupt code image: invalid " + values[0].getDeclaringClass().getSimpleName() + " " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
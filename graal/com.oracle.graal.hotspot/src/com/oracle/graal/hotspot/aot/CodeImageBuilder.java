@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.aot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.graal.api.replacements.SnippetReflectionProvider;
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.code.DataSection;
+import com.oracle.graal.hotspot.GraalHotSpotVMConfig;
+import com.oracle.graal.hotspot.HotSpotForeignCallLinkage;
+import com.oracle.graal.hotspot.HotSpotGraalRuntimeProvider;
+import com.oracle.graal.hotspot.aot.CodeImage.CompiledMethod;
+import com.oracle.graal.hotspot.aot.CodeImage.MethodReference;
+import com.oracle.graal.hotspot.aot.CodeImage.Relocation;
+import com.oracle.graal.hotspot.aot.CodeImage.Relocation.Kind;
+import com.oracle.graal.hotspot.aot.CodeImage.Relocation.Section;
+
+import jdk.vm.ci.code.BailoutException;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.code.site.Call;
+import jdk.vm.ci.code.site.ConstantReference;
+import jdk.vm.ci.code.site.DataPatch;
+import jdk.vm.ci.code.site.DataSectionReference;
+import jdk.vm.ci.code.site.ExceptionHandler;
+import jdk.vm.ci.code.site.Infopoint;
+import jdk.vm.ci.code.site.Mark;
+import jdk.vm.ci.code.site.Reference;
+import jdk.vm.ci.hotspot.HotSpotConstant;
+import jdk.vm.ci.hotspot.HotSpotMetaspaceConstant;
+import jdk.vm.ci.hotspot.HotSpotObjectConstant;
+import jdk.vm.ci.meta.InvokeTarget;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.meta.VMConstant;
+
+/**
+ * Translates {@link CompilationResult}s of code compiled with
+ * {@link com.oracle.graal.compiler.common.GraalOptions#GeneratePIC} and
+ * {@link com.oracle.graal.compiler.common.GraalOptions#ImmutableCode} into the methods of a
+ * {@link CodeImage}.
+ */
+public class CodeImageBuilder {
+
+    /**
+     * The maximum length of a string constant that can be encoded in a {@link CodeImage}, such
+     * that its modified UTF-8 encoding is guaranteed to fit {@link java.io.DataOutput#writeUTF}.
+     */
+    private static final int MAX_STRING_LENGTH = 0xFFFF / 3;
+
+    private final SnippetReflectionProvider snippetReflection;
+
+    public CodeImageBuilder(SnippetReflectionProvider snippetReflection) {
+        this.snippetReflection = snippetReflection;
+    }
+
+    /**
+     * Gets the properties of the current VM that code in a {@link CodeImage} depends on. A loader
+     * must only use an image if these properties are the same as when the image was compiled.
+     */
+    public static Map<String, String> vmProperties(HotSpotGraalRuntimeProvider runtime) {
+        GraalHotSpotVMConfig config = runtime.getVMConfig();
+        TargetDescription target = runtime.getTarget();
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("java.vm.version", System.getProperty("java.vm.version"));
+        properties.put("arch", target.arch.getName());
+        properties.put("wordSize", String.valueOf(target.wordSize));
+        properties.put("HeapWordSize", String.valueOf(config.heapWordSize));
+        properties.put("UseCompressedOops", String.valueOf(config.useCompressedOops));
+        if (config.useCompressedOops) {
+            properties.put("oopEncoding", config.getOopEncoding().toString());
+        }
+        properties.put("UseCompressedClassPointers", String.valueOf(config.useCompressedClassPointers));
+        if (config.useCompressedClassPointers) {
+            properties.put("klassEncoding", config.getKlassEncoding().toString());
+        }
+        properties.put("UseTLAB", String.valueOf(config.useTLAB));
+        properties.put("UseG1GC", String.valueOf(config.useG1GC));
+        properties.put("UseBiasedLocking", String.valueOf(config.useBiasedLocking));
+        return properties;
+    }
+
+    /**
+     * Creates the image entry for the code compiled for {@code method}.
+     *
+     * @throws BailoutException if the code cannot be relocated, e.g., because it embeds an object
+     *             constant or depends on assumptions
+     */
+    public CompiledMethod build(ResolvedJavaMethod method, CompilationResult result) {
+        if (result.getAssumptions() != null && result.getAssumptions().length != 0) {
+            throw new BailoutException(true, "code for %s depends on assumptions", method.format("%H.%n(%p)"));
+        }
+        List<MethodReference> inlinedMethods = new ArrayList<>();
+        if (result.getMethods() != null) {
+            for (ResolvedJavaMethod inlined : result.getMethods()) {
+                if (!inlined.equals(method)) {
+                    inlinedMethods.add(MethodReference.create(inlined));
+                }
+            }
+        }
+
+        List<Relocation> relocations = new ArrayList<>();
+        DataSection dataSection = result.getDataSection();
+        byte[] data = new byte[dataSection.getSectionSize()];
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.nativeOrder());
+        dataSection.buildDataSection(buffer, constant -> relocations.add(constantRelocation(Section.DATA, buffer.position(), constant)));
+
+        for (DataPatch patch : result.getDataPatches()) {
+            relocations.add(referenceRelocation(patch.pcOffset, patch.reference));
+        }
+        List<Infopoint> infopoints = result.getInfopoints();
+        int[] infopointOffsets = new int[infopoints.size()];
+        String[] infopointReasons = new String[infopoints.size()];
+        for (int i = 0; i < infopoints.size(); i++) {
+            Infopoint infopoint = infopoints.get(i);
+            infopointOffsets[i] = infopoint.pcOffset;
+            infopointReasons[i] = infopoint.reason.name();
+            if (infopoint instanceof Call) {
+                relocations.add(callRelocation((Call) infopoint));
+            }
+        }
+        for (Mark mark : result.getMarks()) {
+            if (!(mark.id instanceof Integer)) {
+                throw new BailoutException(true, "cannot relocate mark %s", mark);
+            }
+            relocations.add(new Relocation(Section.CODE, mark.pcOffset, Kind.MARK, "", (Integer) mark.id, false));
+        }
+        List<ExceptionHandler> handlers = result.getExceptionHandlers();
+        int[] exceptionHandlers = new int[handlers.size() * 2];
+        for (int i = 0; i < handlers.size(); i++) {
+            exceptionHandlers[2 * i] = handlers.get(i).pcOffset;
+            exceptionHandlers[2 * i + 1] = handlers.get(i).handlerPos;
+        }
+
+        byte[] code = Arrays.copyOf(result.getTargetCode(), result.getTargetCodeSize());
+        return new CompiledMethod(MethodReference.create(method), inlinedMethods, result.getTotalFrameSize(), code, dataSection.getSectionAlignment(), data, relocations, exceptionHandlers,
+                        infopointOffsets, infopointReasons);
+    }
+
+    private static Relocation callRelocation(Call call) {
+        InvokeTarget target = call.target;
+        if (target instanceof HotSpotForeignCallLinkage) {
+            String name = ((HotSpotForeignCallLinkage) target).getDescriptor().getName();
+            return new Relocation(Section.CODE, call.pcOffset, Kind.FOREIGN_CALL, name, 0, false);
+        } else if (target instanceof ResolvedJavaMethod) {
+            String symbol = MethodReference.create((ResolvedJavaMethod) target).getSymbol();
+            return new Relocation(Section.CODE, call.pcOffset, call.direct ? Kind.DIRECT_CALL : Kind.INDIRECT_CALL, symbol, 0, false);
+        }
+        throw new BailoutException(true, "cannot relocate call to %s", target);
+    }
+
+    private Relocation referenceRelocation(int offset, Reference reference) {
+        if (reference instanceof DataSectionReference) {
+            return new Relocation(Section.CODE, offset, Kind.DATA_SECTION_ADDRESS, "", ((DataSectionReference) reference).getOffset(), false);
+        } else if (reference instanceof ConstantReference) {
+            return constantRelocation(Section.CODE, offset, ((ConstantReference) reference).getConstant());
+        }
+        throw new BailoutException(true, "cannot relocate reference %s", reference);
+    }
+
+    private Relocation constantRelocation(Section section, int offset, VMConstant constant) {
+        boolean compressed = constant instanceof HotSpotConstant && ((HotSpotConstant) constant).isCompressed();
+        if (constant instanceof HotSpotMetaspaceConstant) {
+            HotSpotMetaspaceConstant metaspaceConstant = (HotSpotMetaspaceConstant) constant;
+            ResolvedJavaType type = metaspaceConstant.asResolvedJavaType();
+            if (type != null) {
+                return new Relocation(section, offset, Kind.KLASS, type.getName(), 0, compressed);
+            }
+            ResolvedJavaMethod method = metaspaceConstant.asResolvedJavaMethod();
+            if (method != null) {
+                return new Relocation(section, offset, Kind.METHOD, MethodReference.create(method).getSymbol(), 0, compressed);
+            }
+        } else if (constant instanceof HotSpotObjectConstant && ((HotSpotObjectConstant) constant).isInternedString()) {
+            String value = snippetReflection.asObject(String.class, (HotSpotObjectConstant) constant);
+            if (value.length() > MAX_STRING_LENGTH) {
+                throw new BailoutException(true, "string constant of length %d is too long for a code image", value.length());
+            }
+            return new Relocation(section, offset, Kind.STRING, value, 0, compressed);
+        }
+        throw new BailoutException(true, "cannot relocate constant %s", constant);
+    }
+}
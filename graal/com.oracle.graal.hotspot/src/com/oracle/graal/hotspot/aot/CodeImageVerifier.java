@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.aot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.oracle.graal.compiler.common.spi.ForeignCallsProvider;
+import com.oracle.graal.hotspot.HotSpotGraalRuntimeProvider;
+import com.oracle.graal.hotspot.aot.CodeImage.CompiledMethod;
+import com.oracle.graal.hotspot.aot.CodeImage.MethodReference;
+import com.oracle.graal.hotspot.aot.CodeImage.Relocation;
+import com.oracle.graal.hotspot.meta.HotSpotForeignCallsProviderImpl;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.MetaUtil;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * The loader side check of a {@link CodeImage}. Code from an image must only be installed if it
+ * was compiled for a VM with the same {@linkplain CodeImageBuilder#vmProperties properties}, if
+ * the bytecode of the compiled method and of all methods inlined into it is unchanged, and if all
+ * symbols referenced by its relocations can be resolved.
+ */
+public class CodeImageVerifier {
+
+    private final HotSpotGraalRuntimeProvider runtime;
+    private final MetaAccessProvider metaAccess;
+    private final ForeignCallsProvider foreignCalls;
+    private final ClassLoader loader;
+    private final Map<String, ResolvedJavaType> types = new HashMap<>();
+
+    /**
+     * @param loader the class loader used to resolve the types referenced by the image
+     */
+    public CodeImageVerifier(HotSpotGraalRuntimeProvider runtime, ClassLoader loader) {
+        this.runtime = runtime;
+        this.metaAccess = runtime.getHostProviders().getMetaAccess();
+        this.foreignCalls = runtime.getHostProviders().getForeignCalls();
+        this.loader = loader;
+    }
+
+    /**
+     * Checks whether the code in {@code image} can be installed in the current VM.
+     *
+     * @return a description of each problem found, an empty list if the image can be used
+     */
+    public List<String> verify(CodeImage image) {
+        List<String> problems = new ArrayList<>();
+        Map<String, String> expected = CodeImageBuilder.vmProperties(runtime);
+        for (Map.Entry<String, String> e : expected.entrySet()) {
+            String actual = image.getProperties().get(e.getKey());
+            if (!Objects.equals(e.getValue(), actual)) {
+                problems.add(String.format("image was compiled for %s=%s but this VM has %s", e.getKey(), actual, e.getValue()));
+            }
+        }
+        if (!problems.isEmpty()) {
+            // code compiled for a different VM configuration is not checked any further
+            return problems;
+        }
+        for (CompiledMethod method : image.getMethods()) {
+            verify(method, problems);
+        }
+        return problems;
+    }
+
+    private void verify(CompiledMethod method, List<String> problems) {
+        checkBytecode(method, method.method, problems);
+        for (MethodReference inlined : method.inlinedMethods) {
+            checkBytecode(method, inlined, problems);
+        }
+        int wordSize = runtime.getTarget().wordSize;
+        for (Relocation relocation : method.relocations) {
+            int sectionSize = relocation.section == Relocation.Section.CODE ? method.code.length : method.data.length;
+            if (relocation.offset < 0 || relocation.offset > sectionSize - relocation.patchedSize(wordSize)) {
+                problems.add(String.format("%s: relocation %s is outside of the %s section", method.method, relocation, relocation.section));
+                continue;
+            }
+            String problem = checkRelocation(method, relocation);
+            if (problem != null) {
+                problems.add(String.format("%s: relocation %s %s", method.method, relocation, problem));
+            }
+        }
+        for (int i = 0; i < method.exceptionHandlers.length; i++) {
+            if (method.exceptionHandlers[i] < 0 || method.exceptionHandlers[i] >= method.code.length) {
+                problems.add(String.format("%s: exception handler offset %d is outside of the code", method.method, method.exceptionHandlers[i]));
+            }
+        }
+        for (int offset : method.infopoints) {
+            if (offset < 0 || offset > method.code.length) {
+                problems.add(String.format("%s: infopoint offset %d is outside of the code", method.method, offset));
+            }
+        }
+    }
+
+    private void checkBytecode(CompiledMethod method, MethodReference reference, List<String> problems) {
+        ResolvedJavaMethod resolved = resolveMethod(reference);
+        if (resolved == null) {
+            problems.add(String.format("%s: cannot resolve %s", method.method, reference));
+        } else if (MethodReference.bytecodeHash(resolved) != reference.bytecodeHash) {
+            problems.add(String.format("%s: bytecode of %s has changed", method.method, reference));
+        }
+    }
+
+    /**
+     * Checks that the symbol of {@code relocation} can be resolved.
+     *
+     * @return a description of the problem or {@code null} if there is none
+     */
+    private String checkRelocation(CompiledMethod method, Relocation relocation) {
+        switch (relocation.kind) {
+            case DIRECT_CALL:
+            case INDIRECT_CALL:
+            case METHOD:
+                MethodReference target = MethodReference.parseSymbol(relocation.symbol);
+                return target != null && resolveMethod(target) != null ? null : "references an unknown method";
+            case FOREIGN_CALL:
+                if (foreignCalls instanceof HotSpotForeignCallsProviderImpl && ((HotSpotForeignCallsProviderImpl) foreignCalls).findForeignCall(relocation.symbol) == null) {
+                    return "references an unknown foreign call";
+                }
+                return null;
+            case KLASS:
+                return resolveType(relocation.symbol) != null ? null : "references an unknown type";
+            case DATA_SECTION_ADDRESS:
+                return relocation.value >= 0 && relocation.value < method.data.length ? null : "points outside of the data section";
+            case STRING:
+            case MARK:
+                return null;
+            default:
+                return "has an unknown kind";
+        }
+    }
+
+    private ResolvedJavaType resolveType(String name) {
+        if (types.containsKey(name)) {
+            return types.get(name);
+        }
+        ResolvedJavaType type = null;
+        JavaKind kind = JavaKind.fromTypeString(name);
+        try {
+            if (kind.isPrimitive()) {
+                type = metaAccess.lookupJavaType(kind.toJavaClass());
+            } else {
+                type = metaAccess.lookupJavaType(Class.forName(MetaUtil.internalNameToJava(name, true, true), false, loader));
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            // the type cannot be resolved
+        }
+        types.put(name, type);
+        return type;
+    }
+
+    private ResolvedJavaMethod resolveMethod(MethodReference reference) {
+        ResolvedJavaType holder = resolveType(reference.holder);
+        if (holder == null) {
+            return null;
+        }
+        if (reference.name.equals("<clinit>")) {
+            return holder.getClassInitializer();
+        }
+        ResolvedJavaMethod[] candidates = reference.name.equals("<init>") ? holder.getDeclaredConstructors() : holder.getDeclaredMethods();
+        for (ResolvedJavaMethod candidate : candidates) {
+            if (candidate.getName().equals(reference.name) && candidate.getSignature().toMethodDescriptor().equals(reference.descriptor)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -45,6 +45,7 @@ import static com.oracle.graal.hotspot.replacements.NewObjectSnippets.INIT_LOCAT
 import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider.getArrayBaseOffset;
 
 import java.lang.ref.Reference;
+import java.util.List;
 
 import com.oracle.graal.api.directives.GraalDirectives;
 import com.oracle.graal.compiler.common.LocationIdentity;
@@ -123,6 +124,7 @@ import com.oracle.graal.nodes.extended.OSRLocalNode;
 import com.oracle.graal.nodes.extended.OSRStartNode;
 import com.oracle.graal.nodes.extended.StoreHubNode;
 import com.oracle.graal.nodes.extended.UnsafeLoadNode;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
 import com.oracle.graal.nodes.java.ClassIsAssignableFromNode;
 import com.oracle.graal.nodes.java.DynamicNewArrayNode;
 import com.oracle.graal.nodes.java.DynamicNewInstanceNode;
@@ -343,6 +345,13 @@ public class DefaultHotSpotLoweringProvider extends DefaultJavaLoweringProvider
         }
     }
 
+    @Override
+    protected void lowerCommittedAllocations(List<AbstractNewObjectNode> allocations, LoweringTool tool) {
+        if (!newObjectSnippets.lowerGroup(allocations, registers, tool)) {
+            super.lowerCommittedAllocations(allocations, tool);
+        }
+    }
+
     private void lowerBinaryMath(BinaryMathIntrinsicNode math, LoweringTool tool) {
         if (tool.getLoweringStage() == LoweringTool.StandardLoweringStage.HIGH_TIER) {
             return;
@@ -94,6 +94,21 @@ public abstract class HotSpotForeignCallsProviderImpl implements HotSpotForeignC
         return foreignCalls.containsKey(descriptor);
     }
 
+    /**
+     * Gets the linkage registered for the foreign call with a given
+     * {@linkplain ForeignCallDescriptor#getName() name}.
+     *
+     * @return {@code null} if no foreign call of this name is registered
+     */
+    public HotSpotForeignCallLinkage findForeignCall(String name) {
+        for (Map.Entry<ForeignCallDescriptor, HotSpotForeignCallLinkage> e : foreignCalls.entrySet()) {
+            if (e.getKey().getName().equals(name)) {
+                return e.getValue();
+            }
+        }
+        return null;
+    }
+
     /**
      * Creates and registers the details for linking a foreign call to a {@link Stub}.
      *
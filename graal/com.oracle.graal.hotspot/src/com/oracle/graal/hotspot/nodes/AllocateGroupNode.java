@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.nodes;
+
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.virtual.CommitAllocationNode;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Reserves TLAB memory for all objects materialized by a {@link CommitAllocationNode}. The result
+ * is the start of the reserved memory, or zero if the objects have to be allocated one by one on
+ * their slow paths. This node only exists while the allocations of the group are being lowered.
+ */
+@NodeInfo
+public final class AllocateGroupNode extends FixedWithNextNode {
+    public static final NodeClass<AllocateGroupNode> TYPE = NodeClass.create(AllocateGroupNode.class);
+
+    protected final int size;
+
+    public AllocateGroupNode(JavaKind wordKind, int size) {
+        super(TYPE, StampFactory.forKind(wordKind));
+        this.size = size;
+    }
+
+    /**
+     * Gets the combined size in bytes of all objects in the group.
+     */
+    public int getSize() {
+        return size;
+    }
+}
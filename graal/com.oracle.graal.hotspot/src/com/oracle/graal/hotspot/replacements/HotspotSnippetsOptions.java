@@ -32,7 +32,7 @@ import com.oracle.graal.options.OptionValue;
  * Note: This must be a top level class to work around for
  * <a href="https://bugs.eclipse.org/bugs/show_bug.cgi?id=477597">Eclipse bug 477597</a>.
  */
-class HotspotSnippetsOptions {
+public class HotspotSnippetsOptions {
 
     // @formatter:off
     @Option(help = "If the probability that a type check will hit one the profiled types (up to " +
@@ -49,6 +49,13 @@ class HotspotSnippetsOptions {
     @Option(help = "Enable profiling of allocation sites.", type = OptionType.Debug)
     static final OptionValue<Boolean> ProfileAllocations = new OptionValue<>(false);
 
+    @Option(help = "Reserve the TLAB memory for all objects materialized together by escape analysis " +
+                   "with a single allocation.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> GroupCommittedAllocations = new OptionValue<>(false);
+
+    @Option(help = "Maximum combined size in bytes of the objects allocated together by GroupCommittedAllocations.", type = OptionType.Expert)
+    public static final OptionValue<Integer> MaximumGroupAllocationSize = new OptionValue<>(4096);
+
     @Option(help = "Enable profiling of monitor operations.", type = OptionType.Debug)
     static final OptionValue<Boolean> ProfileMonitors = new OptionValue<>(false);
 
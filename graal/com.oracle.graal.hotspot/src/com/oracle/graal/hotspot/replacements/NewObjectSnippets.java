@@ -66,6 +66,8 @@ import static com.oracle.graal.replacements.nodes.ExplodeLoopNode.explodeLoop;
 import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider.getArrayBaseOffset;
 import static jdk.vm.ci.hotspot.HotSpotMetaAccessProvider.computeArrayAllocationSize;
 
+import java.util.List;
+
 import com.oracle.graal.api.replacements.Fold;
 import com.oracle.graal.compiler.common.LocationIdentity;
 import com.oracle.graal.compiler.common.spi.ForeignCallDescriptor;
@@ -78,6 +80,7 @@ import com.oracle.graal.hotspot.GraalHotSpotVMConfig;
 import com.oracle.graal.hotspot.HotSpotBackend;
 import com.oracle.graal.hotspot.meta.HotSpotProviders;
 import com.oracle.graal.hotspot.meta.HotSpotRegistersProvider;
+import com.oracle.graal.hotspot.nodes.AllocateGroupNode;
 import com.oracle.graal.hotspot.nodes.DimensionsNode;
 import com.oracle.graal.nodes.PrefetchAllocateNode;
 import com.oracle.graal.hotspot.nodes.type.KlassPointerStamp;
@@ -91,6 +94,7 @@ import com.oracle.graal.nodes.debug.DynamicCounterNode;
 import com.oracle.graal.nodes.debug.VerifyHeapNode;
 import com.oracle.graal.nodes.extended.BranchProbabilityNode;
 import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
 import com.oracle.graal.nodes.java.DynamicNewArrayNode;
 import com.oracle.graal.nodes.java.DynamicNewInstanceNode;
 import com.oracle.graal.nodes.java.NewArrayNode;
@@ -99,6 +103,7 @@ import com.oracle.graal.nodes.java.NewMultiArrayNode;
 import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
 import com.oracle.graal.nodes.spi.LoweringTool;
 import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.nodes.virtual.CommitAllocationNode;
 import com.oracle.graal.replacements.ReplacementsUtil;
 import com.oracle.graal.replacements.Snippet;
 import com.oracle.graal.replacements.Snippet.ConstantParameter;
@@ -273,6 +278,55 @@ public class NewObjectSnippets implements Snippets {
         return result;
     }
 
+    /**
+     * Reserves TLAB memory for a group of objects. The objects are formatted by
+     * {@link #allocateInstanceInGroup} and {@link #allocateArrayInGroup}.
+     *
+     * @return the start of the reserved memory or zero if the objects must be allocated with their
+     *         slow path stubs
+     */
+    @Snippet
+    public static Word allocateGroup(@ConstantParameter int size, @ConstantParameter Register threadRegister) {
+        Word thread = registerAsWord(threadRegister);
+        Word top = readTlabTop(thread);
+        Word end = readTlabEnd(thread);
+        Word newTop = top.add(size);
+        if (probability(FAST_PATH_PROBABILITY, newTop.belowOrEqual(end))) {
+            writeTlabTop(thread, newTop);
+            emitPrefetchAllocate(newTop, false);
+            group_tlab.inc();
+            return top;
+        }
+        group_stub.inc();
+        return Word.zero();
+    }
+
+    @Snippet
+    public static Object allocateInstanceInGroup(Word base, @ConstantParameter int offset, @ConstantParameter int size, KlassPointer hub, Word prototypeMarkWord,
+                    @ConstantParameter boolean fillContents) {
+        Object result;
+        if (probability(FAST_PATH_PROBABILITY, base.notEqual(0))) {
+            result = formatObject(hub, size, base.add(offset), prototypeMarkWord, fillContents, true, true);
+        } else {
+            new_stub.inc();
+            result = newInstance(HotSpotBackend.NEW_INSTANCE, hub);
+        }
+        return piCast(verifyOop(result), StampFactory.forNodeIntrinsic());
+    }
+
+    @Snippet
+    public static Object allocateArrayInGroup(Word base, @ConstantParameter int offset, @ConstantParameter int allocationSize, KlassPointer hub, int length, Word prototypeMarkWord,
+                    @ConstantParameter int headerSize, @ConstantParameter boolean fillContents) {
+        Object result;
+        if (probability(FAST_PATH_PROBABILITY, base.notEqual(0))) {
+            result = formatArray(hub, allocationSize, length, headerSize, base.add(offset), prototypeMarkWord, fillContents, true, true);
+        } else {
+            newarray_stub.inc();
+            result = newArray(HotSpotBackend.NEW_ARRAY, hub, length, fillContents);
+        }
+        return piArrayCast(verifyOop(result), length, StampFactory.forNodeIntrinsic());
+    }
+
     @NodeIntrinsic(value = ForeignCallNode.class, returnStampIsNonNull = true)
     public static native Object newArray(@ConstantNodeParameter ForeignCallDescriptor descriptor, KlassPointer hub, int length, boolean fillContents);
 
@@ -485,6 +539,11 @@ public class NewObjectSnippets implements Snippets {
                         TLAB_END_LOCATION);
         private final SnippetInfo allocateInstanceDynamic = snippet(NewObjectSnippets.class, "allocateInstanceDynamic", INIT_LOCATION, MARK_WORD_LOCATION, HUB_WRITE_LOCATION, TLAB_TOP_LOCATION,
                         TLAB_END_LOCATION);
+        private final SnippetInfo allocateGroup = snippet(NewObjectSnippets.class, "allocateGroup", TLAB_TOP_LOCATION, TLAB_END_LOCATION);
+        private final SnippetInfo allocateInstanceInGroup = snippet(NewObjectSnippets.class, "allocateInstanceInGroup", INIT_LOCATION, MARK_WORD_LOCATION, HUB_WRITE_LOCATION, TLAB_TOP_LOCATION,
+                        TLAB_END_LOCATION);
+        private final SnippetInfo allocateArrayInGroup = snippet(NewObjectSnippets.class, "allocateArrayInGroup", INIT_LOCATION, MARK_WORD_LOCATION, HUB_WRITE_LOCATION, TLAB_TOP_LOCATION,
+                        TLAB_END_LOCATION);
         private final SnippetInfo newmultiarray = snippet(NewObjectSnippets.class, "newmultiarray", INIT_LOCATION, TLAB_TOP_LOCATION, TLAB_END_LOCATION);
         private final SnippetInfo verifyHeap = snippet(NewObjectSnippets.class, "verifyHeap");
         private final GraalHotSpotVMConfig config;
@@ -580,6 +639,99 @@ public class NewObjectSnippets implements Snippets {
             template.instantiate(providers.getMetaAccess(), newArrayNode, DEFAULT_REPLACER, args);
         }
 
+        /**
+         * Lowers the allocations of a {@link CommitAllocationNode} together. An
+         * {@link AllocateGroupNode} reserves the TLAB memory for all of them with a single bump of
+         * the TLAB top and each allocation then formats its part of that memory. If the
+         * reservation fails, all allocations take their usual slow path.
+         *
+         * @param allocations the allocations in control flow order
+         * @return {@code false} if the allocations cannot be lowered together, in which case the
+         *         graph is unchanged
+         */
+        public boolean lowerGroup(List<AbstractNewObjectNode> allocations, HotSpotRegistersProvider registers, LoweringTool tool) {
+            if (!HotspotSnippetsOptions.GroupCommittedAllocations.getValue() || allocations.size() < 2 || !config.useTLAB || HotspotSnippetsOptions.ProfileAllocations.getValue()) {
+                return false;
+            }
+            int[] sizes = new int[allocations.size()];
+            int groupSize = 0;
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = groupMemberSize(allocations.get(i));
+                if (sizes[i] < 0) {
+                    return false;
+                }
+                groupSize += sizes[i];
+                if (groupSize > HotspotSnippetsOptions.MaximumGroupAllocationSize.getValue()) {
+                    return false;
+                }
+            }
+
+            StructuredGraph graph = allocations.get(0).graph();
+            AllocateGroupNode group = graph.add(new AllocateGroupNode(target.wordJavaKind, groupSize));
+            graph.addBeforeFixed(allocations.get(0), group);
+
+            /*
+             * The members are instantiated first so that the group node has all its usages when it
+             * is replaced by the result of its own snippet.
+             */
+            int offset = 0;
+            for (int i = 0; i < sizes.length; i++) {
+                AbstractNewObjectNode allocation = allocations.get(i);
+                Arguments args;
+                if (allocation instanceof NewInstanceNode) {
+                    HotSpotResolvedObjectType type = (HotSpotResolvedObjectType) ((NewInstanceNode) allocation).instanceClass();
+                    args = new Arguments(allocateInstanceInGroup, graph.getGuardsStage(), tool.getLoweringStage());
+                    args.add("base", group);
+                    args.addConst("offset", offset);
+                    args.addConst("size", sizes[i]);
+                    args.add("hub", ConstantNode.forConstant(KlassPointerStamp.klassNonNull(), type.klass(), providers.getMetaAccess(), graph));
+                    args.add("prototypeMarkWord", type.prototypeMarkWord());
+                    args.addConst("fillContents", allocation.fillContents());
+                } else {
+                    NewArrayNode newArrayNode = (NewArrayNode) allocation;
+                    HotSpotResolvedObjectType arrayType = (HotSpotResolvedObjectType) newArrayNode.elementType().getArrayClass();
+                    args = new Arguments(allocateArrayInGroup, graph.getGuardsStage(), tool.getLoweringStage());
+                    args.add("base", group);
+                    args.addConst("offset", offset);
+                    args.addConst("allocationSize", sizes[i]);
+                    args.add("hub", ConstantNode.forConstant(KlassPointerStamp.klassNonNull(), arrayType.klass(), providers.getMetaAccess(), graph));
+                    ValueNode length = newArrayNode.length();
+                    args.add("length", length.isAlive() ? length : graph.addOrUniqueWithInputs(length));
+                    args.add("prototypeMarkWord", arrayType.prototypeMarkWord());
+                    args.addConst("headerSize", getArrayBaseOffset(newArrayNode.elementType().getJavaKind()));
+                    args.addConst("fillContents", allocation.fillContents());
+                }
+                SnippetTemplate template = template(args);
+                Debug.log("Lowering group member in %s: node=%s, template=%s, arguments=%s", graph, allocation, template, args);
+                template.instantiate(providers.getMetaAccess(), allocation, DEFAULT_REPLACER, args);
+                offset += sizes[i];
+            }
+
+            Arguments args = new Arguments(allocateGroup, graph.getGuardsStage(), tool.getLoweringStage());
+            args.addConst("size", groupSize);
+            args.addConst("threadRegister", registers.getThreadRegister());
+            template(args).instantiate(providers.getMetaAccess(), group, DEFAULT_REPLACER, args);
+            return true;
+        }
+
+        /**
+         * Gets the number of bytes an allocation occupies in a group or -1 if its size is not a
+         * compile time constant.
+         */
+        private int groupMemberSize(AbstractNewObjectNode allocation) {
+            if (allocation instanceof NewInstanceNode) {
+                return instanceSize((HotSpotResolvedObjectType) ((NewInstanceNode) allocation).instanceClass());
+            } else if (allocation instanceof NewArrayNode && ((NewArrayNode) allocation).length().isConstant()) {
+                int length = ((NewArrayNode) allocation).length().asJavaConstant().asInt();
+                if (belowThan(length, MAX_ARRAY_FAST_PATH_ALLOCATION_LENGTH)) {
+                    JavaKind elementKind = ((NewArrayNode) allocation).elementType().getJavaKind();
+                    int log2ElementSize = CodeUtil.log2(HotSpotJVMCIRuntimeProvider.getArrayIndexScale(elementKind));
+                    return computeArrayAllocationSize(length, target.wordSize, getArrayBaseOffset(elementKind), log2ElementSize);
+                }
+            }
+            return -1;
+        }
+
         private static HotSpotResolvedObjectType lookupArrayClass(LoweringTool tool, JavaKind kind) {
             return (HotSpotResolvedObjectType) tool.getMetaAccess().lookupJavaType(kind == JavaKind.Object ? Object.class : kind.toJavaClass()).getArrayClass();
         }
@@ -628,4 +780,8 @@ public class NewObjectSnippets implements Snippets {
     private static final SnippetCounter.Group countersNewArray = SnippetCounters.getValue() ? new SnippetCounter.Group("NewArray") : null;
     private static final SnippetCounter newarray_loopInit = new SnippetCounter(countersNewArray, "tlabLoopInit", "TLAB alloc with zeroing in a loop");
     private static final SnippetCounter newarray_stub = new SnippetCounter(countersNewArray, "stub", "alloc and zeroing via stub");
+
+    private static final SnippetCounter.Group countersNewGroup = SnippetCounters.getValue() ? new SnippetCounter.Group("NewGroup") : null;
+    private static final SnippetCounter group_tlab = new SnippetCounter(countersNewGroup, "tlab", "group of objects allocated with a single TLAB bump");
+    private static final SnippetCounter group_stub = new SnippetCounter(countersNewGroup, "stub", "group of objects allocated one by one via stubs");
 }
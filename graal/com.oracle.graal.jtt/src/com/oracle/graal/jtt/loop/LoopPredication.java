@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt.loop;
+
+import java.util.ListIterator;
+
+import org.junit.Test;
+
+import com.oracle.graal.jtt.JTTTest;
+import com.oracle.graal.loop.phases.LoopPredicationPhase;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.common.LoopSafepointInsertionPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.Suites;
+
+/*
+ */
+public class LoopPredication extends JTTTest {
+
+    @Override
+    protected Suites createSuites() {
+        Suites suites = super.createSuites();
+        if (suites.getMidTier().findPhase(LoopPredicationPhase.class) == null) {
+            ListIterator<BasePhase<? super MidTierContext>> position = suites.getMidTier().findPhase(LoopSafepointInsertionPhase.class);
+            position.previous();
+            position.add(new LoopPredicationPhase());
+        }
+        return suites;
+    }
+
+    private static final int[] LENGTHS = {0, 1, 2, 7, 100};
+
+    private static int[] ints(int n) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i * 31 - 7;
+        }
+        return a;
+    }
+
+    public static int sum(int n) {
+        int[] a = ints(n);
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int sumRange(int n, int from, int to) {
+        int[] a = ints(n);
+        int sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int sumInclusive(int n, int to) {
+        int[] a = ints(n);
+        int sum = 0;
+        for (int i = 0; i <= to; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int sumDown(int n, int from) {
+        int[] a = ints(n);
+        int sum = 0;
+        for (int i = from; i >= 0; i--) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int sumStride(int n, int to) {
+        int[] a = ints(n);
+        int sum = 0;
+        for (int i = 0; i < to; i += 3) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int[] neighbours(int n) {
+        int[] a = ints(n);
+        int[] b = new int[n];
+        for (int i = 1; i < n - 1; i++) {
+            b[i] = a[i - 1] + a[i + 1];
+        }
+        return b;
+    }
+
+    public static int[] shifted(int n, int to) {
+        int[] a = ints(n);
+        int[] b = new int[n];
+        for (int i = 0; i < to; i++) {
+            b[i] = a[i + 2];
+        }
+        return b;
+    }
+
+    public static int maybeNull(int n, int to) {
+        int[] a = n > 2 ? null : ints(n);
+        int sum = 0;
+        for (int i = 0; i < to; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int earlyExit(int n, int to) {
+        int[] a = ints(n);
+        int sum = 0;
+        for (int i = 0; i < to; i++) {
+            if (i == n) {
+                return -sum;
+            }
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void run0() throws Throwable {
+        for (int n : LENGTHS) {
+            runTest("sum", n);
+            runTest("sumRange", n, 0, n);
+            runTest("sumRange", n, 1, n);
+            runTest("sumRange", n, 0, n + 1);
+            runTest("sumRange", n, -1, n);
+            runTest("sumRange", n, -5, -3);
+            runTest("sumRange", n, n + 3, n);
+        }
+    }
+
+    @Test
+    public void run1() throws Throwable {
+        for (int n : LENGTHS) {
+            runTest("sumInclusive", n, n - 1);
+            runTest("sumInclusive", n, n);
+            runTest("sumDown", n, n - 1);
+            runTest("sumDown", n, n);
+            runTest("sumStride", n, n);
+            runTest("sumStride", n, n + 2);
+        }
+        runTest("sumInclusive", 5, Integer.MAX_VALUE);
+        runTest("sumDown", 5, Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void run2() throws Throwable {
+        for (int n : LENGTHS) {
+            runTest("neighbours", n);
+            runTest("shifted", n, n - 2);
+            runTest("shifted", n, n - 1);
+            runTest("maybeNull", n, 0);
+            runTest("maybeNull", n, n);
+            runTest("earlyExit", n, n + 5);
+        }
+    }
+}
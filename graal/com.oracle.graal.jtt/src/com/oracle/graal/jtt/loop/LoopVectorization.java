@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt.loop;
+
+import java.util.ListIterator;
+
+import org.junit.Test;
+
+import com.oracle.graal.jtt.JTTTest;
+import com.oracle.graal.loop.phases.LoopVectorizationPhase;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.common.RemoveValueProxyPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.Suites;
+
+import jdk.vm.ci.amd64.AMD64;
+
+/*
+ */
+public class LoopVectorization extends JTTTest {
+
+    @Override
+    protected Suites createSuites() {
+        Suites suites = super.createSuites();
+        if (getTarget().arch instanceof AMD64 && suites.getHighTier().findPhase(LoopVectorizationPhase.class) == null) {
+            ListIterator<BasePhase<? super HighTierContext>> position = suites.getHighTier().findPhase(RemoveValueProxyPhase.class);
+            position.previous();
+            position.add(new LoopVectorizationPhase());
+        }
+        return suites;
+    }
+
+    private static final int[] LENGTHS = {0, 1, 3, 4, 5, 17, 100};
+
+    private static int[] ints(int n, int seed) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i * seed - 7;
+        }
+        return a;
+    }
+
+    private static long[] longs(int n, long seed) {
+        long[] a = new long[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i * seed - 0x1_0000_0007L;
+        }
+        return a;
+    }
+
+    private static float[] floats(int n, float seed) {
+        float[] a = new float[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i * seed - 0.7f;
+        }
+        return a;
+    }
+
+    private static double[] doubles(int n, double seed) {
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i * seed - 0.7;
+        }
+        return a;
+    }
+
+    public static int[] intAdd(int n) {
+        int[] a = ints(n, 3);
+        int[] b = ints(n, 5);
+        int[] c = new int[n];
+        for (int i = 0; i < n; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    public static int[] intSubInPlace(int n) {
+        int[] a = ints(n, 3);
+        int[] b = ints(n, -11);
+        for (int i = 0; i < n; i++) {
+            a[i] = a[i] - b[i];
+        }
+        return a;
+    }
+
+    public static int[] intXorSelf(int n) {
+        int[] a = ints(n, 3);
+        for (int i = 0; i < n; i++) {
+            a[i] = a[i] ^ a[i];
+        }
+        return a;
+    }
+
+    public static long[] longAnd(int n) {
+        long[] a = longs(n, 0x1234_5678_9L);
+        long[] b = longs(n, -3L);
+        long[] c = new long[n];
+        for (int i = 0; i < n; i++) {
+            c[i] = a[i] & b[i];
+        }
+        return c;
+    }
+
+    public static long[] longSub(int n) {
+        long[] a = longs(n, 3L);
+        long[] b = longs(n, Long.MAX_VALUE / 7);
+        long[] c = new long[n];
+        for (int i = 0; i < n; i++) {
+            c[i] = a[i] - b[i];
+        }
+        return c;
+    }
+
+    public static float[] floatMul(int n) {
+        float[] a = floats(n, 1.1f);
+        float[] b = floats(n, -3.3f);
+        float[] c = new float[n];
+        for (int i = 0; i < n; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    public static double[] doubleAdd(int n) {
+        double[] a = doubles(n, 1.1);
+        double[] b = doubles(n, Double.MAX_VALUE / 50);
+        double[] c = new double[n];
+        for (int i = 0; i < n; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    public static double[] doubleSub(int n) {
+        double[] a = doubles(n, 1.1);
+        double[] b = doubles(n, 0.1);
+        for (int i = 0; i < n; i++) {
+            b[i] = a[i] - b[i];
+        }
+        return b;
+    }
+
+    public static int[] intFill(int n, int value) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = value;
+        }
+        return a;
+    }
+
+    public static float[] floatFill(int n, float value) {
+        float[] a = new float[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = value;
+        }
+        return a;
+    }
+
+    public static long[] longCopy(int n) {
+        long[] a = longs(n, 17L);
+        long[] b = new long[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = a[i];
+        }
+        return b;
+    }
+
+    public static double[] doubleFillRange(int n, int start, int end) {
+        double[] a = doubles(n, 2.5);
+        for (int i = start; i < end; i++) {
+            a[i] = -0.0;
+        }
+        return a;
+    }
+
+    public static int intFillExitValue(int n) {
+        int[] a = new int[n + 1];
+        int i;
+        for (i = 0; i < n; i++) {
+            a[i] = 7;
+        }
+        return i + a[n / 2] + a[n];
+    }
+
+    public static int intSum(int n) {
+        int[] a = ints(n, 0x12345);
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int intAndReduction(int n) {
+        int[] a = ints(n, 0x7001);
+        int result = -1;
+        for (int i = 0; i < n; i++) {
+            result = a[i] & result;
+        }
+        return result;
+    }
+
+    public static long longXorReduction(int n, int start) {
+        long[] a = longs(n, 0x1234_5678_9ABL);
+        long result = 42;
+        for (int i = start; i < n; i++) {
+            result ^= a[i];
+        }
+        return result;
+    }
+
+    public static int[] intAddOutOfBounds(int n) {
+        int[] a = ints(n, 3);
+        int[] b = ints(n, 5);
+        int[] c = new int[n + 1];
+        for (int i = 0; i < n + 1; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    public static int[] intCopyNull(int n) {
+        int[] a = n > 3 ? null : ints(n, 3);
+        int[] b = new int[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = a[i];
+        }
+        return b;
+    }
+
+    @Test
+    public void run0() throws Throwable {
+        for (int n : LENGTHS) {
+            runTest("intAdd", n);
+            runTest("intSubInPlace", n);
+            runTest("intXorSelf", n);
+            runTest("longAnd", n);
+            runTest("longSub", n);
+            runTest("floatMul", n);
+            runTest("doubleAdd", n);
+            runTest("doubleSub", n);
+        }
+    }
+
+    @Test
+    public void run1() throws Throwable {
+        for (int n : LENGTHS) {
+            runTest("intFill", n, 0xCAFE);
+            runTest("floatFill", n, Float.NaN);
+            runTest("longCopy", n);
+            runTest("intFillExitValue", n);
+        }
+        runTest("doubleFillRange", 100, 3, 97);
+        runTest("doubleFillRange", 100, 50, 10);
+        runTest("doubleFillRange", 100, -1, 10);
+        runTest("doubleFillRange", 100, 90, 101);
+    }
+
+    @Test
+    public void run2() throws Throwable {
+        for (int n : LENGTHS) {
+            runTest("intSum", n);
+            runTest("intAndReduction", n);
+            runTest("longXorReduction", n, 0);
+            runTest("longXorReduction", n, 3);
+        }
+    }
+
+    @Test
+    public void run3() throws Throwable {
+        for (int n : LENGTHS) {
+            runTest("intAddOutOfBounds", n);
+            runTest("intCopyNull", n);
+        }
+    }
+}
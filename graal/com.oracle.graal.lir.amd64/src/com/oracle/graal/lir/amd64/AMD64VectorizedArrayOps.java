@@ -0,0 +1,498 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64BinaryArithmetic;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64Assembler.SSEOp;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.compiler.common.calc.VectorOperation;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+import sun.misc.Unsafe;
+
+/**
+ * Loops over a range of primitive arrays that process {@link #VECTOR_SIZE} bytes per iteration
+ * with packed SSE2 instructions. The elements that do not fill a whole vector are processed one at
+ * a time afterwards. All operations expect non-null arrays and a range that is within the bounds
+ * of the arrays.
+ */
+public final class AMD64VectorizedArrayOps {
+
+    /**
+     * Size in bytes of an XMM register.
+     */
+    private static final int VECTOR_SIZE = 16;
+
+    private AMD64VectorizedArrayOps() {
+    }
+
+    /**
+     * Applies a {@link VectorOperation} to each element of a range of arrays and stores the
+     * results into a destination array. All arrays are accessed with the same index, so the
+     * destination may be the same array as one of the sources.
+     */
+    @Opcode("VECTORIZED_ARRAY_OP")
+    public static final class ElementwiseOp extends AMD64LIRInstruction {
+        public static final LIRInstructionClass<ElementwiseOp> TYPE = LIRInstructionClass.create(ElementwiseOp.class);
+
+        private final VectorOperation op;
+        private final JavaKind kind;
+        private final int arrayBaseOffset;
+        private final Scale arrayIndexScale;
+
+        @Alive({REG}) protected Value dstValue;
+        @Alive({REG, ILLEGAL}) protected Value xValue;
+        @Alive({REG, ILLEGAL}) protected Value yValue;
+        @Alive({REG, ILLEGAL}) protected Value fillValue;
+        @Alive({REG}) protected Value startValue;
+        @Alive({REG}) protected Value endValue;
+        @Temp({REG}) protected Value indexTemp;
+        @Temp({REG}) protected Value limitTemp;
+        @Temp({REG}) protected Value scalarTemp;
+        @Temp({REG}) protected Value vectorTemp1;
+        @Temp({REG}) protected Value vectorTemp2;
+
+        public ElementwiseOp(LIRGeneratorTool tool, VectorOperation op, JavaKind kind, Value dst, Value x, Value y, Value fill, Value start, Value end) {
+            super(TYPE);
+            assert op.supports(kind) : op + " " + kind;
+            assert (x != null) == (op != VectorOperation.FILL) && (y != null) == op.isBinary() && (fill != null) == (op == VectorOperation.FILL);
+            this.op = op;
+            this.kind = kind;
+            this.arrayBaseOffset = arrayBaseOffset(kind);
+            this.arrayIndexScale = Scale.fromInt(kind.getByteCount());
+
+            this.dstValue = dst;
+            this.xValue = x == null ? Value.ILLEGAL : x;
+            this.yValue = y == null ? Value.ILLEGAL : y;
+            this.fillValue = fill == null ? Value.ILLEGAL : fill;
+            this.startValue = start;
+            this.endValue = end;
+
+            this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+            this.limitTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+            this.scalarTemp = tool.newVariable(LIRKind.value(scalarKind(kind)));
+            this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        }
+
+        @Override
+        public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+            Register index = asRegister(indexTemp);
+            Register limit = asRegister(limitTemp);
+            Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+            Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+            int elements = VECTOR_SIZE / kind.getByteCount();
+
+            if (op == VectorOperation.FILL) {
+                emitBroadcast(masm, kind, vector2, asRegister(fillValue));
+            }
+
+            Label vectorLoop = new Label();
+            Label vectorCheck = new Label();
+            Label scalarLoop = new Label();
+            Label scalarCheck = new Label();
+
+            // The vector loop runs while index + elements <= end.
+            masm.movslq(index, asRegister(startValue));
+            masm.movslq(limit, asRegister(endValue));
+            masm.subq(limit, elements - 1);
+            masm.jmp(vectorCheck);
+
+            masm.align(crb.target.wordSize * 2);
+            masm.bind(vectorLoop);
+            emitVectorBody(masm, index, vector1, vector2);
+            masm.addq(index, elements);
+            masm.bind(vectorCheck);
+            masm.cmpq(index, limit);
+            masm.jcc(ConditionFlag.Less, vectorLoop);
+
+            // Process the remaining elements one at a time.
+            masm.addq(limit, elements - 1);
+            masm.jmp(scalarCheck);
+            masm.bind(scalarLoop);
+            emitScalarBody(masm, index);
+            masm.incq(index);
+            masm.bind(scalarCheck);
+            masm.cmpq(index, limit);
+            masm.jcc(ConditionFlag.Less, scalarLoop);
+        }
+
+        private AMD64Address address(Value array, Register index) {
+            return new AMD64Address(asRegister(array), index, arrayIndexScale, arrayBaseOffset);
+        }
+
+        private void emitVectorBody(AMD64MacroAssembler masm, Register index, Register vector1, Register vector2) {
+            switch (op) {
+                case FILL:
+                    masm.movdqu(address(dstValue, index), vector2);
+                    break;
+                case COPY:
+                    masm.movdqu(vector1, address(xValue, index));
+                    masm.movdqu(address(dstValue, index), vector1);
+                    break;
+                default:
+                    masm.movdqu(vector1, address(xValue, index));
+                    masm.movdqu(vector2, address(yValue, index));
+                    emitPackedOp(masm, op, kind, vector1, vector2);
+                    masm.movdqu(address(dstValue, index), vector1);
+                    break;
+            }
+        }
+
+        private void emitScalarBody(AMD64MacroAssembler masm, Register index) {
+            if (op == VectorOperation.FILL) {
+                emitStore(masm, kind, address(dstValue, index), asRegister(fillValue));
+                return;
+            }
+            Register scalar = asRegister(scalarTemp);
+            emitLoad(masm, kind, scalar, address(xValue, index));
+            if (op.isBinary()) {
+                emitScalarOp(masm, op, kind, scalar, address(yValue, index));
+            }
+            emitStore(masm, kind, address(dstValue, index), scalar);
+        }
+    }
+
+    /**
+     * Combines an initial value with all elements of a range of an int or long array using an
+     * associative {@link VectorOperation}. The elements are first combined lane-wise into a vector
+     * accumulator, which is folded into a single value after the vector loop.
+     */
+    @Opcode("VECTORIZED_REDUCTION")
+    public static final class ReductionOp extends AMD64LIRInstruction {
+        public static final LIRInstructionClass<ReductionOp> TYPE = LIRInstructionClass.create(ReductionOp.class);
+
+        private final VectorOperation op;
+        private final JavaKind kind;
+        private final int arrayBaseOffset;
+        private final Scale arrayIndexScale;
+
+        @Def({REG}) protected Value resultValue;
+        @Alive({REG}) protected Value arrayValue;
+        @Use({REG}) protected Value initialValue;
+        @Alive({REG}) protected Value startValue;
+        @Alive({REG}) protected Value endValue;
+        @Temp({REG}) protected Value indexTemp;
+        @Temp({REG}) protected Value limitTemp;
+        @Temp({REG}) protected Value scalarTemp;
+        @Temp({REG}) protected Value vectorTemp1;
+        @Temp({REG}) protected Value vectorTemp2;
+
+        public ReductionOp(LIRGeneratorTool tool, VectorOperation op, JavaKind kind, Value result, Value array, Value initial, Value start, Value end) {
+            super(TYPE);
+            assert op.supportsReduction(kind) : op + " " + kind;
+            this.op = op;
+            this.kind = kind;
+            this.arrayBaseOffset = arrayBaseOffset(kind);
+            this.arrayIndexScale = Scale.fromInt(kind.getByteCount());
+
+            this.resultValue = result;
+            this.arrayValue = array;
+            this.initialValue = initial;
+            this.startValue = start;
+            this.endValue = end;
+
+            this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+            this.limitTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+            this.scalarTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+            this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        }
+
+        @Override
+        public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+            Register result = asRegister(resultValue);
+            Register array = asRegister(arrayValue);
+            Register index = asRegister(indexTemp);
+            Register limit = asRegister(limitTemp);
+            Register scalar = asRegister(scalarTemp);
+            Register accumulator = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+            Register vector = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+            OperandSize size = kind == JavaKind.Int ? OperandSize.DWORD : OperandSize.QWORD;
+            AMD64BinaryArithmetic arithmetic = scalarArithmetic(op);
+            int elements = VECTOR_SIZE / kind.getByteCount();
+
+            // The initial value may share a register with the result.
+            if (size == OperandSize.DWORD) {
+                masm.movl(result, asRegister(initialValue));
+            } else {
+                masm.movq(result, asRegister(initialValue));
+            }
+
+            // Start with the identity of the operation in all lanes.
+            if (op == VectorOperation.AND) {
+                masm.movq(scalar, -1L);
+                masm.movdq(accumulator, scalar);
+                masm.pshufd(accumulator, accumulator, 0x44);
+            } else {
+                masm.pxor(accumulator, accumulator);
+            }
+
+            Label vectorLoop = new Label();
+            Label vectorCheck = new Label();
+            Label scalarLoop = new Label();
+            Label scalarCheck = new Label();
+
+            // The vector loop runs while index + elements <= end.
+            masm.movslq(index, asRegister(startValue));
+            masm.movslq(limit, asRegister(endValue));
+            masm.subq(limit, elements - 1);
+            masm.jmp(vectorCheck);
+
+            masm.align(crb.target.wordSize * 2);
+            masm.bind(vectorLoop);
+            masm.movdqu(vector, new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset));
+            emitPackedOp(masm, op, kind, accumulator, vector);
+            masm.addq(index, elements);
+            masm.bind(vectorCheck);
+            masm.cmpq(index, limit);
+            masm.jcc(ConditionFlag.Less, vectorLoop);
+
+            // Fold the lanes of the accumulator into the result.
+            masm.pshufd(vector, accumulator, 0x0E);
+            emitPackedOp(masm, op, kind, accumulator, vector);
+            if (kind == JavaKind.Int) {
+                masm.pshufd(vector, accumulator, 0x01);
+                emitPackedOp(masm, op, kind, accumulator, vector);
+                masm.movdl(scalar, accumulator);
+            } else {
+                masm.movdq(scalar, accumulator);
+            }
+            arithmetic.getRMOpcode(size).emit(masm, size, result, scalar);
+
+            // Process the remaining elements one at a time.
+            masm.addq(limit, elements - 1);
+            masm.jmp(scalarCheck);
+            masm.bind(scalarLoop);
+            arithmetic.getRMOpcode(size).emit(masm, size, result, new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset));
+            masm.incq(index);
+            masm.bind(scalarCheck);
+            masm.cmpq(index, limit);
+            masm.jcc(ConditionFlag.Less, scalarLoop);
+        }
+    }
+
+    private static AMD64Kind scalarKind(JavaKind kind) {
+        switch (kind) {
+            case Int:
+                return AMD64Kind.DWORD;
+            case Long:
+                return AMD64Kind.QWORD;
+            case Float:
+                return AMD64Kind.SINGLE;
+            case Double:
+                return AMD64Kind.DOUBLE;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    /**
+     * Copies {@code value} into all lanes of {@code vector}.
+     */
+    private static void emitBroadcast(AMD64MacroAssembler masm, JavaKind kind, Register vector, Register value) {
+        switch (kind) {
+            case Int:
+                masm.movdl(vector, value);
+                masm.pshufd(vector, vector, 0x00);
+                break;
+            case Long:
+                masm.movdq(vector, value);
+                masm.pshufd(vector, vector, 0x44);
+                break;
+            case Float:
+                masm.pshufd(vector, value, 0x00);
+                break;
+            case Double:
+                masm.pshufd(vector, value, 0x44);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    private static void emitPackedOp(AMD64MacroAssembler masm, VectorOperation op, JavaKind kind, Register dst, Register src) {
+        if (kind == JavaKind.Float || kind == JavaKind.Double) {
+            OperandSize size = kind == JavaKind.Float ? OperandSize.PS : OperandSize.PD;
+            floatingArithmetic(op).emit(masm, size, dst, src);
+            return;
+        }
+        boolean isInt = kind == JavaKind.Int;
+        switch (op) {
+            case ADD:
+                if (isInt) {
+                    masm.paddd(dst, src);
+                } else {
+                    masm.paddq(dst, src);
+                }
+                break;
+            case SUB:
+                if (isInt) {
+                    masm.psubd(dst, src);
+                } else {
+                    masm.psubq(dst, src);
+                }
+                break;
+            case AND:
+                masm.pand(dst, src);
+                break;
+            case OR:
+                masm.por(dst, src);
+                break;
+            case XOR:
+                masm.pxor(dst, src);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(op + " " + kind);
+        }
+    }
+
+    private static void emitScalarOp(AMD64MacroAssembler masm, VectorOperation op, JavaKind kind, Register dst, AMD64Address src) {
+        switch (kind) {
+            case Int:
+                scalarArithmetic(op).getRMOpcode(OperandSize.DWORD).emit(masm, OperandSize.DWORD, dst, src);
+                break;
+            case Long:
+                scalarArithmetic(op).getRMOpcode(OperandSize.QWORD).emit(masm, OperandSize.QWORD, dst, src);
+                break;
+            case Float:
+                floatingArithmetic(op).emit(masm, OperandSize.SS, dst, src);
+                break;
+            case Double:
+                floatingArithmetic(op).emit(masm, OperandSize.SD, dst, src);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    private static AMD64BinaryArithmetic scalarArithmetic(VectorOperation op) {
+        switch (op) {
+            case ADD:
+                return AMD64BinaryArithmetic.ADD;
+            case SUB:
+                return AMD64BinaryArithmetic.SUB;
+            case AND:
+                return AMD64BinaryArithmetic.AND;
+            case OR:
+                return AMD64BinaryArithmetic.OR;
+            case XOR:
+                return AMD64BinaryArithmetic.XOR;
+            default:
+                throw GraalError.shouldNotReachHere(op.toString());
+        }
+    }
+
+    private static SSEOp floatingArithmetic(VectorOperation op) {
+        switch (op) {
+            case ADD:
+                return SSEOp.ADD;
+            case SUB:
+                return SSEOp.SUB;
+            case MUL:
+                return SSEOp.MUL;
+            default:
+                throw GraalError.shouldNotReachHere(op.toString());
+        }
+    }
+
+    private static void emitLoad(AMD64MacroAssembler masm, JavaKind kind, Register dst, AMD64Address src) {
+        switch (kind) {
+            case Int:
+                masm.movl(dst, src);
+                break;
+            case Long:
+                masm.movq(dst, src);
+                break;
+            case Float:
+                masm.movflt(dst, src);
+                break;
+            case Double:
+                masm.movdbl(dst, src);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    private static void emitStore(AMD64MacroAssembler masm, JavaKind kind, AMD64Address dst, Register src) {
+        switch (kind) {
+            case Int:
+                masm.movl(dst, src);
+                break;
+            case Long:
+                masm.movq(dst, src);
+                break;
+            case Float:
+                masm.movflt(dst, src);
+                break;
+            case Double:
+                masm.movdbl(dst, src);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    private static int arrayBaseOffset(JavaKind kind) {
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        return UNSAFE.arrayBaseOffset(arrayClass);
+    }
+
+    private static final Unsafe UNSAFE = initUnsafe();
+
+    private static Unsafe initUnsafe() {
+        try {
+            return Unsafe.getUnsafe();
+        } catch (SecurityException se) {
+            try {
+                Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return (Unsafe) theUnsafe.get(Unsafe.class);
+            } catch (Exception e) {
+                throw new RuntimeException("exception while trying to get Unsafe", e);
+            }
+        }
+    }
+}
@@ -32,6 +32,7 @@ import static jdk.vm.ci.code.ValueUtil.isRegister;
 import static jdk.vm.ci.code.ValueUtil.isStackSlot;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
@@ -428,6 +429,29 @@ public final class Interval {
             return list.size() >> 1;
         }
 
+        /**
+         * Gets the index of the entry with the lowest use position greater or equal than
+         * {@code pos}. Since the entries are in descending order of use position, all entries
+         * with a lower index have a greater use position.
+         *
+         * @return the index of the entry or -1 if all use positions are lower than {@code pos}
+         */
+        public int lowestIndexAtOrAfter(int pos) {
+            int result = -1;
+            int low = 0;
+            int high = size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (usePos(mid) >= pos) {
+                    result = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return result;
+        }
+
         public void removeLowestUsePos() {
             list.setSize(list.size() - 2);
         }
@@ -478,11 +502,25 @@ public final class Interval {
      */
     private ValueKind<?> kind;
 
+    private static final int[] NO_RANGES = new int[0];
+
     /**
-     * The head of the list of ranges describing this interval. This list is sorted by
-     * {@linkplain LIRInstruction#id instruction ids}.
+     * The ranges describing this interval, packed as pairs of a start (inclusive) and an end
+     * (exclusive) {@linkplain LIRInstruction#id instruction id}. The ranges are stored in
+     * descending order, i.e., the first range of the interval is stored at the end of the array.
+     * This way, {@link #addRange} appends to the array since the lifetime analysis adds the ranges
+     * in reverse order.
+     * <p>
+     * The ranges are accessed by their index in ascending order, with index 0 denoting the first
+     * range. An index equal to the {@linkplain #rangeCount() number of ranges} denotes the end of
+     * the ranges, for which start and end are {@link Integer#MAX_VALUE}.
      */
-    private Range first;
+    private int[] ranges;
+
+    /**
+     * The number of ranges in {@link #ranges}.
+     */
+    private int rangeCount;
 
     /**
      * List of (use-positions, register-priorities) pairs, sorted by use-positions.
@@ -490,9 +528,9 @@ public final class Interval {
     private UsePosList usePosList;
 
     /**
-     * Iterator used to traverse the ranges of an interval.
+     * Index of the range at which the iteration over the ranges of this interval currently is.
      */
-    private Range current;
+    private int current;
 
     /**
      * Link to next interval in a sorted list of intervals that ends with {@link #EndMarker}.
@@ -504,8 +542,6 @@ public final class Interval {
      */
     State state;
 
-    private int cachedTo; // cached value: to of last range (-1: not cached)
-
     /**
      * The interval from which this one is derived. If this is a {@linkplain #isSplitParent() split
      * parent}, it points to itself.
@@ -591,20 +627,78 @@ public final class Interval {
         this.kind = kind;
     }
 
-    public Range first() {
-        return first;
+    /**
+     * Gets the number of ranges of this interval.
+     */
+    public int rangeCount() {
+        return rangeCount;
+    }
+
+    /**
+     * Gets the start (inclusive) of the range at index {@code index}.
+     */
+    public int rangeFrom(int index) {
+        if (index >= rangeCount) {
+            return Integer.MAX_VALUE;
+        }
+        return ranges[(rangeCount - 1 - index) << 1];
+    }
+
+    /**
+     * Gets the end (exclusive) of the range at index {@code index}.
+     */
+    public int rangeTo(int index) {
+        if (index >= rangeCount) {
+            return Integer.MAX_VALUE;
+        }
+        return ranges[((rangeCount - 1 - index) << 1) + 1];
+    }
+
+    private void setRangeFrom(int index, int from) {
+        assert index < rangeCount;
+        ranges[(rangeCount - 1 - index) << 1] = from;
+    }
+
+    private void setRangeTo(int index, int to) {
+        assert index < rangeCount;
+        ranges[((rangeCount - 1 - index) << 1) + 1] = to;
+    }
+
+    /**
+     * Gets the index of the first range at or after index {@code start} that ends after
+     * {@code pos}, using binary search.
+     *
+     * @return the index of the range or {@link #rangeCount()} if there is no such range
+     */
+    private int findRangeEndingAfter(int start, int pos) {
+        int low = start;
+        int high = rangeCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (rangeTo(mid) <= pos) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
     }
 
     public int from() {
-        return first.from;
+        return rangeFrom(0);
+    }
+
+    /**
+     * Sets the start of the first range of this interval.
+     */
+    void setFrom(int from) {
+        assert from < rangeTo(0);
+        setRangeFrom(0, from);
     }
 
     int to() {
-        if (cachedTo == -1) {
-            cachedTo = calcTo();
-        }
-        assert cachedTo == calcTo() : "invalid cached value";
-        return cachedTo;
+        assert rangeCount > 0 : "interval has no range";
+        return ranges[1];
     }
 
     int numUsePositions() {
@@ -690,41 +784,95 @@ public final class Interval {
 
     // test intersection
     boolean intersects(Interval i) {
-        return first.intersects(i.first);
+        return intersectsAt(this, 0, i, 0) != -1;
     }
 
     int intersectsAt(Interval i) {
-        return first.intersectsAt(i.first);
+        return intersectsAt(this, 0, i, 0);
     }
 
     // range iteration
     void rewindRange() {
-        current = first;
+        current = 0;
     }
 
     void nextRange() {
         assert this != EndMarker : "not allowed on sentinel";
-        current = current.next;
+        current++;
     }
 
     int currentFrom() {
-        return current.from;
+        return rangeFrom(current);
     }
 
     int currentTo() {
-        return current.to;
+        return rangeTo(current);
     }
 
     boolean currentAtEnd() {
-        return current == Range.EndMarker;
+        return current >= rangeCount;
     }
 
     boolean currentIntersects(Interval it) {
-        return current.intersects(it.current);
+        return intersectsAt(this, current, it, it.current) != -1;
     }
 
     int currentIntersectsAt(Interval it) {
-        return current.intersectsAt(it.current);
+        return intersectsAt(this, current, it, it.current);
+    }
+
+    /**
+     * Gets the first position at which the ranges of {@code i1} starting at index {@code index1}
+     * intersect the ranges of {@code i2} starting at index {@code index2}. Ranges that end before
+     * the start of the current range of the other interval are skipped using binary search.
+     *
+     * @return the first intersection position or -1 if the ranges do not intersect
+     */
+    private static int intersectsAt(Interval i1, int index1, Interval i2, int index2) {
+        assert index1 < i1.rangeCount && index2 < i2.rangeCount : "empty ranges not allowed";
+        int r1 = index1;
+        int r2 = index2;
+        do {
+            int from1 = i1.rangeFrom(r1);
+            int from2 = i2.rangeFrom(r2);
+            if (from1 < from2) {
+                if (i1.rangeTo(r1) <= from2) {
+                    r1 = i1.findRangeEndingAfter(r1 + 1, from2);
+                    if (r1 == i1.rangeCount) {
+                        return -1;
+                    }
+                } else {
+                    return from2;
+                }
+            } else {
+                if (from2 < from1) {
+                    if (i2.rangeTo(r2) <= from1) {
+                        r2 = i2.findRangeEndingAfter(r2 + 1, from1);
+                        if (r2 == i2.rangeCount) {
+                            return -1;
+                        }
+                    } else {
+                        return from1;
+                    }
+                } else { // from1 == from2
+                    if (from1 == i1.rangeTo(r1)) {
+                        r1++;
+                        if (r1 == i1.rangeCount) {
+                            return -1;
+                        }
+                    } else {
+                        if (from2 == i2.rangeTo(r2)) {
+                            r2++;
+                            if (r2 == i2.rangeCount) {
+                                return -1;
+                            }
+                        } else {
+                            return from1;
+                        }
+                    }
+                }
+            }
+        } while (true);
     }
 
     /**
@@ -742,11 +890,10 @@ public final class Interval {
             assert isIllegal(operand) || isVariable(operand);
         }
         this.kind = LIRKind.Illegal;
-        this.first = Range.EndMarker;
+        this.ranges = NO_RANGES;
         this.usePosList = new UsePosList(4);
-        this.current = Range.EndMarker;
+        this.current = Integer.MAX_VALUE;
         this.next = EndMarker;
-        this.cachedTo = -1;
         this.spillState = SpillState.NoDefinitionFound;
         this.spillDefinitionPos = -1;
         splitParent = this;
@@ -781,16 +928,6 @@ public final class Interval {
         return splitParent().materializedValue;
     }
 
-    int calcTo() {
-        assert first != Range.EndMarker : "interval has no range";
-
-        Range r = first;
-        while (r.next != Range.EndMarker) {
-            r = r.next;
-        }
-        return r.to;
-    }
-
     // consistency check of split-children
     boolean checkSplitChildren() {
         if (!splitChildren.isEmpty()) {
@@ -1006,10 +1143,9 @@ public final class Interval {
     int nextUsage(RegisterPriority minRegisterPriority, int from) {
         assert isVariable(operand) : "cannot access use positions for fixed intervals";
 
-        for (int i = usePosList.size() - 1; i >= 0; --i) {
-            int usePos = usePosList.usePos(i);
-            if (usePos >= from && adaptPriority(usePosList.registerPriority(i)).greaterEqual(minRegisterPriority)) {
-                return usePos;
+        for (int i = usePosList.lowestIndexAtOrAfter(from); i >= 0; --i) {
+            if (adaptPriority(usePosList.registerPriority(i)).greaterEqual(minRegisterPriority)) {
+                return usePosList.usePos(i);
             }
         }
         return Integer.MAX_VALUE;
@@ -1018,10 +1154,9 @@ public final class Interval {
     int nextUsageExact(RegisterPriority exactRegisterPriority, int from) {
         assert isVariable(operand) : "cannot access use positions for fixed intervals";
 
-        for (int i = usePosList.size() - 1; i >= 0; --i) {
-            int usePos = usePosList.usePos(i);
-            if (usePos >= from && adaptPriority(usePosList.registerPriority(i)) == exactRegisterPriority) {
-                return usePos;
+        for (int i = usePosList.lowestIndexAtOrAfter(from); i >= 0; --i) {
+            if (adaptPriority(usePosList.registerPriority(i)) == exactRegisterPriority) {
+                return usePosList.usePos(i);
             }
         }
         return Integer.MAX_VALUE;
@@ -1071,17 +1206,23 @@ public final class Interval {
 
     public void addRange(int from, int to) {
         assert from < to : "invalid range";
-        assert first() == Range.EndMarker || to < first().next.from : "not inserting at begin of interval";
-        assert from <= first().to : "not inserting at begin of interval";
+        assert rangeCount == 0 || to < rangeFrom(1) : "not inserting at begin of interval";
+        assert from <= rangeTo(0) : "not inserting at begin of interval";
 
-        if (first.from <= to) {
-            assert first != Range.EndMarker;
+        if (rangeFrom(0) <= to) {
+            assert rangeCount > 0;
             // join intersecting ranges
-            first.from = Math.min(from, first().from);
-            first.to = Math.max(to, first().to);
+            setRangeFrom(0, Math.min(from, rangeFrom(0)));
+            setRangeTo(0, Math.max(to, rangeTo(0)));
         } else {
             // insert new range
-            first = new Range(from, to, first());
+            int length = rangeCount << 1;
+            if (length == ranges.length) {
+                ranges = Arrays.copyOf(ranges, Math.max(4, length * 2));
+            }
+            ranges[length] = from;
+            ranges[length + 1] = to;
+            rangeCount++;
         }
     }
 
@@ -1128,26 +1269,23 @@ public final class Interval {
         Interval result = newSplitChild(allocator);
 
         // split the ranges
-        Range prev = null;
-        Range cur = first;
-        while (cur != Range.EndMarker && cur.to <= splitPos) {
-            prev = cur;
-            cur = cur.next;
-        }
-        assert cur != Range.EndMarker : "split interval after end of last range";
-
-        if (cur.from < splitPos) {
-            result.first = new Range(splitPos, cur.to, cur.next);
-            cur.to = splitPos;
-            cur.next = Range.EndMarker;
-
-        } else {
-            assert prev != null : "split before start of first range";
-            result.first = cur;
-            prev.next = Range.EndMarker;
+        int index = findRangeEndingAfter(0, splitPos);
+        assert index < rangeCount : "split interval after end of last range";
+
+        boolean splitRange = rangeFrom(index) < splitPos;
+        assert splitRange || index > 0 : "split before start of first range";
+        int childCount = rangeCount - index;
+        int parentCount = splitRange ? index + 1 : index;
+        // the ranges from index on are stored at the beginning of the array
+        result.ranges = Arrays.copyOf(ranges, childCount << 1);
+        result.rangeCount = childCount;
+        System.arraycopy(ranges, (rangeCount - parentCount) << 1, ranges, 0, parentCount << 1);
+        rangeCount = parentCount;
+        if (splitRange) {
+            result.setRangeFrom(0, splitPos);
+            setRangeTo(parentCount - 1, splitPos);
         }
-        result.current = result.first;
-        cachedTo = -1; // clear cached value
+        result.current = 0;
 
         // split list of use positions
         result.usePosList = usePosList.splitAt(splitPos);
@@ -1173,7 +1311,7 @@ public final class Interval {
     Interval splitFromStart(int splitPos, LinearScan allocator) {
         assert isVariable(operand) : "cannot split fixed intervals";
         assert splitPos > from() && splitPos < to() : "can only split inside interval";
-        assert splitPos > first.from && splitPos <= first.to : "can only split inside first range";
+        assert splitPos > rangeFrom(0) && splitPos <= rangeTo(0) : "can only split inside first range";
         assert firstUsage(RegisterPriority.None) > splitPos : "can not split when use positions are present";
 
         // allocate new interval
@@ -1181,13 +1319,14 @@ public final class Interval {
 
         // the new interval has only one range (checked by assertion above,
         // so the splitting of the ranges is very simple
-        result.addRange(first.from, splitPos);
+        result.addRange(rangeFrom(0), splitPos);
 
-        if (splitPos == first.to) {
-            assert first.next != Range.EndMarker : "must not be at end";
-            first = first.next;
+        if (splitPos == rangeTo(0)) {
+            assert rangeCount > 1 : "must not be at end";
+            // the first range is stored at the end of the array
+            rangeCount--;
         } else {
-            first.from = splitPos;
+            setRangeFrom(0, splitPos);
         }
 
         return result;
@@ -1195,18 +1334,16 @@ public final class Interval {
 
     // returns true if the opId is inside the interval
     boolean covers(int opId, LIRInstruction.OperandMode mode) {
-        Range cur = first;
-
-        while (cur != Range.EndMarker && cur.to < opId) {
-            cur = cur.next;
-        }
-        if (cur != Range.EndMarker) {
-            assert cur.to != cur.next.from : "ranges not separated";
+        int index = findRangeEndingAfter(0, opId - 1);
+        if (index < rangeCount) {
+            int from = rangeFrom(index);
+            int to = rangeTo(index);
+            assert to != rangeFrom(index + 1) : "ranges not separated";
 
             if (mode == LIRInstruction.OperandMode.DEF) {
-                return cur.from <= opId && opId < cur.to;
+                return from <= opId && opId < to;
             } else {
-                return cur.from <= opId && opId <= cur.to;
+                return from <= opId && opId <= to;
             }
         }
         return false;
@@ -1218,28 +1355,25 @@ public final class Interval {
         assert holeFrom < holeTo : "check";
         assert from() <= holeFrom && holeTo <= to() : "index out of interval";
 
-        Range cur = first;
-        while (cur != Range.EndMarker) {
-            assert cur.to < cur.next.from : "no space between ranges";
+        // skip the ranges that end before the hole-range starts
+        int index = findRangeEndingAfter(0, holeFrom - 1);
+        if (index < rangeCount) {
+            assert rangeTo(index) < rangeFrom(index + 1) : "no space between ranges";
 
             // hole-range starts before this range . hole
-            if (holeFrom < cur.from) {
+            if (holeFrom < rangeFrom(index)) {
                 return true;
 
                 // hole-range completely inside this range . no hole
             } else {
-                if (holeTo <= cur.to) {
+                if (holeTo <= rangeTo(index)) {
                     return false;
 
                     // overlapping of hole-range with this range . hole
                 } else {
-                    if (holeFrom <= cur.to) {
-                        return true;
-                    }
+                    return true;
                 }
             }
-
-            cur = cur.next;
         }
 
         return false;
@@ -1249,11 +1383,9 @@ public final class Interval {
     public String toString() {
         String from = "?";
         String to = "?";
-        if (first != null && first != Range.EndMarker) {
+        if (rangeCount > 0) {
             from = String.valueOf(from());
-            // to() may cache a computed value, modifying the current object, which is a bad idea
-            // for a printing function. Compute it directly instead.
-            to = String.valueOf(calcTo());
+            to = String.valueOf(to());
         }
         String locationString = this.location == null ? "" : "@" + this.location;
         return operandNumber + ":" + operand + (isRegister(operand) ? "" : locationString) + "[" + from + "," + to + "]";
@@ -1288,14 +1420,11 @@ public final class Interval {
         buf.append("} ranges{");
 
         // print ranges
-        Range cur = first;
-        while (cur != Range.EndMarker) {
-            if (cur != first) {
+        for (int i = 0; i < rangeCount; i++) {
+            if (i != 0) {
                 buf.append(", ");
             }
-            buf.append(cur);
-            cur = cur.next;
-            assert cur != null : "range list not closed with range sentinel";
+            buf.append('[').append(rangeFrom(i)).append(", ").append(rangeTo(i)).append(']');
         }
         buf.append("} uses{");
 
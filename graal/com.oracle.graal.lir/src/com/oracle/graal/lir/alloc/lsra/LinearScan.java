@@ -793,14 +793,14 @@ public class LinearScan {
                     throw new GraalError("");
                 }
 
-                if (i1.first() == Range.EndMarker) {
+                if (i1.rangeCount() == 0) {
                     Debug.log("Interval %d has no Range", i1.operandNumber);
                     Debug.log(i1.logString(this));
                     throw new GraalError("");
                 }
 
-                for (Range r = i1.first(); r != Range.EndMarker; r = r.next) {
-                    if (r.from >= r.to) {
+                for (int r = 0; r < i1.rangeCount(); r++) {
+                    if (i1.rangeFrom(r) >= i1.rangeTo(r)) {
                         Debug.log("Interval %d has zero length range", i1.operandNumber);
                         Debug.log(i1.logString(this));
                         throw new GraalError("");
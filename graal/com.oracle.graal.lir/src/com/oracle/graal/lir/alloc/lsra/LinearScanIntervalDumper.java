@@ -53,11 +53,8 @@ class LinearScanIntervalDumper implements IntervalDumper {
         visitor.visitIntervalStart(interval.splitParent().operand, operand, interval.location(), hint, type);
 
         // print ranges
-        Range cur = interval.first();
-        while (cur != Range.EndMarker) {
-            visitor.visitRange(cur.from, cur.to);
-            cur = cur.next;
-            assert cur != null : "range list not closed with range sentinel";
+        for (int i = 0; i < interval.rangeCount(); i++) {
+            visitor.visitRange(interval.rangeFrom(i), interval.rangeTo(i));
         }
 
         // print use positions
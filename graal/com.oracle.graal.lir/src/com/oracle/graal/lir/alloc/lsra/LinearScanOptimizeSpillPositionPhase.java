@@ -183,12 +183,14 @@ public final class LinearScanOptimizeSpillPositionPhase extends AllocationPhase
      */
     private class IntervalBlockIterator implements Iterator<AbstractBlockBase<?>> {
 
-        Range range;
+        final Interval interval;
+        int range;
         AbstractBlockBase<?> block;
 
         IntervalBlockIterator(Interval interval) {
-            range = interval.first();
-            block = allocator.blockForId(range.from);
+            this.interval = interval;
+            range = 0;
+            block = allocator.blockForId(interval.rangeFrom(range));
         }
 
         @Override
@@ -197,12 +199,12 @@ public final class LinearScanOptimizeSpillPositionPhase extends AllocationPhase
             int nextBlockIndex = block.getLinearScanNumber() + 1;
             if (nextBlockIndex < allocator.sortedBlocks().size()) {
                 block = allocator.sortedBlocks().get(nextBlockIndex);
-                if (range.to <= allocator.getFirstLirInstructionId(block)) {
-                    range = range.next;
-                    if (range == Range.EndMarker) {
+                if (interval.rangeTo(range) <= allocator.getFirstLirInstructionId(block)) {
+                    range++;
+                    if (range == interval.rangeCount()) {
                         block = null;
                     } else {
-                        block = allocator.blockForId(range.from);
+                        block = allocator.blockForId(interval.rangeFrom(range));
                     }
                 }
             } else {
@@ -25,6 +25,7 @@ package com.oracle.graal.lir.alloc.trace;
 import static com.oracle.graal.lir.alloc.trace.TraceBuilderPhase.TRACE_DUMP_LEVEL;
 import static com.oracle.graal.lir.alloc.trace.TraceUtil.isTrivialTrace;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.oracle.graal.compiler.common.alloc.RegisterAllocationConfig;
@@ -38,6 +39,7 @@ import com.oracle.graal.debug.Indent;
 import com.oracle.graal.lir.LIR;
 import com.oracle.graal.lir.LIRInstruction;
 import com.oracle.graal.lir.alloc.trace.TraceAllocationPhase.TraceAllocationContext;
+import com.oracle.graal.lir.alloc.trace.lsra.ParallelLifetimeAnalysis;
 import com.oracle.graal.lir.alloc.trace.lsra.TraceLinearScan;
 import com.oracle.graal.lir.gen.LIRGenerationResult;
 import com.oracle.graal.lir.gen.LIRGeneratorTool.MoveFactory;
@@ -46,6 +48,7 @@ import com.oracle.graal.lir.ssi.SSIUtil;
 import com.oracle.graal.lir.ssi.SSIVerifier;
 import com.oracle.graal.options.Option;
 import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
 import com.oracle.graal.options.StableOptionValue;
 
 import jdk.vm.ci.code.TargetDescription;
@@ -70,6 +73,11 @@ public final class TraceRegisterAllocationPhase extends AllocationPhase {
         public static final StableOptionValue<Boolean> TraceRAreuseStackSlotsForMoveResolutionCycleBreaking = new StableOptionValue<>(true);
         @Option(help = "Cache stack slots globally (i.e. a variable always gets the same slot in every trace).", type = OptionType.Debug)
         public static final StableOptionValue<Boolean> TraceRACacheStackSlots = new StableOptionValue<>(true);
+        @Option(help = "Analyze the lifetimes of traces in parallel while preceding traces are allocated. " +
+                       "The result of the allocation does not depend on this option.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> TraceRAParallel = new OptionValue<>(false);
+        @Option(help = "Number of threads used by TraceRAParallel (0 = number of available processors).", type = OptionType.Expert)
+        public static final OptionValue<Integer> TraceRAParallelism = new OptionValue<>(0);
         // @formatter:on
     }
 
@@ -92,6 +100,19 @@ public final class TraceRegisterAllocationPhase extends AllocationPhase {
         AllocatableValue[] cachedStackSlots = Options.TraceRACacheStackSlots.getValue() ? new AllocatableValue[lir.numVariables()] : null;
 
         Debug.dump(Debug.INFO_LOG_LEVEL, lir, "Before TraceRegisterAllocation");
+        ParallelLifetimeAnalysis<B> parallelAnalysis = null;
+        if (Options.TraceRAParallel.getValue()) {
+            List<Trace<B>> tracesToAnalyze = new ArrayList<>();
+            for (Trace<B> trace : resultTraces.getTraces()) {
+                if (!(Options.TraceRAtrivialBlockAllocator.getValue() && isTrivialTrace(lir, trace))) {
+                    tracesToAnalyze.add(trace);
+                }
+            }
+            if (tracesToAnalyze.size() > 1) {
+                parallelAnalysis = new ParallelLifetimeAnalysis<>(target, lirGenRes, codeEmittingOrder, linearScanOrder, spillMoveFactory, registerAllocationConfig, resultTraces, cachedStackSlots,
+                                tracesToAnalyze, Options.TraceRAParallelism.getValue());
+            }
+        }
         try (Scope s0 = Debug.scope("AllocateTraces", resultTraces)) {
             for (Trace<B> trace : resultTraces.getTraces()) {
                 try (Indent i = Debug.logAndIndent("Allocating Trace%d: %s", trace.getId(), trace); Scope s = Debug.scope("AllocateTrace", trace)) {
@@ -102,6 +123,9 @@ public final class TraceRegisterAllocationPhase extends AllocationPhase {
                     Debug.dump(TRACE_DUMP_LEVEL, trace, "Trace%s: %s", trace.getId(), trace);
                     if (Options.TraceRAtrivialBlockAllocator.getValue() && isTrivialTrace(lir, trace)) {
                         TRACE_TRIVIAL_ALLOCATOR.apply(target, lirGenRes, codeEmittingOrder, trace, traceContext, false);
+                    } else if (parallelAnalysis != null) {
+                        TraceLinearScan allocator = parallelAnalysis.take(trace);
+                        allocator.allocateAnalyzed(target, lirGenRes, codeEmittingOrder, linearScanOrder, spillMoveFactory, registerAllocationConfig);
                     } else {
                         TraceLinearScan allocator = new TraceLinearScan(target, lirGenRes, spillMoveFactory, registerAllocationConfig, trace, resultTraces, false,
                                         cachedStackSlots);
@@ -111,6 +135,9 @@ public final class TraceRegisterAllocationPhase extends AllocationPhase {
                 }
             }
         } catch (Throwable e) {
+            if (parallelAnalysis != null) {
+                parallelAnalysis.cancel();
+            }
             throw Debug.handle(e);
         }
         if (Debug.isDumpEnabled(Debug.INFO_LOG_LEVEL)) {
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.alloc.trace.lsra;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.oracle.graal.compiler.common.alloc.RegisterAllocationConfig;
+import com.oracle.graal.compiler.common.alloc.Trace;
+import com.oracle.graal.compiler.common.alloc.TraceBuilderResult;
+import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
+import com.oracle.graal.lir.gen.LIRGenerationResult;
+import com.oracle.graal.lir.gen.LIRGeneratorTool.MoveFactory;
+
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.AllocatableValue;
+
+/**
+ * Runs the {@linkplain TraceLinearScanLifetimeAnalysisPhase lifetime analysis} of traces on a
+ * fork/join pool while the compiler thread allocates the preceding traces.
+ * <p>
+ * The lifetime analysis of a trace only reads and writes the instructions and intervals of the
+ * trace itself, except for the inter-trace hints which depend on the allocation of the
+ * predecessor traces. The hints are therefore {@linkplain TraceLinearScan#analyzeLifetimes
+ * deferred} until the trace is {@linkplain #take taken} for allocation. Everything that depends on
+ * other traces or on state shared by all traces (spill slots in the frame map, stack slot caches,
+ * scratch slots of the move factory) still happens on the compiler thread in trace order, so the
+ * result of the allocation is identical to the result of sequential allocation.
+ * <p>
+ * To bound the memory used for intervals, at most {@code window} traces are analyzed ahead of the
+ * trace that is currently allocated.
+ * <p>
+ * The pool threads do not see {@linkplain com.oracle.graal.options.OptionValue#override overrides}
+ * of options on the compiler thread. The lifetime analysis therefore must only read
+ * {@link com.oracle.graal.options.StableOptionValue stable} options, which cannot be overridden
+ * (currently {@code TraceRAuseInterTraceHints} and {@code TraceRAshareSpillInformation}). The only
+ * exception is {@code DetailedAsserts}, which merely enables additional assertions.
+ */
+public final class ParallelLifetimeAnalysis<B extends AbstractBlockBase<B>> {
+
+    /**
+     * The pools by number of threads. Each pool is created on first use and kept for the lifetime
+     * of the VM, so only a few distinct {@code TraceRAParallelism} values should be used.
+     */
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+
+    private static ForkJoinPool getPool(int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return pools.computeIfAbsent(threads, ForkJoinPool::new);
+    }
+
+    private final TargetDescription target;
+    private final LIRGenerationResult lirGenRes;
+    private final List<B> codeEmittingOrder;
+    private final List<B> linearScanOrder;
+    private final MoveFactory spillMoveFactory;
+    private final RegisterAllocationConfig registerAllocationConfig;
+    private final TraceBuilderResult<B> traceBuilderResult;
+    private final AllocatableValue[] cachedStackSlots;
+
+    private final ForkJoinPool executor;
+    private final List<Trace<B>> traces;
+    private final ForkJoinTask<?>[] tasks;
+    private final TraceLinearScan[] allocators;
+    private final int window;
+    private int next;
+
+    /**
+     * @param traces the traces to analyze, in the order in which they are {@linkplain #take
+     *            taken}
+     * @param parallelism the number of threads used for the analysis, or 0 for the number of
+     *            available processors
+     */
+    public ParallelLifetimeAnalysis(TargetDescription target, LIRGenerationResult lirGenRes, List<B> codeEmittingOrder, List<B> linearScanOrder, MoveFactory spillMoveFactory,
+                    RegisterAllocationConfig registerAllocationConfig, TraceBuilderResult<B> traceBuilderResult, AllocatableValue[] cachedStackSlots, List<Trace<B>> traces, int parallelism) {
+        this.target = target;
+        this.lirGenRes = lirGenRes;
+        this.codeEmittingOrder = codeEmittingOrder;
+        this.linearScanOrder = linearScanOrder;
+        this.spillMoveFactory = spillMoveFactory;
+        this.registerAllocationConfig = registerAllocationConfig;
+        this.traceBuilderResult = traceBuilderResult;
+        this.cachedStackSlots = cachedStackSlots;
+        this.executor = getPool(parallelism);
+        this.traces = traces;
+        this.tasks = new ForkJoinTask<?>[traces.size()];
+        this.allocators = new TraceLinearScan[traces.size()];
+        this.window = 2 * executor.getParallelism();
+
+        for (int i = 0; i < Math.min(window, traces.size()); i++) {
+            submit(i);
+        }
+    }
+
+    private void submit(int index) {
+        TraceLinearScan allocator = new TraceLinearScan(target, lirGenRes, spillMoveFactory, registerAllocationConfig, traces.get(index), traceBuilderResult, false, cachedStackSlots);
+        allocators[index] = allocator;
+        tasks[index] = executor.submit(() -> allocator.analyzeLifetimes(target, lirGenRes, codeEmittingOrder, linearScanOrder, spillMoveFactory, registerAllocationConfig, true));
+    }
+
+    /**
+     * Waits for the lifetime analysis of {@code trace} and returns its allocator, which is ready
+     * for {@link TraceLinearScan#allocateAnalyzed}. Traces must be taken in the order in which they
+     * were passed to the constructor.
+     */
+    public TraceLinearScan take(Trace<B> trace) {
+        int index = next++;
+        assert traces.get(index) == trace : "traces must be taken in order";
+        if (index + window < traces.size()) {
+            submit(index + window);
+        }
+        tasks[index].join();
+        tasks[index] = null;
+        TraceLinearScan allocator = allocators[index];
+        allocators[index] = null;
+        return allocator;
+    }
+
+    /**
+     * Cancels the analyses of all traces that have not been taken, e.g., because the allocation of
+     * a trace failed.
+     */
+    public void cancel() {
+        for (int i = next; i < tasks.length; i++) {
+            if (tasks[i] != null) {
+                tasks[i].cancel(false);
+                tasks[i].quietlyJoin();
+            }
+        }
+    }
+}
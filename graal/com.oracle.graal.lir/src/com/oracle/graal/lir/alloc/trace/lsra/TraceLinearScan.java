@@ -135,6 +135,8 @@ public final class TraceLinearScan implements IntervalDumper {
 
     private final LIRGenerationResult res;
 
+    private boolean interTraceHintsDeferred;
+
     public TraceLinearScan(TargetDescription target, LIRGenerationResult res, MoveFactory spillMoveFactory, RegisterAllocationConfig regAllocConfig, Trace<? extends AbstractBlockBase<?>> trace,
                     TraceBuilderResult<?> traceBuilderResult, boolean neverSpillConstants, AllocatableValue[] cachedStackSlots) {
         this.res = res;
@@ -576,42 +578,72 @@ public final class TraceLinearScan implements IntervalDumper {
          * This is the point to enable debug logging for the whole register allocation.
          */
         try (Indent indent = Debug.logAndIndent("LinearScan allocate")) {
-            TraceLinearScanAllocationContext context = new TraceLinearScanAllocationContext(spillMoveFactory, registerAllocationConfig, traceBuilderResult, this);
+            analyzeLifetimes(target, lirGenRes, codeEmittingOrder, linearScanOrder, spillMoveFactory, registerAllocationConfig, false);
+            allocateAnalyzed(target, lirGenRes, codeEmittingOrder, linearScanOrder, spillMoveFactory, registerAllocationConfig);
+        }
+    }
 
-            TRACE_LINEAR_SCAN_LIFETIME_ANALYSIS_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
+    /**
+     * Builds the intervals of this trace. If {@code deferInterTraceHints} is true, the hints
+     * derived from the locations of values in already allocated traces are not added, which makes
+     * the analysis independent of the allocation of all other traces. The hints, and the initial
+     * range of the fixed intervals, are then added by {@link #allocateAnalyzed}.
+     */
+    public <B extends AbstractBlockBase<B>> void analyzeLifetimes(TargetDescription target, LIRGenerationResult lirGenRes, List<B> codeEmittingOrder, List<B> linearScanOrder,
+                    MoveFactory spillMoveFactory, RegisterAllocationConfig registerAllocationConfig, boolean deferInterTraceHints) {
+        TraceLinearScanAllocationContext context = new TraceLinearScanAllocationContext(spillMoveFactory, registerAllocationConfig, traceBuilderResult, this);
+        interTraceHintsDeferred = deferInterTraceHints;
+        TRACE_LINEAR_SCAN_LIFETIME_ANALYSIS_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
+    }
 
-            try (Scope s = Debug.scope("AfterLifetimeAnalysis", this)) {
+    /**
+     * Allocates registers for this trace once its lifetimes have been
+     * {@linkplain #analyzeLifetimes analyzed}. This must only be called once all traces that
+     * precede this trace in the {@link TraceBuilderResult} have been allocated.
+     */
+    @SuppressWarnings("try")
+    public <B extends AbstractBlockBase<B>> void allocateAnalyzed(TargetDescription target, LIRGenerationResult lirGenRes, List<B> codeEmittingOrder, List<B> linearScanOrder,
+                    MoveFactory spillMoveFactory, RegisterAllocationConfig registerAllocationConfig) {
+        TraceLinearScanAllocationContext context = new TraceLinearScanAllocationContext(spillMoveFactory, registerAllocationConfig, traceBuilderResult, this);
+        if (interTraceHintsDeferred) {
+            TraceLinearScanLifetimeAnalysisPhase.finishDeferredIntervals(this, traceBuilderResult);
+            interTraceHintsDeferred = false;
+        }
+        try (Scope s = Debug.scope("AfterLifetimeAnalysis", this)) {
 
-                printLir("Before register allocation", true);
-                printIntervals("Before register allocation");
+            printLir("Before register allocation", true);
+            printIntervals("Before register allocation");
 
-                sortIntervalsBeforeAllocation();
-                sortFixedIntervalsBeforeAllocation();
+            sortIntervalsBeforeAllocation();
+            sortFixedIntervalsBeforeAllocation();
 
-                TRACE_LINEAR_SCAN_REGISTER_ALLOCATION_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
-                printIntervals("After register allocation");
+            TRACE_LINEAR_SCAN_REGISTER_ALLOCATION_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
+            printIntervals("After register allocation");
 
-                // resolve intra-trace data-flow
-                TRACE_LINEAR_SCAN_RESOLVE_DATA_FLOW_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
-                Debug.dump(TraceBuilderPhase.TRACE_DUMP_LEVEL, sortedBlocks(), "%s", TRACE_LINEAR_SCAN_RESOLVE_DATA_FLOW_PHASE.getName());
+            // resolve intra-trace data-flow
+            TRACE_LINEAR_SCAN_RESOLVE_DATA_FLOW_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
+            Debug.dump(TraceBuilderPhase.TRACE_DUMP_LEVEL, sortedBlocks(), "%s", TRACE_LINEAR_SCAN_RESOLVE_DATA_FLOW_PHASE.getName());
 
-                // eliminate spill moves
-                if (Options.LIROptTraceRAEliminateSpillMoves.getValue()) {
-                    TRACE_LINEAR_SCAN_ELIMINATE_SPILL_MOVE_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
-                    Debug.dump(TraceBuilderPhase.TRACE_DUMP_LEVEL, sortedBlocks(), "%s", TRACE_LINEAR_SCAN_ELIMINATE_SPILL_MOVE_PHASE.getName());
-                }
+            // eliminate spill moves
+            if (Options.LIROptTraceRAEliminateSpillMoves.getValue()) {
+                TRACE_LINEAR_SCAN_ELIMINATE_SPILL_MOVE_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
+                Debug.dump(TraceBuilderPhase.TRACE_DUMP_LEVEL, sortedBlocks(), "%s", TRACE_LINEAR_SCAN_ELIMINATE_SPILL_MOVE_PHASE.getName());
+            }
 
-                TRACE_LINEAR_SCAN_ASSIGN_LOCATIONS_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
+            TRACE_LINEAR_SCAN_ASSIGN_LOCATIONS_PHASE.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, context, false);
 
-                if (DetailedAsserts.getValue()) {
-                    verifyIntervals();
-                }
-            } catch (Throwable e) {
-                throw Debug.handle(e);
+            if (DetailedAsserts.getValue()) {
+                verifyIntervals();
             }
+        } catch (Throwable e) {
+            throw Debug.handle(e);
         }
     }
 
+    boolean interTraceHintsDeferred() {
+        return interTraceHintsDeferred;
+    }
+
     public void printLir(String label, @SuppressWarnings("unused") boolean hirValid) {
         if (Debug.isDumpEnabled(TraceBuilderPhase.TRACE_DUMP_LEVEL)) {
             Debug.dump(TraceBuilderPhase.TRACE_DUMP_LEVEL, sortedBlocks(), label);
@@ -84,6 +84,15 @@ public final class TraceLinearScanLifetimeAnalysisPhase extends TraceLinearScanA
         new Analyser(allocator, traceBuilderResult).analyze();
     }
 
+    /**
+     * Adds the inter-trace hints and the ranges of the fixed intervals to the intervals of
+     * {@code allocator} if its lifetime analysis {@linkplain TraceLinearScan#analyzeLifetimes
+     * deferred} them.
+     */
+    static void finishDeferredIntervals(TraceLinearScan allocator, TraceBuilderResult<?> traceBuilderResult) {
+        new Analyser(allocator, traceBuilderResult).finishIntervals();
+    }
+
     public static final class Analyser {
         private static final int DUMP_DURING_ANALYSIS_LEVEL = 4;
         private final TraceLinearScan allocator;
@@ -546,14 +555,24 @@ public final class TraceLinearScanLifetimeAnalysisPhase extends TraceLinearScanA
                         interval.setSpillState(SpillState.NoSpillStore);
                     }
                 }
-                if (TraceRAuseInterTraceHints.getValue()) {
-                    addInterTraceHints();
+                if (!allocator.interTraceHintsDeferred()) {
+                    finishIntervals();
                 }
-                for (FixedInterval interval1 : allocator.fixedIntervals()) {
-                    if (interval1 != null) {
-                        /* We use [-1, 0] to avoid intersection with incoming values. */
-                        interval1.addRange(-1, 0);
-                    }
+            }
+        }
+
+        /**
+         * Adds the inter-trace hints and the initial range of the fixed intervals. The range must
+         * be added after the hints since adding a hint can create a fixed interval.
+         */
+        private void finishIntervals() {
+            if (TraceRAuseInterTraceHints.getValue()) {
+                addInterTraceHints();
+            }
+            for (FixedInterval interval1 : allocator.fixedIntervals()) {
+                if (interval1 != null) {
+                    /* We use [-1, 0] to avoid intersection with incoming values. */
+                    interval1.addRange(-1, 0);
                 }
             }
         }
@@ -24,6 +24,7 @@ package com.oracle.graal.lir.gen;
 
 import com.oracle.graal.compiler.common.LIRKind;
 import com.oracle.graal.compiler.common.calc.Condition;
+import com.oracle.graal.compiler.common.calc.VectorOperation;
 import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
 import com.oracle.graal.compiler.common.spi.CodeGenProviders;
 import com.oracle.graal.compiler.common.spi.ForeignCallLinkage;
@@ -246,6 +247,30 @@ public interface LIRGeneratorTool extends BenchmarkCounterFactory, ValueKindFact
 
     Variable emitArrayEquals(JavaKind kind, Value array1, Value array2, Value length);
 
+    /**
+     * Emits code that applies {@code op} to the elements {@code [start, end)} of arrays of
+     * {@code kind}. The caller guarantees that all arrays are non-null and that the range is within
+     * their bounds.
+     *
+     * @param dst the array that receives the results
+     * @param x the first source array or {@code null} for {@link VectorOperation#FILL}
+     * @param y the second source array for {@linkplain VectorOperation#isBinary() binary}
+     *            operations, otherwise {@code null}
+     * @param value the value stored by {@link VectorOperation#FILL}, otherwise {@code null}
+     */
+    default void emitVectorizedArrayOp(VectorOperation op, JavaKind kind, Value dst, Value x, Value y, Value value, Value start, Value end) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Emits code that combines {@code initial} with the elements {@code [start, end)} of
+     * {@code array} using {@code op}. The caller guarantees that the array is non-null and that
+     * the range is within its bounds.
+     */
+    default Variable emitVectorizedReduction(VectorOperation op, JavaKind kind, Value array, Value initial, Value start, Value end) {
+        throw GraalError.unimplemented();
+    }
+
     void emitBlackhole(Value operand);
 
     LIRKind getLIRKind(Stamp stamp);
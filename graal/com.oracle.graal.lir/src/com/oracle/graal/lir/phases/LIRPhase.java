@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
+import com.oracle.graal.debug.CompilationEventLog;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.DebugCloseable;
@@ -120,7 +121,14 @@ public abstract class LIRPhase<C> {
     public final <B extends AbstractBlockBase<B>> void apply(TargetDescription target, LIRGenerationResult lirGenRes, List<B> codeEmittingOrder, List<B> linearScanOrder, C context, boolean dumpLIR) {
         try (Scope s = Debug.scope(getName(), this)) {
             try (DebugCloseable a = timer.start(); DebugCloseable c = memUseTracker.start()) {
-                run(target, lirGenRes, codeEmittingOrder, linearScanOrder, context);
+                boolean logged = CompilationEventLog.ENABLED && CompilationEventLog.beginPhase(getName(), -1);
+                try {
+                    run(target, lirGenRes, codeEmittingOrder, linearScanOrder, context);
+                } finally {
+                    if (logged) {
+                        CompilationEventLog.endPhase(-1);
+                    }
+                }
                 if (dumpLIR && Debug.isDumpEnabled(Debug.BASIC_LOG_LEVEL)) {
                     Debug.dump(Debug.BASIC_LOG_LEVEL, lirGenRes.getLIR(), "%s", getName());
                 }
@@ -47,6 +47,11 @@ public class LoopFullUnrollPhase extends LoopPhase<LoopPolicies> {
         this.canonicalizer = canonicalizer;
     }
 
+    @Override
+    public boolean isOptional() {
+        return true;
+    }
+
     @Override
     protected void run(StructuredGraph graph, PhaseContext context) {
         if (graph.hasLoops()) {
@@ -34,6 +34,11 @@ public class LoopPeelingPhase extends ContextlessLoopPhase<LoopPolicies> {
         super(policies);
     }
 
+    @Override
+    public boolean isOptional() {
+        return true;
+    }
+
     @Override
     protected void run(StructuredGraph graph) {
         if (graph.hasLoops()) {
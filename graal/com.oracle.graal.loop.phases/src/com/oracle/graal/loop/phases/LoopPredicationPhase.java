@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.DerivedOffsetInductionVariable;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.loop.MathUtil;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.GuardSpeculationReason;
+import com.oracle.graal.nodes.LogicNegationNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.SignExtendNode;
+import com.oracle.graal.nodes.calc.SubNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.extended.BranchProbabilityNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.SpeculationLog;
+
+/**
+ * Hoists floating guards out of loops so that they are checked once in front of the loop instead
+ * of in every iteration.
+ *
+ * <ul>
+ * <li>Guards with a loop invariant condition that are anchored in the loop header are executed
+ * whenever the loop is entered. They are simply re-anchored in front of the loop.</li>
+ * <li>Guards with a loop invariant condition that are anchored in the body of a counted loop, e.g.,
+ * the null checks of arrays accessed in the loop, are replaced by a guard in front of the loop that
+ * only checks the condition if the loop executes at least one iteration.</li>
+ * <li>Bounds checks {@code i |<| length} in the body of a counted loop, where {@code i} is the
+ * counter of the loop, optionally plus or minus a constant, and {@code length} is loop invariant,
+ * are replaced by a guard in front of the loop that checks the first and the last value of
+ * {@code i} against {@code length} if the loop executes at least one iteration.</li>
+ * </ul>
+ *
+ * Guards from the body are only hoisted if they are executed in every iteration of a loop with a
+ * single exit. Since the hoisted guard checks the bounds implied by the loop limit rather than the
+ * values the counter actually takes, it may fail even if the loop would have left early or, for
+ * strides other than one, never reached the limit. Hoisted guards therefore speculate: once a guard
+ * hoisted out of a loop failed, the loop keeps its guards in later compilations.
+ */
+public class LoopPredicationPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugCounter INVARIANT_GUARDS_HOISTED = Debug.counter("LoopPredicationInvariantGuards");
+    private static final DebugCounter BOUNDS_CHECKS_HOISTED = Debug.counter("LoopPredicationBoundsChecks");
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (!graph.hasLoops() || !graph.getGuardsStage().allowsFloatingGuards()) {
+            return;
+        }
+        LoopsData data = new LoopsData(graph);
+        for (LoopEx loop : data.innerFirst()) {
+            hoistHeaderGuards(loop, data.getCFG());
+        }
+
+        /* Hoisting guards may have made loop limits invariant. */
+        data = new LoopsData(graph);
+        data.detectedCountedLoops();
+        boolean loopLimitChecks = context.getOptimisticOptimizations().useLoopLimitChecks();
+        for (LoopEx loop : data.innerFirst()) {
+            if (loop.isCounted() && loop.counted().isExactTripCount() && loop.counted().getStamp().getBits() == 32) {
+                new Predication(loop, data.getCFG()).apply(loopLimitChecks);
+            }
+        }
+        data.deleteUnusedNodes();
+    }
+
+    private static void hoistHeaderGuards(LoopEx loop, ControlFlowGraph cfg) {
+        AbstractBeginNode anchor = AbstractBeginNode.prevBegin(loop.entryPoint());
+        for (GuardNode guard : loop.whole().nodes().filter(GuardNode.class).snapshot()) {
+            Block block = cfg.blockFor(guard.getAnchor().asNode());
+            if (block == loop.loop().getHeader() && loop.isOutsideLoop(guard.getCondition())) {
+                Debug.log("Hoisting %s out of %s", guard, loop);
+                guard.setAnchor(anchor);
+                INVARIANT_GUARDS_HOISTED.increment();
+            }
+        }
+        loop.invalidateFragments();
+    }
+
+    /**
+     * Replaces the guards in the body of one counted loop.
+     */
+    private static final class Predication {
+
+        private final LoopEx loop;
+        private final ControlFlowGraph cfg;
+        private final CountedLoopInfo counted;
+        private final StructuredGraph graph;
+        private final AbstractBeginNode anchor;
+        private final Map<DeoptimizationReason, JavaConstant> speculations = new EnumMap<>(DeoptimizationReason.class);
+        private LogicNode entered;
+
+        Predication(LoopEx loop, ControlFlowGraph cfg) {
+            this.loop = loop;
+            this.cfg = cfg;
+            this.counted = loop.counted();
+            this.graph = loop.loopBegin().graph();
+            this.anchor = AbstractBeginNode.prevBegin(loop.entryPoint());
+        }
+
+        void apply(boolean loopLimitChecks) {
+            List<GuardNode> boundsChecks = new ArrayList<>();
+            for (GuardNode guard : loop.whole().nodes().filter(GuardNode.class).snapshot()) {
+                if (!isExecutedInEveryIteration(guard)) {
+                    continue;
+                }
+                if (loop.isOutsideLoop(guard.getCondition())) {
+                    LogicNode condition = guard.getCondition();
+                    if (replace(guard, guard.isNegated() ? not(condition) : condition)) {
+                        INVARIANT_GUARDS_HOISTED.increment();
+                    }
+                } else if (loopLimitChecks && guard.getCondition() instanceof IntegerBelowNode && !guard.isNegated()) {
+                    boundsChecks.add(guard);
+                }
+            }
+            if (boundsChecks.isEmpty()) {
+                return;
+            }
+
+            /* The hoisted null checks may have made array lengths loop invariant. */
+            loop.invalidateFragments();
+            for (GuardNode guard : boundsChecks) {
+                IntegerBelowNode below = (IntegerBelowNode) guard.getCondition();
+                if (!loop.isOutsideLoop(below.getY())) {
+                    continue;
+                }
+                Long offset = counterOffset(below.getX());
+                if (offset == null || speculation(guard.getReason()) == null) {
+                    continue;
+                }
+                if (replace(guard, inBounds(offset, below.getY()))) {
+                    BOUNDS_CHECKS_HOISTED.increment();
+                }
+            }
+        }
+
+        /**
+         * Determines if {@code guard} is anchored in the body of the loop such that it is executed
+         * in every iteration, i.e., for every value of the counter between its initial value and
+         * the loop limit.
+         */
+        private boolean isExecutedInEveryIteration(GuardNode guard) {
+            Block block = cfg.blockFor(guard.getAnchor().asNode());
+            if (block == null || block.getLoop() != loop.loop() || !AbstractControlFlowGraph.dominates(cfg.blockFor(counted.getBody()), block)) {
+                return false;
+            }
+            for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
+                if (!AbstractControlFlowGraph.dominates(block, cfg.blockFor(loopEnd))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets the constant {@code c} if {@code index} is {@code counter + c}.
+         *
+         * @return {@code null} if {@code index} is not of this form
+         */
+        private Long counterOffset(ValueNode index) {
+            InductionVariable iv = loop.getInductionVariables().get(index);
+            if (iv == counted.getCounter()) {
+                return 0L;
+            }
+            if (iv instanceof DerivedOffsetInductionVariable) {
+                DerivedOffsetInductionVariable derived = (DerivedOffsetInductionVariable) iv;
+                ValueNode offset = derived.getOffset();
+                if (derived.getBase() == counted.getCounter() && offset.isConstant()) {
+                    long c = offset.asJavaConstant().asLong();
+                    if (index instanceof AddNode) {
+                        return c;
+                    } else if (index instanceof SubNode && ((SubNode) index).getX() == counted.getCounter().valueNode()) {
+                        return -c;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Creates the condition that {@code counter + offset} is within {@code [0, length)} in all
+         * iterations. The initial value and the limit of the counter are compared against the
+         * bounds using 64 bit arithmetic so that adding the offset cannot overflow. Comparing the
+         * limit is only sufficient if the counter itself cannot overflow, which is guaranteed by
+         * the {@linkplain CountedLoopInfo#createOverFlowGuard() overflow guard} unless the counter
+         * steps by one towards an exclusive limit.
+         */
+        private LogicNode inBounds(long offset, ValueNode length) {
+            InductionVariable counter = counted.getCounter();
+            if (counted.isLimitIncluded() || !counter.isConstantStride() || Math.abs(counter.constantStride()) != 1) {
+                counted.createOverFlowGuard();
+            }
+            ValueNode first = shift(counted.getStart(), offset);
+            ValueNode limit = shift(counted.getLimit(), offset);
+            ValueNode len = offset == 0 ? length : graph.unique(new SignExtendNode(length, 64));
+            LogicNode firstInBounds;
+            LogicNode lastInBounds;
+            if (counted.getDirection() == Direction.Up) {
+                firstInBounds = not(lessThan(first, constant(0, offset)));
+                lastInBounds = counted.isLimitIncluded() ? lessThan(limit, len) : not(lessThan(len, limit));
+            } else {
+                firstInBounds = lessThan(first, len);
+                lastInBounds = not(lessThan(limit, constant(counted.isLimitIncluded() ? 0 : -1, offset)));
+            }
+            return and(firstInBounds, lastInBounds);
+        }
+
+        private ValueNode shift(ValueNode value, long offset) {
+            if (offset == 0) {
+                return value;
+            }
+            return MathUtil.add(graph, graph.unique(new SignExtendNode(value, 64)), ConstantNode.forLong(offset, graph));
+        }
+
+        private ConstantNode constant(int value, long offset) {
+            return offset == 0 ? ConstantNode.forInt(value, graph) : ConstantNode.forLong(value, graph);
+        }
+
+        private LogicNode lessThan(ValueNode x, ValueNode y) {
+            return graph.unique(new IntegerLessThanNode(x, y));
+        }
+
+        private LogicNode not(LogicNode x) {
+            return graph.unique(new LogicNegationNode(x));
+        }
+
+        private static LogicNode and(LogicNode x, LogicNode y) {
+            return LogicNode.and(x, y, BranchProbabilityNode.VERY_SLOW_PATH_PROBABILITY);
+        }
+
+        /**
+         * Gets the condition that the loop executes at least one iteration.
+         */
+        private LogicNode entered() {
+            if (entered == null) {
+                ValueNode start = counted.getStart();
+                ValueNode limit = counted.getLimit();
+                if (counted.getDirection() == Direction.Up) {
+                    entered = counted.isLimitIncluded() ? not(lessThan(limit, start)) : lessThan(start, limit);
+                } else {
+                    entered = counted.isLimitIncluded() ? not(lessThan(start, limit)) : lessThan(limit, start);
+                }
+            }
+            return entered;
+        }
+
+        /**
+         * Replaces {@code guard} by a guard in front of the loop that deoptimizes unless
+         * {@code condition} holds or the loop does not execute at all.
+         */
+        private boolean replace(GuardNode guard, LogicNode condition) {
+            JavaConstant speculation = speculation(guard.getReason());
+            if (speculation == null) {
+                return false;
+            }
+            Debug.log("Hoisting %s out of %s", guard, loop);
+            LogicNode passes = graph.unique(new ShortCircuitOrNode(entered(), true, condition, false, BranchProbabilityNode.NOT_FREQUENT_PROBABILITY));
+            GuardNode hoisted = graph.unique(new GuardNode(passes, anchor, guard.getReason(), DeoptimizationAction.InvalidateRecompile, false, speculation));
+            guard.replaceAtUsages(hoisted);
+            GraphUtil.killWithUnusedFloatingInputs(guard);
+            return true;
+        }
+
+        /**
+         * Gets the speculation for hoisting guards of the given reason out of this loop.
+         *
+         * @return {@code null} if hoisting guards of this reason out of this loop failed before
+         */
+        private JavaConstant speculation(DeoptimizationReason reason) {
+            if (speculations.containsKey(reason)) {
+                return speculations.get(reason);
+            }
+            JavaConstant speculation = JavaConstant.NULL_POINTER;
+            SpeculationLog speculationLog = graph.getSpeculationLog();
+            if (speculationLog != null) {
+                GuardSpeculationReason speculationReason = GuardSpeculationReason.create(loop.loopBegin(), reason);
+                if (speculationReason == null || !speculationLog.maySpeculate(speculationReason)) {
+                    speculation = null;
+                } else {
+                    speculation = speculationLog.speculate(speculationReason);
+                }
+            } else {
+                ResolvedJavaMethod method = graph.method();
+                if (method != null && method.getProfilingInfo().getDeoptimizationCount(reason) >= GraalOptions.DeoptsToDisableOptimisticOptimization.getValue()) {
+                    speculation = null;
+                }
+            }
+            speculations.put(reason, speculation);
+            return speculation;
+        }
+    }
+}
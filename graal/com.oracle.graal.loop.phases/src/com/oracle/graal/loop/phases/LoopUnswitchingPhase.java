@@ -44,6 +44,11 @@ public class LoopUnswitchingPhase extends ContextlessLoopPhase<LoopPolicies> {
         super(policies);
     }
 
+    @Override
+    public boolean isOptional() {
+        return true;
+    }
+
     @Override
     protected void run(StructuredGraph graph) {
         if (graph.hasLoops()) {
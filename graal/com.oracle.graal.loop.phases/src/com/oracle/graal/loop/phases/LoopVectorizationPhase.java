@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.compiler.common.calc.VectorOperation;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.AbstractEndNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.GuardSpeculationReason;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.LoopExitNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.ProxyNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.ValueProxyNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.AndNode;
+import com.oracle.graal.nodes.calc.BinaryNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.IsNullNode;
+import com.oracle.graal.nodes.calc.MulNode;
+import com.oracle.graal.nodes.calc.OrNode;
+import com.oracle.graal.nodes.calc.SubNode;
+import com.oracle.graal.nodes.calc.XorNode;
+import com.oracle.graal.nodes.extended.VectorizedArrayLoopNode;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.nodes.java.LoadIndexedNode;
+import com.oracle.graal.nodes.java.StoreIndexedNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.SpeculationLog;
+
+/**
+ * Replaces simple counted loops over primitive arrays by a {@link VectorizedArrayLoopNode}, which
+ * the backend emits with SIMD instructions. A loop is vectorized if its induction variable
+ * {@code i} counts up by one from {@code start} to an exclusive, loop invariant {@code end} and
+ * its body is exactly one of the following patterns over int, long, float or double arrays:
+ *
+ * <ul>
+ * <li>{@code dst[i] = value} with a loop invariant {@code value}</li>
+ * <li>{@code dst[i] = x[i]}</li>
+ * <li>{@code dst[i] = x[i] op y[i]} for the operations {@linkplain VectorOperation#supports
+ * supported} by the element kind</li>
+ * <li>{@code acc = acc op x[i]} for the {@linkplain VectorOperation#supportsReduction associative}
+ * operations on int and long arrays</li>
+ * </ul>
+ *
+ * All arrays are indexed with {@code i} itself, so the iterations are independent even if the
+ * arrays alias. The null and bounds checks of the loop body are replaced by guards in front of the
+ * loop that require each array to be non-null, {@code 0 <= start} and {@code end <= length}. These
+ * guards may also fail for a loop that would not execute at all, which is why they speculate: once
+ * one of them failed, the loop is not vectorized again.
+ *
+ * This phase is only part of the suites of backends that implement
+ * {@code LIRGeneratorTool#emitVectorizedArrayOp} and {@code LIRGeneratorTool#emitVectorizedReduction}.
+ */
+public class LoopVectorizationPhase extends BasePhase<PhaseContext> {
+
+    public static class Options {
+
+        // @formatter:off
+        @Option(help = "Replace simple counted loops over primitive arrays by SIMD code.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> VectorizeLoops = new OptionValue<>(false);
+        // @formatter:on
+    }
+
+    private static final DebugCounter VECTORIZED_LOOPS = Debug.counter("VectorizedLoops");
+
+    @Override
+    public boolean isOptional() {
+        return true;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, PhaseContext context) {
+        if (!graph.hasLoops()) {
+            return;
+        }
+        boolean vectorized;
+        do {
+            vectorized = false;
+            LoopsData data = new LoopsData(graph);
+            data.detectedCountedLoops();
+            for (LoopEx loop : data.countedLoops()) {
+                if (!loop.loop().getChildren().isEmpty()) {
+                    continue;
+                }
+                Pattern pattern = match(loop);
+                if (pattern != null && vectorize(loop, pattern)) {
+                    VECTORIZED_LOOPS.increment();
+                    Debug.dump(Debug.INFO_LOG_LEVEL, graph, "Vectorized %s", loop);
+                    /* The loop data is stale now. */
+                    vectorized = true;
+                    break;
+                }
+            }
+        } while (vectorized);
+    }
+
+    /**
+     * The computation of a loop that can be replaced by a {@link VectorizedArrayLoopNode}.
+     */
+    private static final class Pattern {
+        final VectorOperation op;
+        final JavaKind kind;
+        final ValueNode dst;
+        final ValueNode x;
+        final ValueNode y;
+        /** The fill value or the initial value of the reduction. */
+        final ValueNode value;
+        /** The accumulator of a reduction, {@code null} otherwise. */
+        final ValuePhiNode accumulator;
+
+        Pattern(VectorOperation op, JavaKind kind, ValueNode dst, ValueNode x, ValueNode y, ValueNode value, ValuePhiNode accumulator) {
+            this.op = op;
+            this.kind = kind;
+            this.dst = dst;
+            this.x = x;
+            this.y = y;
+            this.value = value;
+            this.accumulator = accumulator;
+        }
+
+        List<ValueNode> arrays() {
+            List<ValueNode> arrays = new ArrayList<>(3);
+            for (ValueNode array : new ValueNode[]{dst, x, y}) {
+                if (array != null && !arrays.contains(array)) {
+                    arrays.add(array);
+                }
+            }
+            return arrays;
+        }
+    }
+
+    private static Pattern match(LoopEx loop) {
+        LoopBeginNode begin = loop.loopBegin();
+        if (begin.loopEnds().count() != 1 || begin.loopExits().count() != 1 || begin.stateAfter() == null) {
+            return null;
+        }
+        CountedLoopInfo counted = loop.counted();
+        InductionVariable counter = counted.getCounter();
+        if (counted.getDirection() != Direction.Up || counted.isLimitIncluded() || !(counter instanceof BasicInductionVariable) || !counter.isConstantStride() || counter.constantStride() != 1 ||
+                        counted.getStamp().getBits() != 32) {
+            return null;
+        }
+        ValuePhiNode iv = ((BasicInductionVariable) counter).valueNode();
+        LoopExitNode exit = begin.loopExits().first();
+        if (!(begin.next() instanceof IfNode) || exit.stateAfter() == null) {
+            return null;
+        }
+        IfNode ifNode = (IfNode) begin.next();
+        AbstractBeginNode body = counted.getBody();
+        if (!(ifNode.trueSuccessor() == body && ifNode.falseSuccessor() == exit) && !(ifNode.falseSuccessor() == body && ifNode.trueSuccessor() == exit)) {
+            return null;
+        }
+
+        /* The body may only consist of array accesses at index i. */
+        LoopEndNode loopEnd = begin.loopEnds().first();
+        List<LoadIndexedNode> loads = new ArrayList<>(2);
+        StoreIndexedNode store = null;
+        for (FixedNode current = body.next(); current != loopEnd; current = ((FixedWithNextNode) current).next()) {
+            if (current instanceof LoadIndexedNode && loads.size() < 2) {
+                loads.add((LoadIndexedNode) current);
+            } else if (current instanceof StoreIndexedNode && store == null) {
+                store = (StoreIndexedNode) current;
+            } else {
+                return null;
+            }
+        }
+        for (LoadIndexedNode load : loads) {
+            if (load.index() != iv || !loop.isOutsideLoop(load.array())) {
+                return null;
+            }
+        }
+
+        Pattern pattern;
+        if (store != null) {
+            if (store.index() != iv || !loop.isOutsideLoop(store.array())) {
+                return null;
+            }
+            pattern = matchStore(loop, store, loads);
+        } else {
+            pattern = matchReduction(begin, iv, loopEnd, loads);
+        }
+        if (pattern == null) {
+            return null;
+        }
+
+        /* Only the counter and the accumulator may be used after the loop. */
+        for (ProxyNode proxy : exit.proxies()) {
+            if (!(proxy instanceof ValueProxyNode) || (proxy.value() != iv && (pattern.accumulator == null || proxy.value() != pattern.accumulator))) {
+                return null;
+            }
+        }
+        return pattern;
+    }
+
+    private static Pattern matchStore(LoopEx loop, StoreIndexedNode store, List<LoadIndexedNode> loads) {
+        JavaKind kind = store.elementKind();
+        ValueNode value = store.value();
+        if (loads.isEmpty() && loop.isOutsideLoop(value)) {
+            if (!VectorOperation.FILL.supports(kind)) {
+                return null;
+            }
+            return new Pattern(VectorOperation.FILL, kind, store.array(), null, null, value, null);
+        }
+        if (loads.size() == 1 && value == loads.get(0)) {
+            if (!VectorOperation.COPY.supports(kind) || loads.get(0).elementKind() != kind) {
+                return null;
+            }
+            return new Pattern(VectorOperation.COPY, kind, store.array(), loads.get(0).array(), null, null, null);
+        }
+        VectorOperation op = operationOf(value);
+        if (op == null || !op.supports(kind)) {
+            return null;
+        }
+        BinaryNode binary = (BinaryNode) value;
+        if (!loads.contains(binary.getX()) || !loads.contains(binary.getY()) || (binary.getX() == binary.getY() && loads.size() != 1)) {
+            return null;
+        }
+        LoadIndexedNode x = (LoadIndexedNode) binary.getX();
+        LoadIndexedNode y = (LoadIndexedNode) binary.getY();
+        if (x.elementKind() != kind || y.elementKind() != kind) {
+            return null;
+        }
+        return new Pattern(op, kind, store.array(), x.array(), y.array(), null, null);
+    }
+
+    private static Pattern matchReduction(LoopBeginNode begin, ValuePhiNode iv, LoopEndNode loopEnd, List<LoadIndexedNode> loads) {
+        if (loads.size() != 1) {
+            return null;
+        }
+        LoadIndexedNode load = loads.get(0);
+        JavaKind kind = load.elementKind();
+        for (PhiNode phi : begin.phis()) {
+            if (phi == iv || !(phi instanceof ValuePhiNode)) {
+                continue;
+            }
+            ValueNode next = phi.valueAt(loopEnd);
+            VectorOperation op = operationOf(next);
+            if (op == null || !op.supportsReduction(kind) || phi.getStackKind() != kind) {
+                continue;
+            }
+            BinaryNode binary = (BinaryNode) next;
+            if ((binary.getX() == phi && binary.getY() == load) || (binary.getX() == load && binary.getY() == phi)) {
+                return new Pattern(op, kind, null, load.array(), null, phi.valueAt(begin.forwardEnd()), (ValuePhiNode) phi);
+            }
+        }
+        return null;
+    }
+
+    private static VectorOperation operationOf(ValueNode node) {
+        if (node instanceof AddNode) {
+            return VectorOperation.ADD;
+        } else if (node instanceof SubNode) {
+            return VectorOperation.SUB;
+        } else if (node instanceof MulNode) {
+            return VectorOperation.MUL;
+        } else if (node instanceof AndNode) {
+            return VectorOperation.AND;
+        } else if (node instanceof OrNode) {
+            return VectorOperation.OR;
+        } else if (node instanceof XorNode) {
+            return VectorOperation.XOR;
+        }
+        return null;
+    }
+
+    private static boolean vectorize(LoopEx loop, Pattern pattern) {
+        LoopBeginNode begin = loop.loopBegin();
+        StructuredGraph graph = begin.graph();
+        JavaConstant speculation = JavaConstant.NULL_POINTER;
+        SpeculationLog speculationLog = graph.getSpeculationLog();
+        if (speculationLog != null) {
+            GuardSpeculationReason reason = GuardSpeculationReason.create(begin, DeoptimizationReason.BoundsCheckException);
+            if (reason == null || !speculationLog.maySpeculate(reason)) {
+                return false;
+            }
+            speculation = speculationLog.speculate(reason);
+        } else {
+            ResolvedJavaMethod method = graph.method();
+            if (method != null && method.getProfilingInfo().getDeoptimizationCount(DeoptimizationReason.BoundsCheckException) >= GraalOptions.DeoptsToDisableOptimisticOptimization.getValue()) {
+                return false;
+            }
+        }
+        Debug.log("Vectorizing %s as %s of %s", loop, pattern.op, pattern.kind);
+
+        CountedLoopInfo counted = loop.counted();
+        ValueNode start = counted.getStart();
+        ValueNode end = counted.getLimit();
+        ValuePhiNode iv = ((BasicInductionVariable) counted.getCounter()).valueNode();
+        LoopExitNode exit = begin.loopExits().first();
+        AbstractEndNode forwardEnd = begin.forwardEnd();
+        FixedWithNextNode predecessor = (FixedWithNextNode) forwardEnd.predecessor();
+
+        /* Guard the accesses of all iterations in front of the loop. */
+        List<FixedWithNextNode> replacement = new ArrayList<>();
+        ConstantNode zero = ConstantNode.forInt(0, graph);
+        replacement.add(createGuard(graph, graph.unique(new IntegerLessThanNode(start, zero)), speculation));
+        for (ValueNode array : pattern.arrays()) {
+            replacement.add(createGuard(graph, graph.unique(new IsNullNode(array)), speculation));
+            ArrayLengthNode length = graph.add(new ArrayLengthNode(array));
+            replacement.add(length);
+            replacement.add(createGuard(graph, graph.unique(new IntegerLessThanNode(length, end)), speculation));
+        }
+        VectorizedArrayLoopNode vectorLoop;
+        if (pattern.accumulator != null) {
+            vectorLoop = VectorizedArrayLoopNode.createReduction(pattern.op, pattern.kind, pattern.x, pattern.value, start, end);
+        } else if (pattern.op == VectorOperation.FILL) {
+            vectorLoop = VectorizedArrayLoopNode.createFill(pattern.kind, pattern.dst, pattern.value, start, end);
+        } else {
+            vectorLoop = VectorizedArrayLoopNode.createElementwise(pattern.op, pattern.kind, pattern.dst, pattern.x, pattern.y, start, end);
+        }
+        vectorLoop = graph.add(vectorLoop);
+        replacement.add(vectorLoop);
+
+        /* Replace the values leaving the loop. */
+        ValueNode exitValue = graph.unique(new ConditionalNode(graph.unique(new IntegerLessThanNode(start, end)), end, start));
+        for (ProxyNode proxy : exit.proxies().snapshot()) {
+            proxy.replaceAtUsagesAndDelete(proxy.value() == iv ? exitValue : vectorLoop);
+        }
+        FrameState stateAfter = exit.stateAfter();
+        vectorLoop.setStateAfter(stateAfter);
+
+        /* Link the replacement into the control flow and delete the loop. */
+        FixedNode next = exit.next();
+        exit.setNext(null);
+        FixedWithNextNode last = predecessor;
+        for (FixedWithNextNode node : replacement) {
+            last.setNext(node);
+            last = node;
+        }
+        last.setNext(next);
+        GraphUtil.killCFG(forwardEnd);
+        return true;
+    }
+
+    private static FixedGuardNode createGuard(StructuredGraph graph, LogicNode condition, JavaConstant speculation) {
+        return graph.add(new FixedGuardNode(condition, DeoptimizationReason.BoundsCheckException, DeoptimizationAction.InvalidateRecompile, speculation, true));
+    }
+}
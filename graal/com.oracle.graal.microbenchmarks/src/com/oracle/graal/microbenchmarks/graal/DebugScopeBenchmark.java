@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import static com.oracle.graal.microbenchmarks.graal.GraalBenchmark.Defaults.FORKS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+
+/**
+ * Measures the cost of entering and exiting a {@link Debug#scope(Object) debug scope} and of
+ * checking if logging is enabled, both with the debug facility disabled and with it enabled (by
+ * enabling assertions in the debug package).
+ */
+public class DebugScopeBenchmark extends GraalBenchmark {
+
+    private static final String ENABLE_DEBUG = "-ea:com.oracle.graal.debug...";
+
+    @SuppressWarnings("try")
+    private static void enterExit(Blackhole bh) {
+        try (Scope s = Debug.scope("DebugScopeBenchmark")) {
+            bh.consume(s);
+        }
+    }
+
+    @Benchmark
+    public void scopeDisabled(Blackhole bh) {
+        enterExit(bh);
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = ENABLE_DEBUG)
+    public void scopeEnabled(Blackhole bh) {
+        enterExit(bh);
+    }
+
+    @Benchmark
+    public boolean isLogEnabledDisabled() {
+        return Debug.isLogEnabled();
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = ENABLE_DEBUG)
+    public boolean isLogEnabledEnabled() {
+        return Debug.isLogEnabled();
+    }
+}
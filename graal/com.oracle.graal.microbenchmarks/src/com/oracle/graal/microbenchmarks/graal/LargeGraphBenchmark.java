@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.compiler.common.type.StampPair;
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.microbenchmarks.graal.util.GraalState;
+import com.oracle.graal.nodes.ParameterNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Benchmarks the node storage of {@link Graph} with graphs of the size produced by partial
+ * evaluation of large Truffle ASTs.
+ */
+public class LargeGraphBenchmark extends GraalBenchmark {
+
+    private static final int NODE_COUNT = 200_000;
+
+    private static StructuredGraph createGraph(int nodeCount) {
+        StructuredGraph graph = new StructuredGraph(AllowAssumptions.NO);
+        ValueNode parameter = graph.addWithoutUnique(new ParameterNode(0, StampPair.createSingle(StampFactory.forKind(JavaKind.Int))));
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addWithoutUnique(new AddNode(parameter, parameter));
+        }
+        return graph;
+    }
+
+    /**
+     * A large graph in which 15 of 16 nodes were deleted.
+     */
+    @State(Scope.Benchmark)
+    public static class SparseGraph {
+        StructuredGraph graph;
+
+        @Setup
+        public void setup(@SuppressWarnings("unused") GraalState g) {
+            graph = createGraph(NODE_COUNT);
+            int index = 0;
+            for (AddNode node : graph.getNodes().filter(AddNode.class).snapshot()) {
+                if (index++ % 16 != 0) {
+                    node.safeDelete();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public StructuredGraph grow(@SuppressWarnings("unused") GraalState g) {
+        return createGraph(NODE_COUNT);
+    }
+
+    @Benchmark
+    public void iterateSparse(SparseGraph s, Blackhole bh) {
+        for (Node node : s.graph.getNodes()) {
+            bh.consume(node);
+        }
+    }
+
+    @Benchmark
+    public StructuredGraph copySparse(SparseGraph s) {
+        return (StructuredGraph) s.graph.copy();
+    }
+}
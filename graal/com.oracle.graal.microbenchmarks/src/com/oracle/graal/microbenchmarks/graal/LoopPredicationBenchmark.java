@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import static com.oracle.graal.microbenchmarks.graal.GraalBenchmark.Defaults.FORKS;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks loops whose null and bounds checks are hoisted if {@code LoopPredicationPhase} is
+ * enabled. Each kernel is measured once with the default options and once with the phase enabled.
+ */
+public class LoopPredicationBenchmark extends GraalBenchmark {
+
+    private static final String PREDICATE = "-Dgraal.LoopPredication=true";
+
+    private static final int LENGTH = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class ThreadState {
+        int[] ints = randomInts(LENGTH);
+        int[] intsResult = new int[LENGTH];
+        int from = 1;
+        int to = LENGTH - 1;
+
+        static int[] randomInts(int len) {
+            int[] data = new int[len];
+            Random r = new Random(17);
+            for (int i = 0; i < data.length; i++) {
+                data[i] = r.nextInt();
+            }
+            return data;
+        }
+    }
+
+    private static long sumRange(int[] a, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    private static int[] smooth(int[] a, int[] result, int from, int to) {
+        for (int i = from; i < to; i++) {
+            result[i] = (a[i - 1] + a[i] + a[i + 1]) / 3;
+        }
+        return result;
+    }
+
+    private static int reverseMax(int[] a, int from) {
+        int max = Integer.MIN_VALUE;
+        for (int i = from; i >= 0; i--) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+
+    @Benchmark
+    public long sumRange(ThreadState state) {
+        return sumRange(state.ints, state.from, state.to);
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = PREDICATE)
+    public long sumRangePredicated(ThreadState state) {
+        return sumRange(state.ints, state.from, state.to);
+    }
+
+    @Benchmark
+    public int[] smooth(ThreadState state) {
+        return smooth(state.ints, state.intsResult, state.from, state.to);
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = PREDICATE)
+    public int[] smoothPredicated(ThreadState state) {
+        return smooth(state.ints, state.intsResult, state.from, state.to);
+    }
+
+    @Benchmark
+    public int reverseMax(ThreadState state) {
+        return reverseMax(state.ints, state.to);
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = PREDICATE)
+    public int reverseMaxPredicated(ThreadState state) {
+        return reverseMax(state.ints, state.to);
+    }
+}
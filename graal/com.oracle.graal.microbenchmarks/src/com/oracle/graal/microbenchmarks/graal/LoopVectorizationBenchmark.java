@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import static com.oracle.graal.microbenchmarks.graal.GraalBenchmark.Defaults.FORKS;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks loops that are replaced by SIMD code if {@code LoopVectorizationPhase} is enabled.
+ * Each kernel is measured once with the default options and once with the phase enabled.
+ */
+public class LoopVectorizationBenchmark extends GraalBenchmark {
+
+    private static final String VECTORIZE = "-Dgraal.VectorizeLoops=true";
+
+    private static final int LENGTH = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class ThreadState {
+        int[] intsA = randomInts(LENGTH);
+        int[] intsB = randomInts(LENGTH);
+        int[] intsResult = new int[LENGTH];
+        double[] doublesA = randomDoubles(LENGTH);
+        double[] doublesB = randomDoubles(LENGTH);
+        double[] doublesResult = new double[LENGTH];
+        long[] longsResult = new long[LENGTH];
+
+        static int[] randomInts(int len) {
+            int[] data = new int[len];
+            Random r = new Random(17);
+            for (int i = 0; i < data.length; i++) {
+                data[i] = r.nextInt();
+            }
+            return data;
+        }
+
+        static double[] randomDoubles(int len) {
+            double[] data = new double[len];
+            Random r = new Random(17);
+            for (int i = 0; i < data.length; i++) {
+                data[i] = r.nextDouble();
+            }
+            return data;
+        }
+    }
+
+    private static int[] intAdd(int[] a, int[] b, int[] result) {
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a[i] + b[i];
+        }
+        return result;
+    }
+
+    private static double[] doubleMul(double[] a, double[] b, double[] result) {
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a[i] * b[i];
+        }
+        return result;
+    }
+
+    private static long[] longFill(long[] result, long value) {
+        for (int i = 0; i < result.length; i++) {
+            result[i] = value;
+        }
+        return result;
+    }
+
+    private static int intSum(int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] intAdd(ThreadState state) {
+        return intAdd(state.intsA, state.intsB, state.intsResult);
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = VECTORIZE)
+    public int[] intAddVectorized(ThreadState state) {
+        return intAdd(state.intsA, state.intsB, state.intsResult);
+    }
+
+    @Benchmark
+    public double[] doubleMul(ThreadState state) {
+        return doubleMul(state.doublesA, state.doublesB, state.doublesResult);
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = VECTORIZE)
+    public double[] doubleMulVectorized(ThreadState state) {
+        return doubleMul(state.doublesA, state.doublesB, state.doublesResult);
+    }
+
+    @Benchmark
+    public long[] longFill(ThreadState state) {
+        return longFill(state.longsResult, 42L);
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = VECTORIZE)
+    public long[] longFillVectorized(ThreadState state) {
+        return longFill(state.longsResult, 42L);
+    }
+
+    @Benchmark
+    public int intSum(ThreadState state) {
+        return intSum(state.intsA);
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = VECTORIZE)
+    public int intSumVectorized(ThreadState state) {
+        return intSum(state.intsA);
+    }
+}
@@ -23,10 +23,12 @@
 package com.oracle.graal.microbenchmarks.lir;
 
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openjdk.jmh.annotations.Benchmark;
 
 import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.lir.alloc.trace.TraceRegisterAllocationPhase;
 import com.oracle.graal.lir.gen.LIRGenerationResult;
 import com.oracle.graal.lir.phases.LIRSuites;
 import com.oracle.graal.microbenchmarks.graal.GraalBenchmark;
@@ -65,6 +67,27 @@ public class RegisterAllocationTimeBenchmark extends GraalBenchmark {
         return s.compile();
     }
 
+    @MethodSpec(declaringClass = ConcurrentHashMap.class, name = "putVal")
+    public static class LSRA_ConcurrentHashMapPutVal extends LSRA_Allocation {
+    }
+
+    @Benchmark
+    public LIRGenerationResult lsra_CONCURRENTHASHMAP_putVal(LSRA_ConcurrentHashMapPutVal s) {
+        return s.compile();
+    }
+
+    @MethodSpec(declaringClass = RegisterAllocationTimeBenchmark.class, name = "manyLiveValuesSnippet")
+    public static class LSRA_ManyLiveValues extends LSRA_Allocation {
+    }
+
+    /**
+     * Allocation with many intervals that are live across calls and thus split into many ranges.
+     */
+    @Benchmark
+    public LIRGenerationResult lsra_MANY_LIVE_VALUES(LSRA_ManyLiveValues s) {
+        return s.compile();
+    }
+
     public static class TraceRA_Allocation extends GraalCompilerState.AllocationStage {
         @SuppressWarnings("try")
         @Override
@@ -92,5 +115,89 @@ public class RegisterAllocationTimeBenchmark extends GraalBenchmark {
     public LIRGenerationResult tracera_HASHMAP_computeIfAbsent(TraceRA_HashMapComputeIfAbsent s) {
         return s.compile();
     }
+
+    @MethodSpec(declaringClass = ConcurrentHashMap.class, name = "putVal")
+    public static class TraceRA_ConcurrentHashMapPutVal extends TraceRA_Allocation {
+    }
+
+    @MethodSpec(declaringClass = RegisterAllocationTimeBenchmark.class, name = "manyLiveValuesSnippet")
+    public static class TraceRA_ManyLiveValues extends TraceRA_Allocation {
+    }
+
+    @Benchmark
+    public LIRGenerationResult tracera_CONCURRENTHASHMAP_putVal(TraceRA_ConcurrentHashMapPutVal s) {
+        return s.compile();
+    }
+
+    @Benchmark
+    public LIRGenerationResult tracera_MANY_LIVE_VALUES(TraceRA_ManyLiveValues s) {
+        return s.compile();
+    }
+
+    /**
+     * Trace register allocation with the lifetime analysis of traces running in parallel.
+     */
+    public static class TraceRA_ParallelAllocation extends TraceRA_Allocation {
+        @SuppressWarnings("try")
+        @Override
+        public LIRGenerationResult compile() {
+            try (OverrideScope os = OptionValue.override(TraceRegisterAllocationPhase.Options.TraceRAParallel, true)) {
+                return super.compile();
+            }
+        }
+    }
+
+    @MethodSpec(declaringClass = HashMap.class, name = "computeIfAbsent")
+    public static class TraceRA_Parallel_HashMapComputeIfAbsent extends TraceRA_ParallelAllocation {
+    }
+
+    @MethodSpec(declaringClass = ConcurrentHashMap.class, name = "putVal")
+    public static class TraceRA_Parallel_ConcurrentHashMapPutVal extends TraceRA_ParallelAllocation {
+    }
+
+    @MethodSpec(declaringClass = RegisterAllocationTimeBenchmark.class, name = "manyLiveValuesSnippet")
+    public static class TraceRA_Parallel_ManyLiveValues extends TraceRA_ParallelAllocation {
+    }
+
+    @Benchmark
+    public LIRGenerationResult tracera_parallel_HASHMAP_computeIfAbsent(TraceRA_Parallel_HashMapComputeIfAbsent s) {
+        return s.compile();
+    }
+
+    @Benchmark
+    public LIRGenerationResult tracera_parallel_CONCURRENTHASHMAP_putVal(TraceRA_Parallel_ConcurrentHashMapPutVal s) {
+        return s.compile();
+    }
+
+    @Benchmark
+    public LIRGenerationResult tracera_parallel_MANY_LIVE_VALUES(TraceRA_Parallel_ManyLiveValues s) {
+        return s.compile();
+    }
     // Checkstyle: resume method name check
+
+    public static int manyLiveValuesSnippet(int[] a) {
+        int s0 = a[0];
+        int s1 = a[1];
+        int s2 = a[2];
+        int s3 = a[3];
+        int s4 = a[4];
+        int s5 = a[5];
+        int s6 = a[6];
+        int s7 = a[7];
+        for (int i = 8; i < a.length; i++) {
+            s0 += a[i] * s1;
+            s1 ^= s2 + i;
+            if (a[i] == 0) {
+                s2 = Integer.reverse(s3 + s4);
+            }
+            s3 -= s5 >>> 3;
+            s4 = Integer.rotateLeft(s4, s6);
+            if (a[i] < s7) {
+                s5 = String.valueOf(s0).hashCode();
+            }
+            s6 += s7 ^ s0;
+            s7 = s7 * 31 + s2;
+        }
+        return s0 + s1 + s2 + s3 + s4 + s5 + s6 + s7;
+    }
 }
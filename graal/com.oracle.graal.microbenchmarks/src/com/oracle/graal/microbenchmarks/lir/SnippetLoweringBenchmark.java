@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.lir;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.oracle.graal.microbenchmarks.graal.GraalBenchmark;
+import com.oracle.graal.nodes.StructuredGraph;
+
+/**
+ * Runs the front end, and thereby snippet lowering, concurrently in several threads. The methods
+ * allocate objects, perform type checks and use monitors so that they are lowered with templates
+ * from the shared snippet template caches.
+ */
+public class SnippetLoweringBenchmark extends GraalBenchmark {
+
+    public static class FrontEndState extends GraalCompilerState.FrontEndOnly {
+        @MethodDescString @Param({
+                        "java.util.HashMap#computeIfAbsent",
+                        "java.util.Hashtable#put",
+                        "java.lang.StringBuilder#toString"
+        }) public String method;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public StructuredGraph frontend1Thread(FrontEndState s) {
+        return s.compile();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public StructuredGraph frontend8Threads(FrontEndState s) {
+        return s.compile();
+    }
+}
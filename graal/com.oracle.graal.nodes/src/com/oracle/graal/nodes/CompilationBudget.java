@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes;
+
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.debug.Debug;
+
+/**
+ * Limits the time and the graph size a compilation may use before it gives up on optional
+ * optimizations. Once a compilation exceeds its budget, phase suites skip all phases that only
+ * improve the quality of the generated code for the rest of the compilation. This degrades the
+ * generated code instead of bailing out of the compilation.
+ */
+public final class CompilationBudget {
+
+    private final long start;
+    private final long timeLimit;
+    private final int nodeLimit;
+    private boolean exhausted;
+    private int skippedPhases;
+
+    /**
+     * Creates a budget starting now.
+     *
+     * @param timeLimitMillis the time in milliseconds after which the budget is exhausted or 0 for
+     *            no time limit
+     * @param nodeLimit the graph size above which the budget is exhausted or 0 for no size limit
+     */
+    public CompilationBudget(long timeLimitMillis, int nodeLimit) {
+        this.start = System.nanoTime();
+        this.timeLimit = TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Creates a budget according to {@link GraalOptions#CompilationTimeBudget} and
+     * {@link GraalOptions#CompilationNodeBudget}.
+     *
+     * @return {@code null} if neither option limits compilations
+     */
+    public static CompilationBudget create() {
+        int timeLimit = GraalOptions.CompilationTimeBudget.getValue();
+        int nodeLimit = GraalOptions.CompilationNodeBudget.getValue();
+        if (timeLimit <= 0 && nodeLimit <= 0) {
+            return null;
+        }
+        return new CompilationBudget(Math.max(timeLimit, 0), Math.max(nodeLimit, 0));
+    }
+
+    /**
+     * Determines if this budget is exhausted by the time spent so far or by the size of
+     * {@code graph}. Once a budget is exhausted, it stays exhausted.
+     */
+    public boolean isExhausted(StructuredGraph graph) {
+        if (!exhausted) {
+            long elapsed = System.nanoTime() - start;
+            if ((timeLimit > 0 && elapsed > timeLimit) || (nodeLimit > 0 && graph.getNodeCount() > nodeLimit)) {
+                exhausted = true;
+                Debug.log("Compilation budget exhausted with %d nodes after %d ms", graph.getNodeCount(), (int) TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+        }
+        return exhausted;
+    }
+
+    /**
+     * Records that an optional phase was skipped because this budget is exhausted.
+     */
+    public void recordSkippedPhase() {
+        assert exhausted;
+        skippedPhases++;
+    }
+
+    /**
+     * Determines if the compilation using this budget skipped any optional phase.
+     */
+    public boolean isDegraded() {
+        return skippedPhases > 0;
+    }
+
+    public int getSkippedPhases() {
+        return skippedPhases;
+    }
+}
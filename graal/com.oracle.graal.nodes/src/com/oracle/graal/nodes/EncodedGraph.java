@@ -45,9 +45,11 @@ public class EncodedGraph {
 
     /**
      * The "table of contents" of the encoded graph, i.e., the mapping from orderId numbers to the
-     * offset in the encoded byte[] array. Used as a cache during decoding.
+     * offset in the encoded byte[] array. Used as a cache during decoding. Encoded graphs can be
+     * decoded by multiple threads at the same time, so the lazily computed array must be safely
+     * published.
      */
-    protected long[] nodeStartOffsets;
+    protected volatile long[] nodeStartOffsets;
 
     public EncodedGraph(byte[] encoding, long startOffset, Object[] objects, NodeClass<?>[] types, Assumptions assumptions, List<ResolvedJavaMethod> inlinedMethods) {
         this.encoding = encoding;
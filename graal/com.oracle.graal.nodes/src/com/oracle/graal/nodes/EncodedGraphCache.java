@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * A thread-safe, size-bounded cache of {@link EncodedGraph}s. A single cache can be shared by
+ * concurrent compilations as long as all of them parse with the same
+ * {@link GraphBuilderConfiguration}. Entries are keyed by the method, whether it is parsed as an
+ * intrinsic and whether assumptions are allowed. Users that parse with varying configurations add
+ * an object describing the configuration to the key, which is compared with
+ * {@link Object#equals(Object)}.
+ * <p>
+ * When the cache grows beyond its capacity, the least recently used entries are evicted. Methods
+ * that are redefined get a new {@link ResolvedJavaMethod} identity and therefore never hit stale
+ * entries; entries that depend on a method that became invalid for other reasons (e.g., because
+ * code installation failed due to invalidated dependencies) can be dropped with
+ * {@link #invalidate(Collection)}.
+ */
+public final class EncodedGraphCache {
+
+    private static final DebugCounter CacheHits = Debug.counter("EncodedGraphCacheHits");
+    private static final DebugCounter CacheMisses = Debug.counter("EncodedGraphCacheMisses");
+    private static final DebugCounter CacheEvictions = Debug.counter("EncodedGraphCacheEvictions");
+    private static final DebugCounter CacheInvalidations = Debug.counter("EncodedGraphCacheInvalidations");
+
+    private static final class Key {
+        private final ResolvedJavaMethod method;
+        private final boolean isIntrinsic;
+        private final AllowAssumptions allowAssumptions;
+        private final Object configuration;
+
+        Key(ResolvedJavaMethod method, boolean isIntrinsic, AllowAssumptions allowAssumptions, Object configuration) {
+            this.method = method;
+            this.isIntrinsic = isIntrinsic;
+            this.allowAssumptions = allowAssumptions;
+            this.configuration = configuration;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = (method.hashCode() * 31 + (isIntrinsic ? 1 : 0)) * 31 + allowAssumptions.ordinal();
+            return configuration == null ? hash : hash * 31 + configuration.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key that = (Key) obj;
+                return this.method.equals(that.method) && this.isIntrinsic == that.isIntrinsic && this.allowAssumptions == that.allowAssumptions &&
+                                Objects.equals(this.configuration, that.configuration);
+            }
+            return false;
+        }
+    }
+
+    private static final class Entry {
+        private final EncodedGraph graph;
+        private volatile long lastAccess;
+
+        Entry(EncodedGraph graph, long lastAccess) {
+            this.graph = graph;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final int capacity;
+    private final ConcurrentHashMap<Key, Entry> entries;
+    private final AtomicLong clock;
+    private final AtomicBoolean evicting;
+
+    /**
+     * Creates a cache holding at most (approximately) {@code capacity} graphs.
+     */
+    public EncodedGraphCache(int capacity) {
+        assert capacity > 0;
+        this.capacity = capacity;
+        this.entries = new ConcurrentHashMap<>();
+        this.clock = new AtomicLong();
+        this.evicting = new AtomicBoolean();
+    }
+
+    /**
+     * Gets the cached graph for {@code method}, or {@code null} if there is none.
+     */
+    public EncodedGraph get(ResolvedJavaMethod method, boolean isIntrinsic, AllowAssumptions allowAssumptions) {
+        return get(method, isIntrinsic, allowAssumptions, null);
+    }
+
+    /**
+     * Gets the cached graph for {@code method} that was parsed with {@code configuration}, or
+     * {@code null} if there is none.
+     */
+    public EncodedGraph get(ResolvedJavaMethod method, boolean isIntrinsic, AllowAssumptions allowAssumptions, Object configuration) {
+        Entry entry = entries.get(new Key(method, isIntrinsic, allowAssumptions, configuration));
+        if (entry == null) {
+            CacheMisses.increment();
+            return null;
+        }
+        CacheHits.increment();
+        entry.lastAccess = clock.incrementAndGet();
+        return entry.graph;
+    }
+
+    /**
+     * Adds {@code graph} as the cached graph for {@code method} unless another thread has added a
+     * graph for the same key in the meantime.
+     *
+     * @return the graph that is in the cache after this call
+     */
+    public EncodedGraph putIfAbsent(ResolvedJavaMethod method, boolean isIntrinsic, AllowAssumptions allowAssumptions, EncodedGraph graph) {
+        return putIfAbsent(method, isIntrinsic, allowAssumptions, null, graph);
+    }
+
+    /**
+     * Adds {@code graph} as the cached graph for {@code method} parsed with {@code configuration}
+     * unless another thread has added a graph for the same key in the meantime.
+     *
+     * @return the graph that is in the cache after this call
+     */
+    public EncodedGraph putIfAbsent(ResolvedJavaMethod method, boolean isIntrinsic, AllowAssumptions allowAssumptions, Object configuration, EncodedGraph graph) {
+        Entry existing = entries.putIfAbsent(new Key(method, isIntrinsic, allowAssumptions, configuration), new Entry(graph, clock.incrementAndGet()));
+        if (existing != null) {
+            return existing.graph;
+        }
+        if (entries.size() > capacity) {
+            evict();
+        }
+        return graph;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is filled to about 3/4 of its
+     * capacity. Only one thread evicts at a time, the others just proceed.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long[] accesses = new long[entries.size()];
+            int count = 0;
+            for (Entry entry : entries.values()) {
+                if (count == accesses.length) {
+                    break;
+                }
+                accesses[count++] = entry.lastAccess;
+            }
+            int toRemove = count - capacity + capacity / 4;
+            if (toRemove <= 0) {
+                return;
+            }
+            Arrays.sort(accesses, 0, count);
+            long threshold = accesses[toRemove - 1];
+            for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+                if (e.getValue().lastAccess <= threshold && entries.remove(e.getKey(), e.getValue())) {
+                    CacheEvictions.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Removes all entries for graphs of any method in {@code methods} as well as all graphs that
+     * have one of these methods inlined.
+     */
+    public void invalidate(Collection<ResolvedJavaMethod> methods) {
+        if (methods.isEmpty()) {
+            return;
+        }
+        Set<ResolvedJavaMethod> invalid = new HashSet<>(methods);
+        for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+            if (invalid.contains(e.getKey().method) || containsAny(e.getValue().graph.getInlinedMethods(), invalid)) {
+                if (entries.remove(e.getKey(), e.getValue())) {
+                    CacheInvalidations.increment();
+                }
+            }
+        }
+    }
+
+    private static boolean containsAny(List<ResolvedJavaMethod> inlinedMethods, Set<ResolvedJavaMethod> methods) {
+        if (inlinedMethods != null) {
+            for (ResolvedJavaMethod m : inlinedMethods) {
+                if (methods.contains(m)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all entries from this cache.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
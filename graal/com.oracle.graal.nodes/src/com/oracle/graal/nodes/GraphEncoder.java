@@ -25,7 +25,6 @@ package com.oracle.graal.nodes;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Objects;
 
 import com.oracle.graal.compiler.common.Fields;
@@ -38,6 +37,7 @@ import com.oracle.graal.debug.Debug;
 import com.oracle.graal.graph.Edges;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.NodeIntMap;
 import com.oracle.graal.graph.NodeList;
 import com.oracle.graal.graph.NodeMap;
 import com.oracle.graal.graph.iterators.NodeIterable;
@@ -211,9 +211,8 @@ public class GraphEncoder {
         assert nodeCount == graph.getNodeCount() + 1;
 
         long[] nodeStartOffsets = new long[nodeCount];
-        for (Map.Entry<Node, Integer> entry : nodeOrder.orderIds.entries()) {
-            Node node = entry.getKey();
-            Integer orderId = entry.getValue();
+        for (Node node : graph.getNodes()) {
+            int orderId = nodeOrder.orderIds.get(node);
 
             assert !(node instanceof AbstractBeginNode) || nodeOrder.orderIds.get(((AbstractBeginNode) node).next()) == orderId + BEGIN_NEXT_ORDER_ID_OFFSET;
             nodeStartOffsets[orderId] = writer.getBytesWritten();
@@ -293,11 +292,11 @@ public class GraphEncoder {
     }
 
     static class NodeOrder {
-        protected final NodeMap<Integer> orderIds;
+        protected final NodeIntMap orderIds;
         protected int nextOrderId;
 
         NodeOrder(StructuredGraph graph) {
-            this.orderIds = new NodeMap<>(graph);
+            this.orderIds = new NodeIntMap(graph, NULL_ORDER_ID);
             this.nextOrderId = START_NODE_ORDER_ID;
 
             /* Order the fixed nodes of the graph in reverse postorder. */
@@ -322,7 +321,7 @@ public class GraphEncoder {
                         AbstractMergeNode merge = ((AbstractEndNode) current).merge();
                         boolean allForwardEndsVisited = true;
                         for (int i = 0; i < merge.forwardEndCount(); i++) {
-                            if (orderIds.get(merge.forwardEndAt(i)) == null) {
+                            if (orderIds.get(merge.forwardEndAt(i)) == NULL_ORDER_ID) {
                                 allForwardEndsVisited = false;
                                 break;
                             }
@@ -336,13 +335,13 @@ public class GraphEncoder {
             } while (current != null);
 
             for (Node node : graph.getNodes()) {
-                assert (node instanceof FixedNode) == (orderIds.get(node) != null) : "all fixed nodes must be ordered";
+                assert (node instanceof FixedNode) == (orderIds.get(node) != NULL_ORDER_ID) : "all fixed nodes must be ordered";
                 add(node);
             }
         }
 
         private void add(Node node) {
-            if (orderIds.get(node) == null) {
+            if (orderIds.get(node) == NULL_ORDER_ID) {
                 orderIds.set(node, nextOrderId);
                 nextOrderId++;
             }
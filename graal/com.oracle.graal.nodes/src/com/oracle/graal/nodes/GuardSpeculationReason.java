@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes;
+
+import com.oracle.graal.graph.Node;
+
+import jdk.vm.ci.code.BytecodePosition;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.SpeculationLog;
+import jdk.vm.ci.meta.SpeculationLog.SpeculationReason;
+
+/**
+ * The speculation that a guard for a given {@link DeoptimizationReason} at a given source position
+ * does not fail. Once such a guard failed, the {@link SpeculationLog} of the graph prevents later
+ * compilations of the same code from speculating at the same position again.
+ */
+public final class GuardSpeculationReason implements SpeculationReason {
+
+    private final BytecodePosition position;
+    private final DeoptimizationReason reason;
+
+    public GuardSpeculationReason(BytecodePosition position, DeoptimizationReason reason) {
+        assert position != null;
+        this.position = position;
+        this.reason = reason;
+    }
+
+    /**
+     * Creates the speculation reason for a guard that deoptimizes with {@code reason} at
+     * {@code node}. The position of the guard is the {@linkplain Node#getNodeSourcePosition() source
+     * position} of {@code node} if available, otherwise the position of the closest preceding frame
+     * state, i.e., the position at which the interpreter resumes after deoptimizing at
+     * {@code node}. Guards for the same reason that resume at the same position cannot be told
+     * apart in the latter case.
+     *
+     * @return {@code null} if no position can be determined for {@code node}
+     */
+    public static GuardSpeculationReason create(FixedNode node, DeoptimizationReason reason) {
+        BytecodePosition position = node.getNodeSourcePosition();
+        for (Node n = node; position == null && n != null; n = n.predecessor()) {
+            FrameState state = null;
+            if (n instanceof StateSplit) {
+                state = ((StateSplit) n).stateAfter();
+            } else if (n instanceof AbstractDeoptimizeNode) {
+                state = ((AbstractDeoptimizeNode) n).stateBefore();
+            }
+            position = FrameState.toSourcePosition(state);
+        }
+        return position == null ? null : new GuardSpeculationReason(position, reason);
+    }
+
+    public BytecodePosition getPosition() {
+        return position;
+    }
+
+    public DeoptimizationReason getReason() {
+        return reason;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof GuardSpeculationReason) {
+            GuardSpeculationReason that = (GuardSpeculationReason) obj;
+            return this.reason == that.reason && this.position.equals(that.position);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return position.hashCode() * 31 + reason.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        return reason + "@" + position;
+    }
+}
@@ -154,6 +154,7 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
     private GuardsStage guardsStage = GuardsStage.FLOATING_GUARDS;
     private boolean isAfterFloatingReadPhase = false;
     private boolean hasValueProxies = true;
+    private boolean guardSpeculationEnabled;
     private final boolean useProfilingInfo;
 
     /**
@@ -179,6 +180,12 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     private UnsafeAccessState hasUnsafeAccess = UnsafeAccessState.NO_ACCESS;
 
+    /**
+     * The budget of the compilation processing this graph, or {@code null} if the compilation is
+     * not limited.
+     */
+    private CompilationBudget compilationBudget;
+
     /**
      * Creates a new Graph containing a single {@link AbstractBeginNode} as the {@link #start()
      * start} node.
@@ -346,6 +353,7 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
         copy.setGuardsStage(getGuardsStage());
         copy.isAfterFloatingReadPhase = isAfterFloatingReadPhase;
         copy.hasValueProxies = hasValueProxies;
+        copy.guardSpeculationEnabled = guardSpeculationEnabled;
         Map<Node, Node> replacements = Node.newMap();
         replacements.put(start, copy.start);
         Map<Node, Node> duplicates = copy.addDuplicates(getNodes(), this, this.getNodeCount(), replacements);
@@ -707,6 +715,38 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
         return speculationLog;
     }
 
+    /**
+     * Determines if deoptimizations converted to guards are recorded as speculations in the
+     * {@linkplain #getSpeculationLog() speculation log} of this graph, so that a guard that failed
+     * is not created again by a later compilation of the same code.
+     */
+    public boolean isGuardSpeculationEnabled() {
+        return guardSpeculationEnabled;
+    }
+
+    /**
+     * Enables {@linkplain #isGuardSpeculationEnabled() guard speculation} for this graph. This is
+     * only useful for graphs that are recompiled with the same speculation log and whose
+     * deoptimizations do not otherwise change the code the next compilation sees.
+     */
+    public void enableGuardSpeculation() {
+        assert speculationLog != null : "guard speculation needs a speculation log";
+        guardSpeculationEnabled = true;
+    }
+
+    /**
+     * Gets the budget of the compilation processing this graph.
+     *
+     * @return {@code null} if the compilation is not limited
+     */
+    public CompilationBudget getCompilationBudget() {
+        return compilationBudget;
+    }
+
+    public void setCompilationBudget(CompilationBudget compilationBudget) {
+        this.compilationBudget = compilationBudget;
+    }
+
     public final void clearAllStateAfter() {
         for (Node node : getNodes()) {
             if (node instanceof StateSplit) {
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.extended;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.calc.VectorOperation;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.memory.AbstractMemoryCheckpoint;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * A loop over the index range {@code [start, end)} of primitive arrays that applies a
+ * {@link VectorOperation} to each element and is emitted with SIMD instructions. It either stores
+ * the results into a destination array or, for a reduction, combines them into a single value.
+ * All arrays are accessed with the same index. The node performs no null or bounds checks, so the
+ * arrays and the range must have been checked before.
+ */
+@NodeInfo(allowedUsageTypes = {InputType.Memory})
+public final class VectorizedArrayLoopNode extends AbstractMemoryCheckpoint implements LIRLowerable, MemoryCheckpoint.Single {
+
+    public static final NodeClass<VectorizedArrayLoopNode> TYPE = NodeClass.create(VectorizedArrayLoopNode.class);
+
+    protected final VectorOperation op;
+    protected final JavaKind elementKind;
+    protected final boolean reduction;
+
+    /** The array receiving the results or {@code null} for a reduction. */
+    @OptionalInput ValueNode dst;
+
+    /** The first source array or {@code null} for {@link VectorOperation#FILL}. */
+    @OptionalInput ValueNode x;
+
+    /** The second source array of {@linkplain VectorOperation#isBinary() binary} operations. */
+    @OptionalInput ValueNode y;
+
+    /** The value stored by {@link VectorOperation#FILL} or the initial value of a reduction. */
+    @OptionalInput ValueNode value;
+
+    @Input ValueNode start;
+    @Input ValueNode end;
+
+    private VectorizedArrayLoopNode(VectorOperation op, JavaKind elementKind, boolean reduction, ValueNode dst, ValueNode x, ValueNode y, ValueNode value, ValueNode start, ValueNode end) {
+        super(TYPE, reduction ? StampFactory.forKind(elementKind) : StampFactory.forVoid());
+        this.op = op;
+        this.elementKind = elementKind;
+        this.reduction = reduction;
+        this.dst = dst;
+        this.x = x;
+        this.y = y;
+        this.value = value;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates a loop computing {@code dst[i] = x[i] op y[i]}, or {@code dst[i] = x[i]} for
+     * {@link VectorOperation#COPY}.
+     */
+    public static VectorizedArrayLoopNode createElementwise(VectorOperation op, JavaKind elementKind, ValueNode dst, ValueNode x, ValueNode y, ValueNode start, ValueNode end) {
+        assert op != VectorOperation.FILL && op.supports(elementKind) && (y != null) == op.isBinary();
+        return new VectorizedArrayLoopNode(op, elementKind, false, dst, x, y, null, start, end);
+    }
+
+    /**
+     * Creates a loop computing {@code dst[i] = value}.
+     */
+    public static VectorizedArrayLoopNode createFill(JavaKind elementKind, ValueNode dst, ValueNode value, ValueNode start, ValueNode end) {
+        assert VectorOperation.FILL.supports(elementKind);
+        return new VectorizedArrayLoopNode(VectorOperation.FILL, elementKind, false, dst, null, null, value, start, end);
+    }
+
+    /**
+     * Creates a loop computing {@code acc = acc op array[i]} whose value is the final {@code acc}.
+     */
+    public static VectorizedArrayLoopNode createReduction(VectorOperation op, JavaKind elementKind, ValueNode array, ValueNode initial, ValueNode start, ValueNode end) {
+        assert op.supportsReduction(elementKind);
+        return new VectorizedArrayLoopNode(op, elementKind, true, null, array, null, initial, start, end);
+    }
+
+    public VectorOperation getOperation() {
+        return op;
+    }
+
+    public JavaKind getElementKind() {
+        return elementKind;
+    }
+
+    public boolean isReduction() {
+        return reduction;
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(elementKind);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        LIRGeneratorTool tool = gen.getLIRGeneratorTool();
+        if (reduction) {
+            gen.setResult(this, tool.emitVectorizedReduction(op, elementKind, gen.operand(x), gen.operand(value), gen.operand(start), gen.operand(end)));
+        } else {
+            tool.emitVectorizedArrayOp(op, elementKind, gen.operand(dst), operandOrNull(gen, x), operandOrNull(gen, y), operandOrNull(gen, value), gen.operand(start), gen.operand(end));
+        }
+    }
+
+    private static Value operandOrNull(NodeLIRBuilderTool gen, ValueNode node) {
+        return node == null ? null : gen.operand(node);
+    }
+}
@@ -61,6 +61,14 @@ public interface VirtualizerTool {
      */
     int getMaximumEntryCount();
 
+    /**
+     * Arrays with at least {@link #getMaximumEntryCount()} elements can still be virtualized up to
+     * this length. Only the elements that no longer have their default value are tracked for them.
+     *
+     * @return the maximum length of virtualized arrays.
+     */
+    int getMaximumSparseArrayLength();
+
     // methods working on virtualized/materialized objects
 
     /**
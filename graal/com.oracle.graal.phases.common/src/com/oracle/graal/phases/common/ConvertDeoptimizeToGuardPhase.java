@@ -27,6 +27,7 @@ import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionalit
 import java.util.List;
 
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.spi.SimplifierTool;
 import com.oracle.graal.nodeinfo.InputType;
@@ -41,6 +42,7 @@ import com.oracle.graal.nodes.FixedGuardNode;
 import com.oracle.graal.nodes.FixedNode;
 import com.oracle.graal.nodes.FixedWithNextNode;
 import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.GuardSpeculationReason;
 import com.oracle.graal.nodes.IfNode;
 import com.oracle.graal.nodes.LogicNode;
 import com.oracle.graal.nodes.LoopExitNode;
@@ -57,6 +59,7 @@ import jdk.vm.ci.meta.Constant;
 import jdk.vm.ci.meta.DeoptimizationAction;
 import jdk.vm.ci.meta.DeoptimizationReason;
 import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.SpeculationLog;
 
 /**
  * This phase will find branches which always end with a {@link DeoptimizeNode} and replace their
@@ -69,8 +72,18 @@ import jdk.vm.ci.meta.JavaConstant;
  * branch starting at an other kind of {@link ControlSplitNode}, it will only bring the
  * {@link DeoptimizeNode} as close to the {@link ControlSplitNode} as possible.
  *
+ * Guards may be moved away from the position of the original branch and can then fail in cases
+ * where the branch would not have been taken. If
+ * {@linkplain StructuredGraph#isGuardSpeculationEnabled() enabled} for the graph, each conversion
+ * is therefore recorded as a speculation on a {@link GuardSpeculationReason} in the graph's
+ * {@link SpeculationLog}, and deoptimizations whose guard failed in an earlier compilation of the
+ * same code are left in place.
+ *
  */
 public class ConvertDeoptimizeToGuardPhase extends BasePhase<PhaseContext> {
+
+    private static final DebugCounter FailedSpeculations = Debug.counter("ConvertDeoptimizeToGuard_FailedSpeculations");
+
     private static AbstractBeginNode findBeginNode(FixedNode startNode) {
         return GraphUtil.predecessorIterable(startNode).filter(AbstractBeginNode.class).first();
     }
@@ -83,7 +96,19 @@ public class ConvertDeoptimizeToGuardPhase extends BasePhase<PhaseContext> {
         }
         for (DeoptimizeNode d : graph.getNodes(DeoptimizeNode.TYPE)) {
             assert d.isAlive();
-            visitDeoptBegin(AbstractBeginNode.prevBegin(d), d.action(), d.reason(), d.getSpeculation(), graph);
+            JavaConstant speculation = d.getSpeculation();
+            SpeculationLog speculationLog = graph.getSpeculationLog();
+            if (speculationLog != null && graph.isGuardSpeculationEnabled() && speculation.isNull()) {
+                GuardSpeculationReason reason = GuardSpeculationReason.create(d, d.reason());
+                if (reason != null) {
+                    if (!speculationLog.maySpeculate(reason)) {
+                        FailedSpeculations.increment();
+                        continue;
+                    }
+                    speculation = speculationLog.speculate(reason);
+                }
+            }
+            visitDeoptBegin(AbstractBeginNode.prevBegin(d), d.action(), d.reason(), speculation, graph);
         }
 
         if (context != null) {
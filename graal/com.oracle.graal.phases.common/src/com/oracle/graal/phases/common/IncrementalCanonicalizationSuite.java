@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import static com.oracle.graal.compiler.common.GraalOptions.IncrementalCanonicalization;
+import static com.oracle.graal.compiler.common.GraalOptions.VerifyIncrementalCanonicalization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.graph.Graph.NodeEventScope;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.common.util.HashSetNodeEventListener;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+/**
+ * A phase suite that can replace the full {@linkplain CanonicalizerPhase canonicalizations}
+ * between its phases by incremental ones. If {@link GraalOptions#IncrementalCanonicalization} is
+ * enabled, all node events of the phases in this suite are recorded. The first
+ * {@link CanonicalizerPhase} in the suite processes the whole graph, every following one only
+ * processes the nodes touched since the previous canonicalization.
+ * <p>
+ * Only the {@link CanonicalizerPhase}s that are direct children of the suite are affected.
+ * Canonicalizations nested in other phases, e.g., in {@link IncrementalCanonicalizerPhase},
+ * {@link LoweringPhase}, {@link IterativeConditionalEliminationPhase}, partial escape analysis or
+ * full loop unrolling, already only process the nodes changed by their own phase. They are not
+ * given the nodes touched since the previous canonicalization of the suite, and the nodes they
+ * canonicalize remain in that set, so the next canonicalization of the suite processes them again.
+ * <p>
+ * With {@link GraalOptions#VerifyIncrementalCanonicalization}, each incremental canonicalization is
+ * followed by a full one which must not change the graph anymore.
+ */
+public class IncrementalCanonicalizationSuite<C extends PhaseContext> extends PhaseSuite<C> {
+
+    private static final DebugCounter IncrementalCanonicalizations = Debug.counter("IncrementalCanonicalizations");
+    private static final DebugCounter IncrementalCanonicalizationNodes = Debug.counter("IncrementalCanonicalizationNodes");
+
+    @Override
+    @SuppressWarnings("try")
+    protected void run(StructuredGraph graph, C context) {
+        if (!IncrementalCanonicalization.getValue()) {
+            super.run(graph, context);
+            return;
+        }
+        HashSetNodeEventListener listener = new HashSetNodeEventListener();
+        boolean canonicalized = false;
+        try (NodeEventScope nes = graph.trackNodeEvents(listener)) {
+            for (BasePhase<? super C> phase : getPhases()) {
+                if (skipOptionalPhase(graph, phase)) {
+                    continue;
+                }
+                if (phase instanceof CanonicalizerPhase && canonicalized) {
+                    canonicalizeIncremental(graph, context, (CanonicalizerPhase) phase, listener.getNodes());
+                } else {
+                    phase.apply(graph, context);
+                    if (phase instanceof CanonicalizerPhase) {
+                        canonicalized = true;
+                        listener.getNodes().clear();
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("try")
+    private static void canonicalizeIncremental(StructuredGraph graph, PhaseContext context, CanonicalizerPhase canonicalizer, Set<Node> touched) {
+        List<Node> workingSet = new ArrayList<>(touched);
+        touched.clear();
+        IncrementalCanonicalizations.increment();
+        IncrementalCanonicalizationNodes.add(workingSet.size());
+        if (!workingSet.isEmpty()) {
+            canonicalizer.applyIncremental(graph, context, workingSet);
+        }
+        touched.clear();
+
+        if (VerifyIncrementalCanonicalization.getValue()) {
+            HashSetNodeEventListener missed = new HashSetNodeEventListener();
+            try (NodeEventScope nes = graph.trackNodeEvents(missed)) {
+                canonicalizer.apply(graph, context);
+            }
+            if (!missed.getNodes().isEmpty()) {
+                throw new GraalError("Incremental canonicalization of %d nodes missed changes to %s", workingSet.size(), missed.getNodes());
+            }
+            touched.clear();
+        }
+    }
+
+    @Override
+    public PhaseSuite<C> copy() {
+        IncrementalCanonicalizationSuite<C> suite = new IncrementalCanonicalizationSuite<>();
+        for (BasePhase<? super C> phase : getPhases()) {
+            suite.appendPhase(phase);
+        }
+        return suite;
+    }
+}
@@ -47,6 +47,11 @@ public class IterativeConditionalEliminationPhase extends BasePhase<PhaseContext
         this.fullSchedule = fullSchedule;
     }
 
+    @Override
+    public boolean isOptional() {
+        return true;
+    }
+
     @Override
     @SuppressWarnings("try")
     protected void run(StructuredGraph graph, PhaseContext context) {
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common.inlining;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.phases.common.inlining.info.InlineInfo;
+import com.oracle.graal.phases.common.inlining.policy.InliningPolicy;
+import com.oracle.graal.phases.common.inlining.policy.InliningPolicy.Decision;
+import com.oracle.graal.phases.common.inlining.policy.ReplayInliningPolicy;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Records the final inlining decisions made for each compiled root method and provides decisions
+ * recorded by an earlier run for {@linkplain ReplayInliningPolicy replay}. Following the recorded
+ * decisions makes the inlining of a restarted VM independent of how far its profiles have settled,
+ * and a recording can be diffed against the one of another compiler version to find the callsites
+ * at which the {@link InliningPolicy} changed its mind.
+ * <p>
+ * Recordings are stored in a line based text format. Each root method starts with a line
+ * {@code root <method>} that is followed by one line per callsite of the form
+ * {@code <callsite> <targets> <probability> inline|skip <reason>}, with the fields separated by
+ * tabs and the callsite line indented by a tab. The callsite is given as the
+ * {@code method@bci} frames leading to the invoke (see
+ * {@link com.oracle.graal.phases.common.inlining.walker.MethodInvocation#callsite()}) and the
+ * targets are the comma separated methods that came into question for inlining.
+ */
+public final class InliningDecisionLog {
+
+    private static volatile InliningDecisionLog installed;
+
+    /**
+     * Gets the log used by the inliner, or {@code null} if no log is installed.
+     */
+    public static InliningDecisionLog getInstalled() {
+        return installed;
+    }
+
+    /**
+     * Makes {@code log} the log used by the inliner. A {@code null} argument disables recording and
+     * replay of inlining decisions.
+     */
+    public static void install(InliningDecisionLog log) {
+        installed = log;
+    }
+
+    /**
+     * The decision recorded for one callsite.
+     */
+    public static final class Entry {
+
+        /**
+         * A recorded decision is only followed if the relative frequency of the callsite differs
+         * by at most this factor from the recorded one.
+         */
+        private static final double PROBABILITY_TOLERANCE = 4.0;
+
+        public final String targets;
+        public final double probability;
+        public final Decision decision;
+
+        public Entry(String targets, double probability, Decision decision) {
+            this.targets = targets;
+            this.probability = probability;
+            this.decision = decision;
+        }
+
+        /**
+         * Determines if the current profile of a callsite still agrees with the one this decision
+         * was made for: the same methods come into question and the callsite is about as frequent
+         * as it was.
+         */
+        public boolean agrees(String currentTargets, double currentProbability) {
+            return targets.equals(currentTargets) && currentProbability <= probability * PROBABILITY_TOLERANCE && probability <= currentProbability * PROBABILITY_TOLERANCE;
+        }
+
+        @Override
+        public String toString() {
+            return targets + " " + probability + " " + decision;
+        }
+    }
+
+    private static final String ROOT = "root";
+    private static final String INLINE = "inline";
+    private static final String SKIP = "skip";
+
+    private final Map<String, Map<String, Entry>> replayed;
+    private final boolean recording;
+    private final Map<String, Map<String, Entry>> recorded = new ConcurrentHashMap<>();
+
+    /**
+     * @param replayed the recorded decisions to follow, keyed by {@linkplain #rootKey root method}
+     *            and callsite
+     * @param recording specifies if the decisions made by compilations should be recorded
+     */
+    public InliningDecisionLog(Map<String, Map<String, Entry>> replayed, boolean recording) {
+        this.replayed = replayed;
+        this.recording = recording;
+    }
+
+    /**
+     * Gets the key under which the decisions made when compiling {@code graph} are recorded.
+     */
+    public static String rootKey(StructuredGraph graph) {
+        ResolvedJavaMethod method = graph.method();
+        String key = method.format("%H.%n") + method.getSignature().toMethodDescriptor();
+        return graph.isOSR() ? key + "@" + graph.getEntryBCI() : key;
+    }
+
+    /**
+     * Gets the string describing the methods that come into question for inlining at a callsite.
+     */
+    public static String targets(InlineInfo info) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < info.numberOfMethods(); i++) {
+            ResolvedJavaMethod method = info.methodAt(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(method.format("%H.%n")).append(method.getSignature().toMethodDescriptor());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates the policy to use for inlining into {@code graph}. The result follows the decisions
+     * recorded for the root method of {@code graph} and falls back to {@code policy} for all
+     * other callsites.
+     */
+    public InliningPolicy createPolicy(StructuredGraph graph, InliningPolicy policy) {
+        Map<String, Entry> decisions = replayed.get(rootKey(graph));
+        if (decisions == null && !recording) {
+            return policy;
+        }
+        return new ReplayInliningPolicy(policy, decisions, recording ? new LinkedHashMap<>() : null);
+    }
+
+    /**
+     * Records the decisions made by {@code policy} when inlining into {@code graph}. Decisions
+     * recorded by an earlier compilation of the same root method are replaced.
+     */
+    public void inliningFinished(StructuredGraph graph, InliningPolicy policy) {
+        if (recording && policy instanceof ReplayInliningPolicy) {
+            recorded.put(rootKey(graph), ((ReplayInliningPolicy) policy).getRecordedDecisions());
+        }
+    }
+
+    /**
+     * Gets the decisions recorded so far, keyed by root method and callsite.
+     */
+    public Map<String, Map<String, Entry>> getRecorded() {
+        return Collections.unmodifiableMap(recorded);
+    }
+
+    /**
+     * Writes the recorded decisions to {@code out}. Root methods are written in sorted order so
+     * that recordings of different runs can be compared.
+     */
+    public void write(Writer out) {
+        PrintWriter pw = new PrintWriter(out);
+        for (Map.Entry<String, Map<String, Entry>> root : new TreeMap<>(recorded).entrySet()) {
+            pw.print(ROOT);
+            pw.print('\t');
+            pw.println(root.getKey());
+            for (Map.Entry<String, Entry> e : root.getValue().entrySet()) {
+                Entry entry = e.getValue();
+                pw.print('\t');
+                pw.print(e.getKey());
+                pw.print('\t');
+                pw.print(entry.targets);
+                pw.print('\t');
+                pw.print(entry.probability);
+                pw.print('\t');
+                pw.print(entry.decision.shouldInline() ? INLINE : SKIP);
+                pw.print('\t');
+                pw.println(entry.decision.getReason());
+            }
+        }
+        pw.flush();
+    }
+
+    /**
+     * Reads decisions in the format produced by {@link #write}.
+     *
+     * @return the decisions keyed by root method and callsite
+     */
+    public static Map<String, Map<String, Entry>> read(Reader in) throws IOException {
+        Map<String, Map<String, Entry>> result = new HashMap<>();
+        Map<String, Decision> decisions = new HashMap<>();
+        BufferedReader reader = new BufferedReader(in);
+        Map<String, Entry> current = null;
+        int lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t", -1);
+            if (fields.length == 2 && fields[0].equals(ROOT)) {
+                current = new HashMap<>();
+                result.put(fields[1], current);
+            } else if (fields.length == 6 && fields[0].isEmpty() && current != null && (fields[4].equals(INLINE) || fields[4].equals(SKIP))) {
+                double probability;
+                try {
+                    probability = Double.parseDouble(fields[3]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("malformed probability in line " + lineNumber + ": " + line);
+                }
+                Decision decision = decisions.computeIfAbsent(fields[4] + "\t" + fields[5], k -> (fields[4].equals(INLINE) ? Decision.YES : Decision.NO).withReason(fields[5]));
+                current.put(fields[1], new Entry(fields[2], probability, decision));
+            } else {
+                throw new IOException("malformed inlining decision in line " + lineNumber + ": " + line);
+            }
+        }
+        return result;
+    }
+}
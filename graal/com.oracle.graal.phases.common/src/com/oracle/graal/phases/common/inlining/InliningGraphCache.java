@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common.inlining;
+
+import static com.oracle.graal.compiler.common.GraalOptions.OptCanonicalizer;
+import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.nodes.EncodedGraphCache;
+import com.oracle.graal.nodes.GraphDecoder;
+import com.oracle.graal.nodes.GraphEncoder;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.meta.Assumptions;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * A cache of parsed and early-optimized callee graphs that is shared by all compilations of a
+ * runtime, so that methods which are inlined at many call sites are parsed only once. The graphs
+ * are kept in the compact {@link EncodedGraph} format and decoded into a new graph on each use.
+ * <p>
+ * A cached graph is only reused by compilations that parse callees exactly the same way: with the
+ * same graph builder suite and canonicalizer, the same {@link OptimisticOptimizations} and the same
+ * values of the options that influence parsing. Graphs that contain unsafe accesses are not cached
+ * since the encoding does not preserve this property.
+ * <p>
+ * Profiles of cached graphs are frozen at the time the graph was first parsed until the entry is
+ * evicted. Entries that depend on methods that became invalid, e.g., because installation of code
+ * that inlined them failed due to invalidated dependencies, must be dropped with
+ * {@link #invalidate(Collection)}.
+ */
+public final class InliningGraphCache {
+
+    private static volatile InliningGraphCache installed;
+
+    /**
+     * Gets the cache used by the inliner, or {@code null} if no cache is installed.
+     */
+    public static InliningGraphCache getInstalled() {
+        return installed;
+    }
+
+    /**
+     * Makes {@code cache} the cache used by the inliner. A {@code null} argument disables caching
+     * of callee graphs.
+     */
+    public static void install(InliningGraphCache cache) {
+        installed = cache;
+    }
+
+    private static final class Configuration {
+        private final PhaseSuite<HighTierContext> graphBuilderSuite;
+        private final CanonicalizerPhase canonicalizer;
+        private final OptimisticOptimizations optimisticOpts;
+        private final boolean canonicalize;
+        private final boolean extractInstrumentation;
+
+        Configuration(HighTierContext context, CanonicalizerPhase canonicalizer) {
+            this.graphBuilderSuite = context.getGraphBuilderSuite();
+            this.canonicalizer = canonicalizer;
+            this.optimisticOpts = context.getOptimisticOptimizations();
+            this.canonicalize = OptCanonicalizer.getValue();
+            this.extractInstrumentation = UseGraalInstrumentation.getValue();
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(graphBuilderSuite) * 31 + System.identityHashCode(canonicalizer)) * 31 + optimisticOpts.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Configuration) {
+                Configuration that = (Configuration) obj;
+                return this.graphBuilderSuite == that.graphBuilderSuite && this.canonicalizer == that.canonicalizer && this.optimisticOpts.equals(that.optimisticOpts) &&
+                                this.canonicalize == that.canonicalize && this.extractInstrumentation == that.extractInstrumentation;
+            }
+            return false;
+        }
+    }
+
+    private final Architecture architecture;
+    private final EncodedGraphCache graphs;
+
+    /**
+     * Creates a cache holding at most (approximately) {@code capacity} graphs.
+     */
+    public InliningGraphCache(Architecture architecture, int capacity) {
+        this.architecture = architecture;
+        this.graphs = new EncodedGraphCache(capacity);
+    }
+
+    /**
+     * Decodes the cached graph for inlining {@code method} into {@code caller}, or returns
+     * {@code null} if there is no graph for {@code method} that was parsed in the same way.
+     */
+    public StructuredGraph lookup(ResolvedJavaMethod method, HighTierContext context, CanonicalizerPhase canonicalizer, StructuredGraph caller) {
+        if (context.getGraphBuilderSuite() == null) {
+            return null;
+        }
+        AllowAssumptions allowAssumptions = AllowAssumptions.from(caller.getAssumptions() != null);
+        EncodedGraph encodedGraph = graphs.get(method, false, allowAssumptions, new Configuration(context, canonicalizer));
+        if (encodedGraph == null) {
+            return null;
+        }
+        StructuredGraph graph = new StructuredGraph(method, allowAssumptions);
+        if (!caller.isUnsafeAccessTrackingEnabled()) {
+            graph.disableUnsafeAccessTracking();
+        }
+        new GraphDecoder(architecture).decode(graph, encodedGraph);
+
+        /*
+         * The graph may have been parsed by an earlier compilation, so its assumptions and inlined
+         * methods must be recorded again for the dependencies of the resulting code to be complete.
+         */
+        Assumptions assumptions = encodedGraph.getAssumptions();
+        if (assumptions != null) {
+            graph.getAssumptions().record(assumptions);
+        }
+        List<ResolvedJavaMethod> inlinedMethods = encodedGraph.getInlinedMethods();
+        if (inlinedMethods != null) {
+            for (ResolvedJavaMethod inlinedMethod : inlinedMethods) {
+                graph.recordInlinedMethod(inlinedMethod);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Adds the freshly parsed callee graph {@code graph} to this cache.
+     */
+    public void add(StructuredGraph graph, HighTierContext context, CanonicalizerPhase canonicalizer) {
+        if (context.getGraphBuilderSuite() == null || graph.hasUnsafeAccess()) {
+            return;
+        }
+        EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graph, architecture);
+        graphs.putIfAbsent(graph.method(), false, AllowAssumptions.from(graph.getAssumptions() != null), new Configuration(context, canonicalizer), encodedGraph);
+    }
+
+    /**
+     * Removes the cached graphs of {@code methods}, and of all methods into which they were
+     * inlined during parsing.
+     */
+    public void invalidate(Collection<ResolvedJavaMethod> methods) {
+        graphs.invalidate(methods);
+    }
+
+    /**
+     * Removes all graphs from this cache.
+     */
+    public void clear() {
+        graphs.clear();
+    }
+
+    public int size() {
+        return graphs.size();
+    }
+}
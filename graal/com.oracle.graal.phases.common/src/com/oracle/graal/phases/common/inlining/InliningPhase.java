@@ -50,6 +50,18 @@ public class InliningPhase extends AbstractInliningPhase {
          */
         @Option(help = "Per-compilation method inlining exploration limit before giving up (use 0 to disable)", type = OptionType.Debug)//
         public static final OptionValue<Integer> MethodInlineBailoutLimit = new OptionValue<>(5000);
+
+        @Option(help = "Share parsed callee graphs between compilations instead of parsing callees for every inlining.", type = OptionType.Expert)//
+        public static final OptionValue<Boolean> InlineGraphCache = new OptionValue<>(false);
+
+        @Option(help = "Maximum number of callee graphs kept in the graph cache shared between compilations.", type = OptionType.Expert)//
+        public static final OptionValue<Integer> InlineGraphCacheCapacity = new OptionValue<>(4096);
+
+        @Option(help = "File to which the final inlining decisions for each compiled method are written when the VM exits.", type = OptionType.Expert)//
+        public static final OptionValue<String> InlineDecisionRecordFile = new OptionValue<>(null);
+
+        @Option(help = "File with inlining decisions written by InlineDecisionRecordFile. The recorded decisions are followed for all call sites whose profile still agrees with the recording.", type = OptionType.Expert)//
+        public static final OptionValue<String> InlineDecisionReplayFile = new OptionValue<>(null);
     }
 
     private final InliningPolicy inliningPolicy;
@@ -84,7 +96,9 @@ public class InliningPhase extends AbstractInliningPhase {
      */
     @Override
     protected void run(final StructuredGraph graph, final HighTierContext context) {
-        final InliningData data = new InliningData(graph, context, maxMethodPerInlining, canonicalizer, inliningPolicy);
+        InliningDecisionLog decisionLog = InliningDecisionLog.getInstalled();
+        InliningPolicy policy = decisionLog == null ? inliningPolicy : decisionLog.createPolicy(graph, inliningPolicy);
+        final InliningData data = new InliningData(graph, context, maxMethodPerInlining, canonicalizer, policy);
 
         int count = 0;
         assert data.repOK();
@@ -103,5 +117,9 @@ public class InliningPhase extends AbstractInliningPhase {
 
         assert data.inliningDepth() == 0 || count == limit;
         assert data.graphCount() == 0 || count == limit;
+
+        if (decisionLog != null) {
+            decisionLog.inliningFinished(graph, policy);
+        }
     }
 }
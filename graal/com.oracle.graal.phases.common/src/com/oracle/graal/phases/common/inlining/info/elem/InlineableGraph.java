@@ -41,6 +41,7 @@ import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
+import com.oracle.graal.phases.common.inlining.InliningGraphCache;
 import com.oracle.graal.phases.common.inlining.InliningUtil;
 import com.oracle.graal.phases.common.instrumentation.ExtractInstrumentationPhase;
 import com.oracle.graal.phases.graph.FixedNodeProbabilityCache;
@@ -79,14 +80,26 @@ public class InlineableGraph implements Inlineable {
     /**
      * This method looks up in a cache the graph for the argument, if not found bytecode is parsed.
      * The graph thus obtained is returned, ie the caller is responsible for cloning before
-     * modification.
+     * modification. Parsed graphs are added to the {@linkplain InliningGraphCache#getInstalled()
+     * installed} {@link InliningGraphCache}, if any.
      */
     private static StructuredGraph getOriginalGraph(final ResolvedJavaMethod method, final HighTierContext context, CanonicalizerPhase canonicalizer, StructuredGraph caller, int callerBci) {
         StructuredGraph result = InliningUtil.getIntrinsicGraph(context.getReplacements(), method, callerBci);
         if (result != null) {
             return result;
         }
-        return parseBytecodes(method, context, canonicalizer, caller);
+        InliningGraphCache graphCache = InliningGraphCache.getInstalled();
+        if (graphCache != null) {
+            result = graphCache.lookup(method, context, canonicalizer, caller);
+            if (result != null) {
+                return result;
+            }
+        }
+        result = parseBytecodes(method, context, canonicalizer, caller);
+        if (graphCache != null) {
+            graphCache.add(result, context, canonicalizer);
+        }
+        return result;
     }
 
     /**
@@ -44,6 +44,15 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
 
     private static final DebugCounter inliningStoppedByMaxDesiredSizeCounter = Debug.counter("InliningStoppedByMaxDesiredSize");
 
+    private static final Decision INLINE_EVERYTHING = Decision.YES.withReason("inline everything");
+    private static final Decision INTRINSIC = Decision.YES.withReason("intrinsic");
+    private static final Decision FORCED = Decision.YES.withReason("forced inlining");
+    private static final Decision TOO_LARGE_LOW_LEVEL_GRAPH = Decision.NO.withReason("too large previous low-level graph");
+    private static final Decision TRIVIAL = Decision.YES.withReason("trivial");
+    private static final Decision TOO_MANY_INVOKES = Decision.NO.withReason("callee invoke probability is too high");
+    private static final Decision RELEVANT = Decision.YES.withReason("relevance-based");
+    private static final Decision NOT_RELEVANT = Decision.NO.withReason("relevance-based");
+
     public GreedyInliningPolicy(Map<Invoke, Double> hints) {
         super(hints);
     }
@@ -59,7 +68,7 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
     }
 
     @Override
-    public boolean isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed) {
+    public Decision isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed) {
 
         final InlineInfo info = invocation.callee();
         final double probability = invocation.probability();
@@ -67,17 +76,17 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
 
         if (InlineEverything.getValue()) {
             InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "inline everything");
-            return true;
+            return INLINE_EVERYTHING;
         }
 
         if (isIntrinsic(replacements, info)) {
             InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "intrinsic");
-            return true;
+            return INTRINSIC;
         }
 
         if (info.shouldInline()) {
             InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "forced inlining");
-            return true;
+            return FORCED;
         }
 
         double inliningBonus = getInliningBonus(info);
@@ -87,12 +96,12 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
         if (SmallCompiledLowLevelGraphSize.getValue() > 0 && lowLevelGraphSize > SmallCompiledLowLevelGraphSize.getValue() * inliningBonus) {
             InliningUtil.logNotInlinedMethod(info, inliningDepth, "too large previous low-level graph (low-level-nodes: %d, relevance=%f, probability=%f, bonus=%f, nodes=%d)", lowLevelGraphSize,
                             relevance, probability, inliningBonus, nodes);
-            return false;
+            return TOO_LARGE_LOW_LEVEL_GRAPH;
         }
 
         if (nodes < TrivialInliningSize.getValue() * inliningBonus) {
             InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "trivial (relevance=%f, probability=%f, bonus=%f, nodes=%d)", relevance, probability, inliningBonus, nodes);
-            return true;
+            return TRIVIAL;
         }
 
         /*
@@ -105,17 +114,17 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
         if (LimitInlinedInvokes.getValue() > 0 && fullyProcessed && invokes > LimitInlinedInvokes.getValue() * inliningBonus) {
             InliningUtil.logNotInlinedMethod(info, inliningDepth, "callee invoke probability is too high (invokeP=%f, relevance=%f, probability=%f, bonus=%f, nodes=%d)", invokes, relevance,
                             probability, inliningBonus, nodes);
-            return false;
+            return TOO_MANY_INVOKES;
         }
 
         double maximumNodes = computeMaximumSize(relevance, (int) (MaximumInliningSize.getValue() * inliningBonus));
         if (nodes <= maximumNodes) {
             InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "relevance-based (relevance=%f, probability=%f, bonus=%f, nodes=%d <= %f)", relevance, probability, inliningBonus,
                             nodes, maximumNodes);
-            return true;
+            return RELEVANT;
         }
 
         InliningUtil.logNotInlinedMethod(info, inliningDepth, "relevance-based (relevance=%f, probability=%f, bonus=%f, nodes=%d > %f)", relevance, probability, inliningBonus, nodes, maximumNodes);
-        return false;
+        return NOT_RELEVANT;
     }
 }
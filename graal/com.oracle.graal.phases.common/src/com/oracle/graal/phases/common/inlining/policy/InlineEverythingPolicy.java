@@ -41,8 +41,10 @@ public class InlineEverythingPolicy implements InliningPolicy {
         return true;
     }
 
+    private static final Decision INLINE_EVERYTHING = Decision.YES.withReason("inline everything");
+
     @Override
-    public boolean isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed) {
-        return true;
+    public Decision isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed) {
+        return INLINE_EVERYTHING;
     }
 }
@@ -34,15 +34,18 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
  */
 public final class InlineMethodSubstitutionsPolicy extends InlineEverythingPolicy {
 
+    private static final Decision SUBSTITUTION = Decision.YES.withReason("method substitution");
+    private static final Decision NO_SUBSTITUTION = Decision.NO.withReason("no method substitution");
+
     @Override
-    public boolean isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed) {
+    public Decision isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed) {
         CallTargetNode callTarget = invocation.callee().invoke().callTarget();
         if (callTarget instanceof MethodCallTargetNode) {
             ResolvedJavaMethod calleeMethod = ((MethodCallTargetNode) callTarget).targetMethod();
             if (replacements.getSubstitution(calleeMethod, invocation.callee().invoke().bci()) != null) {
-                return true;
+                return SUBSTITUTION;
             }
         }
-        return false;
+        return NO_SUBSTITUTION;
     }
 }
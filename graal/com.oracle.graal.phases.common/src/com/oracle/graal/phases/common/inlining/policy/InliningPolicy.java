@@ -28,7 +28,46 @@ import com.oracle.graal.phases.common.inlining.walker.MethodInvocation;
 
 public interface InliningPolicy {
 
+    /**
+     * The result of {@link InliningPolicy#isWorthInlining} together with a short description of
+     * the rule that produced it. Reasons are constant strings so that deciding does not require any
+     * formatting.
+     */
+    final class Decision {
+
+        public static final Decision YES = new Decision(true, "unknown reason");
+        public static final Decision NO = new Decision(false, "unknown reason");
+
+        private final boolean shouldInline;
+        private final String reason;
+
+        private Decision(boolean shouldInline, String reason) {
+            this.shouldInline = shouldInline;
+            this.reason = reason;
+        }
+
+        public boolean shouldInline() {
+            return shouldInline;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * Creates a decision with the same outcome as this one and the reason {@code newReason}.
+         */
+        public Decision withReason(String newReason) {
+            return new Decision(shouldInline, newReason);
+        }
+
+        @Override
+        public String toString() {
+            return (shouldInline ? "inline: " : "do not inline: ") + reason;
+        }
+    }
+
     boolean continueInlining(StructuredGraph graph);
 
-    boolean isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed);
+    Decision isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed);
 }
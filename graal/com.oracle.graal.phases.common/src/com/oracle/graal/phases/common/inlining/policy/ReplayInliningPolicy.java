@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common.inlining.policy;
+
+import java.util.Map;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.spi.Replacements;
+import com.oracle.graal.phases.common.inlining.InliningDecisionLog;
+import com.oracle.graal.phases.common.inlining.InliningDecisionLog.Entry;
+import com.oracle.graal.phases.common.inlining.InliningUtil;
+import com.oracle.graal.phases.common.inlining.walker.MethodInvocation;
+
+/**
+ * Follows inlining decisions recorded by an earlier run for the callsites whose profile still
+ * {@linkplain Entry#agrees agrees} with the recorded one and asks another policy about all other
+ * callsites. The decisions taken, whether replayed or not, can be recorded in turn. An instance is
+ * used for a single compilation.
+ *
+ * @see InliningDecisionLog
+ */
+public final class ReplayInliningPolicy implements InliningPolicy {
+
+    private static final DebugCounter replayedDecisionsCounter = Debug.counter("InliningDecisionsReplayed");
+    private static final DebugCounter divergedDecisionsCounter = Debug.counter("InliningDecisionsDiverged");
+
+    private final InliningPolicy policy;
+    private final Map<String, Entry> replayed;
+    private final Map<String, Entry> recorded;
+
+    /**
+     * @param policy the policy deciding about callsites without an agreeing recorded decision
+     * @param replayed the recorded decisions keyed by callsite, or {@code null}
+     * @param recorded the map to which the decisions taken are added, or {@code null}
+     */
+    public ReplayInliningPolicy(InliningPolicy policy, Map<String, Entry> replayed, Map<String, Entry> recorded) {
+        this.policy = policy;
+        this.replayed = replayed;
+        this.recorded = recorded;
+    }
+
+    /**
+     * Gets the decisions taken so far keyed by callsite, or {@code null} if this policy does not
+     * record decisions.
+     */
+    public Map<String, Entry> getRecordedDecisions() {
+        return recorded;
+    }
+
+    @Override
+    public boolean continueInlining(StructuredGraph graph) {
+        return policy.continueInlining(graph);
+    }
+
+    @Override
+    public Decision isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed) {
+        String callsite = invocation.callsite();
+        Entry entry = replayed == null ? null : replayed.get(callsite);
+        String targets = entry != null || recorded != null ? InliningDecisionLog.targets(invocation.callee()) : null;
+        Decision decision = null;
+        if (entry != null) {
+            if (entry.agrees(targets, invocation.probability())) {
+                decision = entry.decision;
+                replayedDecisionsCounter.increment();
+                InliningUtil.logInliningDecision(invocation.callee(), inliningDepth, fullyProcessed, decision.shouldInline(), "replayed (%s)", decision.getReason());
+            } else {
+                divergedDecisionsCounter.increment();
+            }
+        }
+        if (decision == null) {
+            decision = policy.isWorthInlining(replacements, invocation, inliningDepth, fullyProcessed);
+        }
+        if (recorded != null && (fullyProcessed || !decision.shouldInline())) {
+            // a positive decision is only final once the callees of the callsite were explored
+            recorded.put(callsite, new Entry(targets, invocation.probability(), decision));
+        }
+        return decision;
+    }
+}
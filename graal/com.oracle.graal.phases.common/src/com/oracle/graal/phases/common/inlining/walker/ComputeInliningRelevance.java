@@ -28,6 +28,7 @@ import java.util.function.ToDoubleFunction;
 
 import com.oracle.graal.compiler.common.SuppressFBWarnings;
 import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeDoubleMap;
 import com.oracle.graal.graph.NodeWorkList;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.AbstractMergeNode;
@@ -43,15 +44,12 @@ import com.oracle.graal.nodes.LoopExitNode;
 import com.oracle.graal.nodes.MergeNode;
 import com.oracle.graal.nodes.StartNode;
 import com.oracle.graal.nodes.StructuredGraph;
-import com.oracle.graal.phases.common.inlining.InliningUtil;
 
 public class ComputeInliningRelevance {
 
     private static final double EPSILON = 1d / Integer.MAX_VALUE;
     private static final double UNINITIALIZED = -1D;
 
-    private static final int EXPECTED_MIN_INVOKE_COUNT = 3;
-    private static final int EXPECTED_INVOKE_RATIO = 20;
     private static final int EXPECTED_LOOP_COUNT = 3;
 
     private final StructuredGraph graph;
@@ -61,7 +59,7 @@ public class ComputeInliningRelevance {
      * Node relevances are pre-computed for all invokes if the graph contains loops. If there are no
      * loops, the computation happens lazily based on {@link #rootScope}.
      */
-    private Map<FixedNode, Double> nodeRelevances;
+    private NodeDoubleMap nodeRelevances;
     /**
      * This scope is non-null if (and only if) there are no loops in the graph. In this case, the
      * root scope is used to compute invoke relevances on the fly.
@@ -84,7 +82,7 @@ public class ComputeInliningRelevance {
             rootScope = new Scope(graph.start(), null);
         } else {
             if (nodeRelevances == null) {
-                nodeRelevances = Node.newIdentityMap(EXPECTED_MIN_INVOKE_COUNT + InliningUtil.getNodeCount(graph) / EXPECTED_INVOKE_RATIO);
+                nodeRelevances = new NodeDoubleMap(graph, Double.NaN);
             }
             NodeWorkList workList = graph.createNodeWorkList();
             Map<LoopBeginNode, Scope> loops = Node.newIdentityMap(EXPECTED_LOOP_COUNT);
@@ -105,7 +103,7 @@ public class ComputeInliningRelevance {
             return rootScope.computeInvokeRelevance(invoke);
         }
         assert nodeRelevances != null : "uninitialized relevance";
-        return nodeRelevances.get(invoke);
+        return nodeRelevances.getAndGrow(invoke.asNode());
     }
 
     /**
@@ -211,7 +209,7 @@ public class ComputeInliningRelevance {
 
                 if (current instanceof Invoke) {
                     // process the invoke and queue its successors
-                    nodeRelevances.put((FixedNode) current, computeInvokeRelevance((Invoke) current));
+                    nodeRelevances.setAndGrow(current, computeInvokeRelevance((Invoke) current));
                     workList.addAll(current.successors());
                 } else if (current instanceof LoopBeginNode) {
                     // skip child loops by advancing over the loop exits
@@ -22,9 +22,13 @@
  */
 package com.oracle.graal.phases.common.inlining.walker;
 
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.List;
 
 import com.oracle.graal.nodes.CallTargetNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.Invoke;
 import com.oracle.graal.nodes.java.MethodCallTargetNode;
 import com.oracle.graal.phases.common.inlining.info.InlineInfo;
 import com.oracle.graal.phases.common.inlining.info.elem.Inlineable;
@@ -49,6 +53,13 @@ public class MethodInvocation {
     private final double probability;
     private final double relevance;
 
+    /**
+     * The invocation whose callee graph contains the invoke of this invocation, {@code null} for
+     * the root invocation.
+     */
+    private final MethodInvocation caller;
+    private String callsite;
+
     private int processedGraphs;
 
     /**
@@ -77,10 +88,11 @@ public class MethodInvocation {
 
     private final int sizeFreshArgs;
 
-    public MethodInvocation(InlineInfo info, double probability, double relevance, BitSet freshlyInstantiatedArguments) {
+    public MethodInvocation(InlineInfo info, double probability, double relevance, BitSet freshlyInstantiatedArguments, MethodInvocation caller) {
         this.callee = info;
         this.probability = probability;
         this.relevance = relevance;
+        this.caller = caller;
         this.freshlyInstantiatedArguments = freshlyInstantiatedArguments;
         this.sizeFreshArgs = freshlyInstantiatedArguments == null ? 0 : freshlyInstantiatedArguments.cardinality();
     }
@@ -115,6 +127,45 @@ public class MethodInvocation {
         return callee == null;
     }
 
+    /**
+     * Gets a description of the position of this callsite relative to the root method of the
+     * compilation. It consists of the {@code method@bci} frames leading from the root method to the
+     * invoke, outermost first, and thus stays the same whether or not the enclosing callees have
+     * already been inlined into the root graph.
+     */
+    public String callsite() {
+        if (callsite == null) {
+            assert !isRoot();
+            StringBuilder sb = new StringBuilder();
+            if (caller != null && !caller.isRoot()) {
+                sb.append(caller.callsite()).append(' ');
+            }
+            Invoke invoke = callee.invoke();
+            FrameState state = invoke.stateAfter() != null ? invoke.stateAfter() : invoke.stateDuring();
+            if (state == null) {
+                sb.append(frame(invoke.asNode().graph().method(), invoke.bci()));
+            } else {
+                List<String> frames = new ArrayList<>();
+                frames.add(frame(state.method(), invoke.bci()));
+                for (FrameState outer = state.outerFrameState(); outer != null; outer = outer.outerFrameState()) {
+                    frames.add(frame(outer.method(), outer.bci));
+                }
+                for (int i = frames.size() - 1; i >= 0; i--) {
+                    sb.append(frames.get(i));
+                    if (i > 0) {
+                        sb.append(' ');
+                    }
+                }
+            }
+            callsite = sb.toString();
+        }
+        return callsite;
+    }
+
+    private static String frame(ResolvedJavaMethod method, int bci) {
+        return method.format("%H.%n") + method.getSignature().toMethodDescriptor() + "@" + bci;
+    }
+
     public BitSet getFreshlyInstantiatedArguments() {
         return freshlyInstantiatedArguments;
     }
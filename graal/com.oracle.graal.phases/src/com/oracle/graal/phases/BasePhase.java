@@ -24,6 +24,7 @@ package com.oracle.graal.phases;
 
 import java.util.regex.Pattern;
 
+import com.oracle.graal.debug.CompilationEventLog;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.DebugCloseable;
@@ -140,7 +141,14 @@ public abstract class BasePhase<C> {
                 Debug.dump(Debug.VERBOSE_LOG_LEVEL, graph, "Before phase %s", getName());
             }
             inputNodesCount.add(graph.getNodeCount());
-            this.run(graph, context);
+            boolean logged = CompilationEventLog.ENABLED && CompilationEventLog.beginPhase(getName(), graph.getNodeCount());
+            try {
+                this.run(graph, context);
+            } finally {
+                if (logged) {
+                    CompilationEventLog.endPhase(graph.getNodeCount());
+                }
+            }
             executionCount.increment();
             if (dumpGraph && Debug.isDumpEnabled(Debug.BASIC_LOG_LEVEL)) {
                 Debug.dump(Debug.BASIC_LOG_LEVEL, graph, "%s", getName());
@@ -174,5 +182,14 @@ public abstract class BasePhase<C> {
         return name;
     }
 
+    /**
+     * Determines if this phase only improves the quality of the generated code. Optional phases
+     * are skipped once the {@link StructuredGraph#getCompilationBudget() compilation budget} is
+     * exhausted.
+     */
+    public boolean isOptional() {
+        return false;
+    }
+
     protected abstract void run(StructuredGraph graph, C context);
 }
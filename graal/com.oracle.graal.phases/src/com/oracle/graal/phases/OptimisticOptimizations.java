@@ -137,6 +137,19 @@ public final class OptimisticOptimizations {
         return profilingInfo.getDeoptimizationCount(reason) < GraalOptions.DeoptsToDisableOptimisticOptimization.getValue();
     }
 
+    @Override
+    public int hashCode() {
+        return enabledOpts.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof OptimisticOptimizations) {
+            return enabledOpts.equals(((OptimisticOptimizations) obj).enabledOpts);
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         return enabledOpts.toString();
@@ -27,6 +27,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.nodes.CompilationBudget;
 import com.oracle.graal.nodes.StructuredGraph;
 
 /**
@@ -34,6 +37,8 @@ import com.oracle.graal.nodes.StructuredGraph;
  */
 public class PhaseSuite<C> extends BasePhase<C> {
 
+    private static final DebugCounter SkippedPhases = Debug.counter("SkippedOptionalPhases");
+
     private List<BasePhase<? super C>> phases;
     private boolean immutable;
 
@@ -110,13 +115,38 @@ public class PhaseSuite<C> extends BasePhase<C> {
         return false;
     }
 
+    /**
+     * Gets the phases of this suite in the order in which they are applied.
+     */
+    protected final List<BasePhase<? super C>> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
     @Override
     protected void run(StructuredGraph graph, C context) {
         for (BasePhase<? super C> phase : phases) {
-            phase.apply(graph, context);
+            if (!skipOptionalPhase(graph, phase)) {
+                phase.apply(graph, context);
+            }
         }
     }
 
+    /**
+     * Determines if {@code phase} should be skipped because it is {@linkplain BasePhase#isOptional()
+     * optional} and the {@linkplain StructuredGraph#getCompilationBudget() compilation budget} of
+     * {@code graph} is exhausted.
+     */
+    protected static boolean skipOptionalPhase(StructuredGraph graph, BasePhase<?> phase) {
+        CompilationBudget budget = graph.getCompilationBudget();
+        if (budget != null && phase.isOptional() && budget.isExhausted(graph)) {
+            Debug.log("Skipping optional phase %s", phase.getName());
+            SkippedPhases.increment();
+            budget.recordSkippedPhase();
+            return true;
+        }
+        return false;
+    }
+
     public PhaseSuite<C> copy() {
         PhaseSuite<C> suite = new PhaseSuite<>();
         suite.phases.addAll(phases);
@@ -22,12 +22,12 @@
  */
 package com.oracle.graal.phases.graph;
 
-import java.util.Map;
 import java.util.function.ToDoubleFunction;
 
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeDoubleMap;
 import com.oracle.graal.graph.NodeInputList;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.AbstractEndNode;
@@ -45,7 +45,11 @@ public class FixedNodeProbabilityCache implements ToDoubleFunction<FixedNode> {
 
     private static final DebugCounter computeNodeProbabilityCounter = Debug.counter("ComputeNodeProbability");
 
-    private final Map<FixedNode, Double> cache = Node.newIdentityMap();
+    /**
+     * Cached probabilities of begin nodes, {@link Double#NaN} for nodes whose probability has not
+     * been computed yet. Created lazily for the graph of the first node that is queried.
+     */
+    private NodeDoubleMap cache;
 
     /**
      * <p>
@@ -90,8 +94,11 @@ public class FixedNodeProbabilityCache implements ToDoubleFunction<FixedNode> {
         }
 
         assert current instanceof AbstractBeginNode;
-        Double cachedValue = cache.get(current);
-        if (cachedValue != null) {
+        if (cache == null || cache.graph() != current.graph()) {
+            cache = new NodeDoubleMap(current.graph(), Double.NaN);
+        }
+        double cachedValue = cache.getAndGrow(current);
+        if (!Double.isNaN(cachedValue)) {
             return cachedValue;
         }
 
@@ -108,7 +115,7 @@ public class FixedNodeProbabilityCache implements ToDoubleFunction<FixedNode> {
             probability = split.probability((AbstractBeginNode) current) * applyAsDouble(split);
         }
         assert !Double.isNaN(probability) && !Double.isInfinite(probability) : current + " " + probability;
-        cache.put(current, probability);
+        cache.setAndGrow(current, probability);
         return probability;
     }
 
@@ -37,4 +37,19 @@ public interface SuitesCreator extends SuitesProvider {
      * Create a new set of low-level phase suites based on the current option settings.
      */
     LIRSuites createLIRSuites();
+
+    /**
+     * Create a new set of phase suites for a compiler configuration other than the default one. Any
+     * phases this creator adds to the suites of the default configuration are also added to the
+     * returned suites.
+     */
+    Suites createSuites(CompilerConfiguration compilerConfiguration);
+
+    /**
+     * Create a new set of low-level phase suites for a compiler configuration other than the
+     * default one.
+     *
+     * @see #createSuites(CompilerConfiguration)
+     */
+    LIRSuites createLIRSuites(CompilerConfiguration compilerConfiguration);
 }
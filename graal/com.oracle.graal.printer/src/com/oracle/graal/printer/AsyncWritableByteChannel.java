@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.printer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.oracle.graal.debug.GraalDebugConfig.Options;
+import com.oracle.graal.debug.TTY;
+
+//JaCoCo Exclude
+
+/**
+ * A channel that copies the bytes written to it and writes them to an underlying channel on a
+ * shared background thread. Writing to this channel never blocks on I/O. Since dropping part of a
+ * graph would corrupt the stream, clients should check {@link #isBacklogged()} before serializing
+ * a graph and drop the complete graph if the writer thread is behind.
+ */
+public final class AsyncWritableByteChannel implements WritableByteChannel {
+
+    private final WritableByteChannel channel;
+    private volatile boolean open = true;
+    private volatile IOException failure;
+
+    public AsyncWritableByteChannel(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Determines if more bytes than allowed by {@link Options#PrintGraphAsyncBufferSize} are waiting
+     * to be written by the background thread.
+     */
+    public boolean isBacklogged() {
+        return Writer.INSTANCE.queuedBytes.get() >= Options.PrintGraphAsyncBufferSize.getValue() * 1024L;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        byte[] data = new byte[src.remaining()];
+        src.get(data);
+        Writer.INSTANCE.enqueue(new Chunk(this, data));
+        return data.length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes the underlying channel once all bytes written so far have been written to it.
+     */
+    @Override
+    public void close() {
+        if (open) {
+            open = false;
+            Writer.INSTANCE.enqueue(new Chunk(this, null));
+        }
+    }
+
+    /**
+     * Bytes to be written to a channel or, if {@link #data} is {@code null}, a request to close it.
+     */
+    private static final class Chunk {
+        final AsyncWritableByteChannel target;
+        final byte[] data;
+
+        Chunk(AsyncWritableByteChannel target, byte[] data) {
+            this.target = target;
+            this.data = data;
+        }
+
+        int size() {
+            return data == null ? 0 : data.length;
+        }
+
+        void writeOut() {
+            WritableByteChannel channel = target.channel;
+            try {
+                if (data == null) {
+                    channel.close();
+                } else if (target.failure == null) {
+                    ByteBuffer buffer = ByteBuffer.wrap(data);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            } catch (IOException e) {
+                if (target.failure == null) {
+                    TTY.println("Failed to write graph dump: %s", e);
+                }
+                target.failure = e;
+            }
+        }
+    }
+
+    /**
+     * The background thread shared by all {@link AsyncWritableByteChannel}s. It is started on
+     * first use and writes the remaining chunks when the VM shuts down.
+     */
+    private static final class Writer extends Thread {
+
+        static final Writer INSTANCE = new Writer();
+
+        private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+        private final LinkedBlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        final AtomicLong queuedBytes = new AtomicLong();
+
+        private Writer() {
+            super("GraalGraphWriter");
+            setDaemon(true);
+            start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "GraalGraphWriterShutdown"));
+        }
+
+        void enqueue(Chunk chunk) {
+            queuedBytes.addAndGet(chunk.size());
+            queue.add(chunk);
+        }
+
+        /**
+         * Waits until all chunks enqueued so far have been written out.
+         */
+        private void drain() {
+            CountDownLatch drained = new CountDownLatch(1);
+            queue.add(drained);
+            try {
+                drained.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // give up on the remaining dumps
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Object item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (item instanceof CountDownLatch) {
+                    ((CountDownLatch) item).countDown();
+                } else {
+                    Chunk chunk = (Chunk) item;
+                    chunk.writeOut();
+                    queuedBytes.addAndGet(-chunk.size());
+                }
+            }
+        }
+    }
+}
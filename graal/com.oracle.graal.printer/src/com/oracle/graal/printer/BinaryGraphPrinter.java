@@ -39,6 +39,7 @@ import java.util.Map.Entry;
 
 import com.oracle.graal.compiler.common.cfg.BlockMap;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.debug.GraalDebugConfig.Options;
 import com.oracle.graal.graph.CachedGraph;
 import com.oracle.graal.graph.Edges;
@@ -70,6 +71,8 @@ import jdk.vm.ci.meta.Signature;
 
 public class BinaryGraphPrinter implements GraphPrinter {
 
+    private static final DebugCounter DroppedGraphs = Debug.counter("DroppedGraphDumps");
+
     private static final int CONSTANT_POOL_MAX_SIZE = 8000;
 
     private static final int BEGIN_GROUP = 0x00;
@@ -147,6 +150,7 @@ public class BinaryGraphPrinter implements GraphPrinter {
     private final ConstantPool constantPool;
     private final ByteBuffer buffer;
     private final WritableByteChannel channel;
+    private long bytesWritten;
 
     private static final Charset utf8 = Charset.forName("UTF-8");
 
@@ -159,6 +163,10 @@ public class BinaryGraphPrinter implements GraphPrinter {
 
     @Override
     public void print(Graph graph, String title, Map<Object, Object> properties) throws IOException {
+        if (channel instanceof AsyncWritableByteChannel && ((AsyncWritableByteChannel) channel).isBacklogged()) {
+            DroppedGraphs.increment();
+            return;
+        }
         writeByte(BEGIN_GRAPH);
         writePoolObject(title);
         writeGraph(graph, properties);
@@ -195,10 +203,17 @@ public class BinaryGraphPrinter implements GraphPrinter {
 
     private void flush() throws IOException {
         buffer.flip();
-        channel.write(buffer);
+        bytesWritten += channel.write(buffer);
         buffer.compact();
     }
 
+    /**
+     * Gets the number of bytes written to the channel of this printer so far.
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
     private void ensureAvailable(int i) throws IOException {
         assert buffer.capacity() >= i : "Can not make " + i + " bytes available, buffer is too small";
         while (buffer.remaining() < i) {
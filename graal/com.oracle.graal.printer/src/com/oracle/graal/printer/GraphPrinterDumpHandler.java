@@ -32,10 +32,12 @@ import java.net.Socket;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -74,6 +76,11 @@ public class GraphPrinterDumpHandler implements DebugDumpHandler {
     private final String jvmArguments;
     private final String sunJavaCommand;
 
+    /**
+     * The files written by this handler, most recent last. Only used when rotating files.
+     */
+    private final ArrayDeque<Path> files = new ArrayDeque<>();
+
     /**
      * Creates a new {@link GraphPrinterDumpHandler}.
      */
@@ -114,11 +121,13 @@ public class GraphPrinterDumpHandler implements DebugDumpHandler {
         Path path = getFilePrinterPath();
         try {
             if (Options.PrintBinaryGraphs.getValue()) {
-                printer = new BinaryGraphPrinter(FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW));
+                printer = new BinaryGraphPrinter(asyncIfEnabled(FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)));
             } else {
                 printer = new IdealGraphPrinter(Files.newOutputStream(path), true);
             }
             TTY.println("Dumping IGV graphs to %s", path.toString());
+            deleteOldFiles();
+            files.addLast(path);
         } catch (IOException e) {
             TTY.println("Failed to open %s to dump IGV graphs : %s", path.toString(), e);
             failuresCount++;
@@ -146,7 +155,7 @@ public class GraphPrinterDumpHandler implements DebugDumpHandler {
         int port = Options.PrintBinaryGraphs.getValue() ? Options.PrintBinaryGraphPort.getValue() : Options.PrintIdealGraphPort.getValue();
         try {
             if (Options.PrintBinaryGraphs.getValue()) {
-                printer = new BinaryGraphPrinter(SocketChannel.open(new InetSocketAddress(host, port)));
+                printer = new BinaryGraphPrinter(asyncIfEnabled(SocketChannel.open(new InetSocketAddress(host, port))));
             } else {
                 IdealGraphPrinter xmlPrinter = new IdealGraphPrinter(new Socket(host, port).getOutputStream(), true);
                 printer = xmlPrinter;
@@ -166,6 +175,47 @@ public class GraphPrinterDumpHandler implements DebugDumpHandler {
         }
     }
 
+    private static WritableByteChannel asyncIfEnabled(WritableByteChannel channel) {
+        if (Options.PrintGraphAsync.getValue()) {
+            return new AsyncWritableByteChannel(channel);
+        }
+        return channel;
+    }
+
+    /**
+     * Closes the current binary graph file if it has grown beyond
+     * {@link Options#PrintGraphFileRotationSize} so that the next dump starts a new file.
+     */
+    private void rotateFileIfNeeded() {
+        int rotationSize = Options.PrintGraphFileRotationSize.getValue();
+        if (rotationSize <= 0 || !(printer instanceof BinaryGraphPrinter) || !Options.PrintIdealGraphFile.getValue()) {
+            return;
+        }
+        if (((BinaryGraphPrinter) printer).getBytesWritten() < rotationSize * 1024L) {
+            return;
+        }
+        close();
+    }
+
+    /**
+     * Deletes the oldest files when rotating files so that, together with the file that was just
+     * opened, no more than {@link Options#PrintGraphFileRotationCount} files are kept.
+     */
+    private void deleteOldFiles() {
+        int rotationCount = Options.PrintGraphFileRotationCount.getValue();
+        if (rotationCount <= 0 || Options.PrintGraphFileRotationSize.getValue() <= 0) {
+            return;
+        }
+        while (files.size() >= rotationCount) {
+            Path oldest = files.removeFirst();
+            try {
+                Files.deleteIfExists(oldest);
+            } catch (IOException e) {
+                TTY.println("Failed to delete %s : %s", oldest.toString(), e);
+            }
+        }
+    }
+
     @Override
     @SuppressWarnings("try")
     public void dump(Object object, final String message) {
@@ -223,6 +273,7 @@ public class GraphPrinterDumpHandler implements DebugDumpHandler {
                     properties.put("date", new Date().toString());
                     properties.put("scope", Debug.currentScope());
                     printer.print(graph, nextDumpId() + ":" + message, properties);
+                    rotateFileIfNeeded();
                 } catch (IOException e) {
                     failuresCount++;
                     printer = null;
@@ -331,10 +382,12 @@ public class GraphPrinterDumpHandler implements DebugDumpHandler {
 
     @Override
     public void close() {
-        if (previousInlineContext != null) {
+        if (previousInlineContext != null && printer != null) {
             for (int inlineDepth = 0; inlineDepth < previousInlineContext.size(); inlineDepth++) {
                 closeScope(inlineDepth);
             }
+            // the scopes are reopened in the next file, if any
+            previousInlineContext = null;
         }
         if (printer != null) {
             printer.close();
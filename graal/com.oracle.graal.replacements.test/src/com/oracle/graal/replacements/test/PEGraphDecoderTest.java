@@ -22,9 +22,12 @@
  */
 package com.oracle.graal.replacements.test;
 
+import java.util.Collections;
+
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.oracle.graal.compiler.common.LocationIdentity;
@@ -32,6 +35,7 @@ import com.oracle.graal.compiler.common.type.StampFactory;
 import com.oracle.graal.compiler.test.GraalCompilerTest;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.EncodedGraphCache;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.ValueNode;
@@ -150,4 +154,35 @@ public class PEGraphDecoderTest extends GraalCompilerTest {
             Debug.handle(ex);
         }
     }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testSharedCache() {
+        ResolvedJavaMethod testMethod = getResolvedJavaMethod(PEGraphDecoderTest.class, "doTest", Object.class);
+        ResolvedJavaMethod invokeComplicatedMethod = getResolvedJavaMethod(PEGraphDecoderTest.class, "invokeComplicated");
+        try (Debug.Scope scope = Debug.scope("GraphPETest", testMethod)) {
+            GraphBuilderConfiguration graphBuilderConfig = GraphBuilderConfiguration.getDefault(getDefaultGraphBuilderPlugins()).withEagerResolving(true);
+            registerPlugins(graphBuilderConfig.getPlugins().getInvocationPlugins());
+            EncodedGraphCache graphCache = new EncodedGraphCache(100);
+
+            StructuredGraph firstGraph = new StructuredGraph(testMethod, AllowAssumptions.YES);
+            new CachingPEGraphDecoder(getProviders(), graphBuilderConfig, OptimisticOptimizations.NONE, AllowAssumptions.YES, getTarget().arch, graphCache).decode(firstGraph, testMethod, null,
+                            null, new InlineInvokePlugin[]{new InlineAll()}, null);
+            int cachedGraphs = graphCache.size();
+            Assert.assertTrue(cachedGraphs > 0);
+            Assert.assertTrue(firstGraph.getInlinedMethods().contains(invokeComplicatedMethod));
+
+            StructuredGraph secondGraph = new StructuredGraph(testMethod, AllowAssumptions.YES);
+            new CachingPEGraphDecoder(getProviders(), graphBuilderConfig, OptimisticOptimizations.NONE, AllowAssumptions.YES, getTarget().arch, graphCache).decode(secondGraph, testMethod, null,
+                            null, new InlineInvokePlugin[]{new InlineAll()}, null);
+            secondGraph.verify();
+            Assert.assertEquals(cachedGraphs, graphCache.size());
+            Assert.assertEquals(firstGraph.getNodeCount(), secondGraph.getNodeCount());
+
+            graphCache.invalidate(Collections.singletonList(invokeComplicatedMethod));
+            Assert.assertTrue(graphCache.size() < cachedGraphs);
+        } catch (Throwable ex) {
+            throw Debug.handle(ex);
+        }
+    }
 }
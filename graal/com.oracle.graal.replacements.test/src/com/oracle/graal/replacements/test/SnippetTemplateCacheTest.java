@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.replacements.SnippetTemplate.TemplateCache;
+
+public class SnippetTemplateCacheTest {
+
+    private static final int SIZE = 8;
+
+    @Test
+    public void testHotKeySurvives() {
+        TemplateCache<Integer, String> cache = new TemplateCache<>(SIZE);
+        cache.put(-1, "hot");
+        for (int i = 0; i < 100 * SIZE; i++) {
+            Assert.assertEquals("hot", cache.get(-1));
+            cache.put(i, "cold" + i);
+            Assert.assertTrue(cache.size() <= SIZE);
+        }
+        Assert.assertEquals("hot", cache.get(-1));
+    }
+
+    @Test
+    public void testColdKeysEvicted() {
+        TemplateCache<Integer, String> cache = new TemplateCache<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            cache.put(i, "old" + i);
+        }
+        int hotKeys = SIZE / 2;
+        for (int i = SIZE; i < 10 * SIZE; i++) {
+            for (int hot = 0; hot < hotKeys; hot++) {
+                Assert.assertEquals("old" + hot, cache.get(hot));
+            }
+            cache.put(i, "new" + i);
+            Assert.assertEquals(SIZE, cache.size());
+        }
+        for (int i = hotKeys; i < SIZE; i++) {
+            Assert.assertNull("cold key " + i + " should have been evicted", cache.get(i));
+        }
+    }
+}
@@ -24,12 +24,10 @@ package com.oracle.graal.replacements;
 
 import static com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext.CompilationContext.INLINE_AFTER_PARSING;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.nodes.EncodedGraphCache;
 import com.oracle.graal.nodes.GraphEncoder;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
@@ -45,7 +43,8 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
 
 /**
  * A graph decoder that provides all necessary encoded graphs on-the-fly (by parsing the methods and
- * encoding the graphs).
+ * encoding the graphs). The encoded graphs are kept in an {@link EncodedGraphCache} that can be
+ * shared with other decoders using the same {@link GraphBuilderConfiguration}.
  */
 public class CachingPEGraphDecoder extends PEGraphDecoder {
 
@@ -53,17 +52,27 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
     protected final GraphBuilderConfiguration graphBuilderConfig;
     protected final OptimisticOptimizations optimisticOpts;
     private final AllowAssumptions allowAssumptions;
-    private final Map<ResolvedJavaMethod, EncodedGraph> graphCache;
+    private final EncodedGraphCache graphCache;
 
     public CachingPEGraphDecoder(Providers providers, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts, AllowAssumptions allowAssumptions,
                     Architecture architecture) {
+        this(providers, graphBuilderConfig, optimisticOpts, allowAssumptions, architecture, new EncodedGraphCache(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Creates a decoder that looks up and stores encoded graphs in {@code graphCache}. All decoders
+     * sharing a cache must be created with the same {@code graphBuilderConfig} and
+     * {@code optimisticOpts}.
+     */
+    public CachingPEGraphDecoder(Providers providers, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts, AllowAssumptions allowAssumptions,
+                    Architecture architecture, EncodedGraphCache graphCache) {
         super(providers.getMetaAccess(), providers.getConstantReflection(), providers.getConstantFieldProvider(), providers.getStampProvider(), architecture);
 
         this.providers = providers;
         this.graphBuilderConfig = graphBuilderConfig;
         this.optimisticOpts = optimisticOpts;
         this.allowAssumptions = allowAssumptions;
-        this.graphCache = new HashMap<>();
+        this.graphCache = graphCache;
     }
 
     protected GraphBuilderPhase.Instance createGraphBuilderPhaseInstance(IntrinsicContext initialIntrinsicContext) {
@@ -84,8 +93,7 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
             new CanonicalizerPhase().apply(graph, context);
 
             EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graph, architecture);
-            graphCache.put(method, encodedGraph);
-            return encodedGraph;
+            return graphCache.putIfAbsent(method, isIntrinsic, allowAssumptions, encodedGraph);
 
         } catch (Throwable ex) {
             throw Debug.handle(ex);
@@ -94,7 +102,7 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
 
     @Override
     protected EncodedGraph lookupEncodedGraph(ResolvedJavaMethod method, boolean isIntrinsic) {
-        EncodedGraph result = graphCache.get(method);
+        EncodedGraph result = graphCache.get(method, isIntrinsic, allowAssumptions);
         if (result == null && method.hasBytecodes()) {
             result = createGraph(method, isIntrinsic);
         }
@@ -603,9 +603,17 @@ public abstract class DefaultJavaLoweringProvider implements LoweringProvider {
             finishAllocatedObjects(tool, commit, allocations);
             graph.removeFixed(commit);
 
-            for (AbstractNewObjectNode recursiveLowering : recursiveLowerings) {
-                recursiveLowering.lower(tool);
-            }
+            lowerCommittedAllocations(recursiveLowerings, tool);
+        }
+    }
+
+    /**
+     * Lowers the allocations created for a {@link CommitAllocationNode}. They appear in the list in
+     * control flow order and are only separated by their initializing writes.
+     */
+    protected void lowerCommittedAllocations(List<AbstractNewObjectNode> allocations, LoweringTool tool) {
+        for (AbstractNewObjectNode allocation : allocations) {
+            allocation.lower(tool);
         }
     }
 
@@ -88,6 +88,7 @@ import com.oracle.graal.phases.common.inlining.InliningUtil;
 import jdk.vm.ci.code.Architecture;
 import jdk.vm.ci.code.BailoutException;
 import jdk.vm.ci.code.BytecodeFrame;
+import jdk.vm.ci.meta.Assumptions;
 import jdk.vm.ci.meta.ConstantReflectionProvider;
 import jdk.vm.ci.meta.DeoptimizationAction;
 import jdk.vm.ci.meta.DeoptimizationReason;
@@ -372,7 +373,11 @@ public abstract class PEGraphDecoder extends SimplifyingGraphDecoder {
 
     public void decode(StructuredGraph targetGraph, ResolvedJavaMethod method, LoopExplosionPlugin loopExplosionPlugin, InvocationPlugins invocationPlugins, InlineInvokePlugin[] inlineInvokePlugins,
                     ParameterPlugin parameterPlugin) {
-        PEMethodScope methodScope = new PEMethodScope(targetGraph, null, null, lookupEncodedGraph(method, false), method, null, 0, loopExplosionPlugin, invocationPlugins, inlineInvokePlugins,
+        EncodedGraph encodedGraph = lookupEncodedGraph(method, false);
+        if (encodedGraph != null) {
+            recordGraphElements(targetGraph, encodedGraph);
+        }
+        PEMethodScope methodScope = new PEMethodScope(targetGraph, null, null, encodedGraph, method, null, 0, loopExplosionPlugin, invocationPlugins, inlineInvokePlugins,
                         parameterPlugin, null);
         decode(createInitialLoopScope(methodScope, null));
         cleanupGraph(methodScope, null);
@@ -559,6 +564,9 @@ public abstract class PEGraphDecoder extends SimplifyingGraphDecoder {
             plugin.notifyBeforeInline(inlineMethod);
         }
 
+        methodScope.graph.recordInlinedMethod(inlineMethod);
+        recordGraphElements(methodScope.graph, graphToInline);
+
         Invoke invoke = invokeData.invoke;
         FixedNode invokeNode = invoke.asNode();
         FixedWithNextNode predecessor = (FixedWithNextNode) invokeNode.predecessor();
@@ -697,6 +705,24 @@ public abstract class PEGraphDecoder extends SimplifyingGraphDecoder {
 
     protected abstract EncodedGraph lookupEncodedGraph(ResolvedJavaMethod method, boolean isIntrinsic);
 
+    /**
+     * Transfers the assumptions and inlined methods of {@code encodedGraph} to the graph being
+     * built. The encoded graph may have been parsed by an earlier compilation, so these must be
+     * recorded again for the dependencies of the resulting code to be complete.
+     */
+    protected static void recordGraphElements(StructuredGraph targetGraph, EncodedGraph encodedGraph) {
+        Assumptions assumptions = encodedGraph.getAssumptions();
+        if (assumptions != null && targetGraph.getAssumptions() != null) {
+            targetGraph.getAssumptions().record(assumptions);
+        }
+        List<ResolvedJavaMethod> inlinedMethods = encodedGraph.getInlinedMethods();
+        if (inlinedMethods != null) {
+            for (ResolvedJavaMethod inlinedMethod : inlinedMethods) {
+                targetGraph.recordInlinedMethod(inlinedMethod);
+            }
+        }
+    }
+
     @SuppressWarnings("try")
     @Override
     protected void handleFixedNode(MethodScope s, LoopScope loopScope, int nodeOrderId, FixedNode node) {
@@ -37,10 +37,11 @@ import java.util.Collections;
 import java.util.Formattable;
 import java.util.Formatter;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -537,6 +538,9 @@ public class SnippetTemplate {
 
     private static final DebugTimer SnippetTemplateCreationTime = Debug.timer("SnippetTemplateCreationTime");
     private static final DebugCounter SnippetTemplates = Debug.counter("SnippetTemplateCount");
+    private static final DebugCounter SnippetTemplateCacheHits = Debug.counter("SnippetTemplateCacheHits");
+    private static final DebugCounter SnippetTemplateCacheMisses = Debug.counter("SnippetTemplateCacheMisses");
+    private static final DebugCounter SnippetTemplateCacheEvictions = Debug.counter("SnippetTemplateCacheEvictions");
 
     static class Options {
         @Option(help = "Use a LRU cache for snippet templates.")//
@@ -554,7 +558,7 @@ public class SnippetTemplate {
         protected final Providers providers;
         protected final SnippetReflectionProvider snippetReflection;
         protected final TargetDescription target;
-        private final Map<CacheKey, SnippetTemplate> templates;
+        private final TemplateCache<CacheKey, SnippetTemplate> templates;
 
         protected AbstractTemplates(Providers providers, SnippetReflectionProvider snippetReflection, TargetDescription target) {
             this.providers = providers;
@@ -562,7 +566,7 @@ public class SnippetTemplate {
             this.target = target;
             if (Options.UseSnippetTemplateCache.getValue()) {
                 int size = Options.MaxTemplatesPerSnippet.getValue();
-                this.templates = Collections.synchronizedMap(new LRUCache<>(size, size));
+                this.templates = new TemplateCache<>(size);
             } else {
                 this.templates = null;
             }
@@ -618,18 +622,103 @@ public class SnippetTemplate {
         }
     }
 
-    private static final class LRUCache<K, V> extends LinkedHashMap<K, V> {
-        private static final long serialVersionUID = 1L;
+    /**
+     * A concurrent cache with approximate LRU eviction based on the CLOCK algorithm. A lookup only
+     * sets the reference bit of the entry it finds, so compiler threads that lower nodes with the
+     * same snippets concurrently do not contend on a lock. When the cache grows beyond its maximum
+     * size, one thread at a time advances the clock hand over the entries, evicting entries whose
+     * reference bit is clear and clearing the bit of all others, which gives them a second chance.
+     * New entries start with a clear reference bit, so templates that are only instantiated once
+     * cannot push out entries that are looked up repeatedly. The hand keeps its position between
+     * evictions. It moves over a snapshot of the keys that is
+     * taken again whenever the hand completes a rotation, so entries added in the meantime are
+     * visited in the next rotation.
+     */
+    public static final class TemplateCache<K, V> {
+
+        private static final class Entry<V> {
+            final V value;
+            volatile boolean referenced;
+
+            Entry(V value) {
+                this.value = value;
+            }
+        }
+
+        private final ConcurrentHashMap<K, Entry<V>> entries;
         private final int maxCacheSize;
+        private final AtomicBoolean evicting = new AtomicBoolean();
 
-        LRUCache(int initialCapacity, int maxCacheSize) {
-            super(initialCapacity, 0.75F, true);
+        /**
+         * The keys the clock hand moves over and the position of the hand. Only accessed by the
+         * thread that holds {@link #evicting}.
+         */
+        private Object[] clockKeys = new Object[0];
+        private int clockHand;
+
+        public TemplateCache(int maxCacheSize) {
+            this.entries = new ConcurrentHashMap<>(maxCacheSize);
             this.maxCacheSize = maxCacheSize;
         }
 
-        @Override
-        protected boolean removeEldestEntry(java.util.Map.Entry<K, V> eldest) {
-            return size() > maxCacheSize;
+        public V get(K key) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                SnippetTemplateCacheMisses.increment();
+                return null;
+            }
+            SnippetTemplateCacheHits.increment();
+            if (!entry.referenced) {
+                // Avoid writing to the shared entry if the bit is already set
+                entry.referenced = true;
+            }
+            return entry.value;
+        }
+
+        public void put(K key, V value) {
+            entries.put(key, new Entry<>(value));
+            if (entries.size() > maxCacheSize) {
+                evict();
+            }
+        }
+
+        public int size() {
+            return entries.size();
+        }
+
+        private void evict() {
+            if (!evicting.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                // Finish the current rotation, then at most two more: the first of them may only
+                // clear reference bits, the second one evicts for sure
+                int steps = clockKeys.length - clockHand + 2 * entries.size();
+                while (entries.size() > maxCacheSize && steps-- > 0) {
+                    if (clockHand >= clockKeys.length) {
+                        clockKeys = entries.keySet().toArray();
+                        clockHand = 0;
+                        if (clockKeys.length == 0) {
+                            break;
+                        }
+                    }
+                    @SuppressWarnings("unchecked")
+                    K key = (K) clockKeys[clockHand];
+                    clockKeys[clockHand++] = null;
+                    Entry<V> entry = entries.get(key);
+                    if (entry == null) {
+                        // already evicted or replaced
+                        continue;
+                    }
+                    if (entry.referenced) {
+                        entry.referenced = false;
+                    } else if (entries.remove(key, entry)) {
+                        SnippetTemplateCacheEvictions.increment();
+                    }
+                }
+            } finally {
+                evicting.set(false);
+            }
         }
     }
 
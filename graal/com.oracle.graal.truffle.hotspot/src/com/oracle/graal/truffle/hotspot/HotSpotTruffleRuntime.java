@@ -105,6 +105,7 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
         private StackIntrospection stackIntrospection;
 
         Lazy(HotSpotTruffleRuntime runtime) {
+            super(runtime);
             runtime.installDefaultListeners();
         }
 
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.oracle.graal.truffle.CompilationQueue;
+import com.oracle.graal.truffle.GraalTruffleRuntime;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.debug.AbstractDebugCompilationListener;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+public class CompilationQueueTest {
+    private static final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+    private static final Field compilationTaskField;
+    static {
+        try {
+            compilationTaskField = OptimizedCallTarget.class.getDeclaredField("compilationTask");
+            compilationTaskField.setAccessible(true);
+        } catch (NoSuchFieldException | SecurityException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static OptimizedCallTarget createTarget(String name, int calls) {
+        OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new RootTestNode(new FrameDescriptor(), name, new ConstantTestNode(42)));
+        call(target, calls);
+        return target;
+    }
+
+    private static void call(OptimizedCallTarget target, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertEquals(42, target.call());
+        }
+    }
+
+    private static OptimizedCallTarget take(CompilationQueue queue) {
+        CompilationQueue.Task task = (CompilationQueue.Task) queue.poll();
+        return task == null ? null : task.getCallTarget();
+    }
+
+    @Test
+    public void testTakeOrder() {
+        CompilationQueue queue = new CompilationQueue(runtime);
+        OptimizedCallTarget cold = createTarget("cold", 1);
+        OptimizedCallTarget hot = createTarget("hot", 20);
+        OptimizedCallTarget warm = createTarget("warm", 10);
+        OptimizedCallTarget warm2 = createTarget("warm2", 10);
+        queue.offer(queue.createTask(cold));
+        queue.offer(queue.createTask(warm));
+        queue.offer(queue.createTask(hot));
+        queue.offer(queue.createTask(warm2));
+        assertEquals(4, queue.getQueuedCount());
+        assertSame(hot, take(queue));
+        assertSame("equally hot targets are taken in submission order", warm, take(queue));
+        assertSame(warm2, take(queue));
+        assertSame(cold, take(queue));
+        assertNull(take(queue));
+    }
+
+    @Test
+    public void testReprioritize() {
+        CompilationQueue queue = new CompilationQueue(runtime);
+        OptimizedCallTarget first = createTarget("first", 5);
+        OptimizedCallTarget second = createTarget("second", 10);
+        queue.offer(queue.createTask(first));
+        queue.offer(queue.createTask(second));
+        call(first, 20);
+        queue.reprioritize();
+        assertEquals(2, queue.getQueuedCount());
+        assertSame(first, take(queue));
+        assertSame(second, take(queue));
+    }
+
+    @Test
+    public void testDropStaleTasks() throws IllegalAccessException {
+        CompilationQueue queue = new CompilationQueue(runtime);
+        OptimizedCallTarget compiled = createTarget("compiled", 20);
+        OptimizedCallTarget cancelled = createTarget("cancelled", 15);
+        OptimizedCallTarget waiting = createTarget("waiting", 1);
+
+        compiled.compile();
+        try {
+            runtime.waitForCompilation(compiled, 10000);
+        } catch (ExecutionException | TimeoutException e) {
+            fail("timeout");
+        }
+        assertTrue(compiled.isValid());
+
+        CompilationQueue.Task compiledTask = queue.createTask(compiled);
+        compilationTaskField.set(compiled, compiledTask);
+        CompilationQueue.Task cancelledTask = queue.createTask(cancelled);
+        queue.offer(compiledTask);
+        queue.offer(cancelledTask);
+        queue.offer(queue.createTask(waiting));
+        cancelledTask.cancel(false);
+
+        assertSame(waiting, take(queue));
+        assertTrue(compiledTask.isCancelled());
+        assertFalse("a dropped task must allow the call target to be submitted again", compiled.isCompiling());
+        assertNull(take(queue));
+    }
+
+    @Test
+    public void testTakenFromQueueListener() {
+        CompilationQueue queue = new CompilationQueue(runtime);
+        OptimizedCallTarget target = createTarget("taken", 1);
+        OptimizedCallTarget other = createTarget("other", 0);
+        int[] notifiedQueueSize = {-1};
+        AbstractDebugCompilationListener listener = new AbstractDebugCompilationListener() {
+            @Override
+            public void notifyCompilationTakenFromQueue(OptimizedCallTarget t, int queueSize, long waitNanos) {
+                if (t == target) {
+                    assertTrue(waitNanos >= 0);
+                    notifiedQueueSize[0] = queueSize;
+                }
+            }
+        };
+        runtime.addCompilationListener(listener);
+        try {
+            queue.offer(queue.createTask(target));
+            queue.offer(queue.createTask(other));
+            queue.poll().run();
+            assertEquals(1, notifiedQueueSize[0]);
+            assertTrue(target.isValid());
+        } finally {
+            runtime.removeCompilationListener(listener);
+        }
+    }
+}
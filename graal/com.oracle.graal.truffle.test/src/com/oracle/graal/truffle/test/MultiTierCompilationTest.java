@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.tiers.Suites;
+import com.oracle.graal.truffle.DefaultTruffleCompiler;
+import com.oracle.graal.truffle.GraalTruffleRuntime;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.TruffleCompiler;
+import com.oracle.graal.truffle.TruffleCompilerOptions;
+import com.oracle.graal.truffle.TruffleInlining;
+import com.oracle.graal.truffle.debug.AbstractDebugCompilationListener;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.graal.virtual.phases.ea.PartialEscapePhase;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+/**
+ * Tests the compilation of call targets in two tiers with
+ * {@link TruffleCompilerOptions#TruffleMultiTier}. The first tier compilations are done by a
+ * compiler created while the option is enabled. The second tier compilations are requested by the
+ * first tier code.
+ */
+public class MultiTierCompilationTest {
+    private static final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+
+    private static OverrideScope enableMultiTier() {
+        return OptionValue.override(TruffleCompilerOptions.TruffleMultiTier, true, TruffleCompilerOptions.TruffleBackgroundCompilation, false);
+    }
+
+    private static Suites getSuites(TruffleCompiler compiler, String name) {
+        try {
+            Field field = TruffleCompiler.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return (Suites) field.get(compiler);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static OptimizedCallTarget createFirstTierTarget(TruffleCompiler compiler, String name) {
+        OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new RootTestNode(new FrameDescriptor(), name, new ConstantTestNode(42)));
+        assertEquals(42, target.call());
+        assertFalse(target.isValid());
+
+        compiler.compileMethod(target);
+        assertTrue(target.isValid());
+        assertTrue(target.isFirstTierCompiled());
+        return target;
+    }
+
+    private static void callUntilSecondTier(OptimizedCallTarget target) {
+        int threshold = TruffleCompilerOptions.TruffleCompilationThreshold.getValue();
+        for (int i = 0; i < threshold; i++) {
+            assertEquals(42, target.call());
+        }
+        assertTrue(target.getCompilationProfile().getFirstTierCallCount() >= threshold);
+        try {
+            runtime.waitForCompilation(target, 10000);
+        } catch (ExecutionException | TimeoutException e) {
+            fail("timeout");
+        }
+    }
+
+    @Test
+    public void testFirstTierSuites() {
+        try (OverrideScope s = enableMultiTier()) {
+            TruffleCompiler compiler = DefaultTruffleCompiler.create(runtime);
+            Suites suites = getSuites(compiler, "suites");
+            Suites firstTierSuites = getSuites(compiler, "firstTierSuites");
+            assertNotSame(suites, firstTierSuites);
+            assertNull("first tier must use the economy high tier", firstTierSuites.getHighTier().findPhase(PartialEscapePhase.class));
+        }
+    }
+
+    @Test
+    public void testSecondTierReplacesFirstTier() {
+        try (OverrideScope s = enableMultiTier()) {
+            TruffleCompiler compiler = DefaultTruffleCompiler.create(runtime);
+            OptimizedCallTarget target = createFirstTierTarget(compiler, "testSecondTierReplacesFirstTier");
+            assertEquals(0, target.getCompilationProfile().getFirstTierCallCount());
+
+            boolean[] secondTierStarted = {false};
+            boolean[] firstTierCodeDuringSecondTier = {false};
+            AbstractDebugCompilationListener listener = new AbstractDebugCompilationListener() {
+                @Override
+                public void notifyCompilationTruffleTierFinished(OptimizedCallTarget t, TruffleInlining inliningDecision, StructuredGraph graph) {
+                    if (t == target) {
+                        secondTierStarted[0] = true;
+                        firstTierCodeDuringSecondTier[0] = t.isFirstTierCompiled();
+                    }
+                }
+            };
+            runtime.addCompilationListener(listener);
+            try {
+                callUntilSecondTier(target);
+            } finally {
+                runtime.removeCompilationListener(listener);
+            }
+
+            assertTrue("first tier calls must trigger the second tier", secondTierStarted[0]);
+            assertTrue("first tier code stays installed while the second tier is compiled", firstTierCodeDuringSecondTier[0]);
+            assertTrue(target.isValid());
+            assertFalse(target.isFirstTierCompiled());
+
+            // second tier code does not count its calls
+            int firstTierCalls = target.getCompilationProfile().getFirstTierCallCount();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(42, target.call());
+            }
+            assertEquals(firstTierCalls, target.getCompilationProfile().getFirstTierCallCount());
+        }
+    }
+
+    @Test
+    public void testInvalidation() {
+        try (OverrideScope s = enableMultiTier()) {
+            TruffleCompiler compiler = DefaultTruffleCompiler.create(runtime);
+            OptimizedCallTarget target = createFirstTierTarget(compiler, "testInvalidation");
+
+            target.invalidate();
+            assertFalse(target.isValid());
+            assertFalse(target.isFirstTierCompiled());
+
+            // the second tier threshold is not reached yet, so recompile in the first tier
+            compiler.compileMethod(target);
+            assertTrue(target.isValid());
+            assertTrue(target.isFirstTierCompiled());
+
+            callUntilSecondTier(target);
+            assertTrue(target.isValid());
+            assertFalse(target.isFirstTierCompiled());
+
+            target.invalidate();
+            assertFalse(target.isFirstTierCompiled());
+
+            // once the second tier threshold was reached, recompilations stay in the second tier
+            compiler.compileMethod(target);
+            assertTrue(target.isValid());
+            assertFalse(target.isFirstTierCompiled());
+        }
+    }
+}
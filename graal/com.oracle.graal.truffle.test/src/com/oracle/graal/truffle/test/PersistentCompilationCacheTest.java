@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleBackgroundCompilation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.truffle.CompilationProfile;
+import com.oracle.graal.truffle.GraalTruffleRuntime;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.PersistentCompilationCache;
+import com.oracle.graal.truffle.test.nodes.AddTestNode;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+public class PersistentCompilationCacheTest {
+
+    private static final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+    private static final Field cacheField;
+    static {
+        try {
+            cacheField = GraalTruffleRuntime.class.getDeclaredField("persistentCompilationCache");
+            cacheField.setAccessible(true);
+        } catch (NoSuchFieldException | SecurityException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("PersistentCompilationCacheTest", ".cache");
+        Files.delete(file);
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static RootTestNode createAdd(int left, int right) {
+        return new RootTestNode(new FrameDescriptor(), "add", new AddTestNode(new ConstantTestNode(left), new ConstantTestNode(right)));
+    }
+
+    private static RootTestNode createConstant(int value) {
+        return new RootTestNode(new FrameDescriptor(), "constant", new ConstantTestNode(value));
+    }
+
+    @Test
+    public void testSameShapeSameFingerprint() {
+        assertEquals(PersistentCompilationCache.fingerprint(createAdd(1, 2)), PersistentCompilationCache.fingerprint(createAdd(3, 4)));
+    }
+
+    @Test
+    public void testDifferentShapeDifferentFingerprint() {
+        assertNotEquals(PersistentCompilationCache.fingerprint(createAdd(1, 2)), PersistentCompilationCache.fingerprint(createConstant(1)));
+    }
+
+    private void writeCache(long fingerprint) {
+        PersistentCompilationCache cache = PersistentCompilationCache.load(file, runtime);
+        cache.recordCompiled(fingerprint);
+        cache.notifyShutdown(runtime);
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        long add = PersistentCompilationCache.fingerprint(createAdd(1, 2));
+        long constant = PersistentCompilationCache.fingerprint(createConstant(1));
+        assertFalse(PersistentCompilationCache.load(file, runtime).wasCompiled(add));
+        writeCache(add);
+
+        PersistentCompilationCache second = PersistentCompilationCache.load(file, runtime);
+        assertTrue(second.wasCompiled(add));
+        assertFalse(second.wasCompiled(constant));
+
+        // call targets compiled in earlier runs are kept although they were not compiled again
+        second.recordCompiled(constant);
+        second.notifyShutdown(runtime);
+        PersistentCompilationCache third = PersistentCompilationCache.load(file, runtime);
+        assertTrue(third.wasCompiled(add));
+        assertTrue(third.wasCompiled(constant));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testOptionsChanged() {
+        long add = PersistentCompilationCache.fingerprint(createAdd(1, 2));
+        writeCache(add);
+        try (OverrideScope s = OptionValue.override(TruffleBackgroundCompilation, !TruffleBackgroundCompilation.getValue())) {
+            assertFalse(PersistentCompilationCache.load(file, runtime).wasCompiled(add));
+        }
+        assertTrue(PersistentCompilationCache.load(file, runtime).wasCompiled(add));
+    }
+
+    @Test
+    public void testVersionChanged() {
+        long add = PersistentCompilationCache.fingerprint(createAdd(1, 2));
+        writeCache(add);
+        String version = System.getProperty("java.vm.version");
+        System.setProperty("java.vm.version", version + "-other");
+        try {
+            assertFalse(PersistentCompilationCache.load(file, runtime).wasCompiled(add));
+        } finally {
+            System.setProperty("java.vm.version", version);
+        }
+        assertTrue(PersistentCompilationCache.load(file, runtime).wasCompiled(add));
+    }
+
+    @Test
+    public void testCorruptFile() throws IOException {
+        Files.write(file, new byte[]{1, 2, 3});
+        assertFalse(PersistentCompilationCache.load(file, runtime).wasCompiled(PersistentCompilationCache.fingerprint(createAdd(1, 2))));
+    }
+
+    /**
+     * Checks that only call targets compiled in a previous run get lower compilation thresholds
+     * when they are executed for the first time.
+     */
+    @Test
+    public void testThresholdsLowered() throws IllegalAccessException {
+        writeCache(PersistentCompilationCache.fingerprint(createAdd(1, 2)));
+        Object previous = cacheField.get(runtime);
+        cacheField.set(runtime, PersistentCompilationCache.load(file, runtime));
+        try {
+            OptimizedCallTarget known = (OptimizedCallTarget) runtime.createCallTarget(createAdd(5, 6));
+            OptimizedCallTarget unknown = (OptimizedCallTarget) runtime.createCallTarget(createConstant(42));
+            assertEquals(11, known.call());
+            assertEquals(42, unknown.call());
+
+            int defaultThreshold = new CompilationProfile().getCompilationCallAndLoopThreshold();
+            assertEquals(defaultThreshold, unknown.getCompilationProfile().getCompilationCallAndLoopThreshold());
+            int threshold = known.getCompilationProfile().getCompilationCallAndLoopThreshold();
+            assertTrue(threshold < defaultThreshold);
+            assertTrue(threshold <= known.getCompilationProfile().getInterpreterCallAndLoopCount() + known.getCompilationProfile().getCompilationCallThreshold());
+        } finally {
+            cacheField.set(runtime, previous);
+        }
+    }
+}
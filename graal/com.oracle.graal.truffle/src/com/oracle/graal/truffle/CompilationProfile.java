@@ -23,8 +23,11 @@
 package com.oracle.graal.truffle;
 
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleFirstTierCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleFirstTierMinInvokeThreshold;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleInvalidationReprofileCount;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMinInvokeThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMultiTier;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleReplaceReprofileCount;
 
 import java.util.LinkedHashMap;
@@ -43,11 +46,26 @@ public class CompilationProfile {
     private int compilationCallThreshold;
     private int compilationCallAndLoopThreshold;
 
+    /**
+     * Number of calls executed in first tier compiled code (see
+     * {@link TruffleCompilerOptions#TruffleMultiTier}). The interpreter counters above decide when
+     * the first tier compilation happens, this counter decides when the call target is recompiled
+     * in the second tier.
+     */
+    private int firstTierCallCount;
+    private int secondTierCompilationThreshold;
+
     private long timestamp;
 
     public CompilationProfile() {
-        compilationCallThreshold = TruffleMinInvokeThreshold.getValue();
-        compilationCallAndLoopThreshold = TruffleCompilationThreshold.getValue();
+        if (TruffleMultiTier.getValue()) {
+            compilationCallThreshold = TruffleFirstTierMinInvokeThreshold.getValue();
+            compilationCallAndLoopThreshold = TruffleFirstTierCompilationThreshold.getValue();
+        } else {
+            compilationCallThreshold = TruffleMinInvokeThreshold.getValue();
+            compilationCallAndLoopThreshold = TruffleCompilationThreshold.getValue();
+        }
+        secondTierCompilationThreshold = TruffleCompilationThreshold.getValue();
     }
 
     @Override
@@ -63,6 +81,9 @@ public class CompilationProfile {
         String invalidations = String.format("%5d", invalidationCount);
         properties.put("Calls/Thres", callsThreshold);
         properties.put("CallsAndLoop/Thres", loopsThreshold);
+        if (TruffleMultiTier.getValue()) {
+            properties.put("Tier1Calls/Thres", String.format("%7d/%5d", firstTierCallCount, secondTierCompilationThreshold));
+        }
         properties.put("Inval#", invalidations);
         return properties;
     }
@@ -79,6 +100,18 @@ public class CompilationProfile {
         return interpreterCallCount;
     }
 
+    public int getFirstTierCallCount() {
+        return firstTierCallCount;
+    }
+
+    /**
+     * Determines whether first tier compiled code of this call target was called often enough to
+     * justify a second tier compilation.
+     */
+    public boolean isSecondTierCompilationThresholdReached() {
+        return firstTierCallCount >= TruffleCompilationThreshold.getValue();
+    }
+
     public int getDeferedCount() {
         return deferedCount;
     }
@@ -119,6 +152,24 @@ public class CompilationProfile {
         }
     }
 
+    /**
+     * Called from first tier compiled code on every call of the call target.
+     *
+     * @return {@code true} if a second tier compilation should be requested
+     */
+    final boolean reportFirstTierCall() {
+        int count = ++firstTierCallCount;
+        if (count >= secondTierCompilationThreshold) {
+            /*
+             * Do not request a compilation on every subsequent call, but back off and retry in
+             * case the request was dropped (e.g., because the compilation was deferred).
+             */
+            secondTierCompilationThreshold = count > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : count * 2;
+            return true;
+        }
+        return false;
+    }
+
     public void reportDirectCall() {
 
     }
@@ -146,6 +197,15 @@ public class CompilationProfile {
         }
     }
 
+    /**
+     * Lowers the compilation thresholds of a call target that was compiled in a previous run of the
+     * VM (see {@link PersistentCompilationCache}).
+     */
+    void reportCompiledInPreviousRun() {
+        compilationCallAndLoopThreshold = Math.min(compilationCallAndLoopThreshold, interpreterCallAndLoopCount + compilationCallThreshold);
+        timestamp = System.nanoTime();
+    }
+
     void reportNodeReplaced() {
         // delay compilation until tree is deemed stable enough
         int replaceBackoff = TruffleReplaceReprofileCount.getValue();
@@ -157,6 +217,7 @@ public class CompilationProfile {
     }
 
     private static int getTimestampThreshold() {
-        return Math.max(TruffleCompilationThreshold.getValue() / 2, 1);
+        int threshold = TruffleMultiTier.getValue() ? TruffleFirstTierCompilationThreshold.getValue() : TruffleCompilationThreshold.getValue();
+        return Math.max(threshold / 2, 1);
     }
 }
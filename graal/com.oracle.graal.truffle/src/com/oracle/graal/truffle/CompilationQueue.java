@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The work queue of the Truffle background compiler threads. Instead of compiling call targets in
+ * submission order, compiler threads take the {@linkplain Task#getPriority() hottest} call target
+ * first. Since the profiles of call targets keep changing while they wait, the queue is reordered
+ * after a number of takes proportional to its size, which keeps the amortized cost of a take
+ * logarithmic. Tasks are dropped when they are taken or reordered if their call target was garbage
+ * collected, has been compiled in the meantime or if they were cancelled. Requests to recompile
+ * first tier code in the second tier are only dropped once the second tier code is installed.
+ */
+public final class CompilationQueue extends PriorityBlockingQueue<Runnable> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Minimum number of takes between two reorderings of the queue.
+     */
+    private static final int MIN_REPRIORITIZE_INTERVAL = 16;
+
+    private final transient GraalTruffleRuntime runtime;
+    private final AtomicBoolean reprioritizing = new AtomicBoolean();
+    private final AtomicInteger takesSinceReprioritize = new AtomicInteger();
+
+    /**
+     * Number of tasks that are temporarily out of the queue while it is reordered.
+     */
+    private final AtomicInteger reprioritizedTasks = new AtomicInteger();
+
+    public CompilationQueue(GraalTruffleRuntime runtime) {
+        super(INITIAL_CAPACITY, (r1, r2) -> ((Task) r1).compareTo((Task) r2));
+        this.runtime = runtime;
+    }
+
+    /**
+     * Creates a task that compiles {@code callTarget} once a compiler thread takes it from this
+     * queue.
+     */
+    public Task createTask(OptimizedCallTarget callTarget) {
+        return new Task(this, new WeakReference<>(callTarget));
+    }
+
+    /**
+     * Gets the number of tasks waiting in this queue, including tasks that are being reordered.
+     */
+    public int getQueuedCount() {
+        return size() + reprioritizedTasks.get();
+    }
+
+    /**
+     * A compilation request for a call target. The call target is only weakly referenced so that
+     * queued compilations do not keep call targets alive.
+     */
+    public static final class Task extends FutureTask<Void> implements Comparable<Task> {
+
+        private final CompilationQueue queue;
+        private final WeakReference<OptimizedCallTarget> weakCallTarget;
+        private final long sequenceNumber;
+        private final long queuedTime;
+
+        /**
+         * The priority of this task at the time it was (re)inserted into the queue. It must not
+         * change while the task is in the queue.
+         */
+        private long priority;
+
+        private Task(CompilationQueue queue, WeakReference<OptimizedCallTarget> weakCallTarget) {
+            super(() -> {
+                OptimizedCallTarget callTarget = weakCallTarget.get();
+                if (callTarget != null) {
+                    queue.runtime.doCompile(callTarget);
+                }
+                return null;
+            });
+            this.queue = queue;
+            this.weakCallTarget = weakCallTarget;
+            this.sequenceNumber = SEQUENCE.getAndIncrement();
+            this.queuedTime = System.nanoTime();
+            OptimizedCallTarget callTarget = weakCallTarget.get();
+            this.priority = callTarget == null ? 0 : computePriority(callTarget);
+        }
+
+        /**
+         * Gets the priority of this task. Call targets with higher call and loop counts, including
+         * calls of first tier compiled code, have a higher priority.
+         */
+        public long getPriority() {
+            return priority;
+        }
+
+        /**
+         * Gets the call target compiled by this task.
+         *
+         * @return {@code null} if the call target was garbage collected
+         */
+        public OptimizedCallTarget getCallTarget() {
+            return weakCallTarget.get();
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
+            }
+            return Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+
+        @Override
+        public void run() {
+            OptimizedCallTarget callTarget = weakCallTarget.get();
+            if (callTarget != null && !isCancelled()) {
+                queue.runtime.getCompilationNotify().notifyCompilationTakenFromQueue(callTarget, queue.getQueuedCount(), System.nanoTime() - queuedTime);
+            }
+            super.run();
+        }
+
+        /**
+         * Determines if this task should not be compiled anymore and cancels it if so. The call
+         * target of a stale task is no longer considered to be compiling so that it can be
+         * submitted again.
+         */
+        private boolean dropIfStale() {
+            if (isCancelled()) {
+                return true;
+            }
+            OptimizedCallTarget callTarget = weakCallTarget.get();
+            if (callTarget == null) {
+                cancel(false);
+                return true;
+            }
+            if (callTarget.isValid() && !callTarget.isFirstTierCompiled()) {
+                cancel(false);
+                if (callTarget.getCompilationTask() == this) {
+                    callTarget.resetCompilationTask();
+                }
+                queue.runtime.getCompilationNotify().notifyCompilationDequeued(callTarget, null, "Stale compilation task");
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Recomputes the {@link #getPriority() priority} of this task.
+         *
+         * @return {@code false} if this task is stale and should not be compiled anymore
+         */
+        private boolean updatePriority() {
+            if (dropIfStale()) {
+                return false;
+            }
+            OptimizedCallTarget callTarget = weakCallTarget.get();
+            if (callTarget == null) {
+                return false;
+            }
+            priority = computePriority(callTarget);
+            return true;
+        }
+    }
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static long computePriority(OptimizedCallTarget callTarget) {
+        CompilationProfile profile = callTarget.getCompilationProfile();
+        return (long) profile.getInterpreterCallAndLoopCount() + profile.getFirstTierCallCount();
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        maybeReprioritize();
+        while (true) {
+            Task task = (Task) super.take();
+            if (!task.dropIfStale()) {
+                return task;
+            }
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        maybeReprioritize();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Task task = (Task) super.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (task == null || !task.dropIfStale()) {
+                return task;
+            }
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        maybeReprioritize();
+        while (true) {
+            Task task = (Task) super.poll();
+            if (task == null || !task.dropIfStale()) {
+                return task;
+            }
+        }
+    }
+
+    /**
+     * Reorders the queue if enough tasks have been taken since it was last reordered.
+     */
+    private void maybeReprioritize() {
+        if (takesSinceReprioritize.incrementAndGet() >= Math.max(MIN_REPRIORITIZE_INTERVAL, size())) {
+            reprioritize();
+        }
+    }
+
+    /**
+     * Recomputes the priorities of all queued tasks and drops stale tasks. Only one thread
+     * reprioritizes at a time; tasks are removed from the queue while their priority is updated so
+     * that the ordering invariant of the queue is never violated. They are still counted by
+     * {@link #getQueuedCount()} in the meantime.
+     */
+    public void reprioritize() {
+        if (isEmpty() || !reprioritizing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            takesSinceReprioritize.set(0);
+            List<Runnable> tasks = new ArrayList<>(size());
+            reprioritizedTasks.addAndGet(drainTo(tasks));
+            for (Runnable r : tasks) {
+                Task task = (Task) r;
+                if (task.updatePriority()) {
+                    offer(task);
+                }
+                reprioritizedTasks.decrementAndGet();
+            }
+        } finally {
+            reprioritizing.set(false);
+        }
+    }
+}
@@ -23,13 +23,16 @@
 package com.oracle.graal.truffle;
 
 import com.oracle.graal.api.replacements.SnippetReflectionProvider;
+import com.oracle.graal.compiler.phases.EconomyCompilerConfiguration;
 import com.oracle.graal.compiler.target.Backend;
 import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.lir.phases.LIRSuites;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.tiers.CompilerConfiguration;
 import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.phases.tiers.Suites;
+import com.oracle.graal.phases.tiers.SuitesCreator;
 import com.oracle.graal.runtime.RuntimeProvider;
 
 public final class DefaultTruffleCompiler extends TruffleCompiler {
@@ -38,14 +41,25 @@ public final class DefaultTruffleCompiler extends TruffleCompiler {
         Backend backend = runtime.getRequiredGraalCapability(RuntimeProvider.class).getHostBackend();
         Suites suites = backend.getSuites().getDefaultSuites();
         LIRSuites lirSuites = backend.getSuites().getDefaultLIRSuites();
+        Suites firstTierSuites = suites;
+        LIRSuites firstTierLirSuites = lirSuites;
+        if (TruffleCompilerOptions.TruffleMultiTier.getValue() && backend.getSuites() instanceof SuitesCreator) {
+            SuitesCreator suitesCreator = (SuitesCreator) backend.getSuites();
+            CompilerConfiguration firstTierConfiguration = new EconomyCompilerConfiguration();
+            firstTierSuites = suitesCreator.createSuites(firstTierConfiguration);
+            firstTierSuites.setImmutable();
+            firstTierLirSuites = suitesCreator.createLIRSuites(firstTierConfiguration);
+            firstTierLirSuites.setImmutable();
+        }
         GraphBuilderPhase phase = (GraphBuilderPhase) backend.getSuites().getDefaultGraphBuilderSuite().findPhase(GraphBuilderPhase.class).previous();
         Plugins plugins = phase.getGraphBuilderConfig().getPlugins();
         SnippetReflectionProvider snippetReflection = runtime.getRequiredGraalCapability(SnippetReflectionProvider.class);
-        return new DefaultTruffleCompiler(plugins, suites, lirSuites, backend, snippetReflection);
+        return new DefaultTruffleCompiler(plugins, suites, lirSuites, firstTierSuites, firstTierLirSuites, backend, snippetReflection);
     }
 
-    private DefaultTruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Backend backend, SnippetReflectionProvider snippetReflection) {
-        super(plugins, suites, lirSuites, backend, snippetReflection);
+    private DefaultTruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Suites firstTierSuites, LIRSuites firstTierLirSuites, Backend backend,
+                    SnippetReflectionProvider snippetReflection) {
+        super(plugins, suites, lirSuites, firstTierSuites, firstTierLirSuites, backend, snippetReflection);
     }
 
     @Override
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle;
+
+import com.oracle.truffle.api.CompilerOptions;
+
+/**
+ * Inlining policy of first tier compilations (see {@link TruffleCompilerOptions#TruffleMultiTier}
+ * ). Only call sites for which inlining is forced are inlined, which keeps first tier compilations
+ * small and fast. Regular inlining decisions are left to the second tier.
+ */
+public class FirstTierInliningPolicy implements TruffleInliningPolicy {
+
+    private static final String REASON_FIRST_TIER = "first tier compilation";
+
+    @Override
+    public double calculateScore(TruffleInliningProfile profile) {
+        return profile.getFrequency() / profile.getDeepNodeCount();
+    }
+
+    @Override
+    public boolean isAllowed(TruffleInliningProfile profile, int currentNodeCount, CompilerOptions options) {
+        if (profile.isForced()) {
+            return true;
+        }
+        profile.setFailedReason(REASON_FIRST_TIER);
+        return false;
+    }
+}
@@ -32,7 +32,7 @@ import com.oracle.truffle.api.nodes.Node;
  * the Graal Truffle system can be described using the following deterministic automata: * <code>
  * <pre>
  * ( (split | (queue . unqueue))*
- *    . queue . started
+ *    . queue . taken . started
  *    . (truffleTierFinished . graalTierFinished . success)
  *      | ([truffleTierFinished] . [graalTierFinished] . failed)
  *    . invalidate )*
@@ -64,6 +64,16 @@ public interface GraalTruffleCompilationListener {
      */
     void notifyCompilationDequeued(OptimizedCallTarget target, Object source, CharSequence reason);
 
+    /**
+     * Invoked when a compiler thread takes a call target from the compilation queue, right before
+     * the compilation is {@linkplain #notifyCompilationStarted(OptimizedCallTarget) started}.
+     *
+     * @param queueSize the number of call targets that are still waiting in the compilation queue
+     * @param waitNanos the time in nanoseconds the call target spent in the compilation queue
+     */
+    default void notifyCompilationTakenFromQueue(OptimizedCallTarget target, int queueSize, long waitNanos) {
+    }
+
     void notifyCompilationFailed(OptimizedCallTarget target, StructuredGraph graph, Throwable t);
 
     void notifyCompilationStarted(OptimizedCallTarget target);
@@ -26,7 +26,6 @@ import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilation
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompileOnly;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleEnableInfopoints;
 
-import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -35,7 +34,6 @@ import java.util.ServiceLoader;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -94,8 +92,9 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
 
     protected abstract static class BackgroundCompileQueue implements CompilerThreadFactory.DebugConfigAccess {
         private final ExecutorService compileQueue;
+        private final CompilationQueue queue;
 
-        protected BackgroundCompileQueue() {
+        protected BackgroundCompileQueue(GraalTruffleRuntime runtime) {
             CompilerThreadFactory factory = new CompilerThreadFactory("TruffleCompilerThread", this);
 
             int selectedProcessors = TruffleCompilerOptions.TruffleCompilerThreads.getValue();
@@ -109,7 +108,8 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
                 }
             }
             selectedProcessors = Math.max(1, selectedProcessors);
-            compileQueue = Executors.newFixedThreadPool(selectedProcessors, factory);
+            queue = new CompilationQueue(runtime);
+            compileQueue = new ThreadPoolExecutor(selectedProcessors, selectedProcessors, 0L, TimeUnit.MILLISECONDS, queue, factory);
         }
     }
 
@@ -124,6 +124,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
     protected CallMethods callMethods;
 
     private final Supplier<GraalRuntime> graalRuntime;
+    private volatile PersistentCompilationCache persistentCompilationCache;
     private final GraalTVMCI tvmci = new GraalTVMCI();
 
     /**
@@ -167,6 +168,18 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
         return bestFactory;
     }
 
+    /**
+     * Gets the cache of call targets compiled in previous runs, or {@code null} if
+     * {@link TruffleCompilerOptions#TrufflePersistentCompilationCache} is not set.
+     */
+    PersistentCompilationCache getPersistentCompilationCache() {
+        return persistentCompilationCache;
+    }
+
+    void setPersistentCompilationCache(PersistentCompilationCache cache) {
+        this.persistentCompilationCache = cache;
+    }
+
     public void log(String message) {
         TTY.out().println(message);
     }
@@ -181,6 +194,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
         PrintCallTargetProfiling.install(this);
         CompilationStatisticsListener.install(this);
         TraceCompilationASTListener.install(this);
+        PersistentCompilationCache.install(this);
         installShutdownHooks();
         compilationNotify.notifyStartup(this);
     }
@@ -463,16 +477,9 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
 
     public Future<?> submitForCompilation(OptimizedCallTarget optimizedCallTarget) {
         BackgroundCompileQueue l = getCompileQueue();
-        final WeakReference<OptimizedCallTarget> weakCallTarget = new WeakReference<>(optimizedCallTarget);
-        return l.compileQueue.submit(new Runnable() {
-            @Override
-            public void run() {
-                OptimizedCallTarget callTarget = weakCallTarget.get();
-                if (callTarget != null) {
-                    doCompile(callTarget);
-                }
-            }
-        });
+        CompilationQueue.Task task = l.queue.createTask(optimizedCallTarget);
+        l.compileQueue.execute(task);
+        return task;
     }
 
     public void finishCompilation(OptimizedCallTarget optimizedCallTarget, Future<?> future, boolean mayBeAsynchronous) {
@@ -524,12 +531,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
     }
 
     public int getCompilationQueueSize() {
-        ExecutorService executor = getCompileQueue().compileQueue;
-        if (executor instanceof ThreadPoolExecutor) {
-            return ((ThreadPoolExecutor) executor).getQueue().size();
-        } else {
-            return 0;
-        }
+        return getCompileQueue().queue.getQueuedCount();
     }
 
     public boolean isCompiling(OptimizedCallTarget optimizedCallTarget) {
@@ -604,6 +606,13 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
             }
         }
 
+        @Override
+        public void notifyCompilationTakenFromQueue(OptimizedCallTarget target, int queueSize, long waitNanos) {
+            for (GraalTruffleCompilationListener l : compilationListeners) {
+                l.notifyCompilationTakenFromQueue(target, queueSize, waitNanos);
+            }
+        }
+
         @Override
         public void notifyCompilationFailed(OptimizedCallTarget target, StructuredGraph graph, Throwable t) {
             for (GraalTruffleCompilationListener l : compilationListeners) {
@@ -29,6 +29,7 @@ import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCallTargetP
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsAreFatal;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsArePrinted;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsAreThrown;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMultiTier;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleReturnTypeSpeculation;
 
 import java.io.PrintWriter;
@@ -55,6 +56,7 @@ import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.CompilerOptions;
 import com.oracle.truffle.api.OptimizationFailedException;
 import com.oracle.truffle.api.ReplaceObserver;
@@ -93,6 +95,20 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     @CompilationFinal private Class<?> profiledReturnType;
     @CompilationFinal private Assumption profiledReturnTypeAssumption;
 
+    /**
+     * Whether the current or most recent compilation of this call target is a first tier
+     * compilation. Partial evaluation reads this field as a constant, so only first tier code
+     * counts its calls towards the second tier compilation.
+     */
+    @CompilationFinal private volatile boolean firstTierCompilation;
+
+    /**
+     * Whether the most recently installed code of this call target is first tier code. Unlike
+     * {@link #firstTierCompilation}, this is only updated once a compilation installed its code,
+     * so it still describes the installed code while a compilation of the other tier is running.
+     */
+    private volatile boolean firstTierCodeInstalled;
+
     private final RootNode rootNode;
     /** Only set for a source CallTarget with a clonable RootNode. */
     private volatile RootNode uninitializedRootNode;
@@ -105,6 +121,13 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     private int cloneIndex;
     private volatile boolean initialized;
 
+    /**
+     * Fingerprint of the AST at the time of the first execution, only computed if the
+     * {@link PersistentCompilationCache} is enabled.
+     */
+    private long astFingerprint;
+    private volatile boolean astFingerprinted;
+
     /**
      * When this call target is inlined, the inlining {@link InstalledCode} registers this
      * assumption. It gets invalidated when a node rewriting is performed. This ensures that all
@@ -218,11 +241,28 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
                     this.uninitializedRootNode = cloneRootNode(rootNode);
                 }
                 runtime().getTvmci().onFirstExecution(this);
+                PersistentCompilationCache cache = runtime().getPersistentCompilationCache();
+                if (cache != null) {
+                    astFingerprint = PersistentCompilationCache.fingerprint(rootNode);
+                    astFingerprinted = true;
+                    if (cache.wasCompiled(astFingerprint)) {
+                        compilationProfile.reportCompiledInPreviousRun();
+                    }
+                }
                 initialized = true;
             }
         }
     }
 
+    boolean hasASTFingerprint() {
+        return astFingerprinted;
+    }
+
+    long getASTFingerprint() {
+        assert astFingerprinted;
+        return astFingerprint;
+    }
+
     public SpeculationLog getSpeculationLog() {
         return speculationLog;
     }
@@ -353,6 +393,9 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     public final Object callRoot(Object[] originalArguments) {
         Object[] args = originalArguments;
         if (CompilerDirectives.inCompiledCode()) {
+            if (firstTierCompilation && compilationProfile.reportFirstTierCall()) {
+                compileSecondTier();
+            }
             Assumption argumentTypesAssumption = this.profiledArgumentTypesAssumption;
             if (argumentTypesAssumption != null && argumentTypesAssumption.isValid()) {
                 args = unsafeCast(castArrayFixedLength(args, profiledArgumentTypes.length), Object[].class, true, true);
@@ -437,6 +480,36 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
         }
     }
 
+    @TruffleBoundary
+    private void compileSecondTier() {
+        compile();
+    }
+
+    /**
+     * Determines whether the next compilation of this call target should be a quick first tier
+     * compilation. On-stack replacement targets are always compiled in the second tier since they
+     * are only created for loops that are already hot.
+     */
+    final boolean shouldCompileInFirstTier() {
+        return TruffleMultiTier.getValue() && !(rootNode instanceof OptimizedOSRLoopNode.OSRRootNode) && !compilationProfile.isSecondTierCompilationThresholdReached();
+    }
+
+    final void setFirstTierCompilation(boolean firstTier) {
+        this.firstTierCompilation = firstTier;
+    }
+
+    final void setFirstTierCodeInstalled(boolean firstTier) {
+        this.firstTierCodeInstalled = firstTier;
+    }
+
+    /**
+     * Determines whether the installed code of this call target, if any, is first tier code that
+     * is yet to be replaced by a second tier compilation.
+     */
+    public final boolean isFirstTierCompiled() {
+        return firstTierCodeInstalled && isValid();
+    }
+
     public void notifyCompilationFailed(Throwable t) {
         if (t instanceof BailoutException && !((BailoutException) t).isPermanent()) {
             /*
@@ -28,6 +28,7 @@ import static com.oracle.graal.truffle.TruffleCompilerOptions.PrintTruffleExpans
 import java.lang.invoke.MethodHandle;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumMap;
@@ -44,6 +45,7 @@ import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.java.ComputeLoopFrequenciesClosure;
 import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.EncodedGraphCache;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.ValueNode;
@@ -96,6 +98,7 @@ import jdk.vm.ci.meta.JavaConstant;
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.meta.SpeculationLog;
 
 /**
  * Class performing the partial evaluation starting from the root node of an AST.
@@ -113,6 +116,12 @@ public class PartialEvaluator {
     private final GraphBuilderConfiguration configForParsing;
     private final InvocationPlugins decodingInvocationPlugins;
 
+    /**
+     * Encoded graphs shared by all compilations using this partial evaluator, or {@code null} if
+     * each compilation parses its methods again.
+     */
+    private final EncodedGraphCache encodedGraphCache;
+
     public PartialEvaluator(Providers providers, GraphBuilderConfiguration configForRoot, SnippetReflectionProvider snippetReflection, Architecture architecture) {
         this.providers = providers;
         this.architecture = architecture;
@@ -130,6 +139,7 @@ public class PartialEvaluator {
 
         this.configForParsing = createGraphBuilderConfig(configForRoot, true);
         this.decodingInvocationPlugins = createDecodingInvocationPlugins(configForRoot.getPlugins());
+        this.encodedGraphCache = TruffleCompilerOptions.TruffleEncodedGraphCache.getValue() ? new EncodedGraphCache(TruffleCompilerOptions.TruffleEncodedGraphCacheCapacity.getValue()) : null;
     }
 
     public Providers getProviders() {
@@ -144,6 +154,16 @@ public class PartialEvaluator {
         return configForParsing;
     }
 
+    /**
+     * Removes the cached graphs of {@code methods}, and of all methods into which they were
+     * inlined, from the graph cache shared between compilations.
+     */
+    public void invalidateEncodedGraphs(Collection<ResolvedJavaMethod> methods) {
+        if (encodedGraphCache != null) {
+            encodedGraphCache.invalidate(methods);
+        }
+    }
+
     public ResolvedJavaMethod[] getCompilationRootMethods() {
         return new ResolvedJavaMethod[]{callRootMethod, callInlinedMethod};
     }
@@ -160,8 +180,23 @@ public class PartialEvaluator {
             throw Debug.handle(e);
         }
 
-        final StructuredGraph graph = new StructuredGraph(callTarget.toString(), callRootMethod, allowAssumptions, callTarget.getSpeculationLog(), NO_PROFILING_INFO);
+        SpeculationLog speculationLog = callTarget.getSpeculationLog();
+        if (speculationLog != null) {
+            /*
+             * Take a snapshot of the speculations that failed so far. Partial evaluation and all
+             * later phases of this compilation must see the same set of failed speculations.
+             */
+            speculationLog.collectFailedSpeculations();
+        }
+        final StructuredGraph graph = new StructuredGraph(callTarget.toString(), callRootMethod, allowAssumptions, speculationLog, NO_PROFILING_INFO);
         assert graph != null : "no graph for root method";
+        if (speculationLog != null) {
+            /*
+             * The interpreter does not take the branch of a guard that failed at another position,
+             * so the AST does not change and the next compilation would create the same guard.
+             */
+            graph.enableGuardSpeculation();
+        }
 
         try (Scope s = Debug.scope("CreateGraph", graph); Indent indent = Debug.logAndIndent("createGraph %s", graph)) {
 
@@ -364,8 +399,9 @@ public class PartialEvaluator {
             plugins.appendInlineInvokePlugin(new InlineDuringParsingPlugin());
         }
 
+        EncodedGraphCache graphCache = encodedGraphCache != null ? encodedGraphCache : new EncodedGraphCache(Integer.MAX_VALUE);
         return new CachingPEGraphDecoder(providers, newConfig, TruffleCompiler.Optimizations,
-                        AllowAssumptions.from(graph.getAssumptions() != null), architecture) {
+                        AllowAssumptions.from(graph.getAssumptions() != null), architecture, graphCache) {
             @Override
             protected GraphBuilderPhase.Instance createGraphBuilderPhaseInstance(IntrinsicContext initialIntrinsicContext) {
                 return new GraphBuilderPhase.Instance(providers.getMetaAccess(), providers.getStampProvider(), providers.getConstantReflection(),
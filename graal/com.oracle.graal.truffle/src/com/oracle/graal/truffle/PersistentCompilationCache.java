@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.truffle.debug.AbstractDebugCompilationListener;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * Remembers which call targets were compiled across runs of the VM (see
+ * {@link TruffleCompilerOptions#TrufflePersistentCompilationCache}). Call targets are identified by
+ * a {@linkplain #fingerprint(RootNode) fingerprint} of their AST at the time of their first
+ * execution. When a call target whose fingerprint is in the cache is executed for the first time,
+ * its compilation thresholds are lowered so that it is compiled as soon as its profile had a chance
+ * to stabilize.
+ * <p>
+ * Only the fingerprints are persisted, not the partially evaluated graphs or the compiled code:
+ * these embed objects of the current process. Call targets known from a previous run are still
+ * partially evaluated and compiled again, they just do not wait for the full compilation
+ * threshold.
+ * <p>
+ * The cache file is only used if it was written by the same VM version with the same Truffle
+ * compiler options, otherwise it is ignored and overwritten at shutdown.
+ */
+public final class PersistentCompilationCache extends AbstractDebugCompilationListener {
+
+    private static final int MAGIC = 0x54504343;
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Upper bound for the number of fingerprints written to the cache file.
+     */
+    private static final int MAX_ENTRIES = 1 << 16;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Path file;
+    private final long configurationHash;
+    private final Set<Long> previouslyCompiled;
+    private final Set<Long> compiled;
+
+    private PersistentCompilationCache(Path file) {
+        this.file = file;
+        this.configurationHash = computeConfigurationHash();
+        this.previouslyCompiled = ConcurrentHashMap.newKeySet();
+        this.compiled = ConcurrentHashMap.newKeySet();
+    }
+
+    public static void install(GraalTruffleRuntime runtime) {
+        String fileName = TruffleCompilerOptions.TrufflePersistentCompilationCache.getValue();
+        if (fileName != null) {
+            PersistentCompilationCache cache = load(Paths.get(fileName), runtime);
+            runtime.setPersistentCompilationCache(cache);
+            runtime.addCompilationListener(cache);
+        }
+    }
+
+    /**
+     * Creates a cache that is saved to {@code file} at shutdown and reads the call targets compiled
+     * in the previous run from {@code file} if it exists and was written by the same VM version
+     * with the same Truffle compiler options.
+     */
+    public static PersistentCompilationCache load(Path file, GraalTruffleRuntime runtime) {
+        PersistentCompilationCache cache = new PersistentCompilationCache(file);
+        cache.read(runtime);
+        return cache;
+    }
+
+    /**
+     * Determines whether a call target with the AST {@code fingerprint} was compiled in a previous
+     * run.
+     */
+    public boolean wasCompiled(long fingerprint) {
+        return previouslyCompiled.contains(fingerprint);
+    }
+
+    @Override
+    public void notifyCompilationSuccess(OptimizedCallTarget target, TruffleInlining inliningDecision, StructuredGraph graph, CompilationResult result) {
+        if (target.hasASTFingerprint()) {
+            recordCompiled(target.getASTFingerprint());
+        }
+    }
+
+    /**
+     * Records that a call target with the AST {@code fingerprint} was compiled in this run.
+     */
+    public void recordCompiled(long fingerprint) {
+        compiled.add(fingerprint);
+    }
+
+    @Override
+    public void notifyShutdown(GraalTruffleRuntime runtime) {
+        save(runtime);
+    }
+
+    private void read(GraalTruffleRuntime runtime) {
+        try (InputStream in = Files.newInputStream(file); DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION || !data.readUTF().equals(getVMVersion()) || data.readLong() != configurationHash) {
+                runtime.log(String.format("[truffle] ignoring compilation cache %s: written by a different VM or with different options", file));
+                return;
+            }
+            int count = data.readInt();
+            for (int i = 0; i < count; i++) {
+                previouslyCompiled.add(data.readLong());
+            }
+        } catch (NoSuchFileException e) {
+            // first run
+        } catch (IOException e) {
+            previouslyCompiled.clear();
+            runtime.log(String.format("[truffle] ignoring unreadable compilation cache %s: %s", file, e));
+        }
+    }
+
+    private void save(GraalTruffleRuntime runtime) {
+        Set<Long> entries = new LinkedHashSet<>();
+        addEntries(entries, compiled);
+        addEntries(entries, previouslyCompiled);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp); DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+                data.writeInt(MAGIC);
+                data.writeInt(FORMAT_VERSION);
+                data.writeUTF(getVMVersion());
+                data.writeLong(configurationHash);
+                data.writeInt(entries.size());
+                for (Long fingerprint : entries) {
+                    data.writeLong(fingerprint);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            runtime.log(String.format("[truffle] could not write compilation cache %s: %s", file, e));
+        }
+    }
+
+    private static void addEntries(Set<Long> entries, Set<Long> fingerprints) {
+        for (Long fingerprint : fingerprints) {
+            if (entries.size() >= MAX_ENTRIES) {
+                return;
+            }
+            entries.add(fingerprint);
+        }
+    }
+
+    private static String getVMVersion() {
+        return System.getProperty("java.vm.version", "");
+    }
+
+    /**
+     * Hashes the values of all Truffle compiler options since they influence which call targets
+     * are compiled.
+     */
+    private static long computeConfigurationHash() {
+        long hash = FNV_OFFSET_BASIS;
+        for (Field field : TruffleCompilerOptions.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && OptionValue.class.isAssignableFrom(field.getType()) &&
+                            !field.getName().equals(TruffleCompilerOptions.TrufflePersistentCompilationCache.getName())) {
+                try {
+                    hash = hash(hash, field.getName());
+                    hash = hash(hash, String.valueOf(((OptionValue<?>) field.get(null)).getValue()));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Computes a fingerprint of the AST of {@code rootNode} that is stable across runs of the VM.
+     * It covers the node classes, the tree structure and the source sections of the nodes.
+     */
+    public static long fingerprint(RootNode rootNode) {
+        return hash(FNV_OFFSET_BASIS, rootNode);
+    }
+
+    private static long hash(long h, Node node) {
+        long result = hash(h, node.getClass().getName());
+        SourceSection section = node.getSourceSection();
+        if (section != null) {
+            Source source = section.getSource();
+            if (source != null) {
+                result = hash(result, source.getName());
+                result = hash(result, section.getCharIndex());
+                result = hash(result, section.getCharLength());
+            }
+        }
+        for (Node child : node.getChildren()) {
+            result = hash(result, child);
+        }
+        // marks the end of the children so that different tree shapes hash differently
+        return hash(result, -1);
+    }
+
+    private static long hash(long h, String s) {
+        long result = h;
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                result = hash(result, s.charAt(i));
+            }
+        }
+        return result;
+    }
+
+    private static long hash(long h, int value) {
+        return (h ^ value) * FNV_PRIME;
+    }
+}
@@ -56,7 +56,6 @@ import jdk.vm.ci.code.CompiledCode;
 import jdk.vm.ci.code.InstalledCode;
 import jdk.vm.ci.meta.MetaAccessProvider;
 import jdk.vm.ci.meta.ResolvedJavaType;
-import jdk.vm.ci.meta.SpeculationLog;
 
 /**
  * Implementation of the Truffle compiler using Graal.
@@ -67,6 +66,8 @@ public abstract class TruffleCompiler {
     protected final Suites suites;
     protected final GraphBuilderConfiguration config;
     protected final LIRSuites lirSuites;
+    protected final Suites firstTierSuites;
+    protected final LIRSuites firstTierLirSuites;
     protected final PartialEvaluator partialEvaluator;
     protected final Backend backend;
     protected final SnippetReflectionProvider snippetReflection;
@@ -88,6 +89,16 @@ public abstract class TruffleCompiler {
                     OptimisticOptimizations.Optimization.RemoveNeverExecutedCode, OptimisticOptimizations.Optimization.UseTypeCheckedInlining, OptimisticOptimizations.Optimization.UseTypeCheckHints);
 
     public TruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Backend backend, SnippetReflectionProvider snippetReflection) {
+        this(plugins, suites, lirSuites, suites, lirSuites, backend, snippetReflection);
+    }
+
+    /**
+     * @param firstTierSuites the suites used for first tier compilations (see
+     *            {@link TruffleCompilerOptions#TruffleMultiTier})
+     * @param firstTierLirSuites the LIR suites used for first tier compilations
+     */
+    public TruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Suites firstTierSuites, LIRSuites firstTierLirSuites, Backend backend,
+                    SnippetReflectionProvider snippetReflection) {
         GraalTruffleRuntime graalTruffleRuntime = ((GraalTruffleRuntime) Truffle.getRuntime());
         this.compilationNotify = graalTruffleRuntime.getCompilationNotify();
         this.backend = backend;
@@ -97,6 +108,8 @@ public abstract class TruffleCompiler {
         this.providers = backendProviders.copyWith(constantFieldProvider);
         this.suites = suites;
         this.lirSuites = lirSuites;
+        this.firstTierSuites = firstTierSuites;
+        this.firstTierLirSuites = firstTierLirSuites;
 
         ResolvedJavaType[] skippedExceptionTypes = getSkippedExceptionTypes(providers.getMetaAccess());
 
@@ -142,7 +155,9 @@ public abstract class TruffleCompiler {
         compilationNotify.notifyCompilationStarted(compilable);
 
         try {
-            TruffleInlining inliningDecision = new TruffleInlining(compilable, new DefaultInliningPolicy());
+            boolean firstTier = compilable.shouldCompileInFirstTier();
+            compilable.setFirstTierCompilation(firstTier);
+            TruffleInlining inliningDecision = new TruffleInlining(compilable, firstTier ? new FirstTierInliningPolicy() : new DefaultInliningPolicy());
 
             PhaseSuite<HighTierContext> graphBuilderSuite = createGraphBuilderSuite();
 
@@ -157,7 +172,13 @@ public abstract class TruffleCompiler {
             dequeueInlinedCallSites(inliningDecision);
 
             compilationNotify.notifyCompilationTruffleTierFinished(compilable, inliningDecision, graph);
-            CompilationResult compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, compilable);
+            CompilationResult compilationResult;
+            if (firstTier) {
+                compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, compilable, firstTierSuites, firstTierLirSuites);
+            } else {
+                compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, compilable, suites, lirSuites);
+            }
+            compilable.setFirstTierCodeInstalled(firstTier);
             compilationNotify.notifyCompilationSuccess(compilable, inliningDecision, graph, compilationResult);
             dequeueInlinedCallSites(inliningDecision);
         } catch (Throwable t) {
@@ -178,8 +199,13 @@ public abstract class TruffleCompiler {
         }
     }
 
-    @SuppressWarnings("try")
     public CompilationResult compileMethodHelper(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, InstalledCode predefinedInstalledCode) {
+        return compileMethodHelper(graph, name, graphBuilderSuite, predefinedInstalledCode, suites, lirSuites);
+    }
+
+    @SuppressWarnings("try")
+    private CompilationResult compileMethodHelper(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, InstalledCode predefinedInstalledCode, Suites graalSuites,
+                    LIRSuites graalLirSuites) {
         try (Scope s = Debug.scope("TruffleFinal")) {
             Debug.dump(Debug.BASIC_LOG_LEVEL, graph, "After TruffleTier");
         } catch (Throwable e) {
@@ -190,13 +216,8 @@ public abstract class TruffleCompiler {
         List<AssumptionValidAssumption> validAssumptions = new ArrayList<>();
         TruffleCompilationResultBuilderFactory factory = new TruffleCompilationResultBuilderFactory(graph, validAssumptions);
         try (DebugCloseable a = CompilationTime.start(); Scope s = Debug.scope("TruffleGraal.GraalCompiler", graph, providers.getCodeCache()); DebugCloseable c = CompilationMemUse.start()) {
-            SpeculationLog speculationLog = graph.getSpeculationLog();
-            if (speculationLog != null) {
-                speculationLog.collectFailedSpeculations();
-            }
-
             CompilationResult compilationResult = new CompilationResult(name);
-            result = compileGraph(graph, graph.method(), providers, backend, graphBuilderSuite, Optimizations, graph.getProfilingInfo(), suites, lirSuites, compilationResult, factory);
+            result = compileGraph(graph, graph.method(), providers, backend, graphBuilderSuite, Optimizations, graph.getProfilingInfo(), graalSuites, graalLirSuites, compilationResult, factory);
         } catch (Throwable e) {
             throw Debug.handle(e);
         }
@@ -208,6 +229,12 @@ public abstract class TruffleCompiler {
             CompiledCode compiledCode = backend.createCompiledCode(graph.method(), result);
             installedCode = providers.getCodeCache().addCode(graph.method(), compiledCode, graph.getSpeculationLog(), predefinedInstalledCode);
         } catch (Throwable e) {
+            /*
+             * Installation fails if dependencies of the code were invalidated in the meantime
+             * (e.g., by class loading or redefinition). Do not reuse graphs that may have been
+             * parsed under the old state.
+             */
+            partialEvaluator.invalidateEncodedGraphs(graph.getInlinedMethods());
             throw Debug.handle(e);
         }
 
@@ -59,6 +59,16 @@ public class TruffleCompilerOptions {
     @Option(help = "Minimum number of calls before a call target is compiled", type = OptionType.Expert)
     public static final OptionValue<Integer> TruffleMinInvokeThreshold = new OptionValue<>(3);
 
+    @Option(help = "Compile call targets in two tiers: a quick first tier without call target inlining and with the economy compiler configuration, " +
+                    "followed by a fully optimizing compilation once the first tier code was called TruffleCompilationThreshold times", type = OptionType.Expert)
+    public static final OptionValue<Boolean> TruffleMultiTier = new OptionValue<>(false);
+
+    @Option(help = "Compile call target in the first tier when call count exceeds this threshold (with TruffleMultiTier)", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleFirstTierCompilationThreshold = new OptionValue<>(100);
+
+    @Option(help = "Minimum number of calls before a call target is compiled in the first tier (with TruffleMultiTier)", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleFirstTierMinInvokeThreshold = new OptionValue<>(1);
+
     @Option(help = "Delay compilation after an invalidation to allow for reprofiling", type = OptionType.Expert)
     public static final OptionValue<Integer> TruffleInvalidationReprofileCount = new OptionValue<>(3);
 
@@ -86,6 +96,16 @@ public class TruffleCompilerOptions {
     @Option(help = "Disable call target splitting if tree size exceeds this limit", type = OptionType.Debug)
     public static final OptionValue<Integer> TruffleSplittingMaxCalleeSize = new OptionValue<>(100);
 
+    @Option(help = "Share the encoded graphs of parsed methods between Truffle compilations", type = OptionType.Expert)
+    public static final OptionValue<Boolean> TruffleEncodedGraphCache = new StableOptionValue<>(true);
+
+    @Option(help = "Maximum number of encoded graphs kept in the shared partial evaluation cache", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleEncodedGraphCacheCapacity = new StableOptionValue<>(8192);
+
+    @Option(help = "File in which the call targets compiled in this run are remembered. Call targets that were compiled in a previous run are compiled " +
+                    "as soon as their profile is stable instead of waiting for the compilation threshold", type = OptionType.Expert)
+    public static final OptionValue<String> TrufflePersistentCompilationCache = new OptionValue<>(null);
+
     @Option(help = "Enable asynchronous truffle compilation in background thread", type = OptionType.Expert)
     public static final OptionValue<Boolean> TruffleBackgroundCompilation = new OptionValue<>(true);
 
@@ -42,6 +42,10 @@ public abstract class AbstractDebugCompilationListener implements GraalTruffleCo
     public void notifyCompilationDequeued(OptimizedCallTarget target, Object source, CharSequence reason) {
     }
 
+    @Override
+    public void notifyCompilationTakenFromQueue(OptimizedCallTarget target, int queueSize, long waitNanos) {
+    }
+
     @Override
     public void notifyCompilationFailed(OptimizedCallTarget target, StructuredGraph graph, Throwable t) {
     }
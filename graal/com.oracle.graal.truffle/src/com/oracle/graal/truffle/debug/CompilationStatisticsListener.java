@@ -66,6 +66,8 @@ public final class CompilationStatisticsListener extends AbstractDebugCompilatio
     private final IntSummaryStatistics deferCompilations = new IntSummaryStatistics();
     private final LongSummaryStatistics timeToQueue = new LongSummaryStatistics();
     private final LongSummaryStatistics timeToCompilation = new LongSummaryStatistics();
+    private final LongSummaryStatistics timeInQueue = new LongSummaryStatistics();
+    private final IntSummaryStatistics queueSize = new IntSummaryStatistics();
 
     private final IntSummaryStatistics nodeCount = new IntSummaryStatistics();
     private final IntSummaryStatistics nodeCountTrivial = new IntSummaryStatistics();
@@ -130,6 +132,12 @@ public final class CompilationStatisticsListener extends AbstractDebugCompilatio
         dequeues++;
     }
 
+    @Override
+    public void notifyCompilationTakenFromQueue(OptimizedCallTarget target, int size, long waitNanos) {
+        timeInQueue.accept(waitNanos);
+        queueSize.accept(size);
+    }
+
     @Override
     public void notifyCompilationFailed(OptimizedCallTarget target, StructuredGraph graph, Throwable t) {
         failures++;
@@ -241,6 +249,8 @@ public final class CompilationStatisticsListener extends AbstractDebugCompilatio
 
         printStatisticTime(rt, "Time to queue", timeToQueue);
         printStatisticTime(rt, "Time to compilation", timeToCompilation);
+        printStatisticTime(rt, "Time in compilation queue", timeInQueue);
+        printStatistic(rt, "Compilation queue size", queueSize);
 
         printStatisticTime(rt, "Compilation time", compilationTime);
         printStatisticTime(rt, "  Truffle Tier", compilationTimeTruffleTier);
@@ -22,12 +22,21 @@
  */
 package com.oracle.graal.virtual.bench;
 
+import static com.oracle.graal.microbenchmarks.graal.GraalBenchmark.Defaults.FORKS;
+
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 
 import com.oracle.graal.microbenchmarks.graal.GraalBenchmark;
+import com.oracle.graal.microbenchmarks.graal.util.GraalState;
+import com.oracle.graal.microbenchmarks.graal.util.GraphState;
+import com.oracle.graal.microbenchmarks.graal.util.MethodSpec;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+import com.oracle.graal.virtual.phases.ea.PartialEscapePhase;
 
 public class PartialEscapeBench extends GraalBenchmark {
 
@@ -60,4 +69,116 @@ public class PartialEscapeBench extends GraalBenchmark {
         Thing thing = cache.getOrAdd(new Thing(42, "the answer!"));
         return thing.name;
     }
+
+    private static final class Link {
+        final Object value;
+        final Link next;
+
+        Link(Object value, Link next) {
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sink {
+        Object published;
+        int count;
+    }
+
+    /**
+     * Builds an object graph that stays virtual until it is published, so that all its objects are
+     * materialized by the same commit allocation.
+     */
+    private static void publishObjectGraph(Sink sink) {
+        int id = sink.count++;
+        Thing first = new Thing(id, "first");
+        Thing second = new Thing(id + 1, "second");
+        Thing[] things = new Thing[]{first, second};
+        sink.published = new Link(things, new Link(first, new Link(second, null)));
+    }
+
+    private static final String GROUP_ALLOCATIONS = "-Dgraal.GroupCommittedAllocations=true";
+
+    @Benchmark
+    public Object objectGraph(Sink sink) {
+        publishObjectGraph(sink);
+        return sink.published;
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = GROUP_ALLOCATIONS)
+    public Object objectGraphGrouped(Sink sink) {
+        publishObjectGraph(sink);
+        return sink.published;
+    }
+
+    private static final String INCREMENTAL = "-Dgraal.IncrementalEscapeAnalysis=true";
+
+    /**
+     * A graph with many loops that are not affected by the allocations removed in the first
+     * iteration of the analysis.
+     */
+    @MethodSpec(declaringClass = PartialEscapeBench.class, name = "largeGraphSnippet")
+    public static class LargeGraph extends GraphState {
+    }
+
+    public static int largeGraphSnippet(int[] data, int n) {
+        int[] result = new int[4];
+        int a = 0;
+        for (int i = 0; i < n; i++) {
+            a += data[i];
+        }
+        result[0] = a;
+        int b = 1;
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                b = b * 31 + data[j];
+            }
+        }
+        result[1] = b;
+        int c = 0;
+        for (int i = 0; i < n; i++) {
+            if (data[i] > a) {
+                c ^= data[i];
+            } else {
+                for (int j = 0; j < i; j++) {
+                    c += data[j] >> 3;
+                }
+            }
+        }
+        result[2] = c;
+        int[] copy = new int[4];
+        copy[0] = result[0];
+        copy[1] = result[1];
+        int d = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                for (int k = 0; k < j; k++) {
+                    d += data[k] * data[j] - data[i];
+                }
+            }
+        }
+        copy[2] = result[2] + d;
+        int e = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            e = (e << 1) | (data[i] & 1);
+            if (e < 0) {
+                break;
+            }
+        }
+        copy[3] = e;
+        return copy[0] + copy[1] + copy[2] + copy[3];
+    }
+
+    @Benchmark
+    public void largeGraph(LargeGraph s, GraalState g) {
+        new PartialEscapePhase(true, new CanonicalizerPhase()).apply(s.graph, new PhaseContext(g.providers));
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = INCREMENTAL)
+    public void largeGraphIncremental(LargeGraph s, GraalState g) {
+        new PartialEscapePhase(true, new CanonicalizerPhase()).apply(s.graph, new PhaseContext(g.providers));
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.virtual.nodes;
+
+import java.util.Arrays;
+
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.NodeInputList;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.virtual.EscapeObjectState;
+import com.oracle.graal.nodes.virtual.VirtualObjectNode;
+
+/**
+ * The virtual state of an escape analyzed object of which only the entries that differ from a
+ * common default value are recorded. This keeps the frame states of large virtual arrays small in
+ * the graph. The deoptimization metadata is not sparse: a {@link jdk.vm.ci.code.VirtualObject}
+ * needs a value for every entry, so the debug info still has one value per entry of the array.
+ */
+@NodeInfo
+public final class SparseVirtualObjectState extends EscapeObjectState implements Node.ValueNumberable {
+
+    public static final NodeClass<SparseVirtualObjectState> TYPE = NodeClass.create(SparseVirtualObjectState.class);
+    @Input ValueNode defaultValue;
+    @Input NodeInputList<ValueNode> values;
+
+    /**
+     * The ascending indexes of the entries in {@link #values}.
+     */
+    private final int[] indexes;
+
+    public SparseVirtualObjectState(VirtualObjectNode object, ValueNode defaultValue, int[] indexes, ValueNode[] values) {
+        super(TYPE, object);
+        assert indexes.length == values.length;
+        assert indexes.length == 0 || indexes[indexes.length - 1] < object.entryCount();
+        this.defaultValue = defaultValue;
+        this.indexes = indexes;
+        this.values = new NodeInputList<>(this, values);
+    }
+
+    private SparseVirtualObjectState(VirtualObjectNode object, ValueNode defaultValue, int[] indexes, NodeInputList<ValueNode> values) {
+        super(TYPE, object);
+        this.defaultValue = defaultValue;
+        this.indexes = indexes;
+        this.values = new NodeInputList<>(this, values);
+    }
+
+    public ValueNode defaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Gets the value of the entry at {@code index}.
+     */
+    public ValueNode valueAt(int index) {
+        assert index >= 0 && index < object().entryCount();
+        int position = Arrays.binarySearch(indexes, index);
+        return position >= 0 ? values.get(position) : defaultValue;
+    }
+
+    @Override
+    public SparseVirtualObjectState duplicateWithVirtualState() {
+        return graph().addWithoutUnique(new SparseVirtualObjectState(object(), defaultValue, indexes, values));
+    }
+
+    @Override
+    public void applyToNonVirtual(NodeClosure<? super ValueNode> closure) {
+        closure.apply(this, defaultValue);
+        for (ValueNode value : values) {
+            closure.apply(this, value);
+        }
+    }
+}
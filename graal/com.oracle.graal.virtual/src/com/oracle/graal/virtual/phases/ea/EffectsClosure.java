@@ -23,19 +23,23 @@
 package com.oracle.graal.virtual.phases.ea;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.oracle.graal.compiler.common.CollectionsFactory;
 import com.oracle.graal.compiler.common.cfg.BlockMap;
 import com.oracle.graal.compiler.common.cfg.Loop;
 import com.oracle.graal.compiler.common.type.Stamp;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.NodeBitMap;
 import com.oracle.graal.graph.NodeMap;
 import com.oracle.graal.graph.iterators.NodeIterable;
+import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.AbstractMergeNode;
 import com.oracle.graal.nodes.FixedWithNextNode;
 import com.oracle.graal.nodes.IfNode;
@@ -71,6 +75,11 @@ public abstract class EffectsClosure<BlockT extends EffectsBlockState<BlockT>> e
     private final Map<LoopBeginNode, BlockT> loopEntryStates = Node.newIdentityMap();
     private final NodeBitMap hasScalarReplacedInputs;
 
+    private static final DebugCounter COUNTER_LOOPS_SKIPPED = Debug.counter("EffectsLoopsSkipped");
+
+    private LoopSummaries loopSummaries;
+    private Map<Loop<Block>, List<Node>> loopNodes;
+
     protected boolean changed;
 
     public EffectsClosure(ScheduleResult schedule, ControlFlowGraph cfg) {
@@ -89,6 +98,15 @@ public abstract class EffectsClosure<BlockT extends EffectsBlockState<BlockT>> e
         return changed;
     }
 
+    /**
+     * Enables the reuse of loop results from the previous iteration of the phase and the recording
+     * of loop results for the next one.
+     */
+    void setLoopSummaries(LoopSummaries loopSummaries) {
+        this.loopSummaries = loopSummaries;
+        this.loopNodes = CollectionsFactory.newIdentityMap();
+    }
+
     @Override
     public final void applyEffects() {
         final StructuredGraph graph = cfg.graph;
@@ -228,7 +246,78 @@ public abstract class EffectsClosure<BlockT extends EffectsBlockState<BlockT>> e
             }
             return states;
         }
+        if (loopSummaries == null) {
+            return processLoopFixpoint(loop, initialState);
+        }
 
+        LoopBeginNode loopBegin = (LoopBeginNode) loop.getHeader().getBeginNode();
+        LoopSummary summary = findReusableSummary(loop, initialState);
+        if (summary != null && !loopSummaries.verify) {
+            COUNTER_LOOPS_SKIPPED.increment();
+            loopEntryStates.put(loopBegin, initialState);
+            loopSummaries.current.put(loopBegin, summary);
+            return cloneStates(summary.<BlockT> getExitStates());
+        }
+
+        BlockT entryState = cloneState(initialState);
+        List<BlockT> exitStates = processLoopFixpoint(loop, initialState);
+        boolean hasEffects = hasEffects(loop);
+        if (summary != null) {
+            List<BlockT> expected = summary.getExitStates();
+            if (hasEffects || !equivalentStates(expected, exitStates)) {
+                throw new GraalError("incremental analysis of %s reused the results of %s, but it %s", cfg.graph, loop,
+                                hasEffects ? "has effects" : "has different exit states " + exitStates + " instead of " + expected);
+            }
+        }
+        if (!hasEffects && isUnaliased(loop)) {
+            List<AbstractBeginNode> exits = new ArrayList<>(loop.getExits().size());
+            for (Block exit : loop.getExits()) {
+                exits.add(exit.getBeginNode());
+            }
+            loopSummaries.current.put(loopBegin, new LoopSummary(getFingerprint(loop), exits, entryState, cloneStates(exitStates), getObjectIdentities(entryState), getStamps(loop)));
+        }
+        return exitStates;
+    }
+
+    /**
+     * Returns the summary recorded for the loop in the previous iteration of the phase if that
+     * summary is still valid: no node in the loop was changed, added or removed, no node in the
+     * loop has inputs that are aliased in this iteration, and the loop is entered with an
+     * equivalent state.
+     * <p>
+     * Improving the stamp of a node, e.g., by {@link ValueNode#inferStamp()} during
+     * canonicalization, does not fire a node event, so the stamps are compared separately: the
+     * analysis of a loop can depend on them, e.g., when a type check is folded.
+     */
+    private LoopSummary findReusableSummary(Loop<Block> loop, BlockT initialState) {
+        LoopSummary summary = loopSummaries.previous.get(loop.getHeader().getBeginNode());
+        if (summary == null || summary.exits.size() != loop.getExits().size()) {
+            return null;
+        }
+        for (int i = 0; i < summary.exits.size(); i++) {
+            if (summary.exits.get(i) != loop.getExits().get(i).getBeginNode()) {
+                return null;
+            }
+        }
+        BlockT entryState = summary.getEntryState();
+        if (!initialState.equivalentTo(entryState) || !getObjectIdentities(initialState).equals(summary.identities)) {
+            return null;
+        }
+        if (summary.fingerprint != getFingerprint(loop)) {
+            return null;
+        }
+        for (Node node : getLoopNodes(loop)) {
+            if (loopSummaries.changedNodes.contains(node) || hasAliasedInputs(node)) {
+                return null;
+            }
+            if (node instanceof ValueNode && !((ValueNode) node).stamp().equals(summary.stamps.get(node))) {
+                return null;
+            }
+        }
+        return summary;
+    }
+
+    private List<BlockT> processLoopFixpoint(Loop<Block> loop, BlockT initialState) {
         BlockT loopEntryState = initialState;
         BlockT lastMergedState = cloneState(initialState);
         processInitialLoopState(loop, lastMergedState);
@@ -267,6 +356,119 @@ public abstract class EffectsClosure<BlockT extends EffectsBlockState<BlockT>> e
         throw new GraalError("too many iterations at %s", loop);
     }
 
+    private boolean hasEffects(Loop<Block> loop) {
+        GraphEffectList mergeEffects = loopMergeEffects.get(loop);
+        if (mergeEffects != null && !mergeEffects.isEmpty()) {
+            return true;
+        }
+        for (Block block : loop.getBlocks()) {
+            if (!blockEffects.get(block).isEmpty()) {
+                return true;
+            }
+            Loop<Block> innerLoop = block.getLoop();
+            if (innerLoop != loop && innerLoop.getHeader() == block) {
+                GraphEffectList innerMergeEffects = loopMergeEffects.get(innerLoop);
+                if (innerMergeEffects != null && !innerMergeEffects.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether the analysis of the loop neither assigned an alias to a node in the loop
+     * nor depended on aliased inputs, i.e., whether its results are fully described by its entry
+     * and exit states.
+     */
+    private boolean isUnaliased(Loop<Block> loop) {
+        for (Node node : getLoopNodes(loop)) {
+            if (aliases.get(node) != null || hasAliasedInputs(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Node> getLoopNodes(Loop<Block> loop) {
+        List<Node> nodes = loopNodes.get(loop);
+        if (nodes == null) {
+            nodes = new ArrayList<>();
+            for (Block block : loop.getBlocks()) {
+                AbstractBeginNode begin = block.getBeginNode();
+                if (begin instanceof AbstractMergeNode) {
+                    nodes.addAll(((AbstractMergeNode) begin).phis().snapshot());
+                } else if (begin instanceof LoopExitNode) {
+                    nodes.addAll(((LoopExitNode) begin).proxies().snapshot());
+                }
+                nodes.addAll(schedule.getBlockToNodesMap().get(block));
+            }
+            loopNodes.put(loop, nodes);
+        }
+        return nodes;
+    }
+
+    private Map<Node, Stamp> getStamps(Loop<Block> loop) {
+        Map<Node, Stamp> stamps = Node.newIdentityMap();
+        for (Node node : getLoopNodes(loop)) {
+            if (node instanceof ValueNode) {
+                stamps.put(node, ((ValueNode) node).stamp());
+            }
+        }
+        return stamps;
+    }
+
+    /**
+     * Computes a value that changes if nodes are added to or removed from the loop.
+     */
+    @SuppressWarnings("deprecation")
+    private long getFingerprint(Loop<Block> loop) {
+        List<Node> nodes = getLoopNodes(loop);
+        long fingerprint = nodes.size();
+        for (Node node : nodes) {
+            fingerprint += Long.rotateLeft(node.getId() * 0x9E3779B97F4A7C15L, 31);
+        }
+        return fingerprint;
+    }
+
+    private List<BlockT> cloneStates(List<BlockT> states) {
+        List<BlockT> result = new ArrayList<>(states.size());
+        for (BlockT state : states) {
+            result.add(state == null ? null : cloneState(state));
+        }
+        return result;
+    }
+
+    private static <T extends EffectsBlockState<T>> boolean equivalentStates(List<T> expected, List<T> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            T left = expected.get(i);
+            T right = actual.get(i);
+            if (left.isDead() != right.isDead() || !left.equivalentTo(right)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the objects that the ids used by the given state refer to. The results of a loop are
+     * only reused if these are the same as in the previous iteration of the phase.
+     */
+    @SuppressWarnings("unused")
+    protected List<?> getObjectIdentities(BlockT state) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Determines whether the processing of the given node depends on the aliases of its inputs.
+     */
+    protected boolean hasAliasedInputs(Node node) {
+        return hasScalarReplacedInputs(node);
+    }
+
     @SuppressWarnings("unused")
     protected void processInitialLoopState(Loop<Block> loop, BlockT initialState) {
         // nothing to do
@@ -386,6 +588,66 @@ public abstract class EffectsClosure<BlockT extends EffectsBlockState<BlockT>> e
         }
     }
 
+    /**
+     * The results of the loops that were analyzed without effects in the previous iteration of an
+     * {@link EffectsPhase}, together with the nodes that were changed since.
+     */
+    static final class LoopSummaries {
+
+        private final boolean verify;
+        private Map<Node, LoopSummary> previous = Node.newIdentityMap();
+        private Map<Node, LoopSummary> current = Node.newIdentityMap();
+        private Set<Node> changedNodes = Collections.emptySet();
+
+        /**
+         * @param verify re-analyze the loops whose results could be reused and fail if the results
+         *            differ
+         */
+        LoopSummaries(boolean verify) {
+            this.verify = verify;
+        }
+
+        /**
+         * Makes the loop results recorded so far available to the next iteration.
+         *
+         * @param changed the nodes that were added or modified since the results were recorded
+         */
+        void nextIteration(Set<Node> changed) {
+            previous = current;
+            current = Node.newIdentityMap();
+            changedNodes = changed;
+        }
+    }
+
+    private static final class LoopSummary {
+
+        private final long fingerprint;
+        private final List<AbstractBeginNode> exits;
+        private final Object entryState;
+        private final List<?> exitStates;
+        private final List<?> identities;
+        private final Map<Node, Stamp> stamps;
+
+        LoopSummary(long fingerprint, List<AbstractBeginNode> exits, Object entryState, List<?> exitStates, List<?> identities, Map<Node, Stamp> stamps) {
+            this.fingerprint = fingerprint;
+            this.stamps = stamps;
+            this.exits = exits;
+            this.entryState = entryState;
+            this.exitStates = exitStates;
+            this.identities = identities;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T getEntryState() {
+            return (T) entryState;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> List<T> getExitStates() {
+            return (List<T>) exitStates;
+        }
+    }
+
     public void addScalarAlias(ValueNode node, ValueNode alias) {
         assert !(alias instanceof VirtualObjectNode);
         aliases.set(node, alias);
@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.virtual.phases.ea;
 
+import static com.oracle.graal.compiler.common.GraalOptions.IncrementalEscapeAnalysis;
+import static com.oracle.graal.compiler.common.GraalOptions.VerifyIncrementalEscapeAnalysis;
 import static com.oracle.graal.debug.Debug.isEnabled;
 import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionality.Required;
 
@@ -74,6 +76,10 @@ public abstract class EffectsPhase<PhaseContextT extends PhaseContext> extends B
     @SuppressWarnings("try")
     public boolean runAnalysis(final StructuredGraph graph, final PhaseContextT context) {
         boolean changed = false;
+        EffectsClosure.LoopSummaries loopSummaries = null;
+        if (IncrementalEscapeAnalysis.getValue() && !unscheduled && maxIterations > 1) {
+            loopSummaries = new EffectsClosure.LoopSummaries(VerifyIncrementalEscapeAnalysis.getValue());
+        }
         for (int iteration = 0; iteration < maxIterations; iteration++) {
             try (Scope s = Debug.scope(isEnabled() ? "iteration " + iteration : null)) {
                 ScheduleResult schedule;
@@ -88,31 +94,41 @@ public abstract class EffectsPhase<PhaseContextT extends PhaseContext> extends B
                 }
                 try (Scope scheduleScope = Debug.scope("EffectsPhaseWithSchedule", schedule)) {
                     Closure<?> closure = createEffectsClosure(context, schedule, cfg);
+                    if (loopSummaries != null && closure instanceof EffectsClosure) {
+                        ((EffectsClosure<?>) closure).setLoopSummaries(loopSummaries);
+                    }
                     ReentrantBlockIterator.apply(closure, cfg.getStartBlock());
 
                     if (!closure.hasChanged()) {
                         break;
                     }
 
-                    // apply the effects collected during this iteration
-                    HashSetNodeEventListener listener = new HashSetNodeEventListener();
-                    try (NodeEventScope nes = graph.trackNodeEvents(listener)) {
-                        closure.applyEffects();
-                    }
+                    // track all modifications up to the next iteration if loop results are reused
+                    HashSetNodeEventListener modifications = loopSummaries == null ? null : new HashSetNodeEventListener();
+                    try (NodeEventScope modificationScope = modifications == null ? null : graph.trackNodeEvents(modifications)) {
+                        // apply the effects collected during this iteration
+                        HashSetNodeEventListener listener = new HashSetNodeEventListener();
+                        try (NodeEventScope nes = graph.trackNodeEvents(listener)) {
+                            closure.applyEffects();
+                        }
 
-                    if (Debug.isDumpEnabled(Debug.INFO_LOG_LEVEL)) {
-                        Debug.dump(Debug.INFO_LOG_LEVEL, graph, "%s iteration", getName());
-                    }
+                        if (Debug.isDumpEnabled(Debug.INFO_LOG_LEVEL)) {
+                            Debug.dump(Debug.INFO_LOG_LEVEL, graph, "%s iteration", getName());
+                        }
 
-                    new DeadCodeEliminationPhase(Required).apply(graph);
+                        new DeadCodeEliminationPhase(Required).apply(graph);
 
-                    Set<Node> changedNodes = listener.getNodes();
-                    for (Node node : graph.getNodes()) {
-                        if (node instanceof Simplifiable) {
-                            changedNodes.add(node);
+                        Set<Node> changedNodes = listener.getNodes();
+                        for (Node node : graph.getNodes()) {
+                            if (node instanceof Simplifiable) {
+                                changedNodes.add(node);
+                            }
                         }
+                        postIteration(graph, context, changedNodes);
+                    }
+                    if (loopSummaries != null) {
+                        loopSummaries.nextIteration(modifications.getNodes());
                     }
-                    postIteration(graph, context, changedNodes);
                 } catch (Throwable t) {
                     throw Debug.handle(t);
                 }
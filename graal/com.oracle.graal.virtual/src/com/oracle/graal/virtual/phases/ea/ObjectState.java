@@ -22,8 +22,12 @@
  */
 package com.oracle.graal.virtual.phases.ea;
 
+import static com.oracle.graal.compiler.common.GraalOptions.MaximumEscapeAnalysisArrayLength;
+
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.DebugCounter;
@@ -33,12 +37,17 @@ import com.oracle.graal.nodes.virtual.EscapeObjectState;
 import com.oracle.graal.nodes.virtual.LockState;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 import com.oracle.graal.virtual.nodes.MaterializedObjectState;
+import com.oracle.graal.virtual.nodes.SparseVirtualObjectState;
 import com.oracle.graal.virtual.nodes.VirtualObjectState;
 
 /**
  * This class describes the state of a virtual object while iterating over the graph. It describes
  * the fields or array elements (called "entries") and the lock count if the object is still
  * virtual. If the object was materialized, it contains the current materialized value.
+ * <p>
+ * Objects with at least {@code MaximumEscapeAnalysisArrayLength} entries are represented sparsely:
+ * only the entries that differ from a common default value are stored, and the full entries array
+ * is only created on demand.
  */
 public class ObjectState {
 
@@ -47,6 +56,17 @@ public class ObjectState {
 
     private ValueNode[] entries;
     private ValueNode materializedValue;
+
+    /**
+     * The value of all entries not contained in {@link #sparseIndexes}, or {@code null} if the
+     * entries are not represented sparsely. For sparse objects {@link #entries} caches the full
+     * entries array and is never modified.
+     */
+    private ValueNode defaultValue;
+    private int entryCount;
+    private int[] sparseIndexes;
+    private ValueNode[] sparseValues;
+    private int sparseCount;
     private LockState locks;
     private boolean ensureVirtualized;
 
@@ -65,6 +85,27 @@ public class ObjectState {
         this.entries = entries;
         this.locks = locks;
         this.ensureVirtualized = ensureVirtualized;
+        if (entries.length >= MaximumEscapeAnalysisArrayLength.getValue()) {
+            initSparse(entries);
+        }
+    }
+
+    /**
+     * Creates a sparsely represented virtual object state.
+     *
+     * @param sparseIndexes the ascending indexes of the entries that differ from
+     *            {@code defaultValue}
+     * @param sparseValues the values of these entries
+     */
+    public ObjectState(ValueNode defaultValue, int entryCount, int[] sparseIndexes, ValueNode[] sparseValues, int sparseCount, LockState locks, boolean ensureVirtualized) {
+        assert defaultValue != null && sparseCount <= sparseIndexes.length && sparseCount <= sparseValues.length;
+        this.defaultValue = defaultValue;
+        this.entryCount = entryCount;
+        this.sparseIndexes = Arrays.copyOf(sparseIndexes, Math.max(sparseCount, 4));
+        this.sparseValues = Arrays.copyOf(sparseValues, this.sparseIndexes.length);
+        this.sparseCount = sparseCount;
+        this.locks = locks;
+        this.ensureVirtualized = ensureVirtualized;
     }
 
     public ObjectState(ValueNode materializedValue, LockState locks, boolean ensureVirtualized) {
@@ -75,7 +116,16 @@ public class ObjectState {
     }
 
     private ObjectState(ObjectState other) {
-        entries = other.entries == null ? null : other.entries.clone();
+        if (other.defaultValue != null) {
+            entries = other.entries;
+            defaultValue = other.defaultValue;
+            entryCount = other.entryCount;
+            sparseIndexes = other.sparseIndexes.clone();
+            sparseValues = other.sparseValues.clone();
+            sparseCount = other.sparseCount;
+        } else {
+            entries = other.entries == null ? null : other.entries.clone();
+        }
         materializedValue = other.materializedValue;
         locks = other.locks;
         cachedState = other.cachedState;
@@ -90,14 +140,53 @@ public class ObjectState {
         GET_ESCAPED_OBJECT_STATE.increment();
         if (cachedState == null) {
             CREATE_ESCAPED_OBJECT_STATE.increment();
-            cachedState = isVirtual() ? new VirtualObjectState(virtual, entries) : new MaterializedObjectState(virtual, materializedValue);
+            if (!isVirtual()) {
+                cachedState = new MaterializedObjectState(virtual, materializedValue);
+            } else if (defaultValue != null) {
+                cachedState = new SparseVirtualObjectState(virtual, defaultValue, Arrays.copyOf(sparseIndexes, sparseCount), Arrays.copyOf(sparseValues, sparseCount));
+            } else {
+                cachedState = new VirtualObjectState(virtual, entries);
+            }
         }
         return cachedState;
 
     }
 
+    private void initSparse(ValueNode[] initialEntries) {
+        Map<ValueNode, Integer> counts = new IdentityHashMap<>();
+        ValueNode mostFrequent = null;
+        int maxCount = 0;
+        for (ValueNode entry : initialEntries) {
+            Integer count = counts.get(entry);
+            int newCount = count == null ? 1 : count + 1;
+            counts.put(entry, newCount);
+            if (newCount > maxCount) {
+                maxCount = newCount;
+                mostFrequent = entry;
+            }
+        }
+        if (mostFrequent == null) {
+            // the default value of a sparse object must not be null
+            return;
+        }
+        defaultValue = mostFrequent;
+        entryCount = initialEntries.length;
+        sparseCount = initialEntries.length - maxCount;
+        sparseIndexes = new int[Math.max(sparseCount, 4)];
+        sparseValues = new ValueNode[sparseIndexes.length];
+        int position = 0;
+        for (int i = 0; i < initialEntries.length; i++) {
+            if (initialEntries[i] != mostFrequent) {
+                sparseIndexes[position] = i;
+                sparseValues[position] = initialEntries[i];
+                position++;
+            }
+        }
+        assert position == sparseCount;
+    }
+
     public boolean isVirtual() {
-        assert materializedValue == null ^ entries == null;
+        assert materializedValue == null ^ (entries == null && defaultValue == null);
         return materializedValue == null;
     }
 
@@ -106,14 +195,67 @@ public class ObjectState {
      */
     public ValueNode[] getEntries() {
         assert isVirtual();
+        if (entries == null) {
+            ValueNode[] newEntries = new ValueNode[entryCount];
+            Arrays.fill(newEntries, defaultValue);
+            for (int i = 0; i < sparseCount; i++) {
+                newEntries[sparseIndexes[i]] = sparseValues[i];
+            }
+            entries = newEntries;
+        }
         return entries;
     }
 
     public ValueNode getEntry(int index) {
         assert isVirtual();
+        if (defaultValue != null) {
+            assert index >= 0 && index < entryCount;
+            int position = Arrays.binarySearch(sparseIndexes, 0, sparseCount, index);
+            return position >= 0 ? sparseValues[position] : defaultValue;
+        }
         return entries[index];
     }
 
+    public int getEntryCount() {
+        assert isVirtual();
+        return defaultValue != null ? entryCount : entries.length;
+    }
+
+    /**
+     * Determines whether only the entries that differ from {@link #getDefaultValue()} are stored.
+     */
+    public boolean isSparse() {
+        assert isVirtual();
+        return defaultValue != null;
+    }
+
+    public ValueNode getDefaultValue() {
+        assert isSparse();
+        return defaultValue;
+    }
+
+    /**
+     * Gets the number of entries that differ from {@link #getDefaultValue()}.
+     */
+    public int getSparseCount() {
+        assert isSparse();
+        return sparseCount;
+    }
+
+    /**
+     * Gets the index of the {@code position}-th entry that differs from {@link #getDefaultValue()},
+     * in ascending order.
+     */
+    public int getSparseIndex(int position) {
+        assert isSparse() && position < sparseCount;
+        return sparseIndexes[position];
+    }
+
+    public ValueNode getSparseValue(int position) {
+        assert isSparse() && position < sparseCount;
+        return sparseValues[position];
+    }
+
     public ValueNode getMaterializedValue() {
         assert !isVirtual();
         return materializedValue;
@@ -122,7 +264,39 @@ public class ObjectState {
     public void setEntry(int index, ValueNode value) {
         assert isVirtual();
         cachedState = null;
-        entries[index] = value;
+        if (defaultValue != null) {
+            setSparseEntry(index, value);
+        } else {
+            entries[index] = value;
+        }
+    }
+
+    private void setSparseEntry(int index, ValueNode value) {
+        assert index >= 0 && index < entryCount;
+        // the cached entries array may be shared with other states
+        entries = null;
+        int position = Arrays.binarySearch(sparseIndexes, 0, sparseCount, index);
+        if (position >= 0) {
+            if (value == defaultValue) {
+                System.arraycopy(sparseIndexes, position + 1, sparseIndexes, position, sparseCount - position - 1);
+                System.arraycopy(sparseValues, position + 1, sparseValues, position, sparseCount - position - 1);
+                sparseCount--;
+                sparseValues[sparseCount] = null;
+            } else {
+                sparseValues[position] = value;
+            }
+        } else if (value != defaultValue) {
+            int insert = -(position + 1);
+            if (sparseCount == sparseIndexes.length) {
+                sparseIndexes = Arrays.copyOf(sparseIndexes, Math.max(sparseCount * 2, 4));
+                sparseValues = Arrays.copyOf(sparseValues, sparseIndexes.length);
+            }
+            System.arraycopy(sparseIndexes, insert, sparseIndexes, insert + 1, sparseCount - insert);
+            System.arraycopy(sparseValues, insert, sparseValues, insert + 1, sparseCount - insert);
+            sparseIndexes[insert] = index;
+            sparseValues[insert] = value;
+            sparseCount++;
+        }
     }
 
     public void escape(ValueNode materialized) {
@@ -130,6 +304,10 @@ public class ObjectState {
         assert materialized != null;
         materializedValue = materialized;
         entries = null;
+        defaultValue = null;
+        sparseIndexes = null;
+        sparseValues = null;
+        sparseCount = 0;
         cachedState = null;
         assert !isVirtual();
     }
@@ -185,7 +363,12 @@ public class ObjectState {
         if (locks != null) {
             str.append('l').append(locks).append(' ');
         }
-        if (entries != null) {
+        if (defaultValue != null) {
+            str.append("default=").append(defaultValue).append(' ');
+            for (int i = 0; i < sparseCount; i++) {
+                str.append("entry").append(sparseIndexes[i]).append('=').append(sparseValues[i]).append(' ');
+            }
+        } else if (entries != null) {
             for (int i = 0; i < entries.length; i++) {
                 str.append("entry").append(i).append('=').append(entries[i]).append(' ');
             }
@@ -201,7 +384,11 @@ public class ObjectState {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + Arrays.hashCode(entries);
+        if (isVirtual()) {
+            // sparse and full entries must have the same hash code
+            int count = getEntryCount();
+            result = prime * result + (count >= MaximumEscapeAnalysisArrayLength.getValue() ? count : Arrays.hashCode(entries));
+        }
         result = prime * result + (locks != null ? locks.monitorId.getLockDepth() : 0);
         result = prime * result + ((materializedValue == null) ? 0 : materializedValue.hashCode());
         return result;
@@ -216,7 +403,7 @@ public class ObjectState {
             return false;
         }
         ObjectState other = (ObjectState) obj;
-        if (!Arrays.equals(entries, other.entries)) {
+        if (!entriesEqual(other)) {
             return false;
         }
         if (!locksEqual(other)) {
@@ -232,6 +419,27 @@ public class ObjectState {
         return true;
     }
 
+    private boolean entriesEqual(ObjectState other) {
+        if (defaultValue == null && other.defaultValue == null) {
+            return Arrays.equals(entries, other.entries);
+        }
+        if (materializedValue != null || other.materializedValue != null) {
+            return materializedValue != null && other.materializedValue != null;
+        }
+        if (defaultValue == other.defaultValue) {
+            if (entryCount != other.entryCount || sparseCount != other.sparseCount) {
+                return false;
+            }
+            for (int i = 0; i < sparseCount; i++) {
+                if (sparseIndexes[i] != other.sparseIndexes[i] || sparseValues[i] != other.sparseValues[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Arrays.equals(getEntries(), other.getEntries());
+    }
+
     public ObjectState share() {
         copyOnWrite = true;
         return this;
@@ -69,6 +69,7 @@ import com.oracle.graal.nodes.spi.NodeWithState;
 import com.oracle.graal.nodes.spi.Virtualizable;
 import com.oracle.graal.nodes.spi.VirtualizableAllocation;
 import com.oracle.graal.nodes.spi.VirtualizerTool;
+import com.oracle.graal.nodes.virtual.VirtualArrayNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 import com.oracle.graal.phases.common.instrumentation.nodes.InstrumentationNode;
 
@@ -405,6 +406,16 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
         }
     }
 
+    @Override
+    protected List<?> getObjectIdentities(BlockT state) {
+        return new ArrayList<>(virtualObjects.subList(0, Math.min(state.getStateCount(), virtualObjects.size())));
+    }
+
+    @Override
+    protected boolean hasAliasedInputs(Node node) {
+        return super.hasAliasedInputs(node) || hasVirtualInputs.isMarked(node);
+    }
+
     @Override
     protected void processInitialLoopState(Loop<Block> loop, BlockT initialState) {
         for (PhiNode phi : ((LoopBeginNode) loop.getHeader().getBeginNode()).phis()) {
@@ -467,7 +478,7 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
 
     private static void processVirtualAtLoopExit(LoopExitNode exitNode, GraphEffectList effects, int object, ObjectState exitObjState, ObjectState initialObjState,
                     PartialEscapeBlockState<?> exitState) {
-        for (int i = 0; i < exitObjState.getEntries().length; i++) {
+        for (int i = 0; i < exitObjState.getEntryCount(); i++) {
             ValueNode value = exitState.getObjectState(object).getEntry(i);
             if (!(value instanceof VirtualObjectNode || value.isConstant())) {
                 if (exitNode.loopBegin().isPhiAtMerge(value) || initialObjState == null || !initialObjState.isVirtual() || initialObjState.getEntry(i) != value) {
@@ -484,6 +495,33 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
         return new MergeProcessor(merge);
     }
 
+    /**
+     * Key of the cached phi for one entry of a sparsely merged virtual array.
+     */
+    private static final class SparseEntry {
+        private final VirtualObjectNode virtual;
+        private final int index;
+
+        SparseEntry(VirtualObjectNode virtual, int index) {
+            this.virtual = virtual;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof SparseEntry) {
+                SparseEntry other = (SparseEntry) obj;
+                return virtual == other.virtual && index == other.index;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(virtual) * 31 + index;
+        }
+    }
+
     protected class MergeProcessor extends EffectsClosure<BlockT>.MergeProcessor {
 
         private HashMap<Object, ValuePhiNode> materializedPhis;
@@ -697,6 +735,10 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
             VirtualObjectNode virtual = virtualObjects.get(resultObject);
             int entryCount = virtual.entryCount();
 
+            if (canMergeSparse(virtual, getObject, states)) {
+                return mergeSparseObjectStates(resultObject, getObject, states);
+            }
+
             // determine all entries that have a two-slot value
             JavaKind[] twoSlotKinds = null;
             outer: for (int i = 0; i < states.length; i++) {
@@ -811,6 +853,122 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
             }
         }
 
+        /**
+         * Determines whether the incoming states of a virtual array can be merged without creating
+         * their full entries arrays: all of them must be sparse with the same default value, and
+         * there must be no {@code long} or {@code double} values in {@code int} slots.
+         */
+        private boolean canMergeSparse(VirtualObjectNode virtual, IntFunction<Integer> getObject, PartialEscapeBlockState<?>[] states) {
+            if (!(virtual instanceof VirtualArrayNode)) {
+                return false;
+            }
+            boolean intEntries = ((VirtualArrayNode) virtual).componentType().getJavaKind() == JavaKind.Int;
+            ValueNode defaultValue = null;
+            for (int i = 0; i < states.length; i++) {
+                ObjectState objectState = states[i].getObjectState(getObject.apply(i));
+                if (!objectState.isSparse() || (defaultValue != null && objectState.getDefaultValue() != defaultValue)) {
+                    return false;
+                }
+                defaultValue = objectState.getDefaultValue();
+                if (intEntries) {
+                    if (defaultValue.getStackKind().needsTwoSlots()) {
+                        return false;
+                    }
+                    for (int position = 0; position < objectState.getSparseCount(); position++) {
+                        if (objectState.getSparseValue(position).getStackKind().needsTwoSlots()) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Merges sparse virtual array states (see {@link #canMergeSparse}). Only the entries that
+         * differ from the default value in at least one predecessor are visited, so the cost is
+         * proportional to the number of written entries instead of the array length.
+         *
+         * @return true if materialization happened during the merge, false otherwise
+         */
+        private boolean mergeSparseObjectStates(int resultObject, IntFunction<Integer> getObject, PartialEscapeBlockState<?>[] states) {
+            VirtualObjectNode virtual = virtualObjects.get(resultObject);
+            ObjectState[] objectStates = new ObjectState[states.length];
+            int maxSparseCount = 0;
+            boolean ensureVirtual = true;
+            for (int i = 0; i < states.length; i++) {
+                objectStates[i] = states[i].getObjectState(getObject.apply(i));
+                maxSparseCount += objectStates[i].getSparseCount();
+                ensureVirtual &= objectStates[i].getEnsureVirtualized();
+            }
+            ValueNode defaultValue = objectStates[0].getDefaultValue();
+
+            // walk the ascending indexes of all predecessors in parallel
+            int[] indexes = new int[maxSparseCount];
+            ValueNode[] values = new ValueNode[maxSparseCount];
+            PhiNode[] phis = new PhiNode[maxSparseCount];
+            int count = 0;
+            int[] positions = new int[states.length];
+            while (true) {
+                int index = Integer.MAX_VALUE;
+                for (int i = 0; i < states.length; i++) {
+                    if (positions[i] < objectStates[i].getSparseCount()) {
+                        index = Math.min(index, objectStates[i].getSparseIndex(positions[i]));
+                    }
+                }
+                if (index == Integer.MAX_VALUE) {
+                    break;
+                }
+                ValueNode value = null;
+                boolean needsPhi = false;
+                for (int i = 0; i < states.length; i++) {
+                    ValueNode entry = defaultValue;
+                    if (positions[i] < objectStates[i].getSparseCount() && objectStates[i].getSparseIndex(positions[i]) == index) {
+                        entry = objectStates[i].getSparseValue(positions[i]);
+                        positions[i]++;
+                    }
+                    if (i == 0) {
+                        value = entry;
+                    } else if (entry != value) {
+                        needsPhi = true;
+                    }
+                }
+                indexes[count] = index;
+                values[count] = value;
+                if (needsPhi) {
+                    PhiNode phi = getPhi(new SparseEntry(virtual, index), value.stamp().unrestricted());
+                    if (!phi.stamp().isCompatible(value.stamp())) {
+                        phi = createValuePhi(value.stamp().unrestricted());
+                    }
+                    phis[count] = phi;
+                }
+                count++;
+            }
+
+            boolean materialized = false;
+            for (int position = 0; position < count; position++) {
+                PhiNode phi = phis[position];
+                if (phi != null) {
+                    int index = indexes[position];
+                    mergeEffects.addFloatingNode(phi, "virtualMergePhi");
+                    if (virtual.entryKind(index) == JavaKind.Object) {
+                        materialized |= mergeObjectEntry(getObject, states, phi, index);
+                    } else {
+                        for (int i = 0; i < states.length; i++) {
+                            ObjectState state = states[i].getObjectState(getObject.apply(i));
+                            if (!state.isVirtual()) {
+                                break;
+                            }
+                            setPhiInput(phi, i, state.getEntry(index));
+                        }
+                    }
+                    values[position] = phi;
+                }
+            }
+            newState.addObject(resultObject, new ObjectState(defaultValue, virtual.entryCount(), indexes, values, count, objectStates[0].getLocks(), ensureVirtual));
+            return materialized;
+        }
+
         /**
          * Fill the inputs of the PhiNode corresponding to one {@link JavaKind#Object} entry in the
          * virtual object.
@@ -73,6 +73,11 @@ public class PartialEscapePhase extends EffectsPhase<PhaseContext> {
         }
     }
 
+    @Override
+    public boolean isOptional() {
+        return true;
+    }
+
     @Override
     protected void run(StructuredGraph graph, PhaseContext context) {
         if (VirtualUtil.matches(graph, EscapeAnalyzeOnly.getValue())) {
@@ -1047,6 +1047,7 @@ suite = {
       "dependencies" : [
         "com.oracle.graal.api.directives",
         "com.oracle.graal.java",
+        "com.oracle.graal.printer",
         "com.oracle.graal.test",
         "com.oracle.graal.runtime",
         "com.oracle.graal.graph.test",